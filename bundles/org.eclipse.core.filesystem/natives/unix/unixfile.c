@@ -18,11 +18,15 @@
 #include <sys/stat.h>
 #include <unistd.h>
 #include <errno.h>
+#include <fcntl.h>
 #include <limits.h>
 #include <jni.h>
 
 #if defined MACOSX
 #include <CoreServices/CoreServices.h>
+#else
+#include <sys/ioctl.h>
+#include <linux/fs.h>
 #endif
 
 #include "unixfile.h"
@@ -242,11 +246,58 @@ JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_Unix
 {
 #ifdef MACOSX
 	return UNICODE_SUPPORTED | CHFLAGS_SUPPORTED;
+#elif defined FICLONE
+	return CLONEFILE_SUPPORTED;
 #else
 	return 0;
 #endif
 }
 
+/*
+ * Class:     org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives
+ * Method:    clonefile
+ * Signature: ([B[B)I
+ */
+JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives_clonefile
+  (JNIEnv *env, jclass clazz, jbyteArray source, jbyteArray destination)
+{
+#if !defined MACOSX && defined FICLONE
+	int code = -1;
+	int saved_errno;
+	int source_fd, destination_fd;
+	char *source_name, *destination_name;
+	struct stat info;
+
+	source_name = (char*) getByteArray(env, source);
+	destination_name = (char*) getByteArray(env, destination);
+	source_fd = open(source_name, O_RDONLY);
+	if (source_fd != -1) {
+		if (fstat(source_fd, &info) == 0) {
+			/* never replace an existing file, the caller falls back to a regular copy */
+			destination_fd = open(destination_name, O_WRONLY | O_CREAT | O_EXCL, info.st_mode & 0777);
+			if (destination_fd != -1) {
+				/* shares the data blocks, which are copied on write (btrfs, XFS with reflink) */
+				code = ioctl(destination_fd, FICLONE, source_fd);
+				saved_errno = errno;
+				close(destination_fd);
+				if (code != 0)
+					unlink(destination_name);
+				errno = saved_errno;
+			}
+		}
+		saved_errno = errno;
+		close(source_fd);
+		errno = saved_errno;
+	}
+	free(source_name);
+	free(destination_name);
+	return code;
+#else
+	errno = ENOTSUP;
+	return -1;
+#endif
+}
+
 /*
  * Class:     org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives
  * Method:    tounicode
@@ -17,6 +17,8 @@
 #define UNICODE_SUPPORTED 1L
 #undef CHFLAGS_SUPPORTED
 #define CHFLAGS_SUPPORTED 2L
+#undef CLONEFILE_SUPPORTED
+#define CLONEFILE_SUPPORTED 4L
 
 /*
  * Get a null-terminated byte array from a java byte array. The returned bytearray
@@ -103,6 +105,14 @@ JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_Unix
 JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives_libattr
   (JNIEnv *, jclass);
 
+/*
+ * Class:     org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives
+ * Method:    clonefile
+ * Signature: ([B[B)I
+ */
+JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives_clonefile
+  (JNIEnv *, jclass, jbyteArray, jbyteArray);
+
 /*
  * Class:     org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives
  * Method:    tounicode
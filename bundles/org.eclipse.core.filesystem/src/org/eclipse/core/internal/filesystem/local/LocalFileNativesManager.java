@@ -69,6 +69,13 @@ public class LocalFileNativesManager {
 		return HANDLER.putFileInfo(fileName, info, options);
 	}
 
+	/**
+	 * @see NativeHandler#cloneFile(String, String)
+	 */
+	public static boolean cloneFile(String source, String destination) {
+		return HANDLER.cloneFile(source, destination);
+	}
+
 	public static boolean isUsingNatives() {
 		return USING_NATIVES;
 	}
@@ -25,4 +25,15 @@ public abstract class NativeHandler {
 	public abstract FileInfo fetchFileInfo(String fileName);
 
 	public abstract boolean putFileInfo(String fileName, IFileInfo info, int options);
+
+	/**
+	 * Creates the destination file as a copy-on-write clone of the source file,
+	 * if the platform and file system support it. The destination must not exist.
+	 *
+	 * @return <code>true</code> if the clone has been created, and
+	 *         <code>false</code> if the file has to be copied some other way
+	 */
+	public boolean cloneFile(String source, String destination) {
+		return false;
+	}
 }
@@ -35,4 +35,9 @@ public class UnixFileHandler extends NativeHandler {
 	public boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		return UnixFileNatives.putFileInfo(fileName, info, options);
 	}
+
+	@Override
+	public boolean cloneFile(String source, String destination) {
+		return UnixFileNatives.cloneFile(source, destination);
+	}
 }
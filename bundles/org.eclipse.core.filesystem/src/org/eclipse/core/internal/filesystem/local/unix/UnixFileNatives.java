@@ -30,6 +30,7 @@ public abstract class UnixFileNatives {
 	private static final String LIBRARY_NAME = "unixfile_1_0_0"; //$NON-NLS-1$
 	private static final int UNICODE_SUPPORTED = 1 << 0;
 	private static final int CHFLAGS_SUPPORTED = 1 << 1;
+	private static final int CLONEFILE_SUPPORTED = 1 << 2;
 	private static final int ENOENT = 2; // errno value for "No such file or directory"
 
 	private static final boolean usingNatives;
@@ -161,6 +162,25 @@ public abstract class UnixFileNatives {
 		return code == 0;
 	}
 
+	/**
+	 * Creates the destination file as a copy-on-write clone of the source file
+	 * (a reflink), sharing the source's data blocks until either file is
+	 * modified. Only some file systems, such as btrfs or XFS, support this.
+	 *
+	 * @return <code>true</code> if the clone has been created, <code>false</code>
+	 *         if cloning is not supported or failed, in which case the
+	 *         destination has not been created
+	 */
+	public static boolean cloneFile(String source, String destination) {
+		if (!usingNatives || !isSupported(CLONEFILE_SUPPORTED))
+			return false;
+		byte[] sourceName = fileNameToBytes(source);
+		byte[] destinationName = fileNameToBytes(destination);
+		if (sourceName == null || destinationName == null)
+			return false;
+		return clonefile(sourceName, destinationName) == 0;
+	}
+
 	public static boolean isUsingNatives() {
 		return usingNatives;
 	}
@@ -211,4 +231,6 @@ public abstract class UnixFileNatives {
 
 	private static final native int getflag(byte[] buf);
 
+	private static final native int clonefile(byte[] source, byte[] destination);
+
 }
@@ -61,7 +61,7 @@ public class SpySupport {
 	 * Returns the number of bytes of memory occupied by the given marker set
 	 */
 	public static IMarkerSetElement[] getElements(MarkerSet markerSet) {
-		return markerSet.elements;
+		return markerSet.elements();
 	}
 	public static Object[] getElements(MarkerAttributeMap markerMap) {
 		ArrayList<Object> legacyElements = new ArrayList<>();
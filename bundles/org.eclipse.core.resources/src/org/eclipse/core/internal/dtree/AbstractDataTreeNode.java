@@ -431,7 +431,7 @@ public abstract class AbstractDataTreeNode {
 	/**
 	 * Returns the node's data
 	 */
-	Object getData() {
+	public Object getData() {
 		throw new AbstractMethodError(Messages.dtree_subclassImplement);
 	}
 
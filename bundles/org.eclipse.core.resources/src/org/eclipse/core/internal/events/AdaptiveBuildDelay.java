@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import org.eclipse.core.internal.utils.Policy;
+
+/**
+ * Computes the delay with which the autobuild job is scheduled after a
+ * workspace modification.
+ * <p>
+ * Outside of bursts of modifications, the delay is between
+ * {@link Policy#MIN_BUILD_DELAY} and {@link Policy#MAX_BUILD_DELAY}, depending
+ * on the time since the last autobuild. When modifications follow each other
+ * more quickly than that, or autobuilds are interrupted by modifications, the
+ * delay grows to twice the mean interval between the modifications of the
+ * burst, so that the autobuild starts soon after the burst ends instead of
+ * being started and interrupted during it. The delay never exceeds the mean
+ * autobuild duration, because waiting longer than a build takes saves nothing,
+ * nor {@link Policy#MAX_BURST_BUILD_DELAY}.
+ * </p>
+ * All times are in milliseconds.
+ */
+public class AdaptiveBuildDelay {
+	/**
+	 * The number of modifications in quick succession that start a burst
+	 */
+	static final int BURST_LENGTH = 3;
+
+	private long lastBuild;
+	private long lastModification;
+	/** The mean interval between the modifications of the current burst */
+	private long meanInterval;
+	/** The number of modifications in quick succession, up to BURST_LENGTH */
+	private int burstLength;
+	/** The number of autobuilds interrupted since the last completed one */
+	private int interruptedBuilds;
+	private long meanBuildDuration;
+	private long delay;
+
+	/**
+	 * Records a workspace modification that requires a build.
+	 */
+	public synchronized void modified(long now) {
+		long interval = now - lastModification;
+		lastModification = now;
+		if (interval >= 0 && interval < getMaxDelay()) {
+			meanInterval = burstLength == 0 ? interval : (3 * meanInterval + interval) / 4;
+			burstLength = Math.min(burstLength + 1, BURST_LENGTH);
+		} else {
+			// the previous burst has ended
+			meanInterval = 0;
+			burstLength = 0;
+			interruptedBuilds = 0;
+		}
+	}
+
+	/**
+	 * Records that an autobuild was interrupted by a workspace modification.
+	 */
+	public synchronized void buildInterrupted() {
+		interruptedBuilds++;
+	}
+
+	/**
+	 * Records a completed autobuild.
+	 *
+	 * @param duration the time the builders ran, or -1 if nothing needed to be
+	 * built
+	 * @param now the time the autobuild completed
+	 */
+	public synchronized void buildCompleted(long duration, long now) {
+		if (duration >= 0)
+			meanBuildDuration = meanBuildDuration == 0 ? duration : (meanBuildDuration + duration) / 2;
+		lastBuild = now;
+		interruptedBuilds = 0;
+	}
+
+	/**
+	 * Computes the delay to schedule the autobuild with.
+	 */
+	public synchronized long computeDelay(long now) {
+		// don't assume that the last build time is always less than the current system time
+		long base = Math.max(Policy.MIN_BUILD_DELAY, Math.min(Policy.MAX_BUILD_DELAY, Policy.MAX_BUILD_DELAY + lastBuild - now));
+		delay = base;
+		if (isBurst()) {
+			long burstDelay = 2 * Math.max(meanInterval, Policy.MIN_BUILD_DELAY) * (1 + interruptedBuilds);
+			delay = Math.max(base, Math.min(burstDelay, getMaxDelay()));
+		}
+		return delay;
+	}
+
+	/**
+	 * Returns the longest delay for bursts, which is the mean autobuild duration
+	 * bounded by {@link Policy#MAX_BUILD_DELAY} and
+	 * {@link Policy#MAX_BURST_BUILD_DELAY}.
+	 */
+	private long getMaxDelay() {
+		return Math.min(Policy.MAX_BURST_BUILD_DELAY, Math.max(Policy.MAX_BUILD_DELAY, meanBuildDuration));
+	}
+
+	/**
+	 * Returns whether the workspace is being modified in a burst.
+	 */
+	public synchronized boolean isBurst() {
+		return burstLength >= BURST_LENGTH || interruptedBuilds > 0;
+	}
+
+	/**
+	 * Returns the delay last computed.
+	 */
+	public synchronized long getDelay() {
+		return delay;
+	}
+
+	/**
+	 * Returns the mean interval between the modifications of the current burst,
+	 * or 0 if there is none.
+	 */
+	public synchronized long getMeanInterval() {
+		return meanInterval;
+	}
+
+	public synchronized long getMeanBuildDuration() {
+		return meanBuildDuration;
+	}
+
+	public synchronized int getInterruptedBuilds() {
+		return interruptedBuilds;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "AdaptiveBuildDelay [delay=" + delay + ", burst=" + isBurst() + ", meanInterval=" + meanInterval //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ ", interruptedBuilds=" + interruptedBuilds + ", meanBuildDuration=" + meanBuildDuration + ']'; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
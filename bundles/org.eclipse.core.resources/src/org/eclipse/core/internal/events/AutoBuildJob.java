@@ -11,6 +11,7 @@
  * Contributors:
  *     IBM - Initial API and implementation
  *     Warren Paul (Nokia) - Fix for build scheduling bug 209236
+ *     Contributors to the Eclipse Foundation - adaptive build delay
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
@@ -40,7 +41,7 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 	 */
 	private volatile boolean interrupted;
 	private volatile boolean isAutoBuilding;
-	private volatile long lastBuild = 0L;
+	private final AdaptiveBuildDelay buildDelay = new AdaptiveBuildDelay();
 	private Preferences preferences = ResourcesPlugin.getPlugin().getPluginPreferences();
 	private final Bundle systemBundle = Platform.getBundle("org.eclipse.osgi"); //$NON-NLS-1$
 	private Workspace workspace;
@@ -86,10 +87,12 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 	 */
 	synchronized void build(boolean needsBuild) {
 		buildNeeded |= needsBuild;
+		if (needsBuild)
+			buildDelay.modified(System.currentTimeMillis());
 		long delay = computeScheduleDelay();
 		int state = getState();
 		if (Policy.DEBUG_BUILD_NEEDED)
-			Policy.debug("Auto-Build requested, needsBuild: " + needsBuild + " state: " + state + " delay: " + delay); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			Policy.debug("Auto-Build requested, needsBuild: " + needsBuild + " state: " + state + " delay: " + delay + " " + buildDelay); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 		if (needsBuild && Policy.DEBUG_BUILD_NEEDED_STACK && state != Job.RUNNING)
 			Policy.debug(new RuntimeException("Build needed")); //$NON-NLS-1$
 		//don't mess with the interrupt flag if the job is still running
@@ -116,12 +119,13 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 
 	/**
 	 * Computes the delay time that autobuild should be scheduled with.  The
-	 * value will be in the range (MIN_BUILD_DELAY, MAX_BUILD_DELAY).
+	 * value will be in the range (MIN_BUILD_DELAY, MAX_BUILD_DELAY), or up to
+	 * MAX_BURST_BUILD_DELAY while the workspace is modified in a burst.
+	 *
+	 * @see AdaptiveBuildDelay
 	 */
 	private long computeScheduleDelay() {
-		// don't assume that the last build time is always less than the current system time
-		long maxDelay = Math.min(Policy.MAX_BUILD_DELAY, Policy.MAX_BUILD_DELAY + lastBuild - System.currentTimeMillis());
-		return Math.max(Policy.MIN_BUILD_DELAY, maxDelay);
+		return buildDelay.computeDelay(System.currentTimeMillis());
 	}
 
 	/**
@@ -138,15 +142,22 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 		buildNeeded = true;
 		//schedule a rebuild immediately if build was implicitly canceled
 		if (interrupted) {
+			buildDelay.buildInterrupted();
+			long delay = computeScheduleDelay();
 			if (Policy.DEBUG_BUILD_INTERRUPT)
-				Policy.debug("Scheduling rebuild due to interruption"); //$NON-NLS-1$
+				Policy.debug("Scheduling rebuild due to interruption, delay: " + delay + " " + buildDelay); //$NON-NLS-1$ //$NON-NLS-2$
 			setInterrupted(false);
-			schedule(computeScheduleDelay());
+			schedule(delay);
 		}
 		return Status.CANCEL_STATUS;
 	}
 
-	private void doBuild(IProgressMonitor monitor) throws CoreException, OperationCanceledException {
+	/**
+	 * Runs the autobuild.
+	 *
+	 * @return the time the builders ran, or -1 if nothing needed to be built
+	 */
+	private long doBuild(IProgressMonitor monitor) throws CoreException, OperationCanceledException {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, Policy.opWork + 1);
 		final ISchedulingRule rule = workspace.getRuleFactory().buildRule();
 		SubMonitor split = subMonitor.split(1); // will throw OperationCanceledException if autobuild canceled
@@ -156,9 +167,13 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 			final int trigger = IncrementalProjectBuilder.AUTO_BUILD;
 			workspace.broadcastBuildEvent(workspace, IResourceChangeEvent.PRE_BUILD, trigger);
 			IStatus result = Status.OK_STATUS;
+			long duration = -1;
 			try {
-				if (shouldBuild())
+				if (shouldBuild()) {
+					long start = System.currentTimeMillis();
 					result = workspace.getBuildManager().build(workspace.getBuildOrder(), ICoreConstants.EMPTY_BUILD_CONFIG_ARRAY, trigger, subMonitor.split(Policy.opWork));
+					duration = System.currentTimeMillis() - start;
+				}
 			} finally {
 				//always send POST_BUILD if there has been a PRE_BUILD
 				workspace.broadcastBuildEvent(workspace, IResourceChangeEvent.POST_BUILD, trigger);
@@ -167,6 +182,7 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 				throw new ResourceException(result);
 			}
 			buildNeeded = false;
+			return duration;
 		} finally {
 			//building may close the tree, but we are still inside an
 			// operation so open it
@@ -212,6 +228,13 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 			avoidBuild = false;
 	}
 
+	/**
+	 * Returns the state of the autobuild delay.
+	 */
+	AdaptiveBuildDelay getBuildDelay() {
+		return buildDelay;
+	}
+
 	synchronized boolean isInterrupted() {
 		if (interrupted)
 			return true;
@@ -252,8 +275,8 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 		if (systemBundle.getState() == Bundle.STOPPING)
 			return Status.OK_STATUS;
 		try {
-			doBuild(subMonitor.split(1));
-			lastBuild = System.currentTimeMillis();
+			long duration = doBuild(subMonitor.split(1));
+			buildDelay.buildCompleted(duration, System.currentTimeMillis());
 			//if the build was successful then it should not be recorded as interrupted
 			setInterrupted(false);
 			return Status.OK_STATUS;
@@ -16,15 +16,20 @@
  *     Broadcom Corporation - ongoing development
  *     Lars Vogel <Lars.Vogel@vogella.com> - Bug 473427
  *     Torbjörn Svensson (STMicroelectronics) - bug #552606
+ *     Contributors to the Eclipse Foundation - critical path aware parallel builds, build statistics,
+ *         declared builder scheduling rules, multi-entry delta cache, builder interest filters,
+ *         adaptive autobuild delay, shared and collapsed last built trees
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.eclipse.core.internal.dtree.AbstractDataTreeNode;
 import org.eclipse.core.internal.dtree.DeltaDataTree;
+import org.eclipse.core.internal.dtree.NoDataDeltaNode;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph;
 import org.eclipse.core.internal.utils.Messages;
@@ -43,30 +48,73 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	/**
 	 * Cache used to optimize the common case of an autobuild against
 	 * a workspace where only a single project has changed (and hence
-	 * only a single delta is interesting).
+	 * only a single delta is interesting). It holds the deltas of the
+	 * most recently used pairs of trees, so that the builders of a project
+	 * that were last built against different trees do not compute them again.
+	 * At the end of a build only the deltas from trees that a builder still
+	 * last built against are kept. As the current tree changes with every
+	 * modification, a later build only reuses them if nothing changed since.
 	 */
 	static class DeltaCache<E> {
-		private final Map<IPath, E> deltas = new HashMap<>();
-		private ElementTree newTree;
-		private ElementTree oldTree;
+		/**
+		 * The deltas computed between two trees, by project.
+		 */
+		private static final class Entry<E> {
+			final ElementTree oldTree;
+			final ElementTree newTree;
+			final Map<IPath, E> deltas = new HashMap<>();
+
+			Entry(ElementTree oldTree, ElementTree newTree) {
+				this.oldTree = oldTree;
+				this.newTree = newTree;
+			}
+		}
 
-		public void flush() {
-			deltas.clear();
-			this.oldTree = null;
-			this.newTree = null;
+		private final int maxEntries;
+		/** The entries, most recently used first */
+		private final LinkedList<Entry<E>> entries = new LinkedList<>();
+
+		/**
+		 * @param maxEntries the maximum number of pairs of trees to keep the
+		 * deltas of. Each entry keeps its trees from being garbage collected.
+		 */
+		DeltaCache(int maxEntries) {
+			this.maxEntries = maxEntries;
+		}
+
+		public synchronized void flush() {
+			entries.clear();
+		}
+
+		/**
+		 * Drops the deltas whose old tree is none of the given trees, so that the
+		 * cache does not keep trees no builder will compute a delta from again.
+		 */
+		public synchronized void retainOldTrees(Set<ElementTree> oldTrees) {
+			entries.removeIf(entry -> !oldTrees.contains(entry.oldTree));
 		}
 
 		/**
 		 * Returns the cached resource delta for the given project and trees, or
 		 * calls calculator to compute a new delta if there is no matching one in the cache.
 		 */
-		public E computeIfAbsent(IPath project, ElementTree anOldTree, ElementTree aNewTree, Supplier<E> calculator) {
-			if (!(areEqual(this.oldTree, anOldTree) && areEqual(this.newTree, aNewTree))) {
-				this.oldTree = anOldTree;
-				this.newTree = aNewTree;
-				deltas.clear();
+		public synchronized E computeIfAbsent(IPath project, ElementTree anOldTree, ElementTree aNewTree, Supplier<E> calculator) {
+			Entry<E> entry = null;
+			for (Iterator<Entry<E>> it = entries.iterator(); it.hasNext();) {
+				Entry<E> candidate = it.next();
+				if (areEqual(candidate.oldTree, anOldTree) && areEqual(candidate.newTree, aNewTree)) {
+					it.remove();
+					entry = candidate;
+					break;
+				}
 			}
-			return deltas.computeIfAbsent(project, p -> calculator.get());
+			if (entry == null) {
+				entry = new Entry<>(anOldTree, aNewTree);
+				if (entries.size() >= maxEntries)
+					entries.removeLast();
+			}
+			entries.addFirst(entry);
+			return entry.deltas.computeIfAbsent(project, p -> calculator.get());
 		}
 
 		private static boolean areEqual(ElementTree cached, ElementTree requested) {
@@ -111,6 +159,17 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 
 	private static final int TOTAL_BUILD_WORK = Policy.totalWork * 1000;
 
+	/**
+	 * The number of pairs of trees the delta caches keep the deltas of
+	 */
+	private static final int DELTA_CACHE_SIZE = 8;
+
+	/**
+	 * Values of the schedulingRule builder extension attribute
+	 */
+	static final String RULE_PROJECT = "project"; //$NON-NLS-1$
+	static final String RULE_FOLDER = "folder"; //$NON-NLS-1$
+
 	//the job for performing background autobuild
 	final AutoBuildJob autoBuildJob;
 	private final Set<IProject> builtProjects = Collections.synchronizedSet(new HashSet<>());
@@ -122,13 +181,21 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	private ElementTree currentTree;
 
 	/**
-	 * Caches the IResourceDelta for a pair of trees
+	 * The numbers of changed resources per project in the delta tree they were
+	 * counted in, shared by the builders run against the same delta tree. Only
+	 * accessed while holding the workspace lock, cleared at the end of a build.
 	 */
-	final private DeltaCache<IResourceDelta> deltaCache = new DeltaCache<>();
+	private DeltaDataTree countedDelta;
+	private final Map<IPath, Long> changeCounts = new HashMap<>();
+
+	/**
+	 * Caches the IResourceDelta for recently used pairs of trees
+	 */
+	final private DeltaCache<IResourceDelta> deltaCache = new DeltaCache<>(DELTA_CACHE_SIZE);
 	/**
 	 * Caches the DeltaDataTree used to determine if a build is necessary
 	 */
-	final private DeltaCache<DeltaDataTree> deltaTreeCache = new DeltaCache<>();
+	final private DeltaCache<DeltaDataTree> deltaTreeCache = new DeltaCache<>(DELTA_CACHE_SIZE);
 
 	private ILock lock;
 
@@ -167,6 +234,25 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	// protects against concurrent access of session stored builders during builder initialization
 	private Object builderInitializationLock = new Object();
 
+	private final BuildStatistics buildStatistics = new BuildStatistics();
+
+	/**
+	 * Limits the memory held by the last built trees of the builders
+	 */
+	private final LastBuiltTrees lastBuiltTrees;
+
+	/**
+	 * The scheduling rules held by the builders that are running, for the rule
+	 * conflict diagnostics
+	 */
+	private final Map<InternalBuilder, ISchedulingRule> heldRules = new ConcurrentHashMap<>();
+
+	/**
+	 * The trees the instantiated builders last built against, weakly keyed by
+	 * the builder
+	 */
+	private final Map<InternalBuilder, ElementTree> builderTrees = new WeakHashMap<>();
+
 	//used for debug/trace timing
 	private long timeStamp = -1;
 	private long overallTimeStamp = -1;
@@ -176,6 +262,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		this.workspace = workspace;
 		this.currentBuilders = Collections.synchronizedSet(new HashSet<>());
 		this.autoBuildJob = new AutoBuildJob(workspace);
+		this.lastBuiltTrees = new LastBuiltTrees(workspace, this);
 		projectsToRebuild = ConcurrentHashMap.newKeySet();
 		restartBuildImmediately = new ConcurrentHashMap<>();
 		this.lock = workspaceLock;
@@ -217,16 +304,22 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			// For incremental builds, grab a pointer to the current state before computing the delta
 			currentTree = ((trigger == IncrementalProjectBuilder.FULL_BUILD) || clean) ? null : workspace.getElementTree();
 			int depth = -1;
+			long buildStart = -1;
+			long ruleWaitTime = 0;
+			long deltaSize = -1;
 			ISchedulingRule rule = null;
 			try {
 				//short-circuit if none of the projects this builder cares about have changed.
 				if (!needsBuild(currentBuilder, trigger)) {
+					buildStatistics.recordSkip(currentBuilder.getBuildConfig(), currentBuilder.getCommand().getBuilderName());
 					//use up the progress allocated for this builder
 					monitor.beginTask("", 1); //$NON-NLS-1$
 					monitor.done();
 					return;
 				}
-				rule = builder.getRule(trigger, args);
+				if (currentDelta != null)
+					deltaSize = countChanges(currentDelta, builder.getProject().getFullPath());
+				rule = getBuilderRule(builder, trigger, args);
 				String name = currentBuilder.getLabel();
 				String message;
 				if (name != null) {
@@ -244,13 +337,20 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 				depth = getWorkManager().beginUnprotected();
 				// Acquire the rule required for running this builder
 				if (rule != null) {
+					long ruleWaitStart = System.nanoTime();
+					List<InternalBuilder> blockers = Policy.DEBUG_BUILD_RULES ? getConflictingBuilders(currentBuilder, rule) : null;
 					Job.getJobManager().beginRule(rule, monitor);
+					ruleWaitTime = System.nanoTime() - ruleWaitStart;
+					heldRules.put(currentBuilder, rule);
+					if (blockers != null && !blockers.isEmpty())
+						debugRuleConflict(currentBuilder, rule, blockers, ruleWaitTime);
 					// Now that we've acquired the rule, changes may have been made concurrently, ensure we're pointing at the
 					// correct currentTree so delta contains concurrent changes made in areas guarded by the scheduling rule
 					if (currentTree != null)
 						currentTree = workspace.getElementTree();
 				}
 				//do the build
+				buildStart = System.nanoTime();
 				SafeRunner.run(getSafeRunnable(currentBuilder, trigger, args, status, monitor));
 			} finally {
 				// Re-acquire the WS lock, then release the scheduling rule
@@ -258,6 +358,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 					getWorkManager().endUnprotected(depth);
 				}
 				if (rule != null) {
+					heldRules.remove(currentBuilder);
 					Job.getJobManager().endRule(rule);
 				}
 				// Be sure to clean up after ourselves.
@@ -274,7 +375,12 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 					// remember the current state as the last built state.
 					ElementTree lastTree = workspace.getElementTree();
 					lastTree.immutable();
-					currentBuilder.setLastBuiltTree(lastTree);
+					currentBuilder.setLastBuiltTree(lastBuiltTrees.share(lastTree));
+				}
+				if (buildStart != -1) {
+					long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - buildStart);
+					recordBuildDuration(currentBuilder, duration);
+					buildStatistics.recordBuild(currentBuilder.getBuildConfig(), currentBuilder.getCommand().getBuilderName(), duration, TimeUnit.NANOSECONDS.toMillis(ruleWaitTime), deltaSize);
 				}
 				hookEndBuild(builder);
 			}
@@ -406,6 +512,75 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		}
 	}
 
+	/**
+	 * Returns the estimated duration in milliseconds of a build of the given
+	 * configuration, the sum of the estimated durations of its builders. Builders
+	 * that were not instantiated in this session contribute the duration stored
+	 * in their persistent info, unknown durations count as 0.
+	 */
+	long estimateBuildDuration(IBuildConfiguration config) {
+		IProject project = config.getProject();
+		ProjectDescription description = ((Project) project).internalGetDescription();
+		if (description == null)
+			return 0;
+		ArrayList<BuilderPersistentInfo> infos;
+		try {
+			infos = getBuildersPersistentInfo(project);
+		} catch (CoreException e) {
+			infos = null;
+		}
+		ICommand[] commands = description.getBuildSpec(false);
+		long duration = 0;
+		for (int i = 0; i < commands.length; i++) {
+			BuildCommand command = (BuildCommand) commands[i];
+			IncrementalProjectBuilder builder = command.getBuilder(config);
+			if (builder != null) {
+				duration += ((InternalBuilder) builder).getBuildDuration();
+			} else if (infos != null) {
+				BuilderPersistentInfo info = getBuilderInfo(infos, command.getBuilderName(), command.supportsConfigs() ? config.getName() : null, i);
+				if (info != null)
+					duration += info.getBuildDuration();
+			}
+		}
+		return duration;
+	}
+
+	/**
+	 * Returns the number of changed resources below the given path in a delta
+	 * between two workspace trees. Each subtree of a delta tree is only counted
+	 * once per build.
+	 */
+	private long countChanges(DeltaDataTree delta, IPath path) {
+		if (delta != countedDelta) {
+			countedDelta = delta;
+			changeCounts.clear();
+		}
+		return changeCounts.computeIfAbsent(path, p -> countChanges(delta.findNodeAt(p)));
+	}
+
+	/**
+	 * Returns the number of changed resources in the given subtree of a delta
+	 * between two workspace trees, or 0 if the subtree is <code>null</code>.
+	 */
+	private static long countChanges(AbstractDataTreeNode node) {
+		if (node == null)
+			return 0;
+		long count = node instanceof NoDataDeltaNode ? 0 : 1;
+		for (AbstractDataTreeNode child : node.getChildren())
+			count += countChanges(child);
+		return count;
+	}
+
+	/**
+	 * Updates the estimated build duration of the given builder with the duration
+	 * of the build it just finished. The estimate is the mean of the previous
+	 * estimate and the last duration, so older builds fade out quickly.
+	 */
+	private void recordBuildDuration(InternalBuilder builder, long duration) {
+		long estimate = builder.getBuildDuration();
+		builder.setBuildDuration(estimate == 0 ? duration : (estimate + duration) / 2);
+	}
+
 	/**
 	 * Runs the builder with the given name on the given project config.
 	 * @return A status indicating if the build succeeded or failed
@@ -601,7 +776,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			} catch (CoreException ex) {
 				status.add(new Status(IStatus.ERROR, ResourcesPlugin.PI_RESOURCES, ex.getMessage(), ex));
 			}
-		}, config -> getRule(config, trigger, null, Collections.emptyMap()), buildJobGroup);
+		}, config -> getRule(config, trigger, null, Collections.emptyMap()), this::estimateBuildDuration, buildJobGroup);
 		graphProcessor.processGraphWithParallelJobs();
 		try {
 			Job.getJobManager().join(graphProcessor, monitor);
@@ -696,6 +871,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 						info = new BuilderPersistentInfo(project.getName(), supportsConfigs ? config.getName() : null, builderName, i);
 						info.setLastBuildTree(oldTree);
 						info.setInterestingProjects(((InternalBuilder) builder).getInterestingProjects());
+						info.setBuildDuration(((InternalBuilder) builder).getBuildDuration());
 					}
 				}
 				if (info != null)
@@ -894,6 +1070,31 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		return nameMatch;
 	}
 
+	/**
+	 * Returns the state of the delay the autobuild is scheduled with.
+	 */
+	public AdaptiveBuildDelay getAutoBuildDelay() {
+		return autoBuildJob.getBuildDelay();
+	}
+
+	/**
+	 * Returns the distinct trees the instantiated builders last built against.
+	 */
+	Set<ElementTree> getBuilderTrees() {
+		Set<ElementTree> trees = Collections.newSetFromMap(new IdentityHashMap<>());
+		synchronized (builderTrees) {
+			trees.addAll(builderTrees.values());
+		}
+		return trees;
+	}
+
+	/**
+	 * Returns the statistics of the builds run by this build manager.
+	 */
+	public BuildStatistics getBuildStatistics() {
+		return buildStatistics;
+	}
+
 	/**
 	 * Returns a list of BuilderPersistentInfo.
 	 * The list includes entries for all builders that are in the builder spec,
@@ -1060,6 +1261,20 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 				//make sure the builder persistent info is deleted for the project move case
 				if (project.isAccessible())
 					setBuildersPersistentInfo(project, null);
+				forgetBuilderTrees(project);
+				break;
+			case LifecycleEvent.PRE_PROJECT_CLOSE :
+				forgetBuilderTrees((IProject) event.resource);
+		}
+	}
+
+	/**
+	 * Forgets the trees of the builders of the given project, which is about to
+	 * be closed, deleted or moved.
+	 */
+	private void forgetBuilderTrees(IProject project) {
+		synchronized (builderTrees) {
+			builderTrees.keySet().removeIf(builder -> project.equals(builder.getProject()));
 		}
 	}
 
@@ -1091,8 +1306,12 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	 */
 	private void hookEndBuild(int trigger) {
 		builtProjects.clear();
-		deltaCache.flush();
-		deltaTreeCache.flush();
+		countedDelta = null;
+		changeCounts.clear();
+		Set<ElementTree> trees = getBuilderTrees();
+		deltaCache.retainOldTrees(trees);
+		deltaTreeCache.retainOldTrees(trees);
+		lastBuiltTrees.buildFinished();
 		//ensure autobuild runs after a clean
 		if (trigger == IncrementalProjectBuilder.CLEAN_BUILD)
 			autoBuildJob.forceBuild();
@@ -1160,6 +1379,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 				builder.setLastBuiltTree(tree);
 			}
 			builder.setInterestingProjects(info.getInterestingProjects());
+			builder.setBuildDuration(info.getBuildDuration());
 		}
 		builder.setCommand(command);
 		builder.setBuildConfig(buildConfiguration);
@@ -1210,6 +1430,23 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		builder.setLabel(extension.getLabel());
 		builder.setNatureId(natureId);
 		builder.setCallOnEmptyDelta(getBooleanAttribute(configs[0], "callOnEmptyDelta")); //$NON-NLS-1$
+		String declaredRule = configs[0].getAttribute("schedulingRule"); //$NON-NLS-1$
+		if (RULE_FOLDER.equals(declaredRule)) {
+			String folder = configs[0].getAttribute("schedulingRuleFolder"); //$NON-NLS-1$
+			IPath folderPath = folder == null ? Path.EMPTY : Path.fromPortableString(folder).makeRelative();
+			// without a folder the builder is confined to its project
+			if (folderPath.isEmpty())
+				builder.setDeclaredRule(RULE_PROJECT, null);
+			else
+				builder.setDeclaredRule(RULE_FOLDER, folderPath);
+		} else if (RULE_PROJECT.equals(declaredRule)) {
+			builder.setDeclaredRule(RULE_PROJECT, null);
+		}
+		for (IConfigurationElement interest : configs[0].getChildren("interest")) { //$NON-NLS-1$
+			String kind = interest.getAttribute("kind"); //$NON-NLS-1$
+			int types = "file".equals(kind) ? IResource.FILE : "folder".equals(kind) ? IResource.FOLDER : IResource.NONE; //$NON-NLS-1$ //$NON-NLS-2$
+			builder.addInterestFilter(types, interest.getAttribute("pattern"), interest.getAttribute("contentType")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
 		return (IncrementalProjectBuilder) builder;
 	}
 
@@ -1301,7 +1538,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 
 
 		//search for the builder's project
-		if (currentDelta.findNodeAt(builder.getProject().getFullPath()) != null) {
+		if (hasInterestingChanges(builder, builder.getProject(), oldTree, newTree)) {
 			if (Policy.DEBUG_BUILD_NEEDED)
 				debugCurrentDeltaNeedsBuilder(builder);
 			return true;
@@ -1310,7 +1547,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		//search for builder's interesting projects
 		IProject[] projects = builder.getInterestingProjects();
 		for (IProject project : projects) {
-			if (currentDelta.findNodeAt(project.getFullPath()) != null) {
+			if (hasInterestingChanges(builder, project, oldTree, newTree)) {
 				if (Policy.DEBUG_BUILD_NEEDED)
 					debugCurrentDeltaNeedsBuilder(builder);
 				return true;
@@ -1319,6 +1556,22 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		return false;
 	}
 
+	/**
+	 * Returns whether the current delta contains changes of the given project
+	 * that match the interest filters of the given builder.
+	 */
+	private boolean hasInterestingChanges(InternalBuilder builder, IProject project, ElementTree oldTree, ElementTree newTree) {
+		AbstractDataTreeNode projectNode = currentDelta.findNodeAt(project.getFullPath());
+		if (projectNode == null)
+			return false;
+		InterestFilter[] filters = builder.getInterestFilters();
+		if (filters == null || InterestFilter.hasMatchingChanges(filters, projectNode, project.getFullPath(), oldTree, newTree))
+			return true;
+		if (Policy.DEBUG_BUILD_NEEDED)
+			Policy.debug(toString(builder) + " is not interested in the changes of " + project.getFullPath()); //$NON-NLS-1$
+		return false;
+	}
+
 	private void debugCurrentDeltaNeedsBuilder(InternalBuilder builder) {
 		String builderString = toString(builder);
 		debugCurrentProjectDeltaNeedsBuilder(builderString, builder.getProject());
@@ -1481,14 +1734,34 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		return new QualifiedName(ResourcesPlugin.PI_RESOURCES, BUILDER_INIT + builderName);
 	}
 
+	/**
+	 * Called when the tree the given builder last built against changed.
+	 */
+	void lastBuiltTreeChanged(InternalBuilder builder, ElementTree tree) {
+		synchronized (builderTrees) {
+			if (tree == null)
+				builderTrees.remove(builder);
+			else
+				builderTrees.put(builder, tree);
+		}
+	}
+
 	@Override
 	public void shutdown(IProgressMonitor monitor) {
 		autoBuildJob.cancel();
+		lastBuiltTrees.shutdown();
+		deltaCache.flush();
+		deltaTreeCache.flush();
+		synchronized (builderTrees) {
+			builderTrees.clear();
+		}
+		buildStatistics.unregisterMBean();
 	}
 
 	@Override
 	public void startup(IProgressMonitor monitor) {
 		workspace.addLifecycleListener(this);
+		buildStatistics.registerMBean();
 	}
 
 	/**
@@ -1532,6 +1805,48 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		return project.isNatureEnabled(nature);
 	}
 
+	/**
+	 * Returns the scheduling rule for running the given builder. The workspace
+	 * root rule, which builders return unless they override
+	 * {@link IncrementalProjectBuilder#getRule(int, Map)}, is replaced by the rule
+	 * declared in the builder extension, if any, so that the builders of different
+	 * projects can run in parallel.
+	 */
+	private ISchedulingRule getBuilderRule(IncrementalProjectBuilder builder, int trigger, Map<String, String> args) {
+		ISchedulingRule rule = builder.getRule(trigger, args);
+		if (rule != null && rule.equals(workspace.getRoot())) {
+			ISchedulingRule declaredRule = ((InternalBuilder) builder).getDeclaredRule();
+			if (declaredRule != null)
+				return declaredRule;
+		}
+		return rule;
+	}
+
+	/**
+	 * Returns the running builders holding a scheduling rule that conflicts with the
+	 * given rule of the given builder.
+	 */
+	private List<InternalBuilder> getConflictingBuilders(InternalBuilder builder, ISchedulingRule rule) {
+		List<InternalBuilder> result = new ArrayList<>();
+		heldRules.forEach((other, otherRule) -> {
+			if (other != builder && rule.isConflicting(otherRule))
+				result.add(other);
+		});
+		return result;
+	}
+
+	private void debugRuleConflict(InternalBuilder builder, ISchedulingRule rule, List<InternalBuilder> blockers, long waitTime) {
+		StringBuilder message = new StringBuilder("Builder ").append(toString(builder)).append(" on ").append(builder.getProject().getName()); //$NON-NLS-1$ //$NON-NLS-2$
+		message.append(" waited ").append(TimeUnit.NANOSECONDS.toMillis(waitTime)).append("ms for rule ").append(rule).append(", blocked by:"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (InternalBuilder blocker : blockers) {
+			// the blocker may have released its rule in the meantime
+			ISchedulingRule held = heldRules.get(blocker);
+			if (held != null)
+				message.append(' ').append(toString(blocker)).append(" on ").append(blocker.getProject().getName()).append(" holding ").append(held).append(';'); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		Policy.debug(message.toString());
+	}
+
 	/**
 	 * Returns the scheduling rule that is required for building the project.
 	 */
@@ -1556,7 +1871,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 					try {
 						IncrementalProjectBuilder builder = getBuilder(buildConfiguration, command, i, status, context);
 						if (builder != null) {
-							ISchedulingRule builderRule = builder.getRule(trigger, allArgs);
+							ISchedulingRule builderRule = getBuilderRule(builder, trigger, allArgs);
 							if (builderRule != null)
 								rules.add(builderRule);
 							else
@@ -1586,7 +1901,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			try {
 				IncrementalProjectBuilder builder = getBuilder(buildConfiguration, command, -1, status);
 				if (builder != null)
-					return builder.getRule(trigger, allArgs);
+					return getBuilderRule(builder, trigger, allArgs);
 
 			} catch (CoreException e) {
 				status.add(e.getStatus());
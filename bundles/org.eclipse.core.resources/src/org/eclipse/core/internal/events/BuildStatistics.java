@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+import javax.management.*;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.resources.IBuildConfiguration;
+import org.eclipse.core.resources.IBuildStatistics;
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * Records the statistics of the builders run by the {@link BuildManager}.
+ * Recording a build costs a few array writes under the lock of the builder's
+ * and the build configuration's statistics, so it is always enabled.
+ */
+public class BuildStatistics implements IBuildStatistics {
+	static final String MBEAN_NAME = "org.eclipse.core.resources:type=BuildStatistics"; //$NON-NLS-1$
+
+	/**
+	 * The statistics of a builder or a build configuration, as they are recorded.
+	 */
+	private static final class Accumulator {
+		private long buildCount;
+		private long skipCount;
+		private long totalBuildTime;
+		private long maxBuildTime;
+		private long totalRuleWaitTime;
+		/** Ring buffers of the last build times and delta sizes, next is the index of the oldest entry */
+		private final long[] recentBuildTimes = new long[RECENT_BUILDS];
+		private final long[] recentDeltaSizes = new long[RECENT_BUILDS];
+		private int next;
+		private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+		synchronized void recordBuild(long buildTime, long ruleWaitTime, long deltaSize) {
+			buildCount++;
+			totalBuildTime += buildTime;
+			maxBuildTime = Math.max(maxBuildTime, buildTime);
+			totalRuleWaitTime += ruleWaitTime;
+			recentBuildTimes[next] = buildTime;
+			recentDeltaSizes[next] = deltaSize;
+			next = (next + 1) % RECENT_BUILDS;
+			histogram[Math.min(64 - Long.numberOfLeadingZeros(buildTime), HISTOGRAM_BUCKETS - 1)]++;
+		}
+
+		synchronized void recordSkip() {
+			skipCount++;
+		}
+
+		synchronized Record snapshot() {
+			int count = (int) Math.min(buildCount, RECENT_BUILDS);
+			long[] times = new long[count];
+			long[] sizes = new long[count];
+			for (int i = 0; i < count; i++) {
+				int index = (next - count + i + RECENT_BUILDS) % RECENT_BUILDS;
+				times[i] = recentBuildTimes[index];
+				sizes[i] = recentDeltaSizes[index];
+			}
+			return new Snapshot(buildCount, skipCount, totalBuildTime, maxBuildTime, totalRuleWaitTime, times, sizes, histogram.clone());
+		}
+	}
+
+	private static final class Snapshot implements Record {
+		private final long buildCount;
+		private final long skipCount;
+		private final long totalBuildTime;
+		private final long maxBuildTime;
+		private final long totalRuleWaitTime;
+		private final long[] recentBuildTimes;
+		private final long[] recentDeltaSizes;
+		private final long[] histogram;
+
+		Snapshot(long buildCount, long skipCount, long totalBuildTime, long maxBuildTime, long totalRuleWaitTime, long[] recentBuildTimes, long[] recentDeltaSizes, long[] histogram) {
+			this.buildCount = buildCount;
+			this.skipCount = skipCount;
+			this.totalBuildTime = totalBuildTime;
+			this.maxBuildTime = maxBuildTime;
+			this.totalRuleWaitTime = totalRuleWaitTime;
+			this.recentBuildTimes = recentBuildTimes;
+			this.recentDeltaSizes = recentDeltaSizes;
+			this.histogram = histogram;
+		}
+
+		@Override
+		public long getBuildCount() {
+			return buildCount;
+		}
+
+		@Override
+		public long getSkipCount() {
+			return skipCount;
+		}
+
+		@Override
+		public long getTotalBuildTime() {
+			return totalBuildTime;
+		}
+
+		@Override
+		public long getMaxBuildTime() {
+			return maxBuildTime;
+		}
+
+		@Override
+		public long getTotalRuleWaitTime() {
+			return totalRuleWaitTime;
+		}
+
+		@Override
+		public long[] getRecentBuildTimes() {
+			return recentBuildTimes.clone();
+		}
+
+		@Override
+		public long[] getRecentDeltaSizes() {
+			return recentDeltaSizes.clone();
+		}
+
+		@Override
+		public long[] getBuildTimeHistogram() {
+			return histogram.clone();
+		}
+	}
+
+	/**
+	 * The statistics of a build configuration and of each of its builders.
+	 */
+	private static final class ConfigurationStatistics {
+		final Accumulator total = new Accumulator();
+		final Map<String, Accumulator> builders = new ConcurrentHashMap<>();
+
+		Accumulator builder(String builderName) {
+			return builders.computeIfAbsent(builderName, name -> new Accumulator());
+		}
+	}
+
+	/**
+	 * Publishes the statistics through JMX.
+	 */
+	private final class Management implements BuildStatisticsMXBean {
+
+		private Record record(String configuration, String builderName) {
+			for (IBuildConfiguration config : configurations.keySet())
+				if (toString(config).equals(configuration))
+					return builderName == null || builderName.isEmpty() ? getRecord(config) : getRecord(config, builderName);
+			return null;
+		}
+
+		private long get(String configuration, String builderName, ToLongFunction<Record> value) {
+			Record record = record(configuration, builderName);
+			return record == null ? 0 : value.applyAsLong(record);
+		}
+
+		private String toString(IBuildConfiguration config) {
+			return config.getProject().getName() + '/' + config.getName();
+		}
+
+		@Override
+		public String[] getBuildConfigurations() {
+			return configurations.keySet().stream().map(this::toString).sorted().toArray(String[]::new);
+		}
+
+		@Override
+		public String[] getBuilderNames(String configuration) {
+			for (IBuildConfiguration config : configurations.keySet())
+				if (toString(config).equals(configuration))
+					return BuildStatistics.this.getBuilderNames(config);
+			return new String[0];
+		}
+
+		@Override
+		public long getBuildCount(String configuration, String builderName) {
+			return get(configuration, builderName, Record::getBuildCount);
+		}
+
+		@Override
+		public long getSkipCount(String configuration, String builderName) {
+			return get(configuration, builderName, Record::getSkipCount);
+		}
+
+		@Override
+		public long getTotalBuildTime(String configuration, String builderName) {
+			return get(configuration, builderName, Record::getTotalBuildTime);
+		}
+
+		@Override
+		public long getMaxBuildTime(String configuration, String builderName) {
+			return get(configuration, builderName, Record::getMaxBuildTime);
+		}
+
+		@Override
+		public long getTotalRuleWaitTime(String configuration, String builderName) {
+			return get(configuration, builderName, Record::getTotalRuleWaitTime);
+		}
+
+		@Override
+		public long[] getRecentBuildTimes(String configuration, String builderName) {
+			Record record = record(configuration, builderName);
+			return record == null ? new long[0] : record.getRecentBuildTimes();
+		}
+
+		@Override
+		public long[] getRecentDeltaSizes(String configuration, String builderName) {
+			Record record = record(configuration, builderName);
+			return record == null ? new long[0] : record.getRecentDeltaSizes();
+		}
+
+		@Override
+		public long[] getBuildTimeHistogram(String configuration, String builderName) {
+			Record record = record(configuration, builderName);
+			return record == null ? new long[HISTOGRAM_BUCKETS] : record.getBuildTimeHistogram();
+		}
+
+		@Override
+		public int getLastBuiltTrees() {
+			return lastBuiltTrees;
+		}
+
+		@Override
+		public int getLastBuiltTreeLayers() {
+			return lastBuiltTreeLayers;
+		}
+
+		@Override
+		public long getLastBuiltTreeNodes() {
+			return lastBuiltTreeNodes;
+		}
+
+		@Override
+		public void reset() {
+			BuildStatistics.this.reset();
+		}
+	}
+
+	private final Map<IBuildConfiguration, ConfigurationStatistics> configurations = new ConcurrentHashMap<>();
+	private ObjectName registeredName;
+	private volatile int lastBuiltTrees;
+	private volatile int lastBuiltTreeLayers;
+	private volatile long lastBuiltTreeNodes;
+
+	/**
+	 * Records that the given builder was run.
+	 *
+	 * @param buildTime the time the builder ran, in milliseconds
+	 * @param ruleWaitTime the time the builder waited for its scheduling rule, in milliseconds
+	 * @param deltaSize the number of changed resources in the project since the
+	 * last build, or -1 if unknown
+	 */
+	void recordBuild(IBuildConfiguration config, String builderName, long buildTime, long ruleWaitTime, long deltaSize) {
+		ConfigurationStatistics statistics = configurations.computeIfAbsent(config, c -> new ConfigurationStatistics());
+		statistics.builder(builderName).recordBuild(buildTime, ruleWaitTime, deltaSize);
+		statistics.total.recordBuild(buildTime, ruleWaitTime, deltaSize);
+	}
+
+	/**
+	 * Records that the given builder was not run because nothing it is
+	 * interested in has changed.
+	 */
+	void recordSkip(IBuildConfiguration config, String builderName) {
+		ConfigurationStatistics statistics = configurations.computeIfAbsent(config, c -> new ConfigurationStatistics());
+		statistics.builder(builderName).recordSkip();
+		statistics.total.recordSkip();
+	}
+
+	/**
+	 * Records the number of trees the builders last built against and the
+	 * layers they hold.
+	 *
+	 * @param trees the number of distinct last built trees
+	 * @param layers the number of tree layers from the oldest to the newest of them
+	 */
+	void recordLastBuiltTrees(int trees, int layers) {
+		lastBuiltTrees = trees;
+		lastBuiltTreeLayers = layers;
+	}
+
+	/**
+	 * Records the number of nodes in the layers held by the last built trees.
+	 */
+	void recordLastBuiltTreeNodes(long nodes) {
+		lastBuiltTreeNodes = nodes;
+	}
+
+	/**
+	 * Returns the number of distinct trees the builders last built against, as
+	 * of the end of the last build.
+	 */
+	public int getLastBuiltTrees() {
+		return lastBuiltTrees;
+	}
+
+	/**
+	 * Returns the number of tree layers from the oldest to the newest last built
+	 * tree, as of the end of the last build.
+	 */
+	public int getLastBuiltTreeLayers() {
+		return lastBuiltTreeLayers;
+	}
+
+	/**
+	 * Returns the number of nodes in the layers held by the last built trees, as
+	 * of their last collapse.
+	 */
+	public long getLastBuiltTreeNodes() {
+		return lastBuiltTreeNodes;
+	}
+
+	@Override
+	public IBuildConfiguration[] getBuildConfigurations() {
+		return configurations.keySet().toArray(new IBuildConfiguration[0]);
+	}
+
+	@Override
+	public String[] getBuilderNames(IBuildConfiguration config) {
+		ConfigurationStatistics statistics = configurations.get(config);
+		return statistics == null ? new String[0] : statistics.builders.keySet().toArray(new String[0]);
+	}
+
+	@Override
+	public Record getRecord(IBuildConfiguration config) {
+		ConfigurationStatistics statistics = configurations.get(config);
+		return statistics == null ? null : statistics.total.snapshot();
+	}
+
+	@Override
+	public Record getRecord(IBuildConfiguration config, String builderName) {
+		ConfigurationStatistics statistics = configurations.get(config);
+		if (statistics == null)
+			return null;
+		Accumulator builder = statistics.builders.get(builderName);
+		return builder == null ? null : builder.snapshot();
+	}
+
+	@Override
+	public void reset() {
+		configurations.clear();
+	}
+
+	/**
+	 * Registers the statistics with the platform MBean server. Only one workspace
+	 * can be registered at a time, the statistics of others are not published.
+	 */
+	synchronized void registerMBean() {
+		try {
+			ObjectName name = new ObjectName(MBEAN_NAME);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new Management(), name);
+			registeredName = name;
+		} catch (JMException e) {
+			Policy.log(IStatus.WARNING, "Could not publish the build statistics", e); //$NON-NLS-1$
+		}
+	}
+
+	synchronized void unregisterMBean() {
+		if (registeredName == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+		} catch (JMException e) {
+			// not registered any more
+		}
+		registeredName = null;
+	}
+}
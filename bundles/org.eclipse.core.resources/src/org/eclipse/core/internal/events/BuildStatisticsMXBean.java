@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import org.eclipse.core.resources.IBuildStatistics;
+
+/**
+ * The management interface of the {@link IBuildStatistics}. A build
+ * configuration is identified by the name of its project and its name,
+ * separated by a slash. The statistics of all builders of a configuration
+ * together are returned for an empty or <code>null</code> builder name.
+ * The last built tree attributes describe the memory held by the trees the
+ * builders last built against.
+ */
+public interface BuildStatisticsMXBean {
+
+	String[] getBuildConfigurations();
+
+	String[] getBuilderNames(String configuration);
+
+	long getBuildCount(String configuration, String builderName);
+
+	long getSkipCount(String configuration, String builderName);
+
+	long getTotalBuildTime(String configuration, String builderName);
+
+	long getMaxBuildTime(String configuration, String builderName);
+
+	long getTotalRuleWaitTime(String configuration, String builderName);
+
+	long[] getRecentBuildTimes(String configuration, String builderName);
+
+	long[] getRecentDeltaSizes(String configuration, String builderName);
+
+	long[] getBuildTimeHistogram(String configuration, String builderName);
+
+	int getLastBuiltTrees();
+
+	int getLastBuiltTreeLayers();
+
+	long getLastBuiltTreeNodes();
+
+	void reset();
+}
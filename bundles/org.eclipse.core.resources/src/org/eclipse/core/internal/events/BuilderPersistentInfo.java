@@ -11,6 +11,7 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Broadcom Corporation - build configurations
+ *     Contributors to the Eclipse Foundation - build durations
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
@@ -29,6 +30,10 @@ public class BuilderPersistentInfo {
 	protected ElementTree lastBuildTree;
 	protected String projectName;
 	protected String configName;
+	/**
+	 * Estimated duration of a build by this builder in milliseconds, 0 if unknown.
+	 */
+	private long buildDuration;
 
 	public BuilderPersistentInfo(String projectName, String builderName, int buildSpecIndex) {
 		this(projectName, null, builderName, buildSpecIndex);
@@ -41,6 +46,10 @@ public class BuilderPersistentInfo {
 		this.buildSpecIndex = buildSpecIndex;
 	}
 
+	public long getBuildDuration() {
+		return buildDuration;
+	}
+
 	public String getBuilderName() {
 		return builderName;
 	}
@@ -70,6 +79,10 @@ public class BuilderPersistentInfo {
 		return projectName;
 	}
 
+	public void setBuildDuration(long buildDuration) {
+		this.buildDuration = buildDuration;
+	}
+
 	public void setConfigName(String configName) {
 		this.configName = configName;
 	}
@@ -10,21 +10,37 @@
  *
  * Contributors:
  *   Mickael Istria (Red Hat Inc.)
+ *   Contributors to the Eclipse Foundation - count the unprocessed predecessors of each vertex,
+ *       critical path first, rule conflict diagnostics
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import org.eclipse.core.internal.resources.ComputeProjectOrder;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph.Edge;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.VertexOrder;
+import org.eclipse.core.internal.utils.Policy;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.*;
 
 /**
- *
+ * Processes the vertexes of a graph in parallel jobs, each vertex after all
+ * its predecessors. The number of unprocessed predecessors is counted for
+ * each vertex, so that the vertexes that get ready when a vertex is processed
+ * are found by visiting its successors only. If a cycle leaves no vertex
+ * ready while nothing is processing, the first unprocessed vertex in the
+ * sequential order computed by {@link ComputeProjectOrder} is processed.
+ * <p>
+ * Of the ready vertexes, the ones on the longest remaining chain of
+ * dependent vertexes are processed first, the length of a chain being the
+ * sum of the weights of its vertexes. To have that order respected, no more
+ * vertexes are scheduled at once than the job group runs concurrently.
+ * </p>
  */
 class GraphProcessor<T> {
 
@@ -33,11 +49,29 @@ class GraphProcessor<T> {
 	final private Set<T> processing;
 	final private Set<T> processed;
 	final private VertexOrder<T> sequentialOrder;
+	/** The vertexes that depend on each vertex */
+	final private Map<T, List<T>> successors;
+	/** The number of unprocessed predecessors of each vertex */
+	final private Map<T, Integer> pending;
+	/** The weight of the heaviest chain of vertexes starting at each vertex */
+	final private Map<T, Long> priorities;
+	/** The index of each vertex in the sequential order */
+	final private Map<T, Integer> positions;
+	/** The vertexes to process whose predecessors are all processed, heaviest chain first */
+	final private Queue<T> ready;
+	/** The scheduling rules of the vertexes that are processing */
+	final private Map<T, ISchedulingRule> rules = new HashMap<>();
+	/** Index of the first vertex in the sequential order that may still have to be processed */
+	private int nextInOrder;
 	final private JobGroup buildJobGroup;
 	final private BiConsumer<T, GraphProcessor<T>> processor;
 	final private Function<T, ISchedulingRule> ruleFactory;
 
-	GraphProcessor(Digraph<T> graph1, Class<T> clazz, final BiConsumer<T, GraphProcessor<T>> processor, Function<T, ISchedulingRule> ruleFactory, JobGroup buildJobGroup) {
+	/**
+	 * @param weight the estimated cost of processing a vertex, or <code>null</code>
+	 *     to process the ready vertexes in their sequential order
+	 */
+	GraphProcessor(Digraph<T> graph1, Class<T> clazz, final BiConsumer<T, GraphProcessor<T>> processor, Function<T, ISchedulingRule> ruleFactory, ToLongFunction<T> weight, JobGroup buildJobGroup) {
 		this.graph = graph1;
 		this.processor = processor;
 		this.ruleFactory = ruleFactory;
@@ -46,6 +80,41 @@ class GraphProcessor<T> {
 		processing = new HashSet<>();
 		processed = new HashSet<>();
 		sequentialOrder = ComputeProjectOrder.computeVertexOrder(graph, clazz);
+		successors = new HashMap<>();
+		pending = new HashMap<>();
+		for (Edge<T> edge : graph.getEdges()) {
+			successors.computeIfAbsent(edge.from, from -> new ArrayList<>()).add(edge.to);
+			pending.merge(edge.to, 1, Integer::sum);
+		}
+		positions = new HashMap<>();
+		for (int i = 0; i < sequentialOrder.vertexes.length; i++)
+			positions.put(sequentialOrder.vertexes[i], i);
+		priorities = computePriorities(weight);
+		Comparator<T> heaviestFirst = Comparator.comparing((T item) -> priorities.get(item)).reversed();
+		ready = new PriorityQueue<>(Math.max(1, graph.vertexList.size()), heaviestFirst.thenComparing(positions::get));
+		for (T item : graph.vertexMap.keySet())
+			if (!pending.containsKey(item))
+				ready.add(item);
+	}
+
+	/**
+	 * Returns the weight of the heaviest chain of successors starting at each
+	 * vertex, including the vertex itself. The vertexes are visited in reverse
+	 * sequential order, so that the successors come first, except for the ones
+	 * closing a cycle, which are ignored.
+	 */
+	private Map<T, Long> computePriorities(ToLongFunction<T> weight) {
+		T[] order = sequentialOrder.vertexes;
+		Map<T, Long> result = new HashMap<>();
+		for (int i = order.length - 1; i >= 0; i--) {
+			T item = order[i];
+			long heaviest = 0;
+			for (T successor : successors.getOrDefault(item, Collections.emptyList()))
+				heaviest = Math.max(heaviest, result.getOrDefault(successor, 0L));
+			long own = weight == null ? 0 : Math.max(0, weight.applyAsLong(item));
+			result.put(item, heaviest + own);
+		}
+		return result;
 	}
 
 	private boolean complete() {
@@ -68,27 +137,46 @@ class GraphProcessor<T> {
 			throw new IllegalArgumentException();
 		}
 		processed.add(item);
+		rules.remove(item);
+		for (T successor : successors.getOrDefault(item, Collections.emptyList())) {
+			int remaining = pending.merge(successor, -1, Integer::sum);
+			// a vertex of a cycle may already be processing
+			if (remaining == 0 && toProcess.contains(successor))
+				ready.add(successor);
+		}
 	}
 
-	private Set<T> computeReadyVertexes() {
-		Set<T> res = new HashSet<>(toProcess);
-		for (T item : toProcess) {
-			for (Edge<T> edge : graph.getEdges()) {
-				if (edge.to == item && !processed.contains(edge.from)) {
-					res.remove(item);
-				}
-			}
-		}
+	private List<T> computeReadyVertexes() {
+		// vertexes scheduled beyond the capacity of the job group would wait in scheduling order
+		int maxThreads = buildJobGroup == null ? 0 : buildJobGroup.getMaxThreads();
+		int capacity = maxThreads > 0 ? maxThreads - processing.size() : ready.size();
+		List<T> res = new ArrayList<>(Math.max(0, Math.min(capacity, ready.size())));
+		while (res.size() < capacity && !ready.isEmpty())
+			res.add(ready.poll());
 		if (res.isEmpty() && !isProcessing()) { // nothing ready, nothing running: a cycle!
-			for (T id : sequentialOrder.vertexes) {
+			T[] order = sequentialOrder.vertexes;
+			while (nextInOrder < order.length) {
+				T id = order[nextInOrder++];
 				if (!isProcessed(id)) {
-					return Collections.singleton(id);
+					return Collections.singletonList(id);
 				}
 			}
 		}
 		return res;
 	}
 
+	/**
+	 * Returns the processing vertexes whose scheduling rules conflict with the given rule.
+	 */
+	private List<T> getConflictingVertexes(ISchedulingRule rule) {
+		List<T> result = new ArrayList<>();
+		rules.forEach((other, otherRule) -> {
+			if (rule.isConflicting(otherRule))
+				result.add(other);
+		});
+		return result;
+	}
+
 	private boolean isProcessing() {
 		return !processing.isEmpty();
 	}
@@ -104,20 +192,31 @@ class GraphProcessor<T> {
 	public synchronized void processGraphWithParallelJobs() {
 		if (!complete()) {
 			if (!allTriggered()) {
-				Set<T> readyToBuild = computeReadyVertexes();
+				List<T> readyToBuild = computeReadyVertexes();
 				readyToBuild.forEach(this::triggerJob);
 			}
 		}
 	}
 
 	private void triggerJob(T item) {
+		ISchedulingRule rule = this.ruleFactory == null ? null : this.ruleFactory.apply(item);
+		List<T> conflicts = null;
 		synchronized (this) {
 			markProcessing(item);
+			if (rule != null) {
+				if (Policy.DEBUG_BUILD_RULES)
+					conflicts = getConflictingVertexes(rule);
+				rules.put(item, rule);
+			}
 		}
+		final List<T> blockers = conflicts;
+		final long scheduled = System.nanoTime();
 		Job buildJob = new Job(item.toString()) {
 
 			@Override
 			protected IStatus run(IProgressMonitor monitor) {
+				if (blockers != null && !blockers.isEmpty())
+					Policy.debug("Processing of " + item + " waited " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduled) + "ms for rule " + rule + ", conflicting with " + blockers); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 				processor.accept(item, GraphProcessor.this);
 				synchronized (GraphProcessor.this) {
 					markProcessed(item);
@@ -133,9 +232,7 @@ class GraphProcessor<T> {
 				return super.belongsTo(family) || family == GraphProcessor.this;
 			}
 		};
-		if (this.ruleFactory != null) {
-			buildJob.setRule(this.ruleFactory.apply(item));
-		}
+		buildJob.setRule(rule);
 		buildJob.setJobGroup(buildJobGroup);
 		buildJob.schedule();
 	}
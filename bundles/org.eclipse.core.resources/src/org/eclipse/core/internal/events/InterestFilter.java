@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import org.eclipse.core.internal.dtree.AbstractDataTreeNode;
+import org.eclipse.core.internal.dtree.NoDataDeltaNode;
+import org.eclipse.core.internal.propertytester.StringMatcher;
+import org.eclipse.core.internal.resources.ResourceInfo;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.core.runtime.content.IContentTypeManager;
+
+/**
+ * A static declaration of the changes a builder is interested in. A filter
+ * matches a file or folder if it is of one of the filter's types, if its name,
+ * or its project relative path if the pattern contains a slash, matches the
+ * filter's pattern, and if its name is associated with the filter's content
+ * type or a sub type of it.
+ * <p>
+ * Filters are evaluated against the data tree delta the build manager computes
+ * to decide whether a builder needs to run, without creating resource deltas.
+ * </p>
+ */
+final class InterestFilter {
+	/** Mask of IResource.FILE and IResource.FOLDER */
+	private final int types;
+	/** The pattern, or <code>null</code> to match any name */
+	private final StringMatcher pattern;
+	private final boolean matchPath;
+	/** The content type id, or <code>null</code> to match any content type */
+	private final String contentTypeId;
+
+	/**
+	 * @param types a mask of IResource.FILE and IResource.FOLDER, or
+	 * IResource.NONE for both
+	 * @param pattern a pattern with '*' and '?' wild cards, or <code>null</code>
+	 * @param contentTypeId the id of a content type, or <code>null</code>
+	 */
+	InterestFilter(int types, String pattern, String contentTypeId) {
+		this.types = types == IResource.NONE ? IResource.FILE | IResource.FOLDER : types;
+		this.pattern = pattern == null || pattern.isEmpty() ? null : new StringMatcher(pattern);
+		this.matchPath = pattern != null && pattern.indexOf(IPath.SEPARATOR) >= 0;
+		this.contentTypeId = contentTypeId == null || contentTypeId.isEmpty() ? null : contentTypeId;
+	}
+
+	/**
+	 * Returns whether this filter matches the resource with the given project
+	 * relative path and type.
+	 */
+	boolean matches(IPath projectRelativePath, int type) {
+		if ((types & type) == 0)
+			return false;
+		String name = projectRelativePath.lastSegment();
+		if (pattern != null && !pattern.match(matchPath ? projectRelativePath.toString() : name))
+			return false;
+		if (contentTypeId == null)
+			return true;
+		if (type != IResource.FILE)
+			return false;
+		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
+		IContentType expected = contentTypeManager.getContentType(contentTypeId);
+		// a content type that is not defined cannot be evaluated, so it matches any file
+		if (expected == null)
+			return true;
+		for (IContentType contentType : contentTypeManager.findContentTypesFor(name))
+			if (contentType.isKindOf(expected))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns whether one of the given filters matches a changed resource of a
+	 * project.
+	 *
+	 * @param filters the filters to match
+	 * @param projectNode the node of the project in the delta between the old and
+	 * the new tree
+	 * @param projectPath the full path of the project
+	 */
+	static boolean hasMatchingChanges(InterestFilter[] filters, AbstractDataTreeNode projectNode, IPath projectPath, ElementTree oldTree, ElementTree newTree) {
+		// changes of the project itself, like opening or closing it, are always interesting
+		if (!(projectNode instanceof NoDataDeltaNode))
+			return true;
+		for (AbstractDataTreeNode child : projectNode.getChildren())
+			if (hasMatchingChange(filters, child, projectPath.append(child.getName()), oldTree, newTree))
+				return true;
+		return false;
+	}
+
+	private static boolean hasMatchingChange(InterestFilter[] filters, AbstractDataTreeNode node, IPath path, ElementTree oldTree, ElementTree newTree) {
+		if (!(node instanceof NoDataDeltaNode)) {
+			boolean inOldTree = oldTree.includes(path);
+			boolean inNewTree = newTree.includes(path);
+			// an added or removed resource is not described further by the delta,
+			// so all resources below it are considered changed
+			if (inOldTree != inNewTree)
+				return hasMatchingResources(filters, path, inNewTree ? newTree : oldTree);
+			if (matches(filters, path, oldTree) || matches(filters, path, newTree))
+				return true;
+		}
+		for (AbstractDataTreeNode child : node.getChildren())
+			if (hasMatchingChange(filters, child, path.append(child.getName()), oldTree, newTree))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns whether one of the given filters matches the resource with the
+	 * given path in the given tree, or one of the resources below it.
+	 */
+	private static boolean hasMatchingResources(InterestFilter[] filters, IPath path, ElementTree tree) {
+		if (matches(filters, path, tree))
+			return true;
+		for (String name : tree.getNamesOfChildren(path))
+			if (hasMatchingResources(filters, path.append(name), tree))
+				return true;
+		return false;
+	}
+
+	private static boolean matches(InterestFilter[] filters, IPath path, ElementTree tree) {
+		if (!tree.includes(path))
+			return false;
+		Object info = tree.getElementData(path);
+		if (!(info instanceof ResourceInfo))
+			return false;
+		int type = ((ResourceInfo) info).getType();
+		IPath projectRelativePath = path.removeFirstSegments(1);
+		for (InterestFilter filter : filters)
+			if (filter.matches(projectRelativePath, type))
+				return true;
+		return false;
+	}
+}
@@ -11,6 +11,8 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Broadcom Corporation - build configurations and references
+ *     Contributors to the Eclipse Foundation - build durations, declared scheduling rules,
+ *         interest filters
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
@@ -20,6 +22,7 @@ import org.eclipse.core.internal.resources.ICoreConstants;
 import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
 /**
  * This class is the internal basis for all builders. Plugin developers should not
@@ -43,6 +46,10 @@ public abstract class InternalBuilder {
 	private String label;
 	private String natureId;
 	private ElementTree oldState;
+	/**
+	 * Estimated duration of a build by this builder in milliseconds, 0 if unknown.
+	 */
+	private volatile long buildDuration;
 	/**
 	 * The symbolic name of the plugin that defines this builder
 	 */
@@ -61,6 +68,42 @@ public abstract class InternalBuilder {
 	 */
 	private boolean callOnEmptyDelta = false;
 
+	/**
+	 * The value of the schedulingRule builder extension attribute, or
+	 * <code>null</code> if the builder does not declare a scheduling rule.
+	 */
+	private String declaredRule;
+
+	/**
+	 * The project relative path of the schedulingRuleFolder builder extension attribute.
+	 */
+	private IPath declaredRuleFolder;
+
+	/**
+	 * The filters declared by the interest builder extension elements and by
+	 * {@link #addInterestFilter(int, String, String)}, or <code>null</code> if the
+	 * builder is interested in all changes.
+	 */
+	private volatile InterestFilter[] interestFilters;
+
+	/*
+	 * @see IncrementalProjectBuilder#addInterestFilter
+	 */
+	protected void addInterestFilter(int resourceTypes, String pattern, String contentTypeId) {
+		InterestFilter filter = new InterestFilter(resourceTypes, pattern, contentTypeId);
+		synchronized (this) {
+			InterestFilter[] filters = interestFilters;
+			if (filters == null) {
+				interestFilters = new InterestFilter[] {filter};
+			} else {
+				InterestFilter[] newFilters = new InterestFilter[filters.length + 1];
+				System.arraycopy(filters, 0, newFilters, 0, filters.length);
+				newFilters[filters.length] = filter;
+				interestFilters = newFilters;
+			}
+		}
+	}
+
 	/*
 	 *  @see IncrementalProjectBuilder#build
 	 */
@@ -123,6 +166,31 @@ public abstract class InternalBuilder {
 		return context;
 	}
 
+	final long getBuildDuration() {
+		return buildDuration;
+	}
+
+	/**
+	 * Returns the scheduling rule declared by the schedulingRule builder
+	 * extension attribute for the project being built, or <code>null</code> if
+	 * the builder does not declare a scheduling rule.
+	 */
+	final ISchedulingRule getDeclaredRule() {
+		if (BuildManager.RULE_PROJECT.equals(declaredRule))
+			return getProject();
+		if (BuildManager.RULE_FOLDER.equals(declaredRule))
+			return getProject().getFolder(declaredRuleFolder);
+		return null;
+	}
+
+	/**
+	 * Returns the interest filters of this builder, or <code>null</code> if it is
+	 * interested in all changes.
+	 */
+	final InterestFilter[] getInterestFilters() {
+		return interestFilters;
+	}
+
 	final IProject[] getInterestingProjects() {
 		return interestingProjects;
 	}
@@ -200,6 +268,15 @@ public abstract class InternalBuilder {
 		this.callOnEmptyDelta = value;
 	}
 
+	final void setDeclaredRule(String rule, IPath folder) {
+		this.declaredRule = rule;
+		this.declaredRuleFolder = folder;
+	}
+
+	final void setBuildDuration(long value) {
+		buildDuration = value;
+	}
+
 	final void setCommand(ICommand value) {
 		this.command = value;
 	}
@@ -214,6 +291,7 @@ public abstract class InternalBuilder {
 
 	final void setLastBuiltTree(ElementTree value) {
 		oldState = value;
+		buildManager.lastBuiltTreeChanged(this, value);
 	}
 
 	final void setNatureId(String id) {
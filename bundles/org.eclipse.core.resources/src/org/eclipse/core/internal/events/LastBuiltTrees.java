@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.util.*;
+import org.eclipse.core.internal.dtree.AbstractDataTreeNode;
+import org.eclipse.core.internal.resources.*;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Limits the memory held by the trees the builders last built against. Each
+ * of these trees keeps the layers of the element tree between it and the
+ * current tree alive.
+ * <ul>
+ * <li>A builder that finishes without build relevant changes since the last
+ * tree given to a builder shares that tree instead of pinning a new one.</li>
+ * <li>When there are more than {@link #MAX_EXTRA_LAYERS} layers between the
+ * last built trees in addition to the trees themselves, a job collapses them
+ * so that each tree is a delta of the next newer one, like the snapshot does.</li>
+ * </ul>
+ * The number of trees and layers held is recorded in the {@link BuildStatistics}
+ * at the end of each build, the number of nodes when the trees are collapsed.
+ * The collapse job belongs to the family of this class.
+ */
+public class LastBuiltTrees {
+	/**
+	 * The number of layers between the last built trees, beyond one per tree,
+	 * above which they are collapsed
+	 */
+	public static final int MAX_EXTRA_LAYERS = 16;
+
+	private final Workspace workspace;
+	private final BuildManager buildManager;
+	private final Job collapseJob;
+	/** The tree last given to a builder */
+	private ElementTree lastShared;
+
+	LastBuiltTrees(Workspace workspace, BuildManager buildManager) {
+		this.workspace = workspace;
+		this.buildManager = buildManager;
+		this.collapseJob = new Job("Collapsing last built trees") { //$NON-NLS-1$
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					workspace.run(m -> collapse(), workspace.getRoot(), IWorkspace.AVOID_UPDATE, monitor);
+					return Status.OK_STATUS;
+				} catch (CoreException e) {
+					return e.getStatus();
+				}
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return LastBuiltTrees.class == family;
+			}
+		};
+		collapseJob.setSystem(true);
+	}
+
+	/**
+	 * Returns the tree to remember as the last built tree of a builder that has
+	 * just finished building against the given immutable tree.
+	 */
+	synchronized ElementTree share(ElementTree tree) {
+		ElementTree shared = lastShared;
+		if (shared != null && shared != tree && !ElementTree.hasChanges(tree, shared, ResourceComparator.getBuildComparator(), true))
+			return shared;
+		lastShared = tree;
+		return tree;
+	}
+
+	/**
+	 * Counts the layers between the last built trees of the instantiated
+	 * builders at the end of a build, and schedules the collapse of all last built
+	 * trees if there are too many. Only follows the parent links of the trees, the
+	 * nodes in the layers are counted by the collapse.
+	 */
+	void buildFinished() {
+		Set<ElementTree> builderTrees = buildManager.getBuilderTrees();
+		ElementTree[] trees = builderTrees.toArray(new ElementTree[builderTrees.size()]);
+		int layers = countLayers(trees);
+		buildManager.getBuildStatistics().recordLastBuiltTrees(trees.length, layers);
+		if (layers > trees.length + MAX_EXTRA_LAYERS)
+			collapseJob.schedule();
+	}
+
+	/**
+	 * Returns the distinct trees the builders of all open projects last built
+	 * against, including those of builders not instantiated in this session.
+	 */
+	private ElementTree[] collectTrees() {
+		Set<ElementTree> trees = new LinkedHashSet<>();
+		for (IProject project : workspace.getRoot().getProjects(IContainer.INCLUDE_HIDDEN)) {
+			if (!project.isOpen())
+				continue;
+			try {
+				List<BuilderPersistentInfo> infos = buildManager.createBuildersPersistentInfo(project);
+				if (infos != null)
+					for (BuilderPersistentInfo info : infos)
+						if (info.getLastBuiltTree() != null)
+							trees.add(info.getLastBuiltTree());
+			} catch (CoreException e) {
+				// the project was closed or deleted concurrently, its trees are released
+			}
+		}
+		return trees.toArray(new ElementTree[trees.size()]);
+	}
+
+	/**
+	 * Returns the oldest of the given trees, or <code>null</code> if there are
+	 * none.
+	 */
+	private static ElementTree findOldest(ElementTree[] trees) {
+		return trees.length == 0 ? null : trees[ElementTree.findOldest(trees)];
+	}
+
+	/**
+	 * Returns the number of layers from the oldest of the given trees to the
+	 * newest. Returns 0 if the trees are not on a single chain of layers, which
+	 * only happens while trees are mutable.
+	 */
+	private static int countLayers(ElementTree[] trees) {
+		int layers = 0;
+		Set<ElementTree> remaining = Collections.newSetFromMap(new IdentityHashMap<>());
+		remaining.addAll(Arrays.asList(trees));
+		ElementTree layer = findOldest(trees);
+		remaining.remove(layer);
+		while (!remaining.isEmpty() && layer != null) {
+			layers++;
+			layer = layer.getParent();
+			remaining.remove(layer);
+		}
+		return remaining.isEmpty() ? layers : 0;
+	}
+
+	/**
+	 * Returns the number of nodes in the given number of layers, starting with
+	 * the given tree.
+	 */
+	private static long countNodes(ElementTree tree, int layers) {
+		long nodes = 0;
+		for (int i = 0; i < layers && tree != null; i++) {
+			nodes += countNodes(tree.getDataTree().findNodeAt(Path.ROOT));
+			tree = tree.getParent();
+		}
+		return nodes;
+	}
+
+	private static long countNodes(AbstractDataTreeNode node) {
+		if (node == null)
+			return 0;
+		long count = 1;
+		for (AbstractDataTreeNode child : node.getChildren())
+			count += countNodes(child);
+		return count;
+	}
+
+	/**
+	 * Collapses each last built tree to be a delta of the next newer one, and
+	 * records the layers and nodes held by the trees afterwards. Must be called
+	 * while no other thread uses the trees, that is in an operation holding the
+	 * workspace root rule.
+	 */
+	void collapse() {
+		ElementTree[] trees = collectTrees();
+		int layers = countLayers(trees);
+		if (trees.length >= 2) {
+			ElementTree[] sorted = SaveManager.sortTrees(trees);
+			if (sorted != null) {
+				for (int i = 1; i < sorted.length; i++)
+					sorted[i].collapseTo(sorted[i - 1]);
+				int collapsedLayers = countLayers(trees);
+				if (Policy.DEBUG_BUILD_DELTA)
+					Policy.debug("Collapsed " + trees.length + " last built trees from " + layers + " to " + collapsedLayers + " layers"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				layers = collapsedLayers;
+			}
+		}
+		BuildStatistics statistics = buildManager.getBuildStatistics();
+		statistics.recordLastBuiltTrees(trees.length, layers);
+		statistics.recordLastBuiltTreeNodes(countNodes(findOldest(trees), layers));
+	}
+
+	/**
+	 * Forgets the shared tree and cancels a pending collapse.
+	 */
+	synchronized void shutdown() {
+		collapseJob.cancel();
+		lastShared = null;
+	}
+}
@@ -10,36 +10,51 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     Contributors to the Eclipse Foundation - unbounded table, moves of whole subtrees
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
+import java.util.HashMap;
+import java.util.Map;
 import org.eclipse.core.runtime.IPath;
 
 /**
  * A specialized map that maps Node IDs to their old and new paths.
  * Used for calculating moves during resource change notification.
+ * <p>
+ * The ids are kept in an open addressing table of primitive longs whose
+ * capacity is a power of two, so the map grows without bounds. The old and
+ * new path of an id share one array, next to each other.
+ * </p>
+ * <p>
+ * Moves of whole subtrees are recorded once, with the paths of their roots.
+ * The resources below a moved root that kept their node id and their position
+ * relative to the root have no entries of their own, their paths are derived
+ * from the paths of the root when they are looked up with their path.
+ * </p>
  */
 public class NodeIDMap {
-	//using prime table sizes improves our hash function
-	private static final int[] SIZES = new int[] {13, 29, 71, 173, 349, 733, 1511, 3079, 6133, 16381, 32653, 65543, 131111, 262139, 524287, 1051601};
+	private static final int INITIAL_CAPACITY = 16;
 	private static final double LOAD_FACTOR = 0.75;
-	//2^32 * golden ratio
-	private static final long LARGE_NUMBER = 2654435761L;
+	//2^64 / golden ratio
+	private static final long LARGE_NUMBER = 0x9E3779B97F4A7C15L;
 
-	int sizeOffset = 0;
 	protected int elementCount = 0;
+	/** The node ids, 0 marks a free slot */
 	protected long[] ids;
-	protected IPath[] oldPaths;
-	protected IPath[] newPaths;
+	/** The old path of the id at index i at 2 * i, the new path at 2 * i + 1 */
+	protected IPath[] paths;
+	/** The new paths of the roots of moved subtrees, mapped to their old paths */
+	private Map<IPath, IPath> movedFrom;
+	/** The old paths of the roots of moved subtrees, mapped to their new paths */
+	private Map<IPath, IPath> movedTo;
 
 	/**
 	 * Creates a new node ID map of default capacity.
 	 */
 	public NodeIDMap() {
-		this.sizeOffset = 0;
-		this.ids = new long[SIZES[sizeOffset]];
-		this.oldPaths = new IPath[SIZES[sizeOffset]];
-		this.newPaths = new IPath[SIZES[sizeOffset]];
+		this.ids = new long[INITIAL_CAPACITY];
+		this.paths = new IPath[INITIAL_CAPACITY * 2];
 	}
 
 	/**
@@ -47,34 +62,19 @@ public class NodeIDMap {
 	 * all its current values.
 	 */
 	protected void expand() {
-		int newLength;
-		try {
-			newLength = SIZES[++sizeOffset];
-		} catch (ArrayIndexOutOfBoundsException e) {
-			//will only occur if there are > 1 million elements in delta
-			newLength = ids.length * 2;
-		}
-		long[] grownIds = new long[newLength];
-		IPath[] grownOldPaths = new IPath[newLength];
-		IPath[] grownNewPaths = new IPath[newLength];
-		int maxArrayIndex = newLength - 1;
-		for (int i = 0; i < ids.length; i++) {
-			long id = ids[i];
+		long[] oldIds = ids;
+		IPath[] oldPaths = paths;
+		ids = new long[oldIds.length * 2];
+		paths = new IPath[ids.length * 2];
+		for (int i = 0; i < oldIds.length; i++) {
+			long id = oldIds[i];
 			if (id != 0) {
-				int hash = hashFor(id, newLength);
-				while (grownIds[hash] != 0) {
-					hash++;
-					if (hash > maxArrayIndex)
-						hash = 0;
-				}
-				grownIds[hash] = id;
-				grownOldPaths[hash] = oldPaths[i];
-				grownNewPaths[hash] = newPaths[i];
+				int index = slotFor(id);
+				ids[index] = id;
+				paths[index * 2] = oldPaths[i * 2];
+				paths[index * 2 + 1] = oldPaths[i * 2 + 1];
 			}
 		}
-		ids = grownIds;
-		oldPaths = grownOldPaths;
-		newPaths = grownNewPaths;
 	}
 
 	/**
@@ -82,28 +82,20 @@ public class NodeIDMap {
 	 * found, returns -1.
 	 */
 	private int getIndex(long searchID) {
-		final int len = ids.length;
-		int hash = hashFor(searchID, len);
-
-		// search the last half of the array
-		for (int i = hash; i < len; i++) {
-			if (ids[i] == searchID)
-				return i;
-			// marker info not found so return -1
-			if (ids[i] == 0)
-				return -1;
-		}
+		int index = slotFor(searchID);
+		return ids[index] == searchID ? index : -1;
+	}
 
-		// search the beginning of the array
-		for (int i = 0; i < hash - 1; i++) {
-			if (ids[i] == searchID)
-				return i;
-			// marker info not found so return -1
-			if (ids[i] == 0)
-				return -1;
-		}
-		// marker info not found so return -1
-		return -1;
+	/**
+	 * Returns the slot of the given id, or the free slot it goes to if it is not
+	 * in the map.
+	 */
+	private int slotFor(long id) {
+		int mask = ids.length - 1;
+		int index = hashFor(id) & mask;
+		while (ids[index] != 0 && ids[index] != id)
+			index = (index + 1) & mask;
+		return index;
 	}
 
 	/**
@@ -114,7 +106,18 @@ public class NodeIDMap {
 		int index = getIndex(nodeID);
 		if (index == -1)
 			return null;
-		return newPaths[index];
+		return paths[index * 2 + 1];
+	}
+
+	/**
+	 * Returns the new path location for the resource with the given ID and
+	 * old path, or null if no new path is available.
+	 */
+	public IPath getNewPath(long nodeID, IPath oldPath) {
+		int index = getIndex(nodeID);
+		if (index != -1)
+			return paths[index * 2 + 1];
+		return movedTo == null ? null : derivePath(movedTo, oldPath);
 	}
 
 	/**
@@ -125,12 +128,36 @@ public class NodeIDMap {
 		int index = getIndex(nodeID);
 		if (index == -1)
 			return null;
-		return oldPaths[index];
+		return paths[index * 2];
+	}
+
+	/**
+	 * Returns the old path location for the resource with the given ID and new
+	 * path, or null if no old path is available.
+	 */
+	public IPath getOldPath(long nodeID, IPath newPath) {
+		int index = getIndex(nodeID);
+		if (index != -1)
+			return paths[index * 2];
+		return movedFrom == null ? null : derivePath(movedFrom, newPath);
 	}
 
-	private int hashFor(long id, int size) {
-		//Knuth's hash function from Art of Computer Programming section 6.4
-		return (int) Math.abs((id * LARGE_NUMBER) % size);
+	/**
+	 * Returns the path of the given resource on the other side of the move of
+	 * the subtree containing it, or null if it is not below a moved root.
+	 */
+	private static IPath derivePath(Map<IPath, IPath> roots, IPath path) {
+		for (int count = path.segmentCount() - 1; count > 0; count--) {
+			IPath other = roots.get(path.uptoSegment(count));
+			if (other != null)
+				return other.append(path.removeFirstSegments(count));
+		}
+		return null;
+	}
+
+	private int hashFor(long id) {
+		//multiplicative hashing, the high bits are the best mixed ones
+		return (int) ((id * LARGE_NUMBER) >>> 32);
 	}
 
 	/**
@@ -148,60 +175,19 @@ public class NodeIDMap {
 	private void put(long id, IPath oldPath, IPath newPath) {
 		if (oldPath == null && newPath == null)
 			return;
-		int hash = hashFor(id, ids.length);
-
-		// search for an empty slot at the end of the array
-		for (int i = hash; i < ids.length; i++) {
-			if (ids[i] == id) {
-				//replace value for existing entry
-				if (oldPath != null)
-					oldPaths[i] = oldPath;
-				if (newPath != null)
-					newPaths[i] = newPath;
-				return;
-			}
-			if (ids[i] == 0) {
-				//add a new entry to the map
-				ids[i] = id;
-				if (oldPath != null)
-					oldPaths[i] = oldPath;
-				if (newPath != null)
-					newPaths[i] = newPath;
-				elementCount++;
-				// grow if necessary
-				if (shouldGrow())
-					expand();
-				return;
-			}
-		}
-
-		// search for an empty slot at the beginning of the array
-		for (int i = 0; i < hash - 1; i++) {
-			if (ids[i] == id) {
-				//replace value for existing entry
-				if (oldPath != null)
-					oldPaths[i] = oldPath;
-				if (newPath != null)
-					newPaths[i] = newPath;
-				return;
-			}
-			if (ids[i] == 0) {
-				//add a new entry to the map
-				ids[i] = id;
-				if (oldPath != null)
-					oldPaths[i] = oldPath;
-				if (newPath != null)
-					newPaths[i] = newPath;
-				elementCount++;
-				// grow if necessary
-				if (shouldGrow())
-					expand();
-				return;
-			}
+		int index = slotFor(id);
+		if (ids[index] == 0) {
+			//add a new entry to the map
+			ids[index] = id;
+			elementCount++;
 		}
-		// if we didn't find a free slot, then try again with the expanded set
-		expand();
-		put(id, oldPath, newPath);
+		if (oldPath != null)
+			paths[index * 2] = oldPath;
+		if (newPath != null)
+			paths[index * 2 + 1] = newPath;
+		// grow if necessary
+		if (shouldGrow())
+			expand();
 	}
 
 	/**
@@ -218,6 +204,20 @@ public class NodeIDMap {
 		put(id, null, path);
 	}
 
+	/**
+	 * Records that the subtree at the given old path moved to the given new path.
+	 * The node ids of the roots have to be added separately, the resources
+	 * below them that kept their node id must not be added.
+	 */
+	public void putMovedSubtree(IPath oldPath, IPath newPath) {
+		if (movedFrom == null) {
+			movedFrom = new HashMap<>();
+			movedTo = new HashMap<>();
+		}
+		movedFrom.put(newPath, oldPath);
+		movedTo.put(oldPath, newPath);
+	}
+
 	private boolean shouldGrow() {
 		return elementCount > ids.length * LOAD_FACTOR;
 	}
@@ -11,12 +11,12 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     James Blackburn (Broadcom Corp.) - ongoing development
+ *     Contributors to the Eclipse Foundation - concurrent notification of thread safe listeners, path filtered listeners
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.internal.events.ResourceChangeListenerList.ListenerEntry;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.utils.Messages;
@@ -56,6 +56,16 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		}
 	}
 
+	/**
+	 * The threads notifying {@link IConcurrentResourceChangeListener}s.
+	 */
+	private static final class ListenerThread extends ForkJoinWorkerThread {
+		ListenerThread(ForkJoinPool pool) {
+			super(pool);
+			setName("Resource change listener notification"); //$NON-NLS-1$
+		}
+	}
+
 	private static final long NOTIFICATION_DELAY = 1500;
 	/**
 	 * The Threads that are currently avoiding notification.
@@ -104,6 +114,10 @@ public class NotificationManager implements IManager, ILifecycleListener {
 	private volatile ElementTree lastPostChangeTree;
 
 	private final ResourceChangeListenerList listeners;
+	/**
+	 * The pool notifying the concurrent listeners, created when first needed.
+	 */
+	private ForkJoinPool listenerPool;
 
 	protected volatile boolean notificationRequested = false;
 	private final Job notifyJob;
@@ -121,6 +135,12 @@ public class NotificationManager implements IManager, ILifecycleListener {
 			ResourceStats.listenerAdded(listener);
 	}
 
+	public void addListener(IResourceChangeListener listener, int eventMask, IPath[] paths, int resourceTypeMask, int deltaKindMask) {
+		listeners.add(listener, eventMask, paths, resourceTypeMask, deltaKindMask);
+		if (ResourceStats.TRACE_LISTENERS)
+			ResourceStats.listenerAdded(listener);
+	}
+
 	/**
 	 * Indicates the beginning of a block where periodic notifications should be avoided.
 	 * Returns true if notification avoidance really started, and false for nested
@@ -288,35 +308,82 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		boolean oldLock = workspace.isTreeLocked();
 		if (lockTree)
 			workspace.setTreeLocked(true);
+		List<ForkJoinTask<?>> concurrent = null;
+		ResourceChangeFilter filter = null;
 		try {
 			for (ListenerEntry resourceListener : resourceListeners) {
 				if ((type & resourceListener.eventMask) != 0) {
+					if (resourceListener.paths != null) {
+						if (filter == null)
+							filter = new ResourceChangeFilter(event);
+						if (!filter.matches(resourceListener))
+							continue;
+					}
 					final IResourceChangeListener listener = resourceListener.listener;
+					if (listener instanceof IConcurrentResourceChangeListener) {
+						if (concurrent == null)
+							concurrent = new ArrayList<>();
+						concurrent.add(getListenerPool().submit(() -> notifyConcurrently(listener, event)));
+						continue;
+					}
 					if (ResourceStats.TRACE_LISTENERS)
 						ResourceStats.startNotify(listener);
-					SafeRunner.run(new ISafeRunnable() {
-						@Override
-						public void handleException(Throwable e) {
-							// exception logged in SafeRunner#run
-						}
-
-						@Override
-						public void run() throws Exception {
-							if (Policy.DEBUG_NOTIFICATIONS)
-								Policy.debug("Notifying " + listener.getClass().getName() + " about resource change event" + event.toDebugString()); //$NON-NLS-1$ //$NON-NLS-2$
-							listener.resourceChanged(event);
-						}
-					});
+					notify(listener, event);
 					if (ResourceStats.TRACE_LISTENERS)
 						ResourceStats.endNotify();
 				}
 			}
 		} finally {
+			// the delta and the tree must not change before all listeners are done
+			if (concurrent != null)
+				for (ForkJoinTask<?> task : concurrent)
+					task.quietlyJoin();
 			if (lockTree)
 				workspace.setTreeLocked(oldLock);
 		}
 	}
 
+	private void notify(final IResourceChangeListener listener, final ResourceChangeEvent event) {
+		SafeRunner.run(new ISafeRunnable() {
+			@Override
+			public void handleException(Throwable e) {
+				// exception logged in SafeRunner#run
+			}
+
+			@Override
+			public void run() throws Exception {
+				if (Policy.DEBUG_NOTIFICATIONS)
+					Policy.debug("Notifying " + listener.getClass().getName() + " about resource change event" + event.toDebugString()); //$NON-NLS-1$ //$NON-NLS-2$
+				listener.resourceChanged(event);
+			}
+		});
+	}
+
+	private void notifyConcurrently(IResourceChangeListener listener, ResourceChangeEvent event) {
+		long start = System.currentTimeMillis();
+		notify(listener, event);
+		if (ResourceStats.TRACE_LISTENERS)
+			ResourceStats.notified(listener, System.currentTimeMillis() - start);
+	}
+
+	private synchronized ForkJoinPool getListenerPool() {
+		if (listenerPool == null)
+			// own threads, so that isConcurrentNotification() recognizes them and the tree is locked for them,
+			// and listeners that block do not hold up unrelated tasks in the common pool
+			listenerPool = new ForkJoinPool(ForkJoinPool.getCommonPoolParallelism(), ListenerThread::new, null, false);
+		return listenerPool;
+	}
+
+	/**
+	 * Returns whether the current thread notifies an
+	 * {@link IConcurrentResourceChangeListener}. The thread that broadcasts the
+	 * event holds the workspace lock and waits for it meanwhile, so the tree is
+	 * locked for such a thread.
+	 */
+	public static boolean isConcurrentNotification() {
+		return Thread.currentThread() instanceof ListenerThread;
+	}
+
 	public void removeListener(IResourceChangeListener listener) {
 		listeners.remove(listener);
 		if (ResourceStats.TRACE_LISTENERS)
@@ -336,6 +403,11 @@ public class NotificationManager implements IManager, ILifecycleListener {
 	public void shutdown(IProgressMonitor monitor) {
 		//wipe out any existing listeners
 		listeners.clear();
+		synchronized (this) {
+			if (listenerPool != null)
+				listenerPool.shutdown();
+			listenerPool = null;
+		}
 	}
 
 	@Override
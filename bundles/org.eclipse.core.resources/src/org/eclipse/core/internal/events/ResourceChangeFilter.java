@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.core.internal.events.ResourceChangeListenerList.ListenerEntry;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Decides which of the listeners registered for some paths are interested in
+ * a resource change event. The changes at or below each path are summarized
+ * once per event, no matter how many listeners are registered for that path.
+ * <p>
+ * A summary holds, for each resource type, the bit-wise OR of the kinds of the
+ * changes to resources of that type at or below the path, and the kinds of the
+ * additions and removals of resources containing the path.
+ * </p>
+ */
+final class ResourceChangeFilter {
+	/** The number of bits needed for the kinds in {@link IResourceDelta#ALL_WITH_PHANTOMS} */
+	private static final int KIND_BITS = 5;
+	/** Offset of the kinds of changes to resources containing the path */
+	private static final int ENCLOSING_SHIFT = 32;
+	/** The resource types in the order of their kinds in a summary */
+	private static final int[] TYPES = {IResource.FILE, IResource.FOLDER, IResource.PROJECT, IResource.ROOT};
+	private static final int MEMBER_FLAGS = IContainer.INCLUDE_PHANTOMS | IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS | IContainer.INCLUDE_HIDDEN;
+	private static final int DELTA_EVENTS = IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_BUILD | IResourceChangeEvent.POST_BUILD;
+
+	private final IResourceChangeEvent event;
+	private final Map<IPath, Long> summaries = new HashMap<>();
+
+	ResourceChangeFilter(IResourceChangeEvent event) {
+		this.event = event;
+	}
+
+	/**
+	 * Returns whether the given listener is interested in the event.
+	 */
+	boolean matches(ListenerEntry entry) {
+		if (entry.paths == null)
+			return true;
+		IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			if ((event.getType() & DELTA_EVENTS) != 0)
+				return false;
+			IResource resource = event.getResource();
+			if (resource == null)
+				return true;
+			IPath path = resource.getFullPath();
+			for (IPath interest : entry.paths)
+				if (interest.isPrefixOf(path) || path.isPrefixOf(interest))
+					return true;
+			return false;
+		}
+		for (IPath interest : entry.paths) {
+			long summary = summaries.computeIfAbsent(interest, p -> summarize(delta, p));
+			if (((summary >>> ENCLOSING_SHIFT) & entry.deltaKindMask) != 0)
+				return true;
+			for (int i = 0; i < TYPES.length; i++)
+				if ((entry.resourceTypeMask & TYPES[i]) != 0 && ((summary >>> (i * KIND_BITS)) & entry.deltaKindMask) != 0)
+					return true;
+		}
+		return false;
+	}
+
+	private static long summarize(IResourceDelta root, IPath path) {
+		long summary = 0;
+		IResourceDelta delta = root;
+		for (int i = 0; i < path.segmentCount(); i++) {
+			if (i > 0)
+				summary |= (long) enclosingKind(delta) << ENCLOSING_SHIFT;
+			delta = delta.findMember(path.removeFirstSegments(i).uptoSegment(1));
+			if (delta == null)
+				return summary;
+		}
+		return summary | subtree(delta);
+	}
+
+	/**
+	 * Returns the kind of the given change to a resource containing a path of
+	 * interest if that change affects everything below it, and 0 otherwise.
+	 */
+	private static int enclosingKind(IResourceDelta delta) {
+		int kind = delta.getKind();
+		if (kind == IResourceDelta.CHANGED)
+			return (delta.getFlags() & IResourceDelta.OPEN) != 0 ? kind : 0;
+		return kind;
+	}
+
+	private static long subtree(IResourceDelta delta) {
+		long summary = 0;
+		int kind = delta.getKind();
+		if (kind != 0)
+			summary = (long) kind << (Integer.numberOfTrailingZeros(delta.getResource().getType()) * KIND_BITS);
+		for (IResourceDelta child : delta.getAffectedChildren(IResourceDelta.ALL_WITH_PHANTOMS, MEMBER_FLAGS))
+			summary |= subtree(child);
+		return summary;
+	}
+}
@@ -10,12 +10,15 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     Contributors to the Eclipse Foundation - path filtered listeners
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.runtime.IPath;
 
 /**
  * This class is used to maintain a list of listeners. It is a fairly lightweight object,
@@ -36,10 +39,21 @@ public class ResourceChangeListenerList {
 	static final class ListenerEntry {
 		final int eventMask;
 		final IResourceChangeListener listener;
+		/** The paths of the resources of interest, or <code>null</code> for all resources */
+		final IPath[] paths;
+		final int resourceTypeMask;
+		final int deltaKindMask;
 
 		ListenerEntry(IResourceChangeListener listener, int eventMask) {
+			this(listener, eventMask, null, 0, 0);
+		}
+
+		ListenerEntry(IResourceChangeListener listener, int eventMask, IPath[] paths, int resourceTypeMask, int deltaKindMask) {
 			this.listener = listener;
 			this.eventMask = eventMask;
+			this.paths = paths;
+			this.resourceTypeMask = resourceTypeMask;
+			this.deltaKindMask = deltaKindMask;
 		}
 
 		@Override
@@ -47,6 +61,10 @@ public class ResourceChangeListenerList {
 			StringBuilder sb = new StringBuilder();
 			sb.append("Listener [eventMask="); //$NON-NLS-1$
 			sb.append(eventMask);
+			if (paths != null) {
+				sb.append(", paths="); //$NON-NLS-1$
+				sb.append(Arrays.toString(paths));
+			}
 			sb.append(", "); //$NON-NLS-1$
 			sb.append(listener);
 			sb.append("]"); //$NON-NLS-1$
@@ -73,13 +91,36 @@ public class ResourceChangeListenerList {
 	 * @param listener the listener
 	 * @param mask     event types
 	 */
-	public synchronized void add(IResourceChangeListener listener, int mask) {
+	public void add(IResourceChangeListener listener, int mask) {
+		add(new ListenerEntry(listener, mask));
+	}
+
+	/**
+	 * Adds the given listener for the changes to the resources at or below the
+	 * given paths to this list. If an identical listener is already registered
+	 * its registration is replaced.
+	 *
+	 * @param listener         the listener
+	 * @param mask             event types
+	 * @param paths            the full paths of the resources of interest
+	 * @param resourceTypeMask the types of the resources of interest
+	 * @param deltaKindMask    the kinds of changes of interest
+	 */
+	public void add(IResourceChangeListener listener, int mask, IPath[] paths, int resourceTypeMask, int deltaKindMask) {
+		IPath[] absolute = new IPath[paths.length];
+		for (int i = 0; i < paths.length; i++)
+			absolute[i] = paths[i].makeAbsolute();
+		add(new ListenerEntry(listener, mask, absolute, resourceTypeMask, deltaKindMask));
+	}
+
+	private synchronized void add(ListenerEntry entry) {
+		IResourceChangeListener listener = entry.listener;
+		int mask = entry.eventMask;
 		Objects.requireNonNull(listener);
 		if (mask == 0) {
 			remove(listener);
 			return;
 		}
-		ResourceChangeListenerList.ListenerEntry entry = new ResourceChangeListenerList.ListenerEntry(listener, mask);
 		final int oldSize = listeners.size();
 		// check for duplicates using identity
 		for (int i = 0; i < oldSize; ++i) {
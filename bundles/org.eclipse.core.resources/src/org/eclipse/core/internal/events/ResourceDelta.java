@@ -12,13 +12,14 @@
  *     IBM Corporation - initial API and implementation
  *     James Blackburn (Broadcom Corp.) - ongoing development
  *     Mickael Istria (Red Hat Inc.) - Bug 488938
+ *     Contributors to the Eclipse Foundation - create the children lazily, moves of whole subtrees
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
 import java.util.Map;
 import java.util.Map.Entry;
+import org.eclipse.core.internal.dtree.AbstractDataTreeNode;
 import org.eclipse.core.internal.resources.*;
-import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 
@@ -26,6 +27,11 @@ import org.eclipse.core.runtime.*;
  * Concrete implementation of the IResourceDelta interface.  Each ResourceDelta
  * object represents changes that have occurred between two states of the
  * resource tree.
+ * <p>
+ * The children of a delta are created from the comparison of the two trees
+ * when they are first asked for, so that the deltas of the subtrees nobody
+ * looks at are never created. Deltas may be read by several threads at once.
+ * </p>
  */
 public class ResourceDelta extends PlatformObject implements IResourceDelta {
 	protected IPath path;
@@ -33,7 +39,9 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 	protected int status;
 	protected ResourceInfo oldInfo;
 	protected ResourceInfo newInfo;
-	protected ResourceDelta[] children;
+	protected volatile ResourceDelta[] children;
+	/** The node of the comparison the children are created from, until they are created */
+	private AbstractDataTreeNode comparison;
 	// don't aggressively set this, but cache it if called once
 	protected IResource cachedResource;
 
@@ -66,7 +74,7 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 			return;
 		if (!visitor.visit(this))
 			return;
-		for (ResourceDelta childDelta : children) {
+		for (ResourceDelta childDelta : getChildren()) {
 			// quietly exclude team-private, hidden and phantom members unless explicitly included
 			if (!includeTeamPrivate && childDelta.isTeamPrivate())
 				continue;
@@ -108,7 +116,7 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 		//iterate over the path and find matching child delta
 		ResourceDelta current = this;
 		segments: for (int i = 0; i < segmentCount; i++) {
-			for (IResourceDelta element : current.children) {
+			for (IResourceDelta element : current.getChildren()) {
 				if (element.getFullPath().lastSegment().equals(path.segment(i))) {
 					current = (ResourceDelta) element;
 					continue segments;
@@ -122,21 +130,23 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 
 	/**
 	 * Delta information on moves and on marker deltas can only be computed after
-	 * the delta has been built.  This method fixes up the delta to accurately
+	 * the status and the infos of the delta are set.  This method fixes up the delta to accurately
 	 * reflect moves (setting MOVED_FROM and MOVED_TO), and marker changes on
 	 * added and removed resources.
 	 */
-	protected void fixMovesAndMarkers(ElementTree oldTree) {
-		NodeIDMap nodeIDMap = deltaInfo.getNodeIDMap();
-		if (!path.isRoot() && !nodeIDMap.isEmpty()) {
-			int kind = getKind();
+	protected void fixMovesAndMarkers() {
+		int kind = getKind();
+		// only resources with a new node id can be moved, the others need no node ID map
+		boolean moveCandidate = kind == ADDED || kind == REMOVED || (kind == CHANGED && oldInfo.getNodeId() != newInfo.getNodeId());
+		NodeIDMap nodeIDMap = moveCandidate && !path.isRoot() ? deltaInfo.getNodeIDMap() : null;
+		if (nodeIDMap != null && !nodeIDMap.isEmpty()) {
 			switch (kind) {
 				case CHANGED :
 				case ADDED :
-					IPath oldPath = nodeIDMap.getOldPath(newInfo.getNodeId());
+					IPath oldPath = nodeIDMap.getOldPath(newInfo.getNodeId(), path);
 					if (oldPath != null && !oldPath.equals(path)) {
 						//get the old info from the old tree
-						ResourceInfo actualOldInfo = (ResourceInfo) oldTree.getElementData(oldPath);
+						ResourceInfo actualOldInfo = deltaInfo.getOldInfo(oldPath);
 						// Replace change flags by comparing old info with new info,
 						// Note that we want to retain the kind flag, but replace all other flags
 						// This is done only for MOVED_FROM, not MOVED_TO, since a resource may be both.
@@ -153,7 +163,7 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 			switch (kind) {
 				case REMOVED :
 				case CHANGED :
-					IPath newPath = nodeIDMap.getNewPath(oldInfo.getNodeId());
+					IPath newPath = nodeIDMap.getNewPath(oldInfo.getNodeId(), path);
 					if (newPath != null && !newPath.equals(path)) {
 						status |= MOVED_TO;
 						//our API states that MOVED_TO must be in conjunction with REMOVED | (CHANGED + REPLACED)
@@ -166,10 +176,6 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 		//check for marker deltas -- this is affected by move computation
 		//so must happen afterwards
 		checkForMarkerDeltas();
-
-		//recurse on children
-		for (ResourceDelta element : children)
-			element.fixMovesAndMarkers(oldTree);
 	}
 
 	@Override
@@ -184,6 +190,7 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 
 	@Override
 	public IResourceDelta[] getAffectedChildren(int kindMask, int memberFlags) {
+		ResourceDelta[] children = getChildren();
 		int numChildren = children.length;
 		//if there are no children, they all match
 		if (numChildren == 0)
@@ -231,6 +238,24 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 		return result;
 	}
 
+	/**
+	 * Returns the deltas of the children, creating them if this was not done yet.
+	 */
+	protected ResourceDelta[] getChildren() {
+		ResourceDelta[] result = children;
+		if (result == null) {
+			synchronized (this) {
+				result = children;
+				if (result == null) {
+					children = result = ResourceDeltaFactory.createChildren(deltaInfo, comparison, path);
+					comparison = null;
+					deltaInfo.childrenCreated();
+				}
+			}
+		}
+		return result;
+	}
+
 	protected ResourceDeltaInfo getDeltaInfo() {
 		return deltaInfo;
 	}
@@ -270,7 +295,7 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 	@Override
 	public IPath getMovedFromPath() {
 		if ((status & MOVED_FROM) != 0) {
-			return deltaInfo.getNodeIDMap().getOldPath(newInfo.getNodeId());
+			return deltaInfo.getNodeIDMap().getOldPath(newInfo.getNodeId(), path);
 		}
 		return null;
 	}
@@ -278,7 +303,7 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 	@Override
 	public IPath getMovedToPath() {
 		if ((status & MOVED_TO) != 0) {
-			return deltaInfo.getNodeIDMap().getNewPath(oldInfo.getNodeId());
+			return deltaInfo.getNodeIDMap().getNewPath(oldInfo.getNodeId(), path);
 		}
 		return null;
 	}
@@ -352,6 +377,15 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 		this.children = children;
 	}
 
+	/**
+	 * Sets the node of the comparison the children are created from when they
+	 * are first asked for.
+	 */
+	protected void setComparison(AbstractDataTreeNode comparison) {
+		this.comparison = comparison;
+		deltaInfo.childrenPending();
+	}
+
 	protected void setNewInfo(ResourceInfo newInfo) {
 		this.newInfo = newInfo;
 	}
@@ -381,7 +415,7 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 	public String toDeepDebugString() {
 		final StringBuilder buffer = new StringBuilder("\n"); //$NON-NLS-1$
 		writeDebugString(buffer);
-		for (ResourceDelta element : children)
+		for (ResourceDelta element : getChildren())
 			buffer.append(element.toDeepDebugString());
 		return buffer.toString();
 	}
@@ -11,12 +11,12 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     James Blackburn (Broadcom Corp.) - ongoing development
+ *     Contributors to the Eclipse Foundation - create the children of deltas lazily, moves of whole subtrees
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
-import java.util.Map;
-import org.eclipse.core.internal.dtree.DeltaDataTree;
-import org.eclipse.core.internal.dtree.NodeComparison;
+import java.util.*;
+import org.eclipse.core.internal.dtree.*;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.resources.IProject;
@@ -36,7 +36,8 @@ public class ResourceDeltaFactory {
 
 	/**
 	 * Returns the resource delta representing the changes made between the given old and new trees,
-	 * starting from the given root element.
+	 * starting from the given root element. The children of the returned delta are
+	 * created from the comparison of the trees when they are first asked for.
 	 * @param markerGeneration the start generation for which deltas should be computed, or -1
 	 * if marker deltas should not be provided.
 	 */
@@ -52,123 +53,211 @@ public class ResourceDeltaFactory {
 
 		delta = delta.asReverseComparisonTree(comparator);
 		IPath pathInTree = root.isRoot() ? Path.ROOT : root;
-		IPath pathInDelta = Path.ROOT;
+		AbstractDataTreeNode comparison = delta.findNodeAt(Path.ROOT);
 
 		// get the marker deltas for the delta info object....if needed
 		Map<IPath, MarkerSet> allMarkerDeltas = null;
 		if (markerGeneration >= 0)
 			allMarkerDeltas = workspace.getMarkerManager().getMarkerDeltas(markerGeneration);
 
-		//recursively walk the delta and create a tree of ResourceDelta objects.
+		// the node ID map used to fix up moves is computed from the comparison when first needed
 		ResourceDeltaInfo deltaInfo = new ResourceDeltaInfo(workspace, allMarkerDeltas, comparator);
-		ResourceDelta result = createDelta(workspace, delta, deltaInfo, pathInTree, pathInDelta);
-
-		//compute node ID map and fix up moves
-		deltaInfo.setNodeIDMap(computeNodeIDMap(result, new NodeIDMap()));
-		result.fixMovesAndMarkers(oldTree);
-
-		// check all the projects and if they were added and opened then tweek the flags
-		// so the delta reports both.
-		int segmentCount = result.getFullPath().segmentCount();
-		if (segmentCount <= 1)
-			checkForOpen(result, segmentCount);
+		deltaInfo.setComparison(oldTree, newTree, comparison, pathInTree);
+		ResourceDelta result = createDelta(deltaInfo, comparison, pathInTree);
+		deltaInfo.childrenCreated();
 		return result;
 	}
 
 	/**
-	 * Checks to see if added projects were also opens and tweaks the flags
-	 * accordingly. Should only be called for root and projects. Pass the segment count
-	 * in since we've already calculated it before.
+	 * Creates the map from node id to element id for the old and new states of
+	 * the children of the given comparison node. Used for recognizing moves.
+	 * Returns the map.
+	 * <p>
+	 * The roots of added and removed subtrees are collected first. An added
+	 * root with the node id of a removed root is a moved subtree, the resources
+	 * below it that kept their node id and relative path need no entries.
+	 * </p>
 	 */
-	protected static void checkForOpen(ResourceDelta delta, int segmentCount) {
-		if (delta.getKind() == IResourceDelta.ADDED)
-			if (delta.newInfo.isSet(ICoreConstants.M_OPEN))
-				delta.status |= IResourceDelta.OPEN;
-		// return for PROJECT
-		if (segmentCount == 1)
-			return;
-		// recurse for ROOT
-		IResourceDelta[] children = delta.children;
-		for (IResourceDelta element : children)
-			checkForOpen((ResourceDelta) element, 1);
+	protected static NodeIDMap computeNodeIDMap(AbstractDataTreeNode comparison, IPath path, NodeIDMap nodeIDMap) {
+		List<AbstractDataTreeNode> addedRoots = new ArrayList<>();
+		List<IPath> addedPaths = new ArrayList<>();
+		Map<Long, AbstractDataTreeNode> removedRoots = new HashMap<>();
+		Map<Long, IPath> removedPaths = new HashMap<>();
+		collectChanges(comparison, path, nodeIDMap, addedRoots, addedPaths, removedRoots, removedPaths);
+		for (int i = 0; i < addedRoots.size(); i++) {
+			AbstractDataTreeNode added = addedRoots.get(i);
+			IPath addedPath = addedPaths.get(i);
+			Long id = Long.valueOf(nodeIdOf(added, false));
+			AbstractDataTreeNode removed = removedRoots.remove(id);
+			if (removed == null) {
+				putSubtree(added, addedPath, nodeIDMap);
+			} else if (added.getChildren().length > 0 || removed.getChildren().length > 0) {
+				IPath removedPath = removedPaths.get(id);
+				nodeIDMap.putMovedSubtree(removedPath, addedPath);
+				putMovedSubtree(removed, removedPath, added, addedPath, nodeIDMap);
+			}
+		}
+		for (Map.Entry<Long, AbstractDataTreeNode> removed : removedRoots.entrySet())
+			putSubtree(removed.getValue(), removedPaths.get(removed.getKey()), nodeIDMap);
+		return nodeIDMap;
 	}
 
 	/**
-	 * Creates the map from node id to element id for the old and new states.
-	 * Used for recognizing moves.  Returns the map.
+	 * Adds the changed node ids below the given comparison node to the map, and
+	 * collects the roots of the added and removed subtrees without visiting them.
 	 */
-	protected static NodeIDMap computeNodeIDMap(ResourceDelta delta, NodeIDMap nodeIDMap) {
-		IResourceDelta[] children = delta.children;
-		for (IResourceDelta element : children) {
-			ResourceDelta child = (ResourceDelta) element;
-			IPath path = child.getFullPath();
-			switch (child.getKind()) {
+	private static void collectChanges(AbstractDataTreeNode comparison, IPath path, NodeIDMap nodeIDMap, List<AbstractDataTreeNode> addedRoots, List<IPath> addedPaths, Map<Long, AbstractDataTreeNode> removedRoots, Map<Long, IPath> removedPaths) {
+		for (AbstractDataTreeNode child : comparison.getChildren()) {
+			int kind = kindOf(child);
+			boolean hasChildren = child.getChildren().length > 0;
+			if (kind == 0 && !hasChildren)
+				continue;
+			IPath childPath = path.append(child.getName());
+			switch (kind) {
 				case IResourceDelta.ADDED :
-					nodeIDMap.putNewPath(child.newInfo.getNodeId(), path);
-					break;
+					nodeIDMap.putNewPath(nodeIdOf(child, false), childPath);
+					addedRoots.add(child);
+					addedPaths.add(childPath);
+					continue;
 				case IResourceDelta.REMOVED :
-					nodeIDMap.putOldPath(child.oldInfo.getNodeId(), path);
-					break;
-				case IResourceDelta.CHANGED :
-					long oldID = child.oldInfo.getNodeId();
-					long newID = child.newInfo.getNodeId();
-					//don't add entries to the map if nothing has changed.
-					if (oldID != newID) {
-						nodeIDMap.putOldPath(oldID, path);
-						nodeIDMap.putNewPath(newID, path);
-					}
-					break;
+					long oldID = nodeIdOf(child, true);
+					nodeIDMap.putOldPath(oldID, childPath);
+					removedRoots.put(oldID, child);
+					removedPaths.put(oldID, childPath);
+					continue;
+				default :
+					putNodeIds(child, childPath, nodeIDMap);
 			}
-			//recurse
-			computeNodeIDMap(child, nodeIDMap);
+			if (hasChildren)
+				collectChanges(child, childPath, nodeIDMap, addedRoots, addedPaths, removedRoots, removedPaths);
 		}
-		return nodeIDMap;
 	}
 
 	/**
-	 * Recursively creates the tree of ResourceDelta objects rooted at
-	 * the given path.
+	 * Adds the node ids of the subtrees of the children of the given comparison
+	 * node to the map.
+	 */
+	private static void putSubtree(AbstractDataTreeNode comparison, IPath path, NodeIDMap nodeIDMap) {
+		for (AbstractDataTreeNode child : comparison.getChildren()) {
+			IPath childPath = path.append(child.getName());
+			putNodeIds(child, childPath, nodeIDMap);
+			putSubtree(child, childPath, nodeIDMap);
+		}
+	}
+
+	/**
+	 * Adds the node ids below a removed and an added root with the same node id
+	 * to the map, except for the resources that kept their node id and name.
+	 * Children of both roots are sorted by name.
+	 */
+	private static void putMovedSubtree(AbstractDataTreeNode removed, IPath removedPath, AbstractDataTreeNode added, IPath addedPath, NodeIDMap nodeIDMap) {
+		AbstractDataTreeNode[] oldChildren = removed.getChildren();
+		AbstractDataTreeNode[] newChildren = added.getChildren();
+		int oldIndex = 0, newIndex = 0;
+		while (oldIndex < oldChildren.length || newIndex < newChildren.length) {
+			AbstractDataTreeNode oldChild = oldIndex < oldChildren.length ? oldChildren[oldIndex] : null;
+			AbstractDataTreeNode newChild = newIndex < newChildren.length ? newChildren[newIndex] : null;
+			int order = oldChild == null ? 1 : newChild == null ? -1 : oldChild.getName().compareTo(newChild.getName());
+			if (order == 0 && kindOf(oldChild) == IResourceDelta.REMOVED && kindOf(newChild) == IResourceDelta.ADDED && nodeIdOf(oldChild, true) == nodeIdOf(newChild, false)) {
+				// moved along with the root
+				if (oldChild.getChildren().length > 0 || newChild.getChildren().length > 0)
+					putMovedSubtree(oldChild, removedPath.append(oldChild.getName()), newChild, addedPath.append(newChild.getName()), nodeIDMap);
+				oldIndex++;
+				newIndex++;
+				continue;
+			}
+			if (order <= 0) {
+				IPath oldPath = removedPath.append(oldChild.getName());
+				putNodeIds(oldChild, oldPath, nodeIDMap);
+				putSubtree(oldChild, oldPath, nodeIDMap);
+				oldIndex++;
+			}
+			if (order >= 0) {
+				IPath newPath = addedPath.append(newChild.getName());
+				putNodeIds(newChild, newPath, nodeIDMap);
+				putSubtree(newChild, newPath, nodeIDMap);
+				newIndex++;
+			}
+		}
+	}
+
+	/**
+	 * Adds the node ids of the given comparison node to the map.
+	 */
+	private static void putNodeIds(AbstractDataTreeNode comparison, IPath path, NodeIDMap nodeIDMap) {
+		switch (kindOf(comparison)) {
+			case IResourceDelta.ADDED :
+				nodeIDMap.putNewPath(nodeIdOf(comparison, false), path);
+				break;
+			case IResourceDelta.REMOVED :
+				nodeIDMap.putOldPath(nodeIdOf(comparison, true), path);
+				break;
+			case IResourceDelta.CHANGED :
+				long oldID = nodeIdOf(comparison, true);
+				long newID = nodeIdOf(comparison, false);
+				//don't add entries to the map if nothing has changed.
+				if (oldID != newID) {
+					nodeIDMap.putOldPath(oldID, path);
+					nodeIDMap.putNewPath(newID, path);
+				}
+				break;
+		}
+	}
+
+	private static int kindOf(AbstractDataTreeNode comparison) {
+		return ((NodeComparison) comparison.getData()).getUserComparison() & ResourceDelta.KIND_MASK;
+	}
+
+	private static long nodeIdOf(AbstractDataTreeNode comparison, boolean old) {
+		NodeComparison compare = (NodeComparison) comparison.getData();
+		return ((ResourceInfo) (old ? compare.getOldData() : compare.getNewData())).getNodeId();
+	}
+
+	/**
+	 * Creates the ResourceDelta for the given node of the comparison tree, rooted
+	 * at the given path. Its children are created when they are first asked for.
 	 */
-	protected static ResourceDelta createDelta(Workspace workspace, DeltaDataTree delta, ResourceDeltaInfo deltaInfo, IPath pathInTree, IPath pathInDelta) {
+	protected static ResourceDelta createDelta(ResourceDeltaInfo deltaInfo, AbstractDataTreeNode comparison, IPath pathInTree) {
 		// create the delta and fill it with information
 		ResourceDelta result = new ResourceDelta(pathInTree, deltaInfo);
-
-		// fill the result with information
-		NodeComparison compare = (NodeComparison) delta.getData(pathInDelta);
-		int comparison = compare.getUserComparison();
-		result.setStatus(comparison);
-		if (comparison == IResourceDelta.NO_CHANGE || Path.ROOT.equals(pathInTree)) {
-			ResourceInfo info = workspace.getResourceInfo(pathInTree, true, false);
+		NodeComparison compare = (NodeComparison) comparison.getData();
+		int status = compare.getUserComparison();
+		if (status == IResourceDelta.NO_CHANGE || Path.ROOT.equals(pathInTree)) {
+			ResourceInfo info = deltaInfo.getNewInfo(pathInTree);
 			result.setOldInfo(info);
 			result.setNewInfo(info);
 		} else {
 			result.setOldInfo((ResourceInfo) compare.getOldData());
 			result.setNewInfo((ResourceInfo) compare.getNewData());
 		}
-		// recurse over the children
-		IPath[] childKeys = delta.getChildren(pathInDelta);
-		int numChildren = childKeys.length;
-		if (numChildren == 0) {
+		if (comparison.getChildren().length == 0) {
 			result.setChildren(NO_CHILDREN);
 		} else {
-			ResourceDelta[] children = new ResourceDelta[numChildren];
-			for (int i = 0; i < numChildren; i++) {
-				//reuse the delta path if tree-relative and delta-relative are the same
-				IPath newTreePath = pathInTree == pathInDelta ? childKeys[i] : pathInTree.append(childKeys[i].lastSegment());
-				children[i] = createDelta(workspace, delta, deltaInfo, newTreePath, childKeys[i]);
-			}
-			result.setChildren(children);
+			result.setComparison(comparison);
+			// if this delta has children but no other changes, mark it as changed
+			if ((status & IResourceDelta.ALL_WITH_PHANTOMS) == 0)
+				status |= IResourceDelta.CHANGED;
 		}
-
-		// if this delta has children but no other changes, mark it as changed
-		int status = result.status;
-		if ((status & IResourceDelta.ALL_WITH_PHANTOMS) == 0 && numChildren != 0)
-			result.setStatus(status |= IResourceDelta.CHANGED);
-
-		// return the delta
+		result.setStatus(status);
+		result.fixMovesAndMarkers();
+		// if added projects were also opened then tweak the flags so the delta reports both
+		if (pathInTree.segmentCount() == 1 && result.getKind() == IResourceDelta.ADDED)
+			if (result.newInfo.isSet(ICoreConstants.M_OPEN))
+				result.status |= IResourceDelta.OPEN;
 		return result;
 	}
 
+	/**
+	 * Creates the deltas for the children of the given node of the comparison tree.
+	 */
+	protected static ResourceDelta[] createChildren(ResourceDeltaInfo deltaInfo, AbstractDataTreeNode comparison, IPath pathInTree) {
+		AbstractDataTreeNode[] nodes = comparison.getChildren();
+		ResourceDelta[] children = new ResourceDelta[nodes.length];
+		for (int i = 0; i < nodes.length; i++)
+			children[i] = createDelta(deltaInfo, nodes[i], pathInTree.append(nodes[i].getName()));
+		return children;
+	}
+
 	/**
 	 * Returns an empty build delta describing the fact that no
 	 * changes occurred in the given project.  The returned delta
@@ -11,20 +11,34 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     James Blackburn (Broadcom Corp.) - ongoing development
+ *     Contributors to the Eclipse Foundation - compute the node ID map lazily
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import org.eclipse.core.internal.resources.MarkerSet;
-import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.internal.dtree.AbstractDataTreeNode;
+import org.eclipse.core.internal.resources.*;
+import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.runtime.IPath;
 
 public class ResourceDeltaInfo {
 	protected Workspace workspace;
 	protected Map<IPath, MarkerSet> allMarkerDeltas;
-	protected NodeIDMap nodeIDMap;
+	protected volatile NodeIDMap nodeIDMap;
 	protected ResourceComparator comparator;
+	/**
+	 * The trees compared, or <code>null</code> for deltas not created from a
+	 * comparison or once all deltas were created
+	 */
+	protected ElementTree oldTree;
+	protected ElementTree newTree;
+	/** The number of deltas whose children still have to be created from the comparison */
+	private final AtomicInteger pendingChildren = new AtomicInteger();
+	/** The root of the comparison and its path, used to compute the node ID map when first needed */
+	private AbstractDataTreeNode comparison;
+	private IPath comparisonPath;
 
 	public ResourceDeltaInfo(Workspace workspace, Map<IPath, MarkerSet> markerDeltas, ResourceComparator comparator) {
 		super();
@@ -44,8 +58,44 @@ public class ResourceDeltaInfo {
 		return allMarkerDeltas;
 	}
 
+	/**
+	 * Returns the map from node id to the old and new paths of the resources
+	 * in the delta, computing it from the comparison if needed.
+	 */
 	public NodeIDMap getNodeIDMap() {
-		return nodeIDMap;
+		NodeIDMap map = nodeIDMap;
+		if (map == null && comparison != null) {
+			synchronized (this) {
+				map = nodeIDMap;
+				if (map == null)
+					nodeIDMap = map = ResourceDeltaFactory.computeNodeIDMap(comparison, comparisonPath, new NodeIDMap());
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Returns the info of the resource with the given path in the old tree, or
+	 * <code>null</code> if there is none.
+	 */
+	public ResourceInfo getOldInfo(IPath path) {
+		return getInfo(oldTree, path);
+	}
+
+	/**
+	 * Returns the info of the resource with the given path in the new tree, or
+	 * <code>null</code> if there is none.
+	 */
+	public ResourceInfo getNewInfo(IPath path) {
+		return getInfo(newTree, path);
+	}
+
+	private ResourceInfo getInfo(ElementTree tree, IPath path) {
+		if (tree == null)
+			return null;
+		if (path.isRoot())
+			return (ResourceInfo) tree.getTreeData();
+		return tree.includes(path) ? (ResourceInfo) tree.getElementData(path) : null;
 	}
 
 	public Workspace getWorkspace() {
@@ -60,6 +110,40 @@ public class ResourceDeltaInfo {
 		nodeIDMap = map;
 	}
 
+	/**
+	 * Remembers the trees the delta was computed from and the root of their
+	 * comparison, which starts at the given path.
+	 */
+	public void setComparison(ElementTree oldTree, ElementTree newTree, AbstractDataTreeNode comparison, IPath path) {
+		this.oldTree = oldTree;
+		this.newTree = newTree;
+		this.comparison = comparison;
+		this.comparisonPath = path;
+		// the root delta is pending until it is created
+		this.pendingChildren.set(1);
+	}
+
+	/**
+	 * Records that the children of a delta will be created from the comparison
+	 * when they are first asked for.
+	 */
+	void childrenPending() {
+		pendingChildren.incrementAndGet();
+	}
+
+	/**
+	 * Records that the children of a delta were created. Once no delta has
+	 * children left to create, the trees are not needed anymore and are released,
+	 * so that a delta that is kept does not keep the trees it was computed from.
+	 */
+	void childrenCreated() {
+		if (pendingChildren.decrementAndGet() == 0) {
+			oldTree = null;
+			newTree = null;
+			comparator = null;
+		}
+	}
+
 	/** for debugging only **/
 	@Override
 	public String toString() {
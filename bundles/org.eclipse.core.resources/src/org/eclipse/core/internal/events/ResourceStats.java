@@ -10,6 +10,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     Contributors to the Eclipse Foundation - timing of concurrently notified listeners
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
@@ -77,6 +78,14 @@ public class ResourceStats {
 			PerformanceStats.removeStats(EVENT_LISTENERS, listener.getClass().getName());
 	}
 
+	/**
+	 * Records the time it took a resource change listener that is notified
+	 * concurrently with other listeners to handle an event.
+	 */
+	public static synchronized void notified(IResourceChangeListener listener, long elapsed) {
+		PerformanceStats.getStats(EVENT_LISTENERS, listener).addRun(elapsed, null);
+	}
+
 	public static void startBuild(IncrementalProjectBuilder builder) {
 		currentStats = PerformanceStats.getStats(EVENT_BUILDERS, builder);
 		currentStats.startRun(builder.getProject().getName());
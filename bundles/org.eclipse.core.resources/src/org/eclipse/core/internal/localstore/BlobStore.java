@@ -13,10 +13,12 @@
  *******************************************************************************/
 package org.eclipse.core.internal.localstore;
 
+import java.io.File;
 import java.io.InputStream;
 import java.util.Set;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.internal.filesystem.local.LocalFileNativesManager;
 import org.eclipse.core.internal.utils.UniversalUniqueIdentifier;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -55,11 +57,29 @@ public class BlobStore {
 		IFileStore destination = fileFor(uuid);
 		if (moveContents)
 			target.move(destination, EFS.NONE, null);
-		else
+		else if (!cloneFile(target, destination))
 			target.copy(destination, EFS.NONE, null);
 		return uuid;
 	}
 
+	/**
+	 * Creates the given destination as a copy-on-write clone of the given local
+	 * file, where the platform and file system support it (e.g. reflinks on btrfs
+	 * or XFS). A clone is as cheap as a hard link but, unlike one, is not affected
+	 * by later writes to the source.
+	 *
+	 * @return <code>true</code> if the clone has been created, and
+	 *         <code>false</code> if the file has to be copied instead
+	 */
+	private static boolean cloneFile(IFileStore source, IFileStore destination) throws CoreException {
+		File sourceFile = source.toLocalFile(EFS.NONE, null);
+		File destinationFile = destination.toLocalFile(EFS.NONE, null);
+		if (sourceFile == null || destinationFile == null || !LocalFileNativesManager.cloneFile(sourceFile.getAbsolutePath(), destinationFile.getAbsolutePath()))
+			return false;
+		destination.putInfo(source.fetchInfo(), EFS.SET_ATTRIBUTES | EFS.SET_LAST_MODIFIED, null);
+		return true;
+	}
+
 	/**
 	 * @see UniversalUniqueIdentifier#appendByteString(StringBuilder, byte)
 	 */
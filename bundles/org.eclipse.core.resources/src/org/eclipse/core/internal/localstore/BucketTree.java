@@ -15,6 +15,7 @@
 package org.eclipse.core.internal.localstore;
 
 import java.io.*;
+import java.util.*;
 import org.eclipse.core.internal.localstore.Bucket.Visitor;
 import org.eclipse.core.internal.resources.ResourceException;
 import org.eclipse.core.internal.resources.Workspace;
@@ -44,6 +45,49 @@ public class BucketTree {
 			HEX_STRINGS[i] = Integer.toHexString(i).toCharArray();
 	}
 
+	/**
+	 * A subtree of the bucket tree that can be visited independently from (and
+	 * concurrently with) the other partitions of the same tree, provided each
+	 * partition is visited through its own bucket tree instance.
+	 * <p>
+	 * Every project contributes one partition for the bucket holding the entries
+	 * for the project itself and its direct members, plus one partition for each
+	 * of the (at most 256) first-level bucket directories under it.
+	 * </p>
+	 */
+	public static final class Partition {
+		final IPath projectPath;
+		final File location;
+		final boolean recursive;
+		final int segmentIndex;
+
+		Partition(IPath projectPath, File location, boolean recursive, int segmentIndex) {
+			this.projectPath = projectPath;
+			this.location = location;
+			this.recursive = recursive;
+			this.segmentIndex = segmentIndex;
+		}
+
+		public IPath getProjectPath() {
+			return projectPath;
+		}
+
+		/**
+		 * Returns the index of the first-level bucket directory of this partition,
+		 * or -1 if this is the partition for the project bucket.
+		 *
+		 * @see BucketTree#getSegmentIndex(IPath)
+		 */
+		public int getSegmentIndex() {
+			return segmentIndex;
+		}
+
+		@Override
+		public String toString() {
+			return projectPath + " -> " + location; //$NON-NLS-1$
+		}
+	}
+
 	protected Bucket current;
 
 	private Workspace workspace;
@@ -81,6 +125,24 @@ public class BucketTree {
 			internalAccept(visitor, base, locationFor(base), depth, 0);
 	}
 
+	/**
+	 * Visits all entries stored in the given partition.
+	 *
+	 * @param visitor   the processor for the bucket entries
+	 * @param partition a partition obtained from {@link #getPartitions()}
+	 *
+	 * @exception CoreException thrown by the visitor or failure to load/save the
+	 *                          bucket
+	 */
+	public void accept(Bucket.Visitor visitor, Partition partition) throws CoreException {
+		if (partition.recursive) {
+			internalAccept(visitor, partition.projectPath, partition.location, DEPTH_INFINITE, 1);
+			return;
+		}
+		current.load(partition.projectPath.segment(0), partition.location);
+		current.accept(visitor, partition.projectPath, DEPTH_INFINITE);
+	}
+
 	public void close() throws CoreException {
 		current.save();
 		saveVersion();
@@ -90,6 +152,56 @@ public class BucketTree {
 		return current;
 	}
 
+	/**
+	 * Returns the partitions covering all entries stored for the projects in the
+	 * workspace. The bucket for the workspace root is not part of any partition.
+	 * Partitions are returned in a stable order (projects by name, then bucket
+	 * directories by name) so callers can process them in slices.
+	 *
+	 * @see Partition
+	 */
+	public List<Partition> getPartitions() {
+		List<Partition> result = new ArrayList<>();
+		IProject[] projects = workspace.getRoot().getProjects(IContainer.INCLUDE_HIDDEN);
+		for (IProject project : projects) {
+			IPath projectPath = project.getFullPath();
+			File projectLocation = locationFor(projectPath);
+			result.add(new Partition(projectPath, projectLocation, false, -1));
+			File[] subDirs = projectLocation.listFiles(File::isDirectory);
+			if (subDirs == null)
+				continue;
+			Arrays.sort(subDirs);
+			for (File subDir : subDirs) {
+				int segmentIndex;
+				try {
+					segmentIndex = Integer.parseInt(subDir.getName(), 16);
+				} catch (NumberFormatException e) {
+					// not created by this tree, no path maps to it
+					segmentIndex = -1;
+				}
+				result.add(new Partition(projectPath, subDir, true, segmentIndex));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the first-level bucket directory holding the entry for
+	 * the given path, or -1 if the entry is kept in the bucket for its project (or
+	 * for the workspace root). Entries for all members of a folder (at any depth)
+	 * share the first-level directory of the folder's members.
+	 */
+	public static int getSegmentIndex(IPath path) {
+		if (path.segmentCount() < 3)
+			return -1;
+		return segmentIndex(path.segment(1));
+	}
+
+	static int segmentIndex(String segment) {
+		// String.hashCode algorithm is API
+		return Math.abs(segment.hashCode()) % SEGMENT_QUOTA;
+	}
+
 	public File getVersionFile() {
 		return new File(locationFor(Path.ROOT), current.getVersionFileName());
 	}
@@ -157,7 +269,6 @@ public class BucketTree {
 	}
 
 	private char[] translateSegment(String segment) {
-		// String.hashCode algorithm is API
-		return HEX_STRINGS[Math.abs(segment.hashCode()) % SEGMENT_QUOTA];
+		return HEX_STRINGS[segmentIndex(segment)];
 	}
 }
@@ -16,6 +16,9 @@ package org.eclipse.core.internal.localstore;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.internal.localstore.Bucket.Entry;
 import org.eclipse.core.internal.localstore.HistoryBucket.HistoryEntry;
@@ -24,14 +27,28 @@ import org.eclipse.core.internal.utils.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 
+/**
+ * History store keeping the history index in a bucket tree and the file
+ * states in a blob store.
+ * <p>
+ * Access to the bucket tree is striped: every bucket belongs to exactly one
+ * {@link Stripe}, determined by the project and the first-level bucket
+ * directory it is stored under. Operations on a single file only lock the
+ * stripe of the file, so files in different stripes can be recorded and
+ * queried concurrently. Operations on subtrees lock all the stripes the
+ * subtree can be stored in, always in ascending order.
+ * </p>
+ */
 public class HistoryStore2 implements IHistoryStore {
 
 	class HistoryCopyVisitor extends Bucket.Visitor {
 		private List<HistoryEntry> changes = new ArrayList<>();
 		private IPath destination;
 		private IPath source;
+		private BucketTree copyTree;
 
-		public HistoryCopyVisitor(IPath source, IPath destination) {
+		public HistoryCopyVisitor(BucketTree copyTree, IPath source, IPath destination) {
+			this.copyTree = copyTree;
 			this.source = source;
 			this.destination = destination;
 		}
@@ -48,8 +65,8 @@ public class HistoryStore2 implements IHistoryStore {
 			// make effective all changes collected
 			Iterator<HistoryEntry> i = changes.iterator();
 			HistoryEntry entry = i.next();
-			tree.loadBucketFor(entry.getPath());
-			HistoryBucket bucket = (HistoryBucket) tree.getCurrent();
+			copyTree.loadBucketFor(entry.getPath());
+			HistoryBucket bucket = (HistoryBucket) copyTree.getCurrent();
 			bucket.addBlobs(entry);
 			while (i.hasNext())
 				bucket.addBlobs(i.next());
@@ -67,8 +84,53 @@ public class HistoryStore2 implements IHistoryStore {
 		}
 	}
 
+	/**
+	 * Guards the buckets of a subset of the projects' first-level bucket
+	 * directories. Each stripe loads its buckets through its own bucket tree.
+	 */
+	private static final class Stripe {
+		final ReentrantLock lock = new ReentrantLock();
+		final BucketTree tree;
+
+		Stripe(BucketTree tree) {
+			this.tree = tree;
+		}
+
+		/**
+		 * Saves and discards the bucket currently loaded by this stripe, so that
+		 * other trees can safely load it. Must be called with the lock held.
+		 */
+		void flush() throws CoreException {
+			Bucket current = tree.getCurrent();
+			current.save();
+			current.flush();
+		}
+	}
+
+	/**
+	 * The number of unreferenced blobs that are deleted together.
+	 */
+	private static final int BLOB_DELETION_BATCH_SIZE = 100;
+
+	/**
+	 * The number of bucket tree partitions cleaned by an incremental clean.
+	 *
+	 * @see #cleanIncrementally(IProgressMonitor)
+	 */
+	private static final int INCREMENTAL_CLEAN_PARTITIONS = 16;
+
+	/**
+	 * The number of stripes the bucket tree is divided in. Must be a power of 2.
+	 */
+	static final int STRIPE_COUNT = 64;
+
 	private BlobStore blobStore;
-	private Set<UniversalUniqueIdentifier> blobsToRemove = new HashSet<>();
+	private final Set<UniversalUniqueIdentifier> blobsToRemove = ConcurrentHashMap.newKeySet();
+	/**
+	 * Index of the first partition to be cleaned by the next incremental clean.
+	 */
+	private int nextCleanPartition;
+	private final Stripe[] stripes;
 	final BucketTree tree;
 	private Workspace workspace;
 
@@ -82,13 +144,16 @@ public class HistoryStore2 implements IHistoryStore {
 		}
 		this.blobStore = new BlobStore(store, limit);
 		this.tree = new BucketTree(workspace, new HistoryBucket());
+		this.stripes = new Stripe[STRIPE_COUNT];
+		for (int i = 0; i < stripes.length; i++)
+			stripes[i] = new Stripe(new BucketTree(workspace, new HistoryBucket()));
 	}
 
 	/**
 	 * @see IHistoryStore#addState(IPath, IFileStore, IFileInfo, boolean)
 	 */
 	@Override
-	public synchronized IFileState addState(IPath key, IFileStore localFile, IFileInfo info, boolean moveContents) {
+	public IFileState addState(IPath key, IFileStore localFile, IFileInfo info, boolean moveContents) {
 		long lastModified = info.getLastModified();
 		if (Policy.DEBUG_HISTORY)
 			Policy.debug("History: Adding state for key: " + key + ", file: " + localFile + ", timestamp: " + lastModified + ", size: " + localFile.fetchInfo().getLength()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
@@ -96,11 +161,18 @@ public class HistoryStore2 implements IHistoryStore {
 			return null;
 		UniversalUniqueIdentifier uuid = null;
 		try {
+			// the blob has a unique name, no need to hold the stripe while copying it
 			uuid = blobStore.addBlob(localFile, moveContents);
-			tree.loadBucketFor(key);
-			HistoryBucket currentBucket = (HistoryBucket) tree.getCurrent();
-			currentBucket.addBlob(key, uuid, lastModified);
-			//			currentBucket.save();
+			Stripe stripe = stripeFor(key);
+			stripe.lock.lock();
+			try {
+				stripe.tree.loadBucketFor(key);
+				HistoryBucket currentBucket = (HistoryBucket) stripe.tree.getCurrent();
+				currentBucket.addBlob(key, uuid, lastModified);
+				//			currentBucket.save();
+			} finally {
+				stripe.lock.unlock();
+			}
 		} catch (CoreException e) {
 			log(e);
 		}
@@ -108,10 +180,11 @@ public class HistoryStore2 implements IHistoryStore {
 	}
 
 	@Override
-	public synchronized Set<IPath> allFiles(IPath root, int depth, IProgressMonitor monitor) {
+	public Set<IPath> allFiles(IPath root, int depth, IProgressMonitor monitor) {
 		final Set<IPath> allFiles = new HashSet<>();
+		BitSet locked = lockSubtree(root, new BitSet(STRIPE_COUNT));
 		try {
-			tree.accept(new Bucket.Visitor() {
+			treeFor(locked).accept(new Bucket.Visitor() {
 				@Override
 				public int visit(Entry fileEntry) {
 					allFiles.add(fileEntry.getPath());
@@ -120,6 +193,8 @@ public class HistoryStore2 implements IHistoryStore {
 			}, root, depth == IResource.DEPTH_INFINITE ? BucketTree.DEPTH_INFINITE : depth);
 		} catch (CoreException e) {
 			log(e);
+		} finally {
+			unlock(locked);
 		}
 		return allFiles;
 	}
@@ -128,59 +203,119 @@ public class HistoryStore2 implements IHistoryStore {
 	 * Applies the clean-up policy to an entry.
 	 */
 	protected void applyPolicy(HistoryEntry fileEntry, int maxStates, long minTimeStamp) {
+		applyPolicy(fileEntry, maxStates, minTimeStamp, blobsToRemove);
+	}
+
+	/**
+	 * Applies the clean-up policy to an entry, remembering the blobs no longer
+	 * referenced in the given set.
+	 */
+	private void applyPolicy(HistoryEntry fileEntry, int maxStates, long minTimeStamp, Set<UniversalUniqueIdentifier> unreferencedBlobs) {
 		for (int i = 0; i < fileEntry.getOccurrences(); i++) {
 			if (i < maxStates && fileEntry.getTimestamp(i) >= minTimeStamp)
 				continue;
 			// "delete" the current uuid
-			blobsToRemove.add(fileEntry.getUUID(i));
+			unreferencedBlobs.add(fileEntry.getUUID(i));
 			fileEntry.deleteOccurrence(i);
 		}
 	}
 
 	/**
-	 * Applies the clean-up policy to a subtree.
+	 * Applies the clean-up policy to a subtree, using the given tree.
 	 */
-	private void applyPolicy(IPath root) throws CoreException {
+	private void applyPolicy(BucketTree policyTree, IPath root) throws CoreException {
 		IWorkspaceDescription description = workspace.internalGetDescription();
 		final long minimumTimestamp = System.currentTimeMillis() - description.getFileStateLongevity();
 		final int maxStates = description.getMaxFileStates();
 		// apply policy to the given tree
-		tree.accept(new Bucket.Visitor() {
+		policyTree.accept(new Bucket.Visitor() {
 			@Override
 			public int visit(Entry entry) {
 				applyPolicy((HistoryEntry) entry, maxStates, minimumTimestamp);
 				return CONTINUE;
 			}
 		}, root, BucketTree.DEPTH_INFINITE);
-		tree.getCurrent().save();
+		policyTree.getCurrent().save();
+	}
+
+	@Override
+	public void clean(final IProgressMonitor monitor) {
+		clean(Integer.MAX_VALUE, monitor);
 	}
 
 	@Override
-	public synchronized void clean(final IProgressMonitor monitor) {
+	public void cleanIncrementally(IProgressMonitor monitor) {
+		clean(INCREMENTAL_CLEAN_PARTITIONS, monitor);
+	}
+
+	/**
+	 * Applies the clean-up policy to at most the given number of partitions of
+	 * the bucket tree, resuming where the previous call left off. Partitions are
+	 * processed in parallel, each one by its own bucket tree, and unreferenced
+	 * blobs are deleted in batches as soon as their bucket has been saved. Only
+	 * the stripes of the partitions being cleaned are locked.
+	 *
+	 * @see BucketTree#getPartitions()
+	 */
+	public synchronized void clean(int maxPartitions, final IProgressMonitor monitor) {
 		long start = System.currentTimeMillis();
 		try {
 			monitor.beginTask(Messages.resources_pruningHistory, IProgressMonitor.UNKNOWN);
 			IWorkspaceDescription description = workspace.internalGetDescription();
 			final long minimumTimestamp = System.currentTimeMillis() - description.getFileStateLongevity();
 			final int maxStates = description.getMaxFileStates();
-			final int[] entryCount = new int[1];
+			final AtomicInteger entryCount = new AtomicInteger();
+			int partitionCount = 0;
 			if (description.isApplyFileStatePolicy()) {
-				tree.accept(new Bucket.Visitor() {
-					@Override
-					public int visit(Entry fileEntry) {
+				BitSet locked = new BitSet(STRIPE_COUNT);
+				List<BucketTree.Partition> partitions;
+				if (maxPartitions == Integer.MAX_VALUE) {
+					// lock everything first, so no bucket gets created behind our back
+					lockAll(locked);
+					partitions = nextCleanPartitions(maxPartitions);
+				} else {
+					partitions = nextCleanPartitions(maxPartitions);
+					for (BucketTree.Partition partition : partitions)
+						locked.set(stripeIndex(partition.getProjectPath().segment(0), partition.getSegmentIndex()));
+					lock(locked);
+				}
+				partitionCount = partitions.size();
+				try {
+					// the stripes must not overwrite the changes made by the partition trees later on
+					flush(locked);
+					ParallelRunner.run(partitions, partition -> {
 						if (monitor.isCanceled())
-							return STOP;
-						entryCount[0] += fileEntry.getOccurrences();
-						applyPolicy((HistoryEntry) fileEntry, maxStates, minimumTimestamp);
-						// remove unreferenced blobs, when blobsToRemove size is greater than 100
-						removeUnreferencedBlobs(100);
-						return monitor.isCanceled() ? STOP : CONTINUE;
-					}
-				}, Path.ROOT, BucketTree.DEPTH_INFINITE);
+							return;
+						final Set<UniversalUniqueIdentifier> unreferencedBlobs = new HashSet<>();
+						BucketTree partitionTree = new BucketTree(workspace, new HistoryBucket());
+						partitionTree.accept(new Bucket.Visitor() {
+							@Override
+							public void afterSaving(Bucket bucket) {
+								// only delete blobs once the bucket no longer references them
+								if (unreferencedBlobs.size() >= BLOB_DELETION_BATCH_SIZE) {
+									blobStore.deleteBlobs(unreferencedBlobs);
+									unreferencedBlobs.clear();
+								}
+							}
+
+							@Override
+							public int visit(Entry fileEntry) {
+								if (monitor.isCanceled())
+									return STOP;
+								entryCount.addAndGet(fileEntry.getOccurrences());
+								applyPolicy((HistoryEntry) fileEntry, maxStates, minimumTimestamp, unreferencedBlobs);
+								return CONTINUE;
+							}
+						}, partition);
+						blobStore.deleteBlobs(unreferencedBlobs);
+					}, Messages.history_problemsCleaning);
+				} finally {
+					unlock(locked);
+				}
 			}
 			if (Policy.DEBUG_HISTORY) {
-				Policy.debug("Time to apply history store policies: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$ //$NON-NLS-2$
-				Policy.debug("Total number of history store entries: " + entryCount[0]); //$NON-NLS-1$
+				Policy.debug("Time to apply history store policies to " + partitionCount + " partitions: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				Policy.debug("Total number of history store entries: " + entryCount.get()); //$NON-NLS-1$
 			}
 			// remove all remaining unreferenced blobs
 			removeUnreferencedBlobs(0);
@@ -193,6 +328,23 @@ public class HistoryStore2 implements IHistoryStore {
 		}
 	}
 
+	/**
+	 * Returns the partitions to be cleaned next, advancing the position of the
+	 * incremental clean.
+	 */
+	private List<BucketTree.Partition> nextCleanPartitions(int maxPartitions) {
+		List<BucketTree.Partition> partitions = tree.getPartitions();
+		int size = partitions.size();
+		if (maxPartitions >= size) {
+			nextCleanPartition = 0;
+			return partitions;
+		}
+		int from = nextCleanPartition < size ? nextCleanPartition : 0;
+		int to = Math.min(from + maxPartitions, size);
+		nextCleanPartition = to;
+		return partitions.subList(from, to);
+	}
+
 	/*
 	 * Remove blobs from the blobStore. When the size of blobsToRemove exceeds the limit,
 	 * remove the given blobs from blobStore. If the limit is zero or negative, remove blobs
@@ -201,26 +353,30 @@ public class HistoryStore2 implements IHistoryStore {
 	void removeUnreferencedBlobs(int limit) {
 		if (limit <= 0 || limit <= blobsToRemove.size()) {
 			long start = System.currentTimeMillis();
+			// other threads may keep adding blobs while we delete these
+			Set<UniversalUniqueIdentifier> toRemove = new HashSet<>(blobsToRemove);
 			// remove unreferenced blobs
-			blobStore.deleteBlobs(blobsToRemove);
+			blobStore.deleteBlobs(toRemove);
+			blobsToRemove.removeAll(toRemove);
 			if (Policy.DEBUG_HISTORY)
-				Policy.debug("Time to remove " + blobsToRemove.size() + " unreferenced blobs: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
-			blobsToRemove = new HashSet<>();
+				Policy.debug("Time to remove " + toRemove.size() + " unreferenced blobs: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
 		}
 	}
 
 	@Override
 	public void closeHistoryStore(IResource resource) {
+		BitSet locked = lockSubtree(resource.getFullPath(), new BitSet(STRIPE_COUNT));
 		try {
-			tree.getCurrent().save();
-			tree.getCurrent().flush();
+			flush(locked);
 		} catch (CoreException e) {
 			log(e);
+		} finally {
+			unlock(locked);
 		}
 	}
 
 	@Override
-	public synchronized void copyHistory(IResource sourceResource, IResource destinationResource, boolean moving) {
+	public void copyHistory(IResource sourceResource, IResource destinationResource, boolean moving) {
 		// return early if either of the paths are null or if the source and
 		// destination are the same.
 		if (sourceResource == null || destinationResource == null) {
@@ -242,22 +398,27 @@ public class HistoryStore2 implements IHistoryStore {
 		Assert.isLegal(destination.segmentCount() > 0);
 		Assert.isLegal(source.segmentCount() > 1 || destination.segmentCount() == 1);
 
+		BitSet locked = new BitSet(STRIPE_COUNT);
+		stripesFor(source, locked);
+		stripesFor(destination, locked);
+		lock(locked);
 		try {
 			// special case: we are moving a project
 			if (moving && sourceResource.getType() == IResource.PROJECT) {
 				// flush the tree to avoid confusion if another project is created with the same name
-				final Bucket bucket = tree.getCurrent();
-				bucket.save();
-				bucket.flush();
+				flush(locked);
 				return;
 			}
 			// copy history by visiting the source tree
-			HistoryCopyVisitor copyVisitor = new HistoryCopyVisitor(source, destination);
-			tree.accept(copyVisitor, source, BucketTree.DEPTH_INFINITE);
+			BucketTree copyTree = treeFor(locked);
+			HistoryCopyVisitor copyVisitor = new HistoryCopyVisitor(copyTree, source, destination);
+			copyTree.accept(copyVisitor, source, BucketTree.DEPTH_INFINITE);
 			// apply clean-up policy to the destination tree
-			applyPolicy(destinationResource.getFullPath());
+			applyPolicy(copyTree, destinationResource.getFullPath());
 		} catch (CoreException e) {
 			log(e);
+		} finally {
+			unlock(locked);
 		}
 	}
 
@@ -266,6 +427,15 @@ public class HistoryStore2 implements IHistoryStore {
 		return blobStore.fileFor(((FileState) target).getUUID()).fetchInfo().exists();
 	}
 
+	/**
+	 * Saves and discards the buckets loaded by the given stripes, which must be
+	 * locked by the current thread.
+	 */
+	private void flush(BitSet locked) throws CoreException {
+		for (int i = locked.nextSetBit(0); i >= 0; i = locked.nextSetBit(i + 1))
+			stripes[i].flush();
+	}
+
 	@Override
 	public InputStream getContents(IFileState target) throws CoreException {
 		if (!target.exists()) {
@@ -275,11 +445,29 @@ public class HistoryStore2 implements IHistoryStore {
 		return blobStore.getBlob(((FileState) target).getUUID());
 	}
 
+	/**
+	 * Returns the partitions of the history store, after making sure all
+	 * changes recorded so far have reached the disk.
+	 *
+	 * @see BucketTree#getPartitions()
+	 */
+	public List<BucketTree.Partition> getPartitions() throws CoreException {
+		BitSet locked = lockAll(new BitSet(STRIPE_COUNT));
+		try {
+			flush(locked);
+			return tree.getPartitions();
+		} finally {
+			unlock(locked);
+		}
+	}
+
 	@Override
-	public synchronized IFileState[] getStates(IPath filePath, IProgressMonitor monitor) {
+	public IFileState[] getStates(IPath filePath, IProgressMonitor monitor) {
+		Stripe stripe = stripeFor(filePath);
+		stripe.lock.lock();
 		try {
-			tree.loadBucketFor(filePath);
-			HistoryBucket currentBucket = (HistoryBucket) tree.getCurrent();
+			stripe.tree.loadBucketFor(filePath);
+			HistoryBucket currentBucket = (HistoryBucket) stripe.tree.getCurrent();
 			HistoryEntry fileEntry = currentBucket.getEntry(filePath);
 			if (fileEntry == null || fileEntry.isEmpty())
 				return new IFileState[0];
@@ -290,6 +478,8 @@ public class HistoryStore2 implements IHistoryStore {
 		} catch (CoreException ce) {
 			log(ce);
 			return new IFileState[0];
+		} finally {
+			stripe.lock.unlock();
 		}
 	}
 
@@ -319,6 +509,28 @@ public class HistoryStore2 implements IHistoryStore {
 		return result;
 	}
 
+	/**
+	 * Locks the given stripes in ascending order, which is the order all
+	 * threads acquire stripes in.
+	 */
+	private BitSet lock(BitSet toLock) {
+		for (int i = toLock.nextSetBit(0); i >= 0; i = toLock.nextSetBit(i + 1))
+			stripes[i].lock.lock();
+		return toLock;
+	}
+
+	private BitSet lockAll(BitSet toLock) {
+		toLock.set(0, STRIPE_COUNT);
+		return lock(toLock);
+	}
+
+	/**
+	 * Locks all stripes holding entries for the given path or any of its members.
+	 */
+	private BitSet lockSubtree(IPath root, BitSet toLock) {
+		return lock(stripesFor(root, toLock));
+	}
+
 	/**
 	 * Logs a CoreException
 	 */
@@ -331,10 +543,11 @@ public class HistoryStore2 implements IHistoryStore {
 	}
 
 	@Override
-	public synchronized void remove(IPath root, IProgressMonitor monitor) {
+	public void remove(IPath root, IProgressMonitor monitor) {
+		BitSet locked = lockSubtree(root, new BitSet(STRIPE_COUNT));
 		try {
 			final Set<UniversalUniqueIdentifier> tmpBlobsToRemove = blobsToRemove;
-			tree.accept(new Bucket.Visitor() {
+			treeFor(locked).accept(new Bucket.Visitor() {
 				@Override
 				public int visit(Entry fileEntry) {
 					for (int i = 0; i < fileEntry.getOccurrences(); i++)
@@ -346,6 +559,8 @@ public class HistoryStore2 implements IHistoryStore {
 			}, root, BucketTree.DEPTH_INFINITE);
 		} catch (CoreException ce) {
 			log(ce);
+		} finally {
+			unlock(locked);
 		}
 	}
 
@@ -354,9 +569,11 @@ public class HistoryStore2 implements IHistoryStore {
 	 */
 	@Override
 	public synchronized void removeGarbage() {
+		BitSet locked = lockAll(new BitSet(STRIPE_COUNT));
 		try {
 			final Set<UniversalUniqueIdentifier> tmpBlobsToRemove = blobsToRemove;
-			tree.accept(new Bucket.Visitor() {
+			flush(locked);
+			ParallelRunner.run(tree.getPartitions(), partition -> new BucketTree(workspace, new HistoryBucket()).accept(new Bucket.Visitor() {
 				@Override
 				public int visit(Entry fileEntry) {
 					for (int i = 0; i < fileEntry.getOccurrences(); i++)
@@ -364,23 +581,91 @@ public class HistoryStore2 implements IHistoryStore {
 						tmpBlobsToRemove.remove(((HistoryEntry) fileEntry).getUUID(i));
 					return CONTINUE;
 				}
-			}, Path.ROOT, BucketTree.DEPTH_INFINITE);
-			blobStore.deleteBlobs(blobsToRemove);
-			blobsToRemove = new HashSet<>();
+			}, partition), Messages.history_problemsCleaning);
+			// delete the blobs no longer referenced in batches
+			List<Set<UniversalUniqueIdentifier>> batches = new ArrayList<>();
+			Set<UniversalUniqueIdentifier> batch = null;
+			for (UniversalUniqueIdentifier uuid : tmpBlobsToRemove) {
+				if (batch == null || batch.size() == BLOB_DELETION_BATCH_SIZE) {
+					batch = new HashSet<>();
+					batches.add(batch);
+				}
+				batch.add(uuid);
+			}
+			ParallelRunner.run(batches, blobStore::deleteBlobs, Messages.history_problemsCleaning);
+			blobsToRemove.clear();
 		} catch (Exception e) {
 			String message = Messages.history_problemsCleaning;
 			ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_DELETE_LOCAL, null, message, e);
 			Policy.log(status);
+		} finally {
+			unlock(locked);
 		}
 	}
 
 	@Override
-	public synchronized void shutdown(IProgressMonitor monitor) throws CoreException {
-		tree.close();
+	public void shutdown(IProgressMonitor monitor) throws CoreException {
+		BitSet locked = lockAll(new BitSet(STRIPE_COUNT));
+		try {
+			flush(locked);
+			tree.close();
+		} finally {
+			unlock(locked);
+		}
 	}
 
 	@Override
 	public void startup(IProgressMonitor monitor) {
 		// nothing to be done
 	}
+
+	private Stripe stripeFor(IPath path) {
+		String projectName = path.segmentCount() == 0 ? "" : path.segment(0); //$NON-NLS-1$
+		return stripes[stripeIndex(projectName, BucketTree.getSegmentIndex(path))];
+	}
+
+	/**
+	 * Returns the index of the stripe for the buckets stored under the given
+	 * first-level bucket directory of the given project.
+	 */
+	private static int stripeIndex(String projectName, int segmentIndex) {
+		return (31 * projectName.hashCode() + segmentIndex) & (STRIPE_COUNT - 1);
+	}
+
+	/**
+	 * Adds to the given set the stripes holding entries for the given path or
+	 * any of its members.
+	 */
+	private BitSet stripesFor(IPath root, BitSet result) {
+		int segmentCount = root.segmentCount();
+		if (segmentCount < 2) {
+			// the root or a project, might be anywhere
+			result.set(0, STRIPE_COUNT);
+			return result;
+		}
+		String projectName = root.segment(0);
+		if (segmentCount == 2)
+			// the entry for a project member is kept in the project bucket
+			result.set(stripeIndex(projectName, -1));
+		// all members of a project member share its first-level bucket directory
+		result.set(stripeIndex(projectName, BucketTree.segmentIndex(root.segment(1))));
+		return result;
+	}
+
+	/**
+	 * Returns the bucket tree to be used to access the buckets of the given
+	 * stripes, which must be locked by the current thread. If more than one
+	 * stripe is involved, their buckets are flushed and a new tree is returned.
+	 */
+	private BucketTree treeFor(BitSet locked) throws CoreException {
+		if (locked.cardinality() == 1)
+			return stripes[locked.nextSetBit(0)].tree;
+		flush(locked);
+		return new BucketTree(workspace, new HistoryBucket());
+	}
+
+	private void unlock(BitSet locked) {
+		for (int i = locked.nextSetBit(0); i >= 0; i = locked.nextSetBit(i + 1))
+			stripes[i].lock.unlock();
+	}
 }
@@ -96,6 +96,21 @@ public interface IHistoryStore extends IManager {
 	 */
 	void clean(IProgressMonitor monitor);
 
+	/**
+	 * Applies the history store policies to a bounded portion of the store,
+	 * continuing with the next portion on the following invocation. This allows
+	 * the store to be cleaned a slice at a time, without holding the store for
+	 * as long as a complete {@link #clean(IProgressMonitor)} would. How much of
+	 * the store is cleaned per invocation is up to the implementation.
+	 * <p>
+	 * This method is long-running; progress and cancellation are provided
+	 * by the given progress monitor.
+	 * </p>
+	 * @param monitor a progress monitor, or <code>null</code> if progress
+	 *    reporting is not desired
+	 */
+	void cleanIncrementally(IProgressMonitor monitor);
+
 	/**
 	 * Closes the history store for the given resource.
 	 */
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.core.internal.properties;
 
+import java.util.Collection;
 import java.util.Map;
 import org.eclipse.core.internal.resources.IManager;
 import org.eclipse.core.resources.IResource;
@@ -49,6 +50,11 @@ public interface IPropertyManager extends IManager {
 	 */
 	void deleteResource(IResource target) throws CoreException;
 
+	/**
+	 * Writes property changes that are only held in memory to disk.
+	 */
+	void flush() throws CoreException;
+
 	/**
 	 * Returns the value of the identified property on the given resource as
 	 * maintained by this store.
@@ -74,4 +80,21 @@ public interface IPropertyManager extends IManager {
 	 * properties can be found, returns an empty map.
 	 */
 	Map<QualifiedName, String> getProperties(IResource resource) throws CoreException;
+
+	/**
+	 * Returns a map from each of the given resources to the map of all properties
+	 * defined for it, as returned by {@link #getProperties(IResource)}.
+	 * Resources sharing a property store are read together.
+	 */
+	Map<IResource, Map<QualifiedName, String>> getProperties(Collection<? extends IResource> resources) throws CoreException;
+
+	/**
+	 * Sets the values of the given properties on each of the given resources,
+	 * where a <code>null</code> value removes the property. All resources and
+	 * properties are validated before any change is made, and resources sharing
+	 * a property store are written together.
+	 *
+	 * @see #setProperty(IResource, QualifiedName, String)
+	 */
+	void setProperties(Map<? extends IResource, ? extends Map<QualifiedName, String>> properties) throws CoreException;
 }
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.properties;
+
+import java.lang.ref.SoftReference;
+import java.util.*;
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Caches the persistent properties of resources by path, in the
+ * <code>String[][]</code> form used by {@link PropertyBucket}. Cached arrays
+ * are never modified, changes must replace them.
+ * <p>
+ * Values read from the bucket store are kept in a least recently used map that
+ * is bounded by an estimate of its memory footprint and is softly referenced,
+ * so it is emptied under memory pressure. Changed values are kept as pending
+ * writes until {@link PropertyManager2#flush()} writes them to the bucket
+ * store, they are neither evicted nor subject to garbage collection.
+ * </p>
+ * <p>
+ * This class is not thread safe, {@link PropertyManager2} serializes access.
+ * </p>
+ */
+public class PropertyCache {
+	/** Cached value for paths without properties. */
+	static final String[][] NO_PROPERTIES = new String[0][];
+
+	/** Rough per entry overhead of the cache map, the path and the value arrays */
+	private static final int ENTRY_OVERHEAD = 128;
+	private static final int PROPERTY_OVERHEAD = 72;
+
+	private final long maxSize;
+	private SoftReference<LinkedHashMap<IPath, String[][]>> entries = new SoftReference<>(null);
+	private final Map<IPath, String[][]> pending = new LinkedHashMap<>();
+	private long size;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long writes;
+
+	/**
+	 * @param maxSize the maximum estimated size in bytes of the values read from
+	 *                the bucket store that are kept, 0 to keep none
+	 */
+	PropertyCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the properties for the given path, {@link #NO_PROPERTIES} if it is
+	 * known to have none, or <code>null</code> if the path is not cached.
+	 */
+	String[][] get(IPath path) {
+		String[][] value = pending.get(path);
+		if (value == null) {
+			Map<IPath, String[][]> map = entries.get();
+			if (map != null)
+				value = map.get(path);
+		}
+		if (value == null)
+			misses++;
+		else
+			hits++;
+		return value;
+	}
+
+	/**
+	 * Remembers the properties read from the bucket store for the given path.
+	 */
+	void put(IPath path, String[][] value) {
+		if (maxSize <= 0)
+			return;
+		LinkedHashMap<IPath, String[][]> map = entries.get();
+		if (map == null) {
+			// either never used or cleared by the garbage collector
+			map = new LinkedHashMap<>(16, 0.75f, true);
+			entries = new SoftReference<>(map);
+			size = 0;
+		}
+		String[][] previous = map.put(path, value);
+		if (previous != null)
+			size -= sizeOf(path, previous);
+		size += sizeOf(path, value);
+		for (Iterator<Map.Entry<IPath, String[][]>> i = map.entrySet().iterator(); size > maxSize && i.hasNext();) {
+			Map.Entry<IPath, String[][]> eldest = i.next();
+			size -= sizeOf(eldest.getKey(), eldest.getValue());
+			i.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Records a change of the properties of the given path that has not been
+	 * written to the bucket store yet.
+	 */
+	void putPending(IPath path, String[][] value) {
+		Map<IPath, String[][]> map = entries.get();
+		if (map != null) {
+			String[][] previous = map.remove(path);
+			if (previous != null)
+				size -= sizeOf(path, previous);
+		}
+		pending.put(path, value);
+	}
+
+	/**
+	 * Returns the changes not written to the bucket store yet, in the order they were made.
+	 */
+	Map<IPath, String[][]> getPending() {
+		return pending;
+	}
+
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Marks all pending changes as written, keeping them as cached values.
+	 */
+	void pendingWritten() {
+		writes += pending.size();
+		Map<IPath, String[][]> written = new LinkedHashMap<>(pending);
+		pending.clear();
+		written.forEach(this::put);
+	}
+
+	/**
+	 * Forgets the cached values for the given path and, if <code>deep</code>,
+	 * for all of its descendants. Pending changes must have been written before.
+	 */
+	void invalidate(IPath path, boolean deep) {
+		Assert.isTrue(pending.isEmpty());
+		Map<IPath, String[][]> map = entries.get();
+		if (map == null)
+			return;
+		if (!deep) {
+			String[][] previous = map.remove(path);
+			if (previous != null)
+				size -= sizeOf(path, previous);
+			return;
+		}
+		for (Iterator<Map.Entry<IPath, String[][]>> i = map.entrySet().iterator(); i.hasNext();) {
+			Map.Entry<IPath, String[][]> entry = i.next();
+			if (path.isPrefixOf(entry.getKey())) {
+				size -= sizeOf(entry.getKey(), entry.getValue());
+				i.remove();
+			}
+		}
+	}
+
+	/**
+	 * Forgets all cached values. Pending changes must have been written before.
+	 */
+	void clear() {
+		Assert.isTrue(pending.isEmpty());
+		entries = new SoftReference<>(null);
+		size = 0;
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the values read from the bucket store that are cached.
+	 */
+	public long getSize() {
+		return entries.get() == null ? 0 : size;
+	}
+
+	public long getHitCount() {
+		return hits;
+	}
+
+	public long getMissCount() {
+		return misses;
+	}
+
+	public long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the number of pending changes written to the bucket store so far.
+	 */
+	public long getWriteCount() {
+		return writes;
+	}
+
+	private static long sizeOf(IPath path, String[][] value) {
+		long result = ENTRY_OVERHEAD;
+		for (int i = 0, count = path.segmentCount(); i < count; i++)
+			result += 2L * path.segment(i).length();
+		for (String[] property : value)
+			result += PROPERTY_OVERHEAD + 2L * (property[0].length() + property[1].length() + property[2].length());
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		Map<IPath, String[][]> map = entries.get();
+		return "PropertyCache[entries: " + (map == null ? 0 : map.size()) + ", size: " + getSize() + ", pending: " + pending.size() + //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				", hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + ", writes: " + writes + ']'; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
@@ -17,12 +17,14 @@ package org.eclipse.core.internal.properties;
 
 import java.io.File;
 import java.util.*;
+import java.util.function.Function;
 import org.eclipse.core.internal.localstore.Bucket;
 import org.eclipse.core.internal.localstore.Bucket.Entry;
 import org.eclipse.core.internal.localstore.BucketTree;
 import org.eclipse.core.internal.properties.PropertyBucket.PropertyEntry;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.runtime.*;
@@ -72,25 +74,42 @@ public class PropertyManager2 implements IPropertyManager {
 			return CONTINUE;
 		}
 	}
+	/**
+	 * The estimated size in bytes of the property values kept in memory after
+	 * reading them from disk.
+	 */
+	private static final long MAX_CACHE_SIZE = Long.getLong("org.eclipse.core.PropertyCache.size", 4 * 1024 * 1024); //$NON-NLS-1$
+
+	/**
+	 * The number of changed resources after which pending changes are written
+	 * without waiting for the next save.
+	 */
+	private static final int MAX_PENDING_WRITES = 1000;
 
 	BucketTree tree;
 
+	final PropertyCache cache = new PropertyCache(MAX_CACHE_SIZE);
+
 	public PropertyManager2(Workspace workspace) {
 		this.tree = new BucketTree(workspace, new PropertyBucket());
 	}
 
 	@Override
-	public void closePropertyStore(IResource target) throws CoreException {
+	public synchronized void closePropertyStore(IResource target) throws CoreException {
+		flush();
 		// ensure any uncommitted are written to disk
 		tree.getCurrent().save();
 		// flush in-memory state to avoid confusion if another project is later
 		// created with the same name
 		tree.getCurrent().flush();
+		cache.invalidate(target.getFullPath(), true);
 	}
 
 	@Override
 	public synchronized void copy(IResource source, IResource destination, int depth) throws CoreException {
+		flush();
 		copyProperties(source.getFullPath(), destination.getFullPath());
+		cache.invalidate(destination.getFullPath(), true);
 	}
 
 	/**
@@ -108,6 +127,7 @@ public class PropertyManager2 implements IPropertyManager {
 
 	@Override
 	public synchronized void deleteProperties(IResource target, int depth) throws CoreException {
+		flush();
 		tree.accept(new PropertyBucket.Visitor() {
 			@Override
 			public int visit(Entry entry) {
@@ -115,6 +135,7 @@ public class PropertyManager2 implements IPropertyManager {
 				return CONTINUE;
 			}
 		}, target.getFullPath(), depth == IResource.DEPTH_INFINITE ? BucketTree.DEPTH_INFINITE : depth);
+		cache.invalidate(target.getFullPath(), depth != IResource.DEPTH_ZERO);
 	}
 
 	@Override
@@ -123,18 +144,33 @@ public class PropertyManager2 implements IPropertyManager {
 	}
 
 	@Override
-	public synchronized Map<QualifiedName, String> getProperties(IResource target) throws CoreException {
-		final Map<QualifiedName, String> result = new HashMap<>();
-		tree.accept(new PropertyBucket.Visitor() {
-			@Override
-			public int visit(Entry entry) {
-				PropertyEntry propertyEntry = (PropertyEntry) entry;
-				int propertyCount = propertyEntry.getOccurrences();
-				for (int i = 0; i < propertyCount; i++)
-					result.put(propertyEntry.getPropertyName(i), propertyEntry.getPropertyValue(i));
-				return CONTINUE;
+	public synchronized void flush() throws CoreException {
+		Map<IPath, String[][]> pending = cache.getPending();
+		if (pending.isEmpty())
+			return;
+		PropertyBucket current = (PropertyBucket) tree.getCurrent();
+		for (List<IPath> group : groupByBucket(pending.keySet(), path -> path)) {
+			tree.loadBucketFor(group.get(0));
+			for (IPath path : group) {
+				String[][] value = pending.get(path);
+				current.setEntryValue(path.toString(), value.length == 0 ? null : value);
 			}
-		}, target.getFullPath(), BucketTree.DEPTH_ZERO);
+			current.save();
+		}
+		cache.pendingWritten();
+		if (Policy.DEBUG_PROPERTIES)
+			Policy.debug("Wrote pending property changes: " + cache); //$NON-NLS-1$
+	}
+
+	@Override
+	public synchronized Map<QualifiedName, String> getProperties(IResource target) throws CoreException {
+		return toMap(lookup(target.getFullPath()));
+	}
+
+	@Override
+	public synchronized Map<IResource, Map<QualifiedName, String>> getProperties(Collection<? extends IResource> targets) throws CoreException {
+		Map<IResource, Map<QualifiedName, String>> result = new HashMap<>(targets.size() * 4 / 3 + 1);
+		lookupAll(targets).forEach((target, value) -> result.put(target, toMap(value)));
 		return result;
 	}
 
@@ -145,9 +181,92 @@ public class PropertyManager2 implements IPropertyManager {
 			throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), message, null);
 		}
 		IPath resourcePath = target.getFullPath();
-		PropertyBucket current = (PropertyBucket) tree.getCurrent();
-		tree.loadBucketFor(resourcePath);
-		return current.getProperty(resourcePath, name);
+		return new PropertyEntry(resourcePath, lookup(resourcePath)).getProperty(name);
+	}
+
+	/**
+	 * Returns the properties of the given path, from the cache or else from the bucket store.
+	 */
+	private String[][] lookup(IPath path) throws CoreException {
+		String[][] value = cache.get(path);
+		return value != null ? value : load(path);
+	}
+
+	/**
+	 * Returns the properties of the given resources, loading each bucket with
+	 * values missing from the cache only once.
+	 */
+	private Map<IResource, String[][]> lookupAll(Collection<? extends IResource> targets) throws CoreException {
+		Map<IResource, String[][]> result = new HashMap<>(targets.size() * 4 / 3 + 1);
+		List<IResource> missing = new ArrayList<>();
+		for (IResource target : targets) {
+			String[][] value = cache.get(target.getFullPath());
+			if (value == null)
+				missing.add(target);
+			else
+				result.put(target, value);
+		}
+		for (List<IResource> group : groupByBucket(missing, IResource::getFullPath))
+			for (IResource target : group)
+				result.put(target, load(target.getFullPath()));
+		return result;
+	}
+
+	/**
+	 * Reads the properties of the given path from the bucket store and caches them.
+	 */
+	private String[][] load(IPath path) throws CoreException {
+		tree.loadBucketFor(path);
+		String[][] value = (String[][]) tree.getCurrent().getEntryValue(path.toString());
+		if (value == null)
+			value = PropertyCache.NO_PROPERTIES;
+		cache.put(path, value);
+		return value;
+	}
+
+	/**
+	 * Groups the given elements by the bucket the properties of their paths are
+	 * stored in, so that each bucket needs to be loaded and saved only once.
+	 */
+	private static <T> Collection<List<T>> groupByBucket(Collection<? extends T> elements, Function<T, IPath> pathOf) {
+		Map<IPath, List<T>> groups = new LinkedHashMap<>();
+		for (T element : elements) {
+			IPath path = pathOf.apply(element);
+			// entries live in the bucket of their parent, except projects, which share the bucket of their members
+			IPath bucketPath = path.segmentCount() <= 2 ? path.uptoSegment(1) : path.removeLastSegments(1);
+			groups.computeIfAbsent(bucketPath, p -> new ArrayList<>()).add(element);
+		}
+		return groups.values();
+	}
+
+	private static Map<QualifiedName, String> toMap(String[][] properties) {
+		Map<QualifiedName, String> result = new HashMap<>(properties.length * 4 / 3 + 1);
+		for (String[] property : properties)
+			result.put(new QualifiedName(property[0], property[1]), property[2]);
+		return result;
+	}
+
+	/**
+	 * Returns the properties with the given property changed, leaving the given
+	 * array untouched as it may be cached.
+	 */
+	private static String[][] update(String[][] existing, QualifiedName name, String value) {
+		if (value == null) {
+			String[][] result = PropertyEntry.delete(existing, name);
+			return result == null ? PropertyCache.NO_PROPERTIES : result;
+		}
+		// insert replaces the value of an existing property in place
+		String[][] copy = new String[existing.length][];
+		for (int i = 0; i < existing.length; i++)
+			copy[i] = existing[i].clone();
+		return PropertyEntry.insert(copy, name, value);
+	}
+
+	/**
+	 * Returns the property cache, for testing and diagnostics.
+	 */
+	public PropertyCache getCache() {
+		return cache;
 	}
 
 	public BucketTree getTree() {
@@ -158,14 +277,47 @@ public class PropertyManager2 implements IPropertyManager {
 		return tree.getVersionFile();
 	}
 
+	@Override
+	public synchronized void setProperties(Map<? extends IResource, ? extends Map<QualifiedName, String>> properties) throws CoreException {
+		// validate everything first, a failure must not leave the batch partially applied
+		for (Map.Entry<? extends IResource, ? extends Map<QualifiedName, String>> entry : properties.entrySet()) {
+			IResource target = entry.getKey();
+			checkAccessible(target);
+			for (Map.Entry<QualifiedName, String> property : entry.getValue().entrySet())
+				checkProperty(target, property.getKey(), property.getValue());
+		}
+		Map<IResource, String[][]> existing = lookupAll(properties.keySet());
+		for (Map.Entry<? extends IResource, ? extends Map<QualifiedName, String>> entry : properties.entrySet()) {
+			String[][] value = existing.get(entry.getKey());
+			for (Map.Entry<QualifiedName, String> property : entry.getValue().entrySet())
+				value = update(value, property.getKey(), property.getValue());
+			cache.putPending(entry.getKey().getFullPath(), value);
+		}
+		if (cache.getPendingCount() > MAX_PENDING_WRITES)
+			flush();
+	}
+
 	@Override
 	public synchronized void setProperty(IResource target, QualifiedName name, String value) throws CoreException {
+		checkAccessible(target);
+		checkProperty(target, name, value);
+
+		IPath resourcePath = target.getFullPath();
+		cache.putPending(resourcePath, update(lookup(resourcePath), name, value));
+		if (cache.getPendingCount() > MAX_PENDING_WRITES)
+			flush();
+	}
+
+	private void checkAccessible(IResource target) throws CoreException {
 		//resource may have been deleted concurrently
 		//must check for existence within synchronized method
 		Resource resource = (Resource) target;
 		ResourceInfo info = resource.getResourceInfo(false, false);
 		int flags = resource.getFlags(info);
 		resource.checkAccessible(flags);
+	}
+
+	private void checkProperty(IResource target, QualifiedName name, String value) throws CoreException {
 		// enforce the limit stated by the spec
 		if (value != null && value.length() > MAX_VALUE_SIZE) {
 			String message = NLS.bind(Messages.properties_valueTooLong, new Object[] {name.getQualifier(), name.getLocalName(), Integer.toString(MAX_VALUE_SIZE)});
@@ -175,16 +327,12 @@ public class PropertyManager2 implements IPropertyManager {
 			String message = Messages.properties_qualifierIsNull;
 			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, target.getFullPath(), message, null);
 		}
-
-		IPath resourcePath = target.getFullPath();
-		tree.loadBucketFor(resourcePath);
-		PropertyBucket current = (PropertyBucket) tree.getCurrent();
-		current.setProperty(resourcePath, name, value);
-		current.save();
 	}
 
 	@Override
-	public void shutdown(IProgressMonitor monitor) throws CoreException {
+	public synchronized void shutdown(IProgressMonitor monitor) throws CoreException {
+		flush();
+		cache.clear();
 		tree.close();
 	}
 
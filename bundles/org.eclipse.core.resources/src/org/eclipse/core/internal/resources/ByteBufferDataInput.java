@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the data written by a {@link DataOutputStream} from a byte buffer,
+ * without the synchronization and per byte calls of an input stream.
+ * Reading past the end of the buffer throws an {@link EOFException}.
+ */
+final class ByteBufferDataInput implements DataInput {
+	private final ByteBuffer buffer;
+
+	ByteBufferDataInput(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	private ByteBuffer require(int count) throws EOFException {
+		if (buffer.remaining() < count)
+			throw new EOFException();
+		return buffer;
+	}
+
+	@Override
+	public void readFully(byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+
+	@Override
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		require(len).get(b, off, len);
+	}
+
+	@Override
+	public int skipBytes(int n) {
+		int count = Math.max(0, Math.min(n, buffer.remaining()));
+		buffer.position(buffer.position() + count);
+		return count;
+	}
+
+	@Override
+	public boolean readBoolean() throws IOException {
+		return require(1).get() != 0;
+	}
+
+	@Override
+	public byte readByte() throws IOException {
+		return require(1).get();
+	}
+
+	@Override
+	public int readUnsignedByte() throws IOException {
+		return require(1).get() & 0xFF;
+	}
+
+	@Override
+	public short readShort() throws IOException {
+		return require(2).getShort();
+	}
+
+	@Override
+	public int readUnsignedShort() throws IOException {
+		return require(2).getShort() & 0xFFFF;
+	}
+
+	@Override
+	public char readChar() throws IOException {
+		return require(2).getChar();
+	}
+
+	@Override
+	public int readInt() throws IOException {
+		return require(4).getInt();
+	}
+
+	@Override
+	public long readLong() throws IOException {
+		return require(8).getLong();
+	}
+
+	@Override
+	public float readFloat() throws IOException {
+		return require(4).getFloat();
+	}
+
+	@Override
+	public double readDouble() throws IOException {
+		return require(8).getDouble();
+	}
+
+	/**
+	 * Reads a line the way {@link DataInputStream#readLine()} does, converting
+	 * each byte to a character. The marker formats never write lines, this is
+	 * only here to complete the {@link DataInput} contract.
+	 */
+	@Override
+	@Deprecated
+	public String readLine() {
+		if (!buffer.hasRemaining())
+			return null;
+		StringBuilder line = new StringBuilder();
+		while (buffer.hasRemaining()) {
+			int c = buffer.get() & 0xFF;
+			if (c == '\n')
+				break;
+			if (c == '\r') {
+				if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n')
+					buffer.get();
+				break;
+			}
+			line.append((char) c);
+		}
+		return line.toString();
+	}
+
+	@Override
+	public String readUTF() throws IOException {
+		int length = readUnsignedShort();
+		ByteBuffer source = require(length);
+		int start = source.position();
+		if (source.hasArray()) {
+			// names and messages are mostly ASCII, which decodes the same in modified UTF-8
+			byte[] array = source.array();
+			int offset = source.arrayOffset() + start;
+			boolean ascii = true;
+			for (int i = 0; i < length && ascii; i++)
+				ascii = array[offset + i] > 0;
+			if (ascii) {
+				source.position(start + length);
+				return new String(array, offset, length, StandardCharsets.ISO_8859_1);
+			}
+		}
+		source.position(start - 2);
+		return DataInputStream.readUTF(this);
+	}
+}
@@ -119,6 +119,8 @@ public interface ICoreConstants {
 
 	int WORKSPACE_TREE_VERSION_1 = 67305985;
 	int WORKSPACE_TREE_VERSION_2 = 67305986;
+	/** Version of the build durations that follow the builder infos in tree files, written as a byte */
+	int BUILD_DURATIONS_VERSION = 1;
 
 	// helper constants for empty structures
 	IBuildConfiguration[] EMPTY_BUILD_CONFIG_ARRAY = new IBuildConfiguration[0];
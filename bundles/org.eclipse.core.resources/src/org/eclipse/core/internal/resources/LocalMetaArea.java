@@ -47,6 +47,7 @@ public class LocalMetaArea implements ICoreConstants {
 	/* package */static final String F_SAFE_TABLE = ".safetable"; //$NON-NLS-1$
 	/* package */static final String F_SNAP = ".snap"; //$NON-NLS-1$
 	/* package */static final String F_SNAP_EXTENSION = "snap"; //$NON-NLS-1$
+	/* package */static final String F_SUMMARY_EXTENSION = "summary"; //$NON-NLS-1$
 	/* package */static final String F_SYNCINFO = ".syncinfo"; //$NON-NLS-1$
 	/* package */static final String F_TREE = ".tree"; //$NON-NLS-1$
 	/* package */static final String URI_PREFIX = "URI//"; //$NON-NLS-1$
@@ -146,6 +147,14 @@ public class LocalMetaArea implements ICoreConstants {
 		return getMarkersLocationFor(resource).addFileExtension(F_SNAP_EXTENSION);
 	}
 
+	/**
+	 * Returns the path of the file in which to save the summary of the problem
+	 * markers of the given project.
+	 */
+	public IPath getMarkersSummaryLocationFor(IProject project) {
+		return getMarkersLocationFor(project).addFileExtension(F_SUMMARY_EXTENSION);
+	}
+
 	/**
 	 * The project description file is the only metadata file stored outside
 	 * the metadata area. It is stored as a file directly under the project
@@ -263,7 +263,9 @@ public class Marker extends PlatformObject implements IMarker {
 			boolean needDelta = !manager.hasDelta(resource.getFullPath(), id);
 			MarkerInfo oldInfo = needDelta ? (MarkerInfo) markerInfo.clone() : null;
 			boolean validate = manager.isPersistentType(markerInfo.getType());
+			int oldSeverity = manager.getSeverity(markerInfo);
 			markerInfo.setAttribute(attributeName, value, validate);
+			manager.severityChanged(resource, markerInfo, oldSeverity);
 			if (manager.isPersistent(markerInfo))
 				((Resource) resource).getResourceInfo(false, true).set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 			if (needDelta) {
@@ -303,7 +305,9 @@ public class Marker extends PlatformObject implements IMarker {
 			boolean needDelta = !manager.hasDelta(resource.getFullPath(), id);
 			MarkerInfo oldInfo = needDelta ? (MarkerInfo) markerInfo.clone() : null;
 			boolean validate = manager.isPersistentType(markerInfo.getType());
+			int oldSeverity = manager.getSeverity(markerInfo);
 			markerInfo.addAttributes(attributeNames, values, validate);
+			manager.severityChanged(resource, markerInfo, oldSeverity);
 			if (manager.isPersistent(markerInfo))
 				((Resource) resource).getResourceInfo(false, true).set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 			if (needDelta) {
@@ -333,7 +337,9 @@ public class Marker extends PlatformObject implements IMarker {
 			boolean needDelta = !manager.hasDelta(resource.getFullPath(), id);
 			MarkerInfo oldInfo = needDelta ? (MarkerInfo) markerInfo.clone() : null;
 			boolean validate = manager.isPersistentType(markerInfo.getType());
+			int oldSeverity = manager.getSeverity(markerInfo);
 			markerInfo.setAttributes(values, validate);
+			manager.severityChanged(resource, markerInfo, oldSeverity);
 			if (manager.isPersistent(markerInfo))
 				((Resource) resource).getResourceInfo(false, true).set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 			if (needDelta) {
@@ -13,6 +13,7 @@
  *     James Blackburn (Broadcom Corp.) - ongoing development
  *     Lars Vogel <Lars.Vogel@vogella.com> - Bug 473427
  *     Joerg Kubitz - redesign
+ *     Contributors to the Eclipse Foundation - compact attribute storage
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
@@ -21,18 +22,126 @@ import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.core.internal.utils.IStringPoolParticipant;
 import org.eclipse.core.internal.utils.StringPool;
+import org.eclipse.core.resources.IMarker;
 
 /**
  * A specialized Map<String,Object> implementation that is optimized for a small
  * set of strings as keys. The keys will be interned() on insert.
  *
  * Unlike a java.util.HashMap nulls are neither allowed for key or value.
+ *
+ * Integer values of the well known position and severity attributes are held
+ * as primitive ints, all other attributes as key/value pairs in a single array.
+ * String values are shared with equal strings of other markers by
+ * {@link #shareStrings(StringPool)}.
  */
 // the Map interface is not implemented as it would allow to insert null key or values
 // or non interned keys via the iterator if not a specific entrySet is implemented.
 public class MarkerAttributeMap implements IStringPoolParticipant {
+	/** Attributes whose Integer values are stored as primitive ints */
+	private static final String[] INT_KEYS = {IMarker.SEVERITY, IMarker.PRIORITY, IMarker.LINE_NUMBER, IMarker.CHAR_START, IMarker.CHAR_END};
+	private static final int[] NO_INTS = new int[0];
+	private static final Object[] NO_OBJECTS = new Object[0];
+
+	/**
+	 * An immutable set of attributes.
+	 */
+	private static final class Attributes {
+		static final Attributes EMPTY = new Attributes(0, NO_INTS, NO_OBJECTS);
+
+		/** Bit i is set if the attribute INT_KEYS[i] has an Integer value */
+		final int intMask;
+		/** The values of the attributes in intMask, in the order of INT_KEYS */
+		final int[] ints;
+		/** Alternating interned keys and values of all other attributes */
+		final Object[] others;
+
+		Attributes(int intMask, int[] ints, Object[] others) {
+			this.intMask = intMask;
+			this.ints = ints;
+			this.others = others;
+		}
+
+		int size() {
+			return ints.length + others.length / 2;
+		}
+
+		Object get(Object key) {
+			int slot = intSlot(key);
+			if (slot >= 0 && (intMask & (1 << slot)) != 0)
+				return Integer.valueOf(ints[Integer.bitCount(intMask & ((1 << slot) - 1))]);
+			for (int i = 0; i < others.length; i += 2)
+				if (others[i].equals(key))
+					return others[i + 1];
+			return null;
+		}
+	}
+
+	/**
+	 * Collects changes to a set of attributes.
+	 */
+	private static final class Builder {
+		private int intMask;
+		private final int[] ints = new int[INT_KEYS.length];
+		private final List<Object> others;
+
+		Builder(Attributes attributes) {
+			intMask = attributes.intMask;
+			for (int slot = 0, i = 0; slot < INT_KEYS.length; slot++)
+				if ((intMask & (1 << slot)) != 0)
+					ints[slot] = attributes.ints[i++];
+			others = new ArrayList<>(Arrays.asList(attributes.others));
+		}
+
+		/** Sets the value of the attribute with the given interned key */
+		void put(String key, Object value) {
+			int slot = intSlot(key);
+			if (slot >= 0 && value instanceof Integer) {
+				remove(key);
+				intMask |= 1 << slot;
+				ints[slot] = ((Integer) value).intValue();
+				return;
+			}
+			if (slot >= 0)
+				intMask &= ~(1 << slot);
+			int index = indexOf(key);
+			if (index >= 0) {
+				others.set(index + 1, value);
+			} else {
+				others.add(key);
+				others.add(value);
+			}
+		}
+
+		void remove(Object key) {
+			int slot = intSlot(key);
+			if (slot >= 0)
+				intMask &= ~(1 << slot);
+			int index = indexOf(key);
+			if (index >= 0)
+				others.subList(index, index + 2).clear();
+		}
+
+		private int indexOf(Object key) {
+			for (int i = 0; i < others.size(); i += 2)
+				if (others.get(i).equals(key))
+					return i;
+			return -1;
+		}
+
+		Attributes build() {
+			if (intMask == 0 && others.isEmpty())
+				return Attributes.EMPTY;
+			int[] packed = new int[Integer.bitCount(intMask)];
+			for (int slot = 0, i = 0; slot < INT_KEYS.length; slot++)
+				if ((intMask & (1 << slot)) != 0)
+					packed[i++] = ints[slot];
+			return new Attributes(intMask, packed, others.isEmpty() ? NO_OBJECTS : others.toArray());
+		}
+	}
+
 	// This implementation is a copy on write map.
-	private final AtomicReference<Map<String, Object>> mapRef;
+	private final AtomicReference<Attributes> mapRef;
 
 	// Typically contains 9 keys:
 	// "severity","sourceId","charStart","charEnd","arguments","id","message","lineNumber","categoryId"
@@ -53,7 +162,7 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 */
 	public MarkerAttributeMap(int initialCapacity) {
 		// ignore initialCapacity - a copy on write datastructure will be copied anyway.
-		mapRef = new AtomicReference<>(Map.of());
+		mapRef = new AtomicReference<>(Attributes.EMPTY);
 	}
 
 	/**
@@ -61,7 +170,8 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * contain null keys or null values, or keys that are not interned.
 	 */
 	public MarkerAttributeMap(MarkerAttributeMap m) {
-		mapRef = new AtomicReference<>(copy(m.getMap()));
+		// the attributes are immutable and can be shared
+		mapRef = new AtomicReference<>(m.getAttributes());
 	}
 
 	/**
@@ -69,7 +179,14 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * values are silently ignored.
 	 */
 	public MarkerAttributeMap(Map<String, ? extends Object> map, boolean validate) {
-		mapRef = new AtomicReference<>(copy(map, validate));
+		mapRef = new AtomicReference<>(putAll(Attributes.EMPTY, map, validate));
+	}
+
+	private static int intSlot(Object key) {
+		for (int slot = 0; slot < INT_KEYS.length; slot++)
+			if (INT_KEYS[slot].equals(key))
+				return slot;
+		return -1;
 	}
 
 	/**
@@ -77,13 +194,7 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * are not allowed. Entries with null values are silently ignored.
 	 */
 	public void setAttributes(Map<String, ? extends Object> map, boolean validate) {
-		mapRef.set(copy(map, validate));
-	}
-
-	private Map<String, Object> copy(Map<String, ? extends Object> map, boolean validate) {
-		Map<String, Object> target = new HashMap<>();
-		putAll(target, map, validate);
-		return target;
+		mapRef.set(putAll(Attributes.EMPTY, map, validate));
 	}
 
 	/**
@@ -91,17 +202,14 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * Entries with null values are silently ignored.
 	 */
 	public void putAll(Map<String, ? extends Object> map, boolean validate) {
-		mapRef.getAndUpdate(old -> {
-			Map<String, Object> copy = copy(old);
-			putAll(copy, map, validate);
-			return copy;
-		});
+		mapRef.getAndUpdate(old -> putAll(old, map, validate));
 	}
 
-	private void putAll(Map<String, Object> target, Map<String, ? extends Object> source, boolean validate) {
-		if (source == null) {
-			return;
+	private static Attributes putAll(Attributes target, Map<String, ? extends Object> source, boolean validate) {
+		if (source == null || source.isEmpty()) {
+			return target;
 		}
+		Builder builder = new Builder(target);
 		for (Entry<String, ? extends Object> e : source.entrySet()) {
 			String key = e.getKey();
 			Objects.requireNonNull(key, "insert of null key not allowed"); //$NON-NLS-1$
@@ -110,27 +218,31 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 				value = MarkerInfo.checkValidAttribute(value);
 			}
 			if (value != null) { // null values => ignore
-				target.put(e.getKey().intern(), value);
+				builder.put(key.intern(), value);
 			}
 		}
+		return builder.build();
 	}
 
-	private Map<String, Object> copy(Map<String, ? extends Object> map) {
-		return new HashMap<>(map);
-	}
-
-	private Map<String, Object> getMap() {
+	private Attributes getAttributes() {
 		return mapRef.get();
 	}
 
 	/** creates a copy that fulfills the java.util.Map interface **/
 	public Map<String, Object> toMap() {
-		return copy(this.getMap());
+		Attributes attributes = getAttributes();
+		Map<String, Object> map = new HashMap<>();
+		for (int slot = 0, i = 0; slot < INT_KEYS.length; slot++)
+			if ((attributes.intMask & (1 << slot)) != 0)
+				map.put(INT_KEYS[slot], Integer.valueOf(attributes.ints[i++]));
+		for (int i = 0; i < attributes.others.length; i += 2)
+			map.put((String) attributes.others[i], attributes.others[i + 1]);
+		return map;
 	}
 
 	/** @see java.util.Map#entrySet **/
 	public Set<Map.Entry<String, Object>> entrySet() {
-		return getMap().entrySet();
+		return Collections.unmodifiableMap(toMap()).entrySet();
 	}
 
 	/**
@@ -140,44 +252,63 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	public void put(String k, Object value) {
 		Objects.requireNonNull(k, "insert of null key not allowed"); //$NON-NLS-1$
 		Objects.requireNonNull(value, "insert of null value not allowed"); //$NON-NLS-1$
-		mapRef.getAndUpdate(map -> {
-			Map<String, Object> m = copy(map);
-			m.put(k.intern(), value);
-			return m;
+		String key = k.intern();
+		mapRef.getAndUpdate(attributes -> {
+			Builder builder = new Builder(attributes);
+			builder.put(key, value);
+			return builder.build();
 		});
 	}
 
 	@Override
 	public void shareStrings(StringPool set) {
 		// don't share keys because they are already interned
-		for (java.util.Map.Entry<String, Object> e : getMap().entrySet()) {
-			Object o = e.getValue();
+		Attributes attributes = getAttributes();
+		Object[] others = attributes.others;
+		Object[] shared = others;
+		for (int i = 1; i < others.length; i += 2) {
+			Object o = others[i];
 			if (o instanceof String) {
-				e.setValue(set.add((String) o));
+				String string = set.add((String) o);
+				if (string != o) {
+					if (shared == others)
+						shared = others.clone();
+					shared[i] = string;
+				}
 			} else if (o instanceof IStringPoolParticipant) {
 				((IStringPoolParticipant) o).shareStrings(set);
 			}
 		}
+		// if the attributes were changed concurrently the strings are shared next time
+		if (shared != others)
+			mapRef.compareAndSet(attributes, new Attributes(attributes.intMask, attributes.ints, shared));
 	}
 
 	/** @see java.util.Map#isEmpty **/
 	public boolean isEmpty() {
-		return getMap().isEmpty();
+		return getAttributes().size() == 0;
 	}
 
 	/** @see java.util.Map#remove **/
 	public Object remove(Object key) {
-		return getMap().remove(key);
+		Attributes old = mapRef.getAndUpdate(attributes -> {
+			if (attributes.get(key) == null)
+				return attributes;
+			Builder builder = new Builder(attributes);
+			builder.remove(key);
+			return builder.build();
+		});
+		return old.get(key);
 	}
 
 	/** @see java.util.Map#get **/
 	public Object get(Object key) {
-		return getMap().get(key);
+		return getAttributes().get(key);
 	}
 
 	/** @see java.util.Map#size **/
 	public int size() {
-		return getMap().size();
+		return getAttributes().size();
 	}
 
 }
@@ -90,6 +90,13 @@ public class MarkerDelta implements IMarkerDelta, IMarkerSetElement {
 		return new Marker(resource, getId());
 	}
 
+	/**
+	 * Returns the info of the marker, which for changes is the info before the change.
+	 */
+	MarkerInfo getMarkerInfo() {
+		return info;
+	}
+
 	@Override
 	public IResource getResource() {
 		return resource;
@@ -12,10 +12,12 @@
  *     IBM - Initial API and implementation
  *     James Blackburn (Broadcom Corp.) - ongoing development
  *     Lars Vogel <Lars.Vogel@vogella.com> - Bug 473427
+ *     Contributors to the Eclipse Foundation - assemble the deltas incrementally
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
 import java.util.*;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.IPath;
 
 /**
@@ -26,24 +28,112 @@ import org.eclipse.core.runtime.IPath;
  * When the delta factory requests a delta, it specifies the start generation, and
  * this class assembles the deltas for all generations between then and the most
  * recent delta.
+ * <p>
+ * The deltas assembled for the most recently requested start ids are kept, so
+ * that a later request for the same start id only merges the batches recorded
+ * since. Batches never change once deltas were assembled from them, changes
+ * made afterwards start a new batch. Assembled deltas that were handed out are
+ * never modified, they are copied before new batches are merged into them.
+ * </p>
  */
 class MarkerDeltaManager {
 	private static final int DEFAULT_SIZE = 10;
+	/** The number of start ids for which the assembled deltas are kept */
+	private static final int MAX_ASSEMBLED = 4;
 	private long[] startIds = new long[DEFAULT_SIZE];
 	@SuppressWarnings("unchecked")
 	private Map<IPath, MarkerSet>[] batches = new Map[DEFAULT_SIZE];
 	private int nextFree = 0;
+	/** The number of batches flushed so far, the batch at index i is the batch number flushed + i */
+	private long flushed = 0;
+	/** Whether the last batch still collects changes */
+	private boolean open = false;
+	private final Map<Long, AssembledDeltas> assembled = new LinkedHashMap<>(8, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, AssembledDeltas> eldest) {
+			return size() > MAX_ASSEMBLED;
+		}
+	};
+
+	/**
+	 * The deltas merged so far for a start id.
+	 */
+	private static final class AssembledDeltas {
+		Map<IPath, MarkerSet> deltas = new HashMap<>();
+		/** The number of the first batch that is not merged yet */
+		long nextBatch;
+		/** Whether the deltas were handed out and must be copied before they are changed */
+		boolean shared;
+	}
 
 	/**
 	 * Returns the deltas from the given start id up until the present. Returns null
-	 * if there are no deltas for that interval.
+	 * if there are no deltas for that interval. The returned map must not be modified.
 	 */
 	protected Map<IPath, MarkerSet> assembleDeltas(long start) {
-		Map<IPath, MarkerSet> result = null;
-		for (int i = 0; i < nextFree; i++)
-			if (startIds[i] >= start)
-				result = MarkerDelta.merge(result, batches[i]);
-		return result;
+		// later changes go to a new batch so that the batches merged here never change
+		open = false;
+		AssembledDeltas result = assembled.get(start);
+		if (result == null) {
+			result = new AssembledDeltas();
+			int first = 0;
+			while (first < nextFree && startIds[first] < start)
+				first++;
+			result.nextBatch = flushed + first;
+			assembled.put(start, result);
+		}
+		long end = flushed + nextFree;
+		if (result.nextBatch < end) {
+			if (result.shared) {
+				result.deltas = new HashMap<>(result.deltas);
+				result.shared = false;
+			}
+			for (long batch = Math.max(result.nextBatch, flushed); batch < end; batch++)
+				merge(result.deltas, batches[(int) (batch - flushed)]);
+			result.nextBatch = end;
+		}
+		if (result.deltas.isEmpty())
+			return null;
+		result.shared = true;
+		return result.deltas;
+	}
+
+	/**
+	 * Merges the given batch into the given deltas. The marker sets and the
+	 * deltas in them may be shared, they are copied before they are changed.
+	 */
+	private static void merge(Map<IPath, MarkerSet> deltas, Map<IPath, MarkerSet> batch) {
+		for (Map.Entry<IPath, MarkerSet> entry : batch.entrySet()) {
+			IPath path = entry.getKey();
+			MarkerSet previous = deltas.get(path);
+			if (previous == null) {
+				deltas.put(path, entry.getValue());
+				continue;
+			}
+			MarkerSet merged = (MarkerSet) previous.clone();
+			IMarkerSetElement[] changes = entry.getValue().elements();
+			for (IMarkerSetElement change : changes) {
+				// change + remove = remove, without changing the kind of the shared delta
+				MarkerDelta delta = (MarkerDelta) merged.get(change.getId());
+				if (delta != null && delta.getKind() == IResourceDelta.CHANGED && ((MarkerDelta) change).getKind() == IResourceDelta.REMOVED)
+					merged.add(new MarkerDelta(IResourceDelta.REMOVED, delta.getResource(), delta.getMarkerInfo()));
+			}
+			MarkerDelta.merge(merged, changes);
+			if (merged.isEmpty())
+				deltas.remove(path);
+			else
+				deltas.put(path, merged);
+		}
+	}
+
+	/**
+	 * Returns the batch that collects the changes, or <code>null</code> if
+	 * there is none.
+	 */
+	protected Map<IPath, MarkerSet> currentBatch() {
+		return open ? batches[nextFree - 1] : null;
 	}
 
 	/**
@@ -51,6 +141,8 @@ class MarkerDeltaManager {
 	 */
 	@SuppressWarnings("unchecked")
 	protected void resetDeltas(long startId) {
+		open = false;
+		assembled.keySet().removeIf(start -> start < startId);
 		//find offset of first batch to keep
 		int startOffset = 0;
 		for (; startOffset < nextFree; startOffset++)
@@ -75,8 +167,12 @@ class MarkerDeltaManager {
 		startIds = newIds;
 		batches = newBatches;
 		nextFree = remaining;
+		flushed += startOffset;
 	}
 
+	/**
+	 * Starts a new batch that collects the changes from the given change id on.
+	 */
 	@SuppressWarnings("unchecked")
 	protected Map<IPath, MarkerSet> newGeneration(long start) {
 		int len = startIds.length;
@@ -90,6 +186,7 @@ class MarkerDeltaManager {
 		}
 		startIds[nextFree] = start;
 		batches[nextFree] = new HashMap<>(11);
+		open = true;
 		return batches[nextFree++];
 	}
 }
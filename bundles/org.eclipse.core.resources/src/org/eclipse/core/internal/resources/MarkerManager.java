@@ -12,16 +12,18 @@
  *     IBM Corporation - initial API and implementation
  *     James Blackburn (Broadcom Corp.) - ongoing development
  *     Lars Vogel <Lars.Vogel@vogella.com> - Bug 473427
+ *     Contributors to the Eclipse Foundation - read the markers of projects on first access
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 import org.eclipse.core.internal.localstore.SafeChunkyInputStream;
-import org.eclipse.core.internal.localstore.SafeFileInputStream;
-import org.eclipse.core.internal.utils.Messages;
-import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.internal.utils.*;
 import org.eclipse.core.internal.watson.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -37,8 +39,23 @@ public class MarkerManager implements IManager {
 	private static final IMarker[] NO_MARKERS = new IMarker[0];
 	protected MarkerTypeDefinitionCache cache = new MarkerTypeDefinitionCache();
 	private final AtomicLong changeId = new AtomicLong();
-	protected volatile Map<IPath, MarkerSet> currentDeltas = null;
 	protected final MarkerDeltaManager deltaManager = new MarkerDeltaManager();
+	protected final MarkerTypeIndex typeIndex = new MarkerTypeIndex();
+	protected final ProblemSeverityCounters severityCounters = new ProblemSeverityCounters();
+	/** Whether markers are being read from disk, the indexes are then built once reading is done */
+	private boolean restoring;
+	/**
+	 * Whether the markers of projects with a problem marker summary are read on
+	 * first access instead of when the workspace starts up
+	 */
+	private static final boolean LAZY_RESTORE = Boolean.getBoolean("org.eclipse.core.resources.lazyMarkerRestore"); //$NON-NLS-1$
+	private static final int SUMMARY_VERSION = 1;
+	/**
+	 * The projects whose markers have not been installed in the tree yet, by
+	 * path. Queries read their markers from the files into this map, only
+	 * operations install them in the tree.
+	 */
+	private final Map<IPath, RestoredMarkers> unrestored = new ConcurrentHashMap<>();
 
 	protected final Workspace workspace;
 	protected final MarkerWriter writer = new MarkerWriter(this);
@@ -56,6 +73,7 @@ public class MarkerManager implements IManager {
 	 * @see IResource#createMarker(String)
 	 */
 	public void add(IResource resource, MarkerInfo newMarker) throws CoreException {
+		installMarkers(resource.getFullPath(), IResource.DEPTH_ZERO);
 		Resource target = (Resource) resource;
 		ResourceInfo info = workspace.getResourceInfo(target.getFullPath(), false, false);
 		target.checkExists(target.getFlags(info), false);
@@ -76,6 +94,68 @@ public class MarkerManager implements IManager {
 			info.setMarkers(markers);
 	}
 
+	/**
+	 * Adds the given markers to the given resource, reporting them in a single change.
+	 *
+	 * @see IWorkspace#createMarkers(String, Map)
+	 */
+	public void add(IResource resource, MarkerInfo[] newMarkers) throws CoreException {
+		basicReplace(resource, null, false, newMarkers);
+	}
+
+	/**
+	 * Replaces the markers of the given type on the given resource with the given
+	 * markers, reporting all removals and additions in a single change.
+	 *
+	 * @see IWorkspace#replaceMarkers(String, boolean, Map)
+	 */
+	public void replace(IResource resource, String type, boolean includeSubtypes, MarkerInfo[] newMarkers) throws CoreException {
+		Assert.isNotNull(type);
+		basicReplace(resource, type, includeSubtypes, newMarkers);
+	}
+
+	/**
+	 * Removes the markers matching the given type from the given resource, unless
+	 * the type is <code>null</code>, and adds the new markers. The marker set of
+	 * the resource is copied only once.
+	 */
+	private void basicReplace(IResource resource, String type, boolean includeSubtypes, MarkerInfo[] newMarkers) throws CoreException {
+		installMarkers(resource.getFullPath(), IResource.DEPTH_ZERO);
+		Resource target = (Resource) resource;
+		ResourceInfo info = workspace.getResourceInfo(target.getFullPath(), false, false);
+		target.checkExists(target.getFlags(info), false);
+		info = workspace.getResourceInfo(resource.getFullPath(), false, true);
+		// resource may have been deleted concurrently -- just bail out if this happens
+		if (info == null)
+			return;
+		// Concurrency: copy the marker set on modify
+		MarkerSet markers = info.getMarkers(true);
+		if (markers == null)
+			markers = new MarkerSet(newMarkers.length);
+		MarkerInfo[] removed = type == null ? NO_MARKER_INFO : basicFindMatching(markers, type, includeSubtypes);
+		if (removed.length == 0 && newMarkers.length == 0)
+			return;
+		IMarkerSetElement[] changes = new IMarkerSetElement[removed.length + newMarkers.length];
+		boolean persistent = false;
+		for (int i = 0; i < removed.length; i++) {
+			markers.remove(removed[i]);
+			persistent |= isPersistent(removed[i]);
+			changes[i] = new MarkerDelta(IResourceDelta.REMOVED, resource, removed[i]);
+		}
+		for (int i = 0; i < newMarkers.length; i++) {
+			markers.add(newMarkers[i]);
+			persistent |= isPersistent(newMarkers[i]);
+			changes[removed.length + i] = new MarkerDelta(IResourceDelta.ADDED, resource, newMarkers[i]);
+		}
+		// set the M_MARKERS_SNAP_DIRTY flag to indicate that this
+		// resource's markers have changed since the last snapshot
+		if (persistent)
+			info.set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+		// if no markers are left remove the set to save space.
+		info.setMarkers(markers.isEmpty() ? null : markers);
+		changedMarkers(resource, changes);
+	}
+
 	/**
 	 * Adds the new markers to the given set of markers. If added, the markers are
 	 * associated with the specified resource.IMarkerDeltas for Added markers are
@@ -145,7 +225,7 @@ public class MarkerManager implements IManager {
 		return max;
 	}
 
-	private int getSeverity(MarkerInfo marker) {
+	int getSeverity(MarkerInfo marker) {
 		Object o = marker.getAttribute(IMarker.SEVERITY);
 		if (o instanceof Integer) {
 			Integer i = (Integer) o;
@@ -223,6 +303,7 @@ public class MarkerManager implements IManager {
 		if (changes == null || changes.length == 0)
 			return;
 		long change = changeId.incrementAndGet();
+		Map<IPath, MarkerSet> currentDeltas = deltaManager.currentBatch();
 		if (currentDeltas == null)
 			currentDeltas = deltaManager.newGeneration(change);
 		IPath path = resource.getFullPath();
@@ -235,6 +316,47 @@ public class MarkerManager implements IManager {
 		ResourceInfo info = workspace.getResourceInfo(path, false, true);
 		if (info != null)
 			info.incrementMarkerGenerationCount();
+		if (!restoring)
+			updateIndexes(path, info, changes);
+	}
+
+	/**
+	 * Keeps the marker type index and the problem severity counters in line with
+	 * the given changes of the markers of the resource with the given path and info.
+	 * Attribute changes are reported by {@link #severityChanged(IResource, MarkerInfo, int)}.
+	 */
+	private void updateIndexes(IPath path, ResourceInfo info, IMarkerSetElement[] changes) {
+		MarkerSet remaining = info == null ? null : info.getMarkers(false);
+		for (IMarkerSetElement change : changes) {
+			MarkerDelta delta = (MarkerDelta) change;
+			if (delta.getKind() == IResourceDelta.ADDED) {
+				typeIndex.add(delta.getType(), path);
+				if (isProblem(delta.getType()))
+					severityCounters.adjust(path, getSeverity(delta.getMarkerInfo()), 1);
+			} else if (delta.getKind() == IResourceDelta.REMOVED) {
+				if (remaining == null || basicFindMatching(remaining, delta.getType(), false).length == 0)
+					typeIndex.remove(delta.getType(), path);
+				if (isProblem(delta.getType()))
+					severityCounters.adjust(path, getSeverity(delta.getMarkerInfo()), -1);
+			}
+		}
+	}
+
+	/**
+	 * The attributes of the given marker on the given resource have changed,
+	 * possibly including its severity.
+	 */
+	void severityChanged(IResource resource, MarkerInfo marker, int oldSeverity) {
+		int newSeverity = getSeverity(marker);
+		if (newSeverity == oldSeverity || !isProblem(marker.getType()))
+			return;
+		IPath path = resource.getFullPath();
+		severityCounters.adjust(path, oldSeverity, -1);
+		severityCounters.adjust(path, newSeverity, 1);
+	}
+
+	private boolean isProblem(String type) {
+		return cache.isSubtype(type, IMarker.PROBLEM);
 	}
 
 	/**
@@ -249,10 +371,13 @@ public class MarkerManager implements IManager {
 	 * Returns the marker with the given id or <code>null</code> if none is found.
 	 */
 	public MarkerInfo findMarkerInfo(IResource resource, long id) {
-		ResourceInfo info = workspace.getResourceInfo(resource.getFullPath(), false, false);
+		IPath path = resource.getFullPath();
+		installMarkers(path, IResource.DEPTH_ZERO);
+		ResourceInfo info = workspace.getResourceInfo(path, false, false);
 		if (info == null)
 			return null;
-		MarkerSet markers = info.getMarkers(false);
+		RestoredMarkers pending = unrestored.get(path.uptoSegment(1));
+		MarkerSet markers = pending == null ? info.getMarkers(false) : pending.getMarkers().get(path);
 		if (markers == null)
 			return null;
 		return (MarkerInfo) markers.get(id);
@@ -279,11 +404,33 @@ public class MarkerManager implements IManager {
 	 */
 	public void doFindMarkers(IResource target, ArrayList<IMarker> result, final String type,
 			final boolean includeSubtypes, int depth) {
-		// optimize the deep searches with an element tree visitor
-		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
+		installMarkers(target.getFullPath(), depth);
+		int start = result.size();
+		// optimize the deep searches with the type index or an element tree visitor
+		if (depth == IResource.DEPTH_INFINITE && (target.getType() == IResource.ROOT || target.getType() == IResource.PROJECT))
+			indexFindMarkers(target.getFullPath(), result, type, includeSubtypes);
+		else if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
 			visitorFindMarkers(target.getFullPath(), result, type, includeSubtypes);
 		else
 			recursiveFindMarkers(target.getFullPath(), result, type, includeSubtypes, depth);
+		if (unrestored.isEmpty())
+			return;
+		ArrayList<IMarker> pending = new ArrayList<>();
+		forUnrestoredMarkers(target.getFullPath(), depth, (resource, markers) -> {
+			IMarkerSetElement[] matching;
+			if (type == null)
+				matching = markers.elements();
+			else
+				matching = basicFindMatching(markers, type, includeSubtypes);
+			buildMarkers(matching, resource.getFullPath(), resource.getType(), pending);
+		});
+		if (pending.isEmpty())
+			return;
+		// an operation may have installed some of the markers while they were searched
+		Set<IMarker> found = new HashSet<>(result.subList(start, result.size()));
+		for (IMarker marker : pending)
+			if (!found.contains(marker))
+				result.add(marker);
 	}
 
 	/**
@@ -291,10 +438,27 @@ public class MarkerManager implements IManager {
 	 * option to search the target's children.
 	 */
 	public int findMaxProblemSeverity(IResource target, String type, boolean includeSubtypes, int depth) {
+		// the common query of decorators is answered by the counters, which include
+		// the summaries of the projects whose markers have not been installed yet,
+		// but not the folders and files of these projects
+		if (depth == IResource.DEPTH_INFINITE && includeSubtypes && IMarker.PROBLEM.equals(type)
+				&& (target.getType() == IResource.ROOT || target.getType() == IResource.PROJECT || isRestored(target))) {
+			int max = severityCounters.getMaxSeverity(target.getFullPath());
+			if (max != ProblemSeverityCounters.UNKNOWN)
+				return max;
+		}
+		installMarkers(target.getFullPath(), depth);
+		int max;
 		// optimize the deep searches with an element tree visitor
 		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
-			return visitorFindMaxSeverity(target.getFullPath(), type, includeSubtypes);
-		return recursiveFindMaxSeverity(target.getFullPath(), type, includeSubtypes, depth);
+			max = visitorFindMaxSeverity(target.getFullPath(), type, includeSubtypes);
+		else
+			max = recursiveFindMaxSeverity(target.getFullPath(), type, includeSubtypes, depth);
+		if (max >= IMarker.SEVERITY_ERROR || unrestored.isEmpty())
+			return max;
+		int[] pending = {max};
+		forUnrestoredMarkers(target.getFullPath(), depth, (resource, markers) -> pending[0] = Math.max(pending[0], basicFindMaxSeverity(markers, type, includeSubtypes)));
+		return pending[0];
 	}
 
 	public long getChangeId() {
@@ -308,11 +472,23 @@ public class MarkerManager implements IManager {
 		return deltaManager.assembleDeltas(startChangeId);
 	}
 
+	/**
+	 * Returns the index of marker types to the resources carrying them.
+	 */
+	public MarkerTypeIndex getTypeIndex() {
+		return typeIndex;
+	}
+
 	/**
 	 * Returns true if this manager has a marker delta record for the given marker
-	 * id, and false otherwise.
+	 * id in the batch that is still collecting changes, and false otherwise.
+	 * Once the deltas of a batch were assembled for an event, a further change
+	 * records a fresh delta in a new batch; merging the batches keeps the old
+	 * attributes of the earliest change, so listeners still see the attributes
+	 * from before the first change since their last event.
 	 */
 	boolean hasDelta(IPath path, long id) {
+		Map<IPath, MarkerSet> currentDeltas = deltaManager.currentBatch();
 		if (currentDeltas == null)
 			return false;
 		MarkerSet set = currentDeltas.get(path);
@@ -345,6 +521,64 @@ public class MarkerManager implements IManager {
 		return cache.isSubtype(type, superType);
 	}
 
+	/**
+	 * Adds the markers for a subtree of resources to the list, looking only at
+	 * the resources that carry markers of a matching type according to the type index.
+	 */
+	private void indexFindMarkers(IPath path, ArrayList<IMarker> list, String type, boolean includeSubtypes) {
+		Predicate<String> typeFilter;
+		if (type == null)
+			typeFilter = t -> true;
+		else if (includeSubtypes)
+			typeFilter = t -> cache.isSubtype(t, type);
+		else
+			typeFilter = type::equals;
+		for (IPath candidate : typeIndex.getPaths(path, typeFilter)) {
+			// the index may be stale, the markers present decide
+			ResourceInfo info = workspace.getResourceInfo(candidate, true, false);
+			if (info == null)
+				continue;
+			MarkerSet markers = info.getMarkers(false);
+			if (markers == null)
+				continue;
+			IMarkerSetElement[] matching;
+			if (type == null)
+				matching = markers.elements();
+			else
+				matching = basicFindMatching(markers, type, includeSubtypes);
+			buildMarkers(matching, candidate, info.getType(), list);
+		}
+	}
+
+	/**
+	 * Adds the markers of the given resource and, unless it is the workspace
+	 * root whose markers are restored separately from those of the projects, of
+	 * its subtree to the type index and the problem severity counters.
+	 */
+	private void indexMarkers(IResource resource) {
+		IPath path = resource.getFullPath();
+		boolean deep = resource.getType() != IResource.ROOT;
+		if (deep)
+			severityCounters.reset(path);
+		IElementContentVisitor visitor = (tree, requestor, elementContents) -> {
+			ResourceInfo info = (ResourceInfo) elementContents;
+			if (info == null)
+				return false;
+			MarkerSet markers = info.getMarkers(false);
+			if (markers != null) {
+				IPath markersPath = requestor.requestPath();
+				typeIndex.addAll(markers, markersPath);
+				for (IMarkerSetElement element : markers.elements()) {
+					MarkerInfo marker = (MarkerInfo) element;
+					if (isProblem(marker.getType()))
+						severityCounters.adjust(markersPath, getSeverity(marker), 1);
+				}
+			}
+			return deep;
+		};
+		new ElementTreeIterator(workspace.getElementTree(), path).iterate(visitor);
+	}
+
 	public void moved(final IResource source, final IResource destination, int depth) throws CoreException {
 		final int count = destination.getFullPath().segmentCount();
 
@@ -506,6 +740,7 @@ public class MarkerManager implements IManager {
 	 * <code>null</code> is a wildcard.
 	 */
 	public void removeMarkers(IResource target, final String type, final boolean includeSubtypes, int depth) {
+		installMarkers(target.getFullPath(), depth);
 		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
 			visitorRemoveMarkers(target.getFullPath(), type, includeSubtypes);
 		else
@@ -516,27 +751,251 @@ public class MarkerManager implements IManager {
 	 * Reset the marker deltas up to but not including the given start Id.
 	 */
 	public void resetMarkerDeltas(long startId) {
-		currentDeltas = null;
 		deltaManager.resetDeltas(startId);
 	}
 
 	public void restore(IResource resource, boolean generateDeltas, IProgressMonitor monitor) throws CoreException {
-		// first try and load the last saved file, then apply the snapshots
-		restoreFromSave(resource, generateDeltas);
-		restoreFromSnap(resource);
+		restore(Collections.singletonList(resource), generateDeltas, monitor);
+	}
+
+	/**
+	 * Restores the markers of the given workspace root and projects. The marker
+	 * files of the resources are read concurrently, the markers are installed
+	 * afterwards in the order of the resources.
+	 */
+	public void restore(List<? extends IResource> resources, boolean generateDeltas, IProgressMonitor monitor) throws CoreException {
+		if (LAZY_RESTORE && !generateDeltas)
+			resources = deferRestore(resources);
+		List<RestoredMarkers> restored = new ArrayList<>(resources.size());
+		for (IResource resource : resources)
+			restored.add(new RestoredMarkers(resource, false));
+		readMarkers(restored);
+		CoreException failure = install(restored, generateDeltas);
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Defers reading the markers of those of the given projects that have a
+	 * summary of their problem markers until the markers are first needed, the
+	 * summary answers the queries for the maximum problem severity of the project
+	 * and of the workspace root until then. Returns the remaining resources, whose
+	 * markers have to be read now.
+	 */
+	public List<IResource> deferRestore(List<? extends IResource> resources) {
+		List<IResource> result = new ArrayList<>(resources.size());
+		for (IResource resource : resources) {
+			int[] summary = resource.getType() == IResource.PROJECT ? readSummary((IProject) resource) : null;
+			if (summary == null) {
+				result.add(resource);
+				continue;
+			}
+			IPath path = resource.getFullPath();
+			severityCounters.reset(path);
+			severityCounters.adjustAll(path, summary);
+			unrestored.put(path, new RestoredMarkers(resource, true));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the markers of the project containing the given resource
+	 * have been installed in the tree.
+	 */
+	public boolean isRestored(IResource resource) {
+		return !unrestored.containsKey(resource.getFullPath().uptoSegment(1));
+	}
+
+	/**
+	 * Installs the markers of the project containing the given path in the tree
+	 * if they have not been installed yet or, for the workspace root and a depth
+	 * other than zero, those of all such projects.
+	 * <p>
+	 * The markers are only installed by an operation that may modify the tree,
+	 * before it changes markers or moves resources. Queries made elsewhere, like
+	 * in jobs or in listeners, are answered from the markers read from the files.
+	 * The installed markers are the ones these queries have seen since the
+	 * workspace started, so installing them neither creates marker deltas nor
+	 * changes the marker generation count that resource deltas compare.
+	 * </p>
+	 */
+	void installMarkers(IPath path, int depth) {
+		if (unrestored.isEmpty() || (path.isRoot() && depth == IResource.DEPTH_ZERO) || !canModifyTree())
+			return;
+		List<RestoredMarkers> pending = new ArrayList<>();
+		if (path.isRoot()) {
+			pending.addAll(unrestored.values());
+		} else {
+			RestoredMarkers markers = unrestored.get(path.uptoSegment(1));
+			if (markers != null)
+				pending.add(markers);
+		}
+		if (pending.isEmpty())
+			return;
+		try {
+			readMarkers(pending);
+		} catch (CoreException e) {
+			// the markers that could not be read are not installed either
+			Policy.log(e.getStatus());
+		}
+		for (RestoredMarkers markers : pending) {
+			markers.getMarkers().forEach((markersPath, set) -> {
+				ResourceInfo info = workspace.getResourceInfo(markersPath, false, true);
+				if (info != null)
+					info.setMarkers(set);
+			});
+			indexMarkers(markers.resource);
+			unrestored.remove(markers.resource.getFullPath());
+		}
+	}
+
+	/**
+	 * Returns whether the current thread runs an operation that may modify the
+	 * tree, which is the only time markers may be installed in it.
+	 */
+	private boolean canModifyTree() {
+		if (workspace.getElementTree().isImmutable() || workspace.isTreeLocked())
+			return false;
+		try {
+			return workspace.getWorkManager().isLockAlreadyAcquired();
+		} catch (CoreException e) {
+			// the workspace is closed
+			return false;
+		}
+	}
+
+	/**
+	 * Passes the markers read from the files of the projects whose markers have
+	 * not been installed yet to the given consumer, for the resources at the
+	 * given path and below it up to the given depth that still exist.
+	 */
+	private void forUnrestoredMarkers(IPath path, int depth, BiConsumer<IResource, MarkerSet> consumer) {
+		if (path.isRoot() && depth == IResource.DEPTH_ZERO)
+			return;
+		for (RestoredMarkers pending : unrestored.values()) {
+			IPath projectPath = pending.resource.getFullPath();
+			if (!path.isPrefixOf(projectPath) && !projectPath.isPrefixOf(path))
+				continue;
+			pending.getMarkers().forEach((markersPath, markers) -> {
+				if (!path.isPrefixOf(markersPath))
+					return;
+				int distance = markersPath.segmentCount() - path.segmentCount();
+				if (depth != IResource.DEPTH_INFINITE && distance > (depth == IResource.DEPTH_ONE ? 1 : 0))
+					return;
+				ResourceInfo info = workspace.getResourceInfo(markersPath, false, false);
+				if (info != null)
+					consumer.accept(workspace.newResource(markersPath, info.getType()), markers);
+			});
+		}
+	}
+
+	/**
+	 * Reads the markers of the given resources, concurrently if there are several.
+	 */
+	private void readMarkers(List<RestoredMarkers> restored) throws CoreException {
+		if (restored.size() == 1)
+			restored.get(0).read();
+		else
+			ParallelRunner.run(restored, RestoredMarkers::read, Messages.resources_readMarkers);
+	}
+
+	/**
+	 * Installs the given markers from a single thread and indexes them once they
+	 * are all installed. Returns the first failure that occurred while reading
+	 * them, if any.
+	 */
+	private CoreException install(List<RestoredMarkers> restored, boolean generateDeltas) {
+		CoreException failure = null;
+		restoring = true;
+		try {
+			for (RestoredMarkers markers : restored) {
+				markers.install(generateDeltas);
+				if (failure == null)
+					failure = markers.failure;
+			}
+		} finally {
+			restoring = false;
+		}
+		for (RestoredMarkers markers : restored) {
+			indexMarkers(markers.resource);
+			unrestored.remove(markers.resource.getFullPath());
+		}
+		return failure;
+	}
+
+	/**
+	 * The markers read from the save file and the snapshot of a resource.
+	 */
+	private final class RestoredMarkers {
+		final IResource resource;
+		/** Whether reading the markers was deferred, failures are then logged */
+		private final boolean deferred;
+		private final Map<IPath, MarkerSet> saved = new LinkedHashMap<>();
+		private final Map<IPath, MarkerSet> snapped = new LinkedHashMap<>();
+		private boolean read;
+		/** The markers of the save with the snapshots applied, by resource path */
+		private Map<IPath, MarkerSet> markers;
+		CoreException failure;
+
+		RestoredMarkers(IResource resource, boolean deferred) {
+			this.resource = resource;
+			this.deferred = deferred;
+		}
+
+		/**
+		 * Reads the markers of the last save and the snapshots without installing
+		 * them, unless they have been read already. May be called concurrently.
+		 */
+		synchronized void read() {
+			if (read)
+				return;
+			read = true;
+			// first try and load the last saved file, then apply the snapshots
+			try {
+				restoreFromSave(resource, saved::put);
+			} catch (CoreException e) {
+				failure = e;
+				if (deferred)
+					Policy.log(e.getStatus());
+				return;
+			}
+			restoreFromSnap(resource, snapped::put);
+		}
+
+		/**
+		 * Returns the markers of the resources, by path, reading them if needed.
+		 */
+		synchronized Map<IPath, MarkerSet> getMarkers() {
+			read();
+			if (markers == null) {
+				markers = new HashMap<>(saved);
+				markers.putAll(snapped);
+			}
+			return markers;
+		}
+
+		/**
+		 * Installs the markers of the last save and then applies the snapshots.
+		 */
+		synchronized void install(boolean generateDeltas) {
+			MarkerReader reader = new MarkerReader(workspace);
+			saved.forEach((path, set) -> reader.install(path, set, generateDeltas));
+			MarkerSnapshotReader snapshotReader = new MarkerSnapshotReader(workspace);
+			snapped.forEach(snapshotReader::install);
+		}
 	}
 
-	protected void restoreFromSave(IResource resource, boolean generateDeltas) throws CoreException {
+	protected void restoreFromSave(IResource resource, BiConsumer<IPath, MarkerSet> consumer) throws CoreException {
 		IPath sourceLocation = workspace.getMetaArea().getMarkersLocationFor(resource);
 		IPath tempLocation = workspace.getMetaArea().getBackupLocationFor(sourceLocation);
 		java.io.File sourceFile = new java.io.File(sourceLocation.toOSString());
 		java.io.File tempFile = new java.io.File(tempLocation.toOSString());
 		if (!sourceFile.exists() && !tempFile.exists())
 			return;
-		try (DataInputStream input = new DataInputStream(
-				new SafeFileInputStream(sourceLocation.toOSString(), tempLocation.toOSString()))) {
+		try {
+			// like SafeFileInputStream read the temporary file if the target is missing
 			MarkerReader reader = new MarkerReader(workspace);
-			reader.read(input, generateDeltas);
+			reader.read(sourceFile.exists() ? sourceFile : tempFile, consumer);
 		} catch (Exception e) {
 			// don't let runtime exceptions such as ArrayIndexOutOfBounds prevent startup
 			String msg = NLS.bind(Messages.resources_readMeta, sourceLocation);
@@ -544,14 +1003,14 @@ public class MarkerManager implements IManager {
 		}
 	}
 
-	protected void restoreFromSnap(IResource resource) {
+	protected void restoreFromSnap(IResource resource, BiConsumer<IPath, MarkerSet> consumer) {
 		IPath sourceLocation = workspace.getMetaArea().getMarkersSnapshotLocationFor(resource);
 		if (!sourceLocation.toFile().exists())
 			return;
 		try (DataInputStream input = new DataInputStream(new SafeChunkyInputStream(sourceLocation.toFile()))) {
 			MarkerSnapshotReader reader = new MarkerSnapshotReader(workspace);
 			while (true)
-				reader.read(input);
+				reader.read(input, consumer);
 		} catch (EOFException eof) {
 			// ignore end of file
 		} catch (Exception e) {
@@ -568,13 +1027,92 @@ public class MarkerManager implements IManager {
 
 	@Override
 	public void shutdown(IProgressMonitor monitor) {
-		// do nothing
+		typeIndex.clear();
+		severityCounters.clear();
+		unrestored.clear();
 	}
 
 	public void snap(ResourceInfo info, IPathRequestor requestor, DataOutputStream output) throws IOException {
 		writer.snap(info, requestor, output);
 	}
 
+	/**
+	 * Returns new counts of persistent problem markers by severity, to be filled
+	 * by {@link #summarize(ResourceInfo, int[])} while saving the markers of a project.
+	 */
+	public int[] newSummary() {
+		return new int[ProblemSeverityCounters.COUNTERS];
+	}
+
+	/**
+	 * Adds the persistent problem markers of the given resource to the given summary.
+	 */
+	public void summarize(ResourceInfo info, int[] summary) {
+		MarkerSet markers = info.getMarkers(false);
+		if (markers == null)
+			return;
+		for (IMarkerSetElement element : markers.elements()) {
+			MarkerInfo marker = (MarkerInfo) element;
+			if (isProblem(marker.getType()) && isPersistent(marker)) {
+				int index = ProblemSeverityCounters.indexOf(getSeverity(marker));
+				if (index != -1)
+					summary[index]++;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a summary of the problem markers of the given project exists.
+	 */
+	public boolean hasSummary(IProject project) {
+		return workspace.getMetaArea().getMarkersSummaryLocationFor(project).toFile().exists();
+	}
+
+	/**
+	 * Deletes the summary of the problem markers of the given project. Must be
+	 * called before the marker files of the project are changed, so that a summary
+	 * never describes other markers than those in the files.
+	 */
+	public void deleteSummary(IProject project) throws IOException {
+		java.io.File file = workspace.getMetaArea().getMarkersSummaryLocationFor(project).toFile();
+		if (file.exists() && !file.delete())
+			throw new IOException(NLS.bind(Messages.resources_writeMeta, file));
+	}
+
+	/**
+	 * Writes the summary of the problem markers of the given project, which is read
+	 * instead of the marker files when the workspace starts up again.
+	 */
+	public void saveSummary(IProject project, int[] summary) throws IOException {
+		java.io.File file = workspace.getMetaArea().getMarkersSummaryLocationFor(project).toFile();
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			output.writeInt(SUMMARY_VERSION);
+			for (int count : summary)
+				output.writeInt(count);
+		}
+	}
+
+	/**
+	 * Returns the summary of the problem markers of the given project, or
+	 * <code>null</code> if there is none or it cannot be read.
+	 */
+	private int[] readSummary(IProject project) {
+		java.io.File file = workspace.getMetaArea().getMarkersSummaryLocationFor(project).toFile();
+		if (!file.exists())
+			return null;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (input.readInt() != SUMMARY_VERSION)
+				return null;
+			int[] summary = newSummary();
+			for (int i = 0; i < summary.length; i++)
+				summary[i] = input.readInt();
+			return summary;
+		} catch (IOException e) {
+			// a summary that is incomplete, the markers are read instead
+			return null;
+		}
+	}
+
 	@Override
 	public void startup(IProgressMonitor monitor) {
 		// do nothing
@@ -11,18 +11,29 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Mickael Istria (Red Hat Inc.) - Bug 488937
+ *     Contributors to the Eclipse Foundation - buffered reading without installing
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
 import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.osgi.util.NLS;
 
 /**
  * This class is used to read markers from disk. Subclasses implement
  * version specific reading code.
+ * <p>
+ * Reading and installing the markers are separate steps, so that the files
+ * of several projects can be read concurrently while the markers are
+ * installed in the workspace tree by a single thread.
+ * </p>
  */
 public class MarkerReader {
 	protected Workspace workspace;
@@ -43,18 +54,70 @@ public class MarkerReader {
 				return new MarkerReader_2(workspace);
 			case 3 :
 				return new MarkerReader_3(workspace);
+			case 4 :
+				return new MarkerReader_4(workspace);
 			default :
 				throw new IOException(NLS.bind(Messages.resources_format, formatVersion));
 		}
 	}
 
+	/**
+	 * Reads the markers from the given input and installs them on their resources.
+	 */
 	public void read(DataInputStream input, boolean generateDeltas) throws IOException, CoreException {
+		read((DataInput) input, (path, markers) -> install(path, markers, generateDeltas));
+	}
+
+	/**
+	 * Reads the markers from the given input, passing the markers of each
+	 * resource to the given consumer without installing them.
+	 */
+	public void read(DataInput input, BiConsumer<IPath, MarkerSet> consumer) throws IOException, CoreException {
 		int formatVersion = readVersionNumber(input);
 		MarkerReader reader = getReader(formatVersion);
-		reader.read(input, generateDeltas);
+		reader.read(input, consumer);
+	}
+
+	/**
+	 * Reads the markers from the given file, passing the markers of each
+	 * resource to the given consumer without installing them. The whole file
+	 * is read into memory with a single read and decoded from there.
+	 */
+	public void read(java.io.File file, BiConsumer<IPath, MarkerSet> consumer) throws IOException, CoreException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException(NLS.bind(Messages.resources_readMeta, file));
+			buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// keep reading until the buffer is full
+			}
+			buffer.flip();
+		}
+		read(new ByteBufferDataInput(buffer), consumer);
+	}
+
+	/**
+	 * Installs the markers read for the resource with the given path, replacing
+	 * its current markers. Markers for resources that do not exist are ignored.
+	 */
+	public void install(IPath path, MarkerSet markers, boolean generateDeltas) {
+		ResourceInfo info = workspace.getResourceInfo(path, false, false);
+		if (info == null)
+			return;
+		info.setMarkers(markers);
+		if (generateDeltas) {
+			Resource resource = workspace.newResource(path, info.getType());
+			IMarkerSetElement[] infos = markers.elements();
+			IMarkerSetElement[] deltas = new IMarkerSetElement[infos.length];
+			for (int i = 0; i < infos.length; i++)
+				deltas[i] = new MarkerDelta(IResourceDelta.ADDED, resource, (MarkerInfo) infos[i]);
+			workspace.getMarkerManager().changedMarkers(resource, deltas);
+		}
 	}
 
-	protected static int readVersionNumber(DataInputStream input) throws IOException {
+	protected static int readVersionNumber(DataInput input) throws IOException {
 		return input.readInt();
 	}
 }
@@ -18,8 +18,8 @@ package org.eclipse.core.internal.resources;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.BiConsumer;
 import org.eclipse.core.internal.utils.Messages;
-import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.runtime.*;
 
@@ -65,7 +65,7 @@ public class MarkerReader_1 extends MarkerReader {
 	 * }</pre>
 	 */
 	@Override
-	public void read(DataInputStream input, boolean generateDeltas) throws IOException, CoreException {
+	public void read(DataInput input, BiConsumer<IPath, MarkerSet> consumer) throws IOException, CoreException {
 		try {
 			List<String> readTypes = new ArrayList<>(5);
 			while (true) {
@@ -74,31 +74,14 @@ public class MarkerReader_1 extends MarkerReader {
 				MarkerSet markers = new MarkerSet(markersSize);
 				for (int i = 0; i < markersSize; i++)
 					markers.add(readMarkerInfo(input, readTypes));
-				// if the resource doesn't exist then return. ensure we do this after
-				// reading the markers from the file so we don't get into an
-				// inconsistent state.
-				ResourceInfo info = workspace.getResourceInfo(path, false, false);
-				if (info == null)
-					continue;
-				info.setMarkers(markers);
-				if (generateDeltas) {
-					Resource resource = workspace.newResource(path, info.getType());
-					// Iterate over all elements and add not null ones. This saves us from copying
-					// and shrinking the array.
-					IMarkerSetElement[] infos = markers.elements;
-					ArrayList<MarkerDelta> deltas = new ArrayList<>(infos.length);
-					for (IMarkerSetElement info2 : infos)
-						if (info2 != null)
-							deltas.add(new MarkerDelta(IResourceDelta.ADDED, resource, (MarkerInfo) info2));
-					workspace.getMarkerManager().changedMarkers(resource, deltas.toArray(new IMarkerSetElement[deltas.size()]));
-				}
+				consumer.accept(path, markers);
 			}
 		} catch (EOFException e) {
 			// ignore end of file
 		}
 	}
 
-	private Map<String, Object> readAttributes(DataInputStream input) throws IOException {
+	private Map<String, Object> readAttributes(DataInput input) throws IOException {
 		int attributesSize = input.readInt();
 		if (attributesSize == 0)
 			return null;
@@ -127,7 +110,7 @@ public class MarkerReader_1 extends MarkerReader {
 		return result.isEmpty() ? null : result;
 	}
 
-	private MarkerInfo readMarkerInfo(DataInputStream input, List<String> readTypes) throws IOException, CoreException {
+	private MarkerInfo readMarkerInfo(DataInput input, List<String> readTypes) throws IOException, CoreException {
 		long id = input.readLong();
 		int constant = input.readInt();
 		String type = null;
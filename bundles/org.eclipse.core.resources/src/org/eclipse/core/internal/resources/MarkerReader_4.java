@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BiConsumer;
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.runtime.*;
+
+/**
+ * This class is used to read markers from disk. This is for version 4, which
+ * differs from version 3 in writing attribute keys through the same table of
+ * names as the marker types.
+ */
+public class MarkerReader_4 extends MarkerReader {
+
+	// name constants
+	public static final byte INDEX = 1;
+	public static final byte QNAME = 2;
+
+	// marker attribute types
+	public static final byte ATTRIBUTE_NULL = 0;
+	public static final byte ATTRIBUTE_BOOLEAN = 1;
+	public static final byte ATTRIBUTE_INTEGER = 2;
+	public static final byte ATTRIBUTE_STRING = 3;
+
+	public MarkerReader_4(Workspace workspace) {
+		super(workspace);
+	}
+
+	/**
+	 * <pre> {@code
+	 * SAVE_FILE -> VERSION_ID RESOURCE+
+	 * VERSION_ID -> int
+	 * RESOURCE -> RESOURCE_PATH MARKERS_SIZE MARKER+
+	 * RESOURCE_PATH -> String
+	 * MARKERS_SIZE -> int
+	 * MARKER -> MARKER_ID TYPE ATTRIBUTES_SIZE ATTRIBUTE* CREATION_TIME
+	 * MARKER_ID -> long
+	 * TYPE -> NAME
+	 * NAME -> INDEX | QNAME
+	 * INDEX -> byte int
+	 * QNAME -> byte String
+	 * ATTRIBUTES_SIZE -> short
+	 * ATTRIBUTE -> ATTRIBUTE_KEY ATTRIBUTE_VALUE
+	 * ATTRIBUTE_KEY -> NAME
+	 * ATTRIBUTE_VALUE -> INTEGER_VALUE | BOOLEAN_VALUE | STRING_VALUE | NULL_VALUE
+	 * INTEGER_VALUE -> byte int
+	 * BOOLEAN_VALUE -> byte boolean
+	 * STRING_VALUE -> byte String
+	 * NULL_VALUE -> byte
+	 * CREATION_TIME -> long
+	 * }</pre>
+	 */
+	@Override
+	public void read(DataInput input, BiConsumer<IPath, MarkerSet> consumer) throws IOException, CoreException {
+		try {
+			List<String> readNames = new ArrayList<>();
+			while (true) {
+				IPath path = new Path(input.readUTF());
+				int markersSize = input.readInt();
+				consumer.accept(path, readMarkers(input, markersSize, readNames));
+			}
+		} catch (EOFException e) {
+			// ignore end of file
+		}
+	}
+
+	/**
+	 * Reads the given number of markers written in the format of version 4 of
+	 * the save file and version 3 of the snapshot file.
+	 */
+	static MarkerSet readMarkers(DataInput input, int markersSize, List<String> readNames) throws IOException, CoreException {
+		MarkerSet markers = new MarkerSet(markersSize);
+		for (int i = 0; i < markersSize; i++)
+			markers.add(readMarkerInfo(input, readNames));
+		return markers;
+	}
+
+	private static String readName(DataInput input, List<String> readNames) throws IOException, CoreException {
+		byte constant = input.readByte();
+		if (constant == QNAME) {
+			String name = input.readUTF().intern();
+			readNames.add(name);
+			return name;
+		}
+		int index = constant == INDEX ? input.readInt() : -1;
+		if (index < 0 || index >= readNames.size()) {
+			//if we get here the marker file is corrupt
+			String msg = Messages.resources_readMarkers;
+			throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, null, msg, null);
+		}
+		return readNames.get(index);
+	}
+
+	private static Map<String, Object> readAttributes(DataInput input, List<String> readNames) throws IOException, CoreException {
+		int attributesSize = input.readShort();
+		if (attributesSize == 0)
+			return null;
+		Map<String, Object> result = new HashMap<>(attributesSize * 2);
+		for (int j = 0; j < attributesSize; j++) {
+			String key = readName(input, readNames);
+			byte type = input.readByte();
+			Object value = null;
+			switch (type) {
+				case ATTRIBUTE_INTEGER :
+					value = Integer.valueOf(input.readInt());
+					break;
+				case ATTRIBUTE_BOOLEAN :
+					value = Boolean.valueOf(input.readBoolean());
+					break;
+				case ATTRIBUTE_STRING :
+					value = input.readUTF();
+					break;
+				case ATTRIBUTE_NULL :
+					// do nothing
+					break;
+			}
+			if (value != null) {
+				result.put(key, value);
+			}
+		}
+		return result.isEmpty() ? null : result;
+	}
+
+	private static MarkerInfo readMarkerInfo(DataInput input, List<String> readNames) throws IOException, CoreException {
+		long id = input.readLong();
+		String type = readName(input, readNames);
+		Map<String, Object> map = readAttributes(input, readNames);
+		long creationTime = input.readLong();
+		return new MarkerInfo(map, false, creationTime, type, id);
+	}
+}
@@ -11,6 +11,7 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     James Blackburn (Broadcom Corp.) - ongoing development
+ *     Contributors to the Eclipse Foundation - persistent trie storage
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
@@ -18,52 +19,66 @@ import java.util.Arrays;
 import org.eclipse.core.internal.utils.IStringPoolParticipant;
 import org.eclipse.core.internal.utils.StringPool;
 
+/**
+ * A set of marker set elements keyed by their <code>long</code> id.
+ * <p>
+ * The elements are stored in a persistent hash trie that uses six bits of the
+ * id per level. Cloning a set is constant time: the clone shares all nodes
+ * with the original and a node is only copied when it is changed, so adding
+ * or removing an element copies the nodes on the path to that element instead
+ * of the whole set. Nodes created by a set since it was last cloned belong to
+ * it alone and are changed in place.
+ * </p>
+ * <p>
+ * This class is not thread safe, but sets that are no longer changed can be
+ * read concurrently while their clones are changed.
+ * </p>
+ */
 public class MarkerSet implements Cloneable, IStringPoolParticipant {
-	protected static final int MINIMUM_SIZE = 5;
-	protected int elementCount = 0;
-	protected IMarkerSetElement[] elements;
+	private static final int BITS = 6;
+	private static final int MASK = (1 << BITS) - 1;
+	private static final Object[] NO_SLOTS = new Object[0];
+
+	/**
+	 * A trie node. Each slot holds an element or a child node for the ids
+	 * whose bits at the level of this node select the slot's bit in the bitmap.
+	 */
+	private static final class Node {
+		/** The token of the set that may change this node in place */
+		final Object owner;
+		long bitmap;
+		Object[] slots;
+
+		Node(Object owner, long bitmap, Object[] slots) {
+			this.owner = owner;
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+	}
+
+	private int elementCount = 0;
+	private Node root;
+	/** Token for the nodes owned by this set, created on first change after a clone */
+	private Object edit;
 
 	public MarkerSet() {
-		this(MINIMUM_SIZE);
+		super();
 	}
 
+	/**
+	 * Creates an empty set. The trie grows as needed, so the expected capacity
+	 * is not used.
+	 */
 	public MarkerSet(int capacity) {
 		super();
-		this.elements = new IMarkerSetElement[Math.max(MINIMUM_SIZE, capacity * 2)];
 	}
 
 	public void add(IMarkerSetElement element) {
 		if (element == null)
 			return;
-		int hash = hashFor(element.getId()) % elements.length;
-
-		// search for an empty slot at the end of the array
-		for (int i = hash; i < elements.length; i++) {
-			if (elements[i] == null) {
-				elements[i] = element;
-				elementCount++;
-				// grow if necessary
-				if (shouldGrow())
-					expand();
-				return;
-			}
-		}
-
-		// search for an empty slot at the beginning of the array
-		for (int i = 0; i < hash - 1; i++) {
-			if (elements[i] == null) {
-				elements[i] = element;
-				elementCount++;
-				// grow if necessary
-				if (shouldGrow())
-					expand();
-				return;
-			}
-		}
-
-		// if we didn't find a free slot, then try again with the expanded set
-		expand();
-		add(element);
+		if (root == null)
+			root = new Node(owner(), 0, NO_SLOTS);
+		root = insert(root, element, 0);
 	}
 
 	public void addAll(IMarkerSetElement[] toAdd) {
@@ -71,12 +86,17 @@ public class MarkerSet implements Cloneable, IStringPoolParticipant {
 			add(element);
 	}
 
+	/**
+	 * Returns a set with the same elements that shares all nodes with this
+	 * set. Both sets copy shared nodes when they are changed later.
+	 */
 	@Override
 	protected Object clone() {
 		try {
 			MarkerSet copy = (MarkerSet) super.clone();
-			//copy the attribute array
-			copy.elements = elements.clone();
+			// neither set may change the now shared nodes in place any more
+			copy.edit = null;
+			edit = null;
 			return copy;
 		} catch (CloneNotSupportedException e) {
 			//cannot happen because this class implements Cloneable
@@ -90,33 +110,19 @@ public class MarkerSet implements Cloneable, IStringPoolParticipant {
 
 	public IMarkerSetElement[] elements() {
 		IMarkerSetElement[] result = new IMarkerSetElement[elementCount];
-		int j = 0;
-		for (IMarkerSetElement element : elements) {
-			if (element != null)
-				result[j++] = element;
-		}
+		if (root != null)
+			collect(root, result, 0);
 		return result;
 	}
 
-	/**
-	 * The array isn't large enough so double its size and rehash
-	 * all its current values.
-	 */
-	protected void expand() {
-		IMarkerSetElement[] array = new IMarkerSetElement[elements.length * 2];
-		int maxArrayIndex = array.length - 1;
-		for (IMarkerSetElement element : elements) {
-			if (element != null) {
-				int hash = hashFor(element.getId()) % array.length;
-				while (array[hash] != null) {
-					hash++;
-					if (hash > maxArrayIndex)
-						hash = 0;
-				}
-				array[hash] = element;
-			}
+	private static int collect(Node node, IMarkerSetElement[] result, int index) {
+		for (Object slot : node.slots) {
+			if (slot instanceof Node)
+				index = collect((Node) slot, result, index);
+			else
+				result[index++] = (IMarkerSetElement) slot;
 		}
-		elements = array;
+		return index;
 	}
 
 	/**
@@ -124,92 +130,146 @@ public class MarkerSet implements Cloneable, IStringPoolParticipant {
 	 * if not found.
 	 */
 	public IMarkerSetElement get(long id) {
-		if (elementCount == 0)
-			return null;
-		int hash = hashFor(id) % elements.length;
-
-		// search the last half of the array
-		for (int i = hash; i < elements.length; i++) {
-			IMarkerSetElement element = elements[i];
-			if (element == null)
+		Node node = root;
+		for (int shift = 0; node != null; shift += BITS) {
+			long bit = bit(id, shift);
+			if ((node.bitmap & bit) == 0)
 				return null;
-			if (element.getId() == id)
-				return element;
+			Object slot = node.slots[index(node.bitmap, bit)];
+			if (!(slot instanceof Node)) {
+				IMarkerSetElement element = (IMarkerSetElement) slot;
+				return element.getId() == id ? element : null;
+			}
+			node = (Node) slot;
 		}
+		return null;
+	}
 
-		// search the beginning of the array
-		for (int i = 0; i < hash - 1; i++) {
-			IMarkerSetElement element = elements[i];
-			if (element == null)
-				return null;
-			if (element.getId() == id)
-				return element;
-		}
+	private static long bit(long id, int shift) {
+		return 1L << ((id >>> shift) & MASK);
+	}
 
-		// marker info not found so return null
-		return null;
+	private static int index(long bitmap, long bit) {
+		return Long.bitCount(bitmap & (bit - 1));
 	}
 
-	private int hashFor(long id) {
-		return Math.abs((int) id);
+	/**
+	 * Returns the token of the nodes this set may change in place.
+	 */
+	private Object owner() {
+		if (edit == null)
+			edit = new Object();
+		return edit;
 	}
 
-	public boolean isEmpty() {
-		return elementCount == 0;
+	/**
+	 * Returns the given node if this set may change it in place, and a copy
+	 * owned by this set otherwise.
+	 */
+	private Node editable(Node node) {
+		return node.owner == edit ? node : new Node(owner(), node.bitmap, node.slots.clone());
 	}
 
 	/**
-	 * The element at the given index has been removed so move
-	 * elements to keep the set properly hashed.
+	 * Adds the element to the subtrie rooted at the given node, replacing an
+	 * element with the same id, and returns the changed node.
 	 */
-	protected void rehashTo(int anIndex) {
-
-		int target = anIndex;
-		int index = anIndex + 1;
-		if (index >= elements.length)
-			index = 0;
-		IMarkerSetElement element = elements[index];
-		while (element != null) {
-			int hashIndex = hashFor(element.getId()) % elements.length;
-			boolean match;
-			if (index < target)
-				match = !(hashIndex > target || hashIndex <= index);
-			else
-				match = !(hashIndex > target && hashIndex <= index);
-			if (match) {
-				elements[target] = element;
-				target = index;
-			}
-			index++;
-			if (index >= elements.length)
-				index = 0;
-			element = elements[index];
+	private Node insert(Node node, IMarkerSetElement element, int shift) {
+		long id = element.getId();
+		long bit = bit(id, shift);
+		int index = index(node.bitmap, bit);
+		if ((node.bitmap & bit) == 0) {
+			Object[] slots = new Object[node.slots.length + 1];
+			System.arraycopy(node.slots, 0, slots, 0, index);
+			slots[index] = element;
+			System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+			Node result = node.owner == edit ? node : new Node(owner(), node.bitmap, null);
+			result.bitmap |= bit;
+			result.slots = slots;
+			elementCount++;
+			return result;
 		}
-		elements[target] = null;
+		Object slot = node.slots[index];
+		Object replacement;
+		if (slot instanceof Node) {
+			replacement = insert((Node) slot, element, shift + BITS);
+		} else if (((IMarkerSetElement) slot).getId() == id) {
+			replacement = element;
+		} else {
+			replacement = pair((IMarkerSetElement) slot, element, shift + BITS);
+			elementCount++;
+		}
+		if (replacement == slot)
+			return node;
+		Node result = editable(node);
+		result.slots[index] = replacement;
+		return result;
+	}
+
+	/**
+	 * Returns a node holding the two elements with different ids, whose ids
+	 * agree in the bits below the given shift.
+	 */
+	private Node pair(IMarkerSetElement first, IMarkerSetElement second, int shift) {
+		long firstBit = bit(first.getId(), shift);
+		long secondBit = bit(second.getId(), shift);
+		if (firstBit == secondBit)
+			return new Node(owner(), firstBit, new Object[] {pair(first, second, shift + BITS)});
+		Object[] slots = Long.compareUnsigned(firstBit, secondBit) < 0 ? new Object[] {first, second} : new Object[] {second, first};
+		return new Node(owner(), firstBit | secondBit, slots);
+	}
+
+	public boolean isEmpty() {
+		return elementCount == 0;
 	}
 
 	public void remove(long id) {
-		int hash = hashFor(id) % elements.length;
-
-		for (int i = hash; i < elements.length; i++) {
-			IMarkerSetElement element = elements[i];
-			if (element == null)
-				return;
-			if (element.getId() == id) {
-				rehashTo(i);
-				elementCount--;
-			}
-		}
+		if (root == null)
+			return;
+		root = (Node) delete(root, id, 0);
+	}
 
-		for (int i = 0; i < hash - 1; i++) {
-			IMarkerSetElement element = elements[i];
-			if (element == null)
-				return;
-			if (element.getId() == id) {
-				rehashTo(i);
-				elementCount--;
+	/**
+	 * Removes the element with the given id from the subtrie rooted at the
+	 * given node. Returns the node if it does not contain the element or was
+	 * changed in place, otherwise the copied node, <code>null</code> if the subtrie became
+	 * empty, or the single remaining element for nodes below the root.
+	 */
+	private Object delete(Node node, long id, int shift) {
+		long bit = bit(id, shift);
+		if ((node.bitmap & bit) == 0)
+			return node;
+		int index = index(node.bitmap, bit);
+		Object slot = node.slots[index];
+		if (slot instanceof Node) {
+			Object replacement = delete((Node) slot, id, shift + BITS);
+			if (replacement == slot)
+				return node;
+			if (replacement != null) {
+				// collapse chains that lead to a single element
+				if (shift > 0 && node.slots.length == 1 && !(replacement instanceof Node))
+					return replacement;
+				Node result = editable(node);
+				result.slots[index] = replacement;
+				return result;
 			}
+		} else if (((IMarkerSetElement) slot).getId() != id) {
+			return node;
+		} else {
+			elementCount--;
 		}
+		// remove the slot
+		if (node.slots.length == 1)
+			return null;
+		if (shift > 0 && node.slots.length == 2 && !(node.slots[1 - index] instanceof Node))
+			return node.slots[1 - index];
+		Object[] slots = new Object[node.slots.length - 1];
+		System.arraycopy(node.slots, 0, slots, 0, index);
+		System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+		Node result = node.owner == edit ? node : new Node(owner(), node.bitmap, null);
+		result.bitmap &= ~bit;
+		result.slots = slots;
+		return result;
 	}
 
 	public void remove(IMarkerSetElement element) {
@@ -221,10 +281,6 @@ public class MarkerSet implements Cloneable, IStringPoolParticipant {
 			remove(element);
 	}
 
-	private boolean shouldGrow() {
-		return elementCount > elements.length * 0.75;
-	}
-
 	public int size() {
 		return elementCount;
 	}
@@ -234,13 +290,18 @@ public class MarkerSet implements Cloneable, IStringPoolParticipant {
 	 */
 	@Override
 	public void shareStrings(StringPool set) {
-		//copy elements for thread safety
-		IMarkerSetElement[] array = elements;
-		if (array == null)
-			return;
-		for (IMarkerSetElement o : array) {
-			if (o instanceof IStringPoolParticipant)
-				((IStringPoolParticipant) o).shareStrings(set);
+		//copy the root for thread safety
+		Node node = root;
+		if (node != null)
+			shareStrings(node, set);
+	}
+
+	private static void shareStrings(Node node, StringPool set) {
+		for (Object slot : node.slots) {
+			if (slot instanceof Node)
+				shareStrings((Node) slot, set);
+			else if (slot instanceof IStringPoolParticipant)
+				((IStringPoolParticipant) slot).shareStrings(set);
 		}
 	}
 
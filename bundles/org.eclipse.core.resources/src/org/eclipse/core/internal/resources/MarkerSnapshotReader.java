@@ -11,13 +11,15 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Mickael Istria (Red Hat Inc.) - Bug 488937
+ *     Contributors to the Eclipse Foundation - reading without installing
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.io.*;
+import java.util.function.BiConsumer;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.osgi.util.NLS;
 
 public class MarkerSnapshotReader {
@@ -37,18 +39,44 @@ public class MarkerSnapshotReader {
 				return new MarkerSnapshotReader_1(workspace);
 			case 2 :
 				return new MarkerSnapshotReader_2(workspace);
+			case 3 :
+				return new MarkerSnapshotReader_3(workspace);
 			default :
 				throw new IOException(NLS.bind(Messages.resources_format, formatVersion));
 		}
 	}
 
+	/**
+	 * Reads the markers of the next resource in the snapshot and installs them.
+	 */
 	public void read(DataInputStream input) throws IOException, CoreException {
+		read((DataInput) input, this::install);
+	}
+
+	/**
+	 * Reads the markers of the next resource in the snapshot, passing them to
+	 * the given consumer without installing them.
+	 */
+	public void read(DataInput input, BiConsumer<IPath, MarkerSet> consumer) throws IOException, CoreException {
 		int formatVersion = readVersionNumber(input);
 		MarkerSnapshotReader reader = getReader(formatVersion);
-		reader.read(input);
+		reader.read(input, consumer);
+	}
+
+	/**
+	 * Installs the markers read for the resource with the given path, replacing
+	 * its current markers. If the resource doesn't exist in the workspace then
+	 * consider this a delete.
+	 */
+	public void install(IPath path, MarkerSet markers) {
+		ResourceInfo info = workspace.getResourceInfo(path, false, false);
+		if (info == null)
+			return;
+		info.setMarkers(markers);
+		info.clear(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 	}
 
-	protected static int readVersionNumber(DataInputStream input) throws IOException {
+	protected static int readVersionNumber(DataInput input) throws IOException {
 		return input.readInt();
 	}
 }
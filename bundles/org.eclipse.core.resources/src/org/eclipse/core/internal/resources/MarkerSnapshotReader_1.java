@@ -16,9 +16,10 @@
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 import java.util.*;
+import java.util.function.BiConsumer;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.runtime.*;
@@ -66,23 +67,17 @@ public class MarkerSnapshotReader_1 extends MarkerSnapshotReader {
 	 * }</pre>
 	 */
 	@Override
-	public void read(DataInputStream input) throws IOException, CoreException {
+	public void read(DataInput input, BiConsumer<IPath, MarkerSet> consumer) throws IOException, CoreException {
 		IPath path = new Path(input.readUTF());
 		int markersSize = input.readInt();
 		MarkerSet markers = new MarkerSet(markersSize);
 		ArrayList<String> readTypes = new ArrayList<>();
 		for (int i = 0; i < markersSize; i++)
 			markers.add(readMarkerInfo(input, readTypes));
-		// we've read all the markers from the file for this snap. if the resource
-		// doesn't exist in the workspace then consider this a delete and return
-		ResourceInfo info = workspace.getResourceInfo(path, false, false);
-		if (info == null)
-			return;
-		info.setMarkers(markers);
-		info.clear(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+		consumer.accept(path, markers);
 	}
 
-	private Map<String, Object> readAttributes(DataInputStream input) throws IOException {
+	private Map<String, Object> readAttributes(DataInput input) throws IOException {
 		short attributesSize = input.readShort();
 		if (attributesSize == 0)
 			return null;
@@ -112,7 +107,7 @@ public class MarkerSnapshotReader_1 extends MarkerSnapshotReader {
 		return result.isEmpty() ? null : result;
 	}
 
-	private MarkerInfo readMarkerInfo(DataInputStream input, List<String> readTypes) throws IOException, CoreException {
+	private MarkerInfo readMarkerInfo(DataInput input, List<String> readTypes) throws IOException, CoreException {
 		long id = input.readLong();
 		byte constant = input.readByte();
 		String type = null;
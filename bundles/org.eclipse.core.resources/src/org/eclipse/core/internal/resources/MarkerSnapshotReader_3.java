@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.function.BiConsumer;
+import org.eclipse.core.runtime.*;
+
+/**
+ * Reads version 3 of the marker snapshot, which writes marker types and
+ * attribute keys through one table of names per resource.
+ */
+public class MarkerSnapshotReader_3 extends MarkerSnapshotReader {
+
+	public MarkerSnapshotReader_3(Workspace workspace) {
+		super(workspace);
+	}
+
+	/**
+	 * <pre> {@code
+	 * SNAP_FILE -> [VERSION_ID RESOURCE]*
+	 * VERSION_ID -> int (used for backwards compatibiliy)
+	 * RESOURCE -> RESOURCE_PATH MARKER_SIZE MARKER+
+	 * RESOURCE_PATH -> String
+	 * MARKER_SIZE -> int
+	 * MARKER -> MARKER_ID TYPE ATTRIBUTES_SIZE ATTRIBUTE* CREATION_TIME
+	 * MARKER_ID -> long
+	 * TYPE -> NAME
+	 * NAME -> INDEX | QNAME
+	 * INDEX -> byte int
+	 * QNAME -> byte String
+	 * ATTRIBUTES_SIZE -> short
+	 * ATTRIBUTE -> ATTRIBUTE_KEY ATTRIBUTE_VALUE
+	 * ATTRIBUTE_KEY -> NAME
+	 * ATTRIBUTE_VALUE -> BOOLEAN_VALUE | INTEGER_VALUE | STRING_VALUE | NULL_VALUE
+	 * BOOLEAN_VALUE -> byte boolean
+	 * INTEGER_VALUE -> byte int
+	 * STRING_VALUE -> byte String
+	 * NULL_VALUE -> byte
+	 * CREATION_TIME -> long
+	 * }</pre>
+	 */
+	@Override
+	public void read(DataInput input, BiConsumer<IPath, MarkerSet> consumer) throws IOException, CoreException {
+		IPath path = new Path(input.readUTF());
+		int markersSize = input.readInt();
+		consumer.accept(path, MarkerReader_4.readMarkers(input, markersSize, new ArrayList<>()));
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Maps marker types to the paths of the resources that carry markers of
+ * exactly that type, so that deep searches from the workspace root or a project
+ * only need to look at resources with matching markers instead of walking the
+ * whole element tree.
+ * <p>
+ * The index may contain paths that no longer carry markers of a type (for
+ * example after the resource was removed from the tree without its markers
+ * being removed), so callers must check the markers found at each path. It
+ * never misses a path that carries markers of an indexed type.
+ * </p>
+ * <p>
+ * Changes are made by the marker manager while holding the workspace lock,
+ * lookups may happen concurrently from any thread.
+ * </p>
+ */
+public class MarkerTypeIndex {
+	private final Map<String, Set<IPath>> pathsByType = new ConcurrentHashMap<>();
+
+	/**
+	 * Records that the resource with the given path carries markers of the given type.
+	 */
+	public void add(String type, IPath path) {
+		pathsByType.computeIfAbsent(type, t -> ConcurrentHashMap.newKeySet()).add(path);
+	}
+
+	/**
+	 * Records the types of all the given markers for the resource with the given path.
+	 */
+	public void addAll(MarkerSet markers, IPath path) {
+		for (IMarkerSetElement element : markers.elements())
+			add(((MarkerInfo) element).getType(), path);
+	}
+
+	/**
+	 * Records that the resource with the given path no longer carries markers of the given type.
+	 */
+	public void remove(String type, IPath path) {
+		Set<IPath> paths = pathsByType.get(type);
+		if (paths != null)
+			paths.remove(path);
+	}
+
+	/**
+	 * Returns the paths at or below the given root that may carry markers
+	 * of a type accepted by the given filter.
+	 */
+	public Set<IPath> getPaths(IPath root, Predicate<String> typeFilter) {
+		Set<IPath> result = new HashSet<>();
+		boolean all = root.isRoot();
+		for (Map.Entry<String, Set<IPath>> entry : pathsByType.entrySet()) {
+			if (!typeFilter.test(entry.getKey()))
+				continue;
+			for (IPath path : entry.getValue())
+				if (all || root.isPrefixOf(path))
+					result.add(path);
+		}
+		return result;
+	}
+
+	public void clear() {
+		pathsByType.clear();
+	}
+}
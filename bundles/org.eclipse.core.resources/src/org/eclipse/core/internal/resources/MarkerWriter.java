@@ -27,8 +27,8 @@ public class MarkerWriter {
 	protected MarkerManager manager;
 
 	// version numbers
-	public static final int MARKERS_SAVE_VERSION = 3;
-	public static final int MARKERS_SNAP_VERSION = 2;
+	public static final int MARKERS_SAVE_VERSION = 4;
+	public static final int MARKERS_SNAP_VERSION = 3;
 
 	// type constants
 	public static final byte INDEX = 1;
@@ -70,17 +70,22 @@ public class MarkerWriter {
 	 * <pre> {@code
 	 * SAVE_FILE -> VERSION_ID RESOURCE+
 	 * VERSION_ID -> int
+	 * }</pre>
+	 * Marker types and attribute keys share one table of names per file: the
+	 * first occurrence of a name is written in full, later ones as its index.
+	 * <pre> {@code
 	 * RESOURCE -> RESOURCE_PATH MARKERS_SIZE MARKER+
 	 * RESOURCE_PATH -> String
 	 * MARKERS_SIZE -> int
 	 * MARKER -> MARKER_ID TYPE ATTRIBUTES_SIZE ATTRIBUTE* CREATION_TIME
 	 * MARKER_ID -> long
-	 * TYPE -> INDEX | QNAME
+	 * TYPE -> NAME
+	 * NAME -> INDEX | QNAME
 	 * INDEX -> byte int
 	 * QNAME -> byte String
 	 * ATTRIBUTES_SIZE -> short
 	 * ATTRIBUTE -> ATTRIBUTE_KEY ATTRIBUTE_VALUE
-	 * ATTRIBUTE_KEY -> String
+	 * ATTRIBUTE_KEY -> NAME
 	 * ATTRIBUTE_VALUE -> INTEGER_VALUE | BOOLEAN_VALUE | STRING_VALUE | NULL_VALUE
 	 * INTEGER_VALUE -> byte int
 	 * BOOLEAN_VALUE -> byte boolean
@@ -89,7 +94,7 @@ public class MarkerWriter {
 	 * CREATION_TIME -> long
 	 * }</pre>
 	 */
-	public void save(ResourceInfo info, IPathRequestor requestor, DataOutputStream output, List<String> writtenTypes) throws IOException {
+	public void save(ResourceInfo info, IPathRequestor requestor, DataOutputStream output, List<String> writtenNames) throws IOException {
 		// phantom resources don't have markers
 		if (info.isSet(ICoreConstants.M_PHANTOM))
 			return;
@@ -111,7 +116,7 @@ public class MarkerWriter {
 		output.writeInt(count);
 		for (int i = 0; i < elements.length; i++)
 			if (isPersistent[i])
-				write((MarkerInfo) elements[i], output, writtenTypes);
+				write((MarkerInfo) elements[i], output, writtenNames);
 	}
 
 	/**
@@ -120,17 +125,22 @@ public class MarkerWriter {
 	 * <pre> {@code
 	 * SNAP_FILE -> [VERSION_ID RESOURCE]*
 	 * VERSION_ID -> int (used for backwards compatibiliy)
+	 * }</pre>
+	 * The table of names for marker types and attribute keys starts empty for
+	 * each resource.
+	 * <pre> {@code
 	 * RESOURCE -> RESOURCE_PATH MARKER_SIZE MARKER+
 	 * RESOURCE_PATH -> String
 	 * MARKER_SIZE -> int
 	 * MARKER -> MARKER_ID TYPE ATTRIBUTES_SIZE ATTRIBUTE* CREATION_TIME
 	 * MARKER_ID -> long
-	 * TYPE -> INDEX | QNAME
+	 * TYPE -> NAME
+	 * NAME -> INDEX | QNAME
 	 * INDEX -> byte int
 	 * QNAME -> byte String
 	 * ATTRIBUTES_SIZE -> short
 	 * ATTRIBUTE -> ATTRIBUTE_KEY ATTRIBUTE_VALUE
-	 * ATTRIBUTE_KEY -> String
+	 * ATTRIBUTE_KEY -> NAME
 	 * ATTRIBUTE_VALUE -> BOOLEAN_VALUE | INTEGER_VALUE | STRING_VALUE | NULL_VALUE
 	 * BOOLEAN_VALUE -> byte boolean
 	 * INTEGER_VALUE -> byte int
@@ -159,21 +169,20 @@ public class MarkerWriter {
 		// always write out the count...even if its zero. this will help
 		// use pick up marker deletions from our snapshot.
 		output.writeInt(count);
-		List<String> writtenTypes = new ArrayList<>();
+		List<String> writtenNames = new ArrayList<>();
 		for (int i = 0; i < elements.length; i++)
 			if (isPersistent[i])
-				write((MarkerInfo) elements[i], output, writtenTypes);
+				write((MarkerInfo) elements[i], output, writtenNames);
 		info.clear(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 	}
 
 	/*
 	 * Write out the given marker attributes to the given output stream.
 	 */
-	private void write(MarkerAttributeMap markerAttributeMap, DataOutputStream output) throws IOException {
+	private void write(MarkerAttributeMap markerAttributeMap, DataOutputStream output, List<String> writtenNames) throws IOException {
 		output.writeShort(markerAttributeMap.size());
 		for (Map.Entry<String, Object> e : markerAttributeMap.entrySet()) {
-			String key = e.getKey();
-			output.writeUTF(key);
+			writeName(e.getKey(), output, writtenNames);
 			Object value = e.getValue();
 			if (value instanceof Integer) {
 				output.writeByte(ATTRIBUTE_INTEGER);
@@ -196,20 +205,26 @@ public class MarkerWriter {
 		}
 	}
 
-	private void write(MarkerInfo info, DataOutputStream output, List<String> writtenTypes) throws IOException {
-		output.writeLong(info.getId());
-		// if we have already written the type once, then write an integer
-		// constant to represent it instead to remove duplication
-		String type = info.getType();
-		int index = writtenTypes.indexOf(type);
+	/*
+	 * Write out the given marker type or attribute key. If we have already
+	 * written the name once, then write an integer constant to represent it
+	 * instead to remove duplication.
+	 */
+	private void writeName(String name, DataOutputStream output, List<String> writtenNames) throws IOException {
+		int index = writtenNames.indexOf(name);
 		if (index == -1) {
 			output.writeByte(QNAME);
-			output.writeUTF(type);
-			writtenTypes.add(type);
+			output.writeUTF(name);
+			writtenNames.add(name);
 		} else {
 			output.writeByte(INDEX);
 			output.writeInt(index);
 		}
+	}
+
+	private void write(MarkerInfo info, DataOutputStream output, List<String> writtenNames) throws IOException {
+		output.writeLong(info.getId());
+		writeName(info.getType(), output, writtenNames);
 
 		// write out the size of the attribute table and
 		// then each attribute.
@@ -217,7 +232,7 @@ public class MarkerWriter {
 		if (attributes == null) {
 			output.writeShort(0);
 		} else {
-			write(attributes, output);
+			write(attributes, output, writtenNames);
 		}
 
 		// write out the creation time
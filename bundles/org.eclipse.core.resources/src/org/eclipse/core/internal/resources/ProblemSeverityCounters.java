@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Counts the problem markers per severity in the subtree of every resource
+ * that has problem markers at or below it, so that the maximum problem
+ * severity of a subtree can be answered without visiting it.
+ * <p>
+ * Each change is propagated from the resource to all of its ancestors. Markers
+ * whose severity is not one of the severities defined by {@link IMarker} are
+ * counted separately, and subtrees containing such markers must be searched.
+ * </p>
+ * <p>
+ * Changes are made by the marker manager while holding the workspace lock,
+ * lookups may happen concurrently from any thread.
+ * </p>
+ */
+public class ProblemSeverityCounters {
+	/** Index of the counter for markers with an unknown severity. */
+	private static final int OTHER = IMarker.SEVERITY_ERROR + 1;
+
+	/** The number of counters kept for each subtree. */
+	public static final int COUNTERS = OTHER + 1;
+
+	/** Severity returned for subtrees that have to be searched. */
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+
+	private final Map<IPath, int[]> counts = new ConcurrentHashMap<>();
+
+	/**
+	 * Adds the given amount to the number of markers with the given severity in
+	 * the subtree of the given path and of all its ancestors. Markers without
+	 * severity (-1) are not counted.
+	 */
+	public void adjust(IPath path, int severity, int amount) {
+		if (severity == -1 || amount == 0)
+			return;
+		add(path, indexOf(severity), amount);
+	}
+
+	/**
+	 * Adds the given counts, indexed as returned by {@link #indexOf(int)}, to the
+	 * subtree of the given path and of all its ancestors.
+	 */
+	public void adjustAll(IPath path, int[] amounts) {
+		for (int index = 0; index < COUNTERS; index++)
+			if (amounts[index] != 0)
+				add(path, index, amounts[index]);
+	}
+
+	/**
+	 * Returns the index of the counter for markers with the given severity, or -1
+	 * for markers without severity.
+	 */
+	public static int indexOf(int severity) {
+		if (severity == -1)
+			return -1;
+		return severity >= IMarker.SEVERITY_INFO && severity <= IMarker.SEVERITY_ERROR ? severity : OTHER;
+	}
+
+	private void add(IPath path, int index, int amount) {
+		for (int i = path.segmentCount(); i >= 0; i--) {
+			IPath ancestor = i == path.segmentCount() ? path : path.uptoSegment(i);
+			int[] subtree = counts.computeIfAbsent(ancestor, p -> new int[COUNTERS]);
+			subtree[index] += amount;
+			if (isEmpty(subtree))
+				counts.remove(ancestor);
+		}
+	}
+
+	/**
+	 * Returns the maximum severity of the problem markers at or below the given
+	 * path, -1 if there are none, or {@link #UNKNOWN} if the subtree contains
+	 * markers with a severity that is not counted separately.
+	 */
+	public int getMaxSeverity(IPath path) {
+		int[] subtree = counts.get(path);
+		if (subtree == null)
+			return -1;
+		if (subtree[OTHER] > 0)
+			return UNKNOWN;
+		for (int severity = IMarker.SEVERITY_ERROR; severity >= IMarker.SEVERITY_INFO; severity--)
+			if (subtree[severity] > 0)
+				return severity;
+		return -1;
+	}
+
+	/**
+	 * Returns the number of problem markers with the given severity at or below the given path.
+	 */
+	public int getCount(IPath path, int severity) {
+		int[] subtree = counts.get(path);
+		return subtree == null ? 0 : subtree[severity];
+	}
+
+	/**
+	 * Forgets all counts for the subtree of the given path, including the
+	 * contributions of that subtree to the counts of its ancestors.
+	 */
+	public void reset(IPath path) {
+		int[] subtree = counts.get(path);
+		if (subtree == null)
+			return;
+		if (path.segmentCount() > 0)
+			for (int index = 0; index < subtree.length; index++)
+				if (subtree[index] != 0)
+					add(path.removeLastSegments(1), index, -subtree[index]);
+		counts.keySet().removeIf(path::isPrefixOf);
+	}
+
+	public void clear() {
+		counts.clear();
+	}
+
+	private static boolean isEmpty(int[] subtree) {
+		for (int count : subtree)
+			if (count != 0)
+				return false;
+		return true;
+	}
+}
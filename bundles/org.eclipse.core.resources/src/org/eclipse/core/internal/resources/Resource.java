@@ -204,7 +204,7 @@ public abstract class Resource extends PlatformObject implements IResource, ICor
 		checkExists(flags, true);
 	}
 
-	private ResourceInfo checkAccessibleAndLocal(int depth) throws CoreException {
+	ResourceInfo checkAccessibleAndLocal(int depth) throws CoreException {
 		ResourceInfo info = getResourceInfo(false, false);
 		int flags = getFlags(info);
 		checkAccessible(flags);
@@ -18,6 +18,7 @@
  *     Lars Vogel <Lars.Vogel@vogella.com> - Bug 473427
  *     Mickael Istria (Red Hat Inc.) - Bug 488937
  *     Christoph Läubrich - Issue #77 - SaveManager access the ResourcesPlugin.getWorkspace at init phase
+ *     Contributors to the Eclipse Foundation - persist build durations
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
@@ -29,8 +30,6 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.zip.*;
 import org.eclipse.core.filesystem.EFS;
@@ -665,13 +664,16 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		Assert.isLegal(resource.getType() == IResource.ROOT || resource.getType() == IResource.PROJECT);
 		String message;
 
-		// delete the snapshot file, if any
+		// delete the snapshot file, if any, unless the markers of the project were
+		// not read yet, the snapshot is then still needed to read them
 		java.io.File file = workspace.getMetaArea().getMarkersSnapshotLocationFor(resource).toFile();
-		if (file.exists())
-			file.delete();
-		if (file.exists()) {
-			message = Messages.resources_resetMarkers;
-			throw new ResourceException(IResourceStatus.FAILED_DELETE_METADATA, resource.getFullPath(), message, null);
+		if (workspace.getMarkerManager().isRestored(resource)) {
+			if (file.exists())
+				file.delete();
+			if (file.exists()) {
+				message = Messages.resources_resetMarkers;
+				throw new ResourceException(IResourceStatus.FAILED_DELETE_METADATA, resource.getFullPath(), message, null);
+			}
 		}
 
 		// delete the snapshot file, if any
@@ -820,20 +822,23 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		long start = System.currentTimeMillis();
 		MarkerManager markerManager = workspace.getMarkerManager();
 		// when restoring a project, only load markers if it is open
-		if (resource.isAccessible())
-			markerManager.restore(resource, generateDeltas, monitor);
-
-		// if we have the workspace root then restore markers for its projects
 		if (resource.getType() == IResource.PROJECT) {
+			if (resource.isAccessible())
+				markerManager.restore(resource, generateDeltas, monitor);
 			if (Policy.DEBUG_RESTORE_MARKERS) {
 				Policy.debug("Restore Markers for " + resource.getFullPath() + ": " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			}
 			return;
 		}
+		// if we have the workspace root then restore markers for its projects, reading their files concurrently
+		List<IResource> resources = new ArrayList<>();
+		if (resource.isAccessible())
+			resources.add(resource);
 		IProject[] projects = ((IWorkspaceRoot) resource).getProjects(IContainer.INCLUDE_HIDDEN);
 		for (IProject project : projects)
 			if (project.isAccessible())
-				markerManager.restore(project, generateDeltas, monitor);
+				resources.add(project);
+		markerManager.restore(resources, generateDeltas, monitor);
 		if (Policy.DEBUG_RESTORE_MARKERS) {
 			Policy.debug("Restore Markers for workspace: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
@@ -1182,6 +1187,8 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 							persistMarkers = 0l;
 							persistSyncInfo = 0l;
 							visitAndSave(workspace.getRoot());
+							// write the persistent property changes held in memory
+							workspace.getPropertyManager().flush();
 							monitor.worked(1);
 							if (Policy.DEBUG_SAVE) {
 								Policy.debug("Total Save Markers: " + persistMarkers + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1207,6 +1214,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 							persistMarkers = 0l;
 							persistSyncInfo = 0l;
 							visitAndSnap(workspace.getRoot());
+							workspace.getPropertyManager().flush();
 							monitor.worked(1);
 							if (Policy.DEBUG_SAVE) {
 								Policy.debug("Total Snap Markers: " + persistMarkers + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1214,6 +1222,10 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 							}
 							collapseTrees(contexts);
 							clearSavedDelta();
+							// prune a slice of the history, the remainder is pruned by later snapshots or the next full save
+							monitor.ignoreCancelState(false);
+							workspace.getFileSystemManager().getHistoryStore().cleanIncrementally(Policy.subMonitorFor(monitor, 1));
+							monitor.ignoreCancelState(keepConsistencyWhenCanceled);
 							// write out all metainfo (e.g., workspace/project descriptions)
 							saveMetaInfo(warnings, Policy.subMonitorFor(monitor, 1));
 							break;
@@ -1222,6 +1234,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 							monitor.worked(1);
 							// save markers and sync info
 							visitAndSave(project);
+							workspace.getPropertyManager().flush();
 							monitor.worked(1);
 							// reset the snapshot file
 							resetSnapshots(project);
@@ -1674,11 +1687,14 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		// Setup variables
 		final Synchronizer synchronizer = (Synchronizer) workspace.getSynchronizer();
 		final MarkerManager markerManager = workspace.getMarkerManager();
+		// the marker files and the summary of a project whose markers were not read yet are kept as they are
+		final boolean saveMarkers = markerManager.isRestored(root);
+		final int[] problems = root.getType() == IResource.PROJECT && saveMarkers ? markerManager.newSummary() : null;
 		IPath markersLocation = workspace.getMetaArea().getMarkersLocationFor(root);
 		IPath markersTempLocation = workspace.getMetaArea().getBackupLocationFor(markersLocation);
 		IPath syncInfoLocation = workspace.getMetaArea().getSyncInfoLocationFor(root);
 		IPath syncInfoTempLocation = workspace.getMetaArea().getBackupLocationFor(syncInfoLocation);
-		final List<String> writtenTypes = new ArrayList<>(5);
+		final List<String> writtenNames = new ArrayList<>(5);
 		final List<QualifiedName> writtenPartners = new ArrayList<>(synchronizer.registry.size());
 		DataOutputStream o1 = null;
 		DataOutputStream o2 = null;
@@ -1686,7 +1702,8 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 
 		// Create the output streams
 		try {
-			o1 = new DataOutputStream(new SafeFileOutputStream(markersLocation.toOSString(), markersTempLocation.toOSString()));
+			if (saveMarkers)
+				o1 = new DataOutputStream(new SafeFileOutputStream(markersLocation.toOSString(), markersTempLocation.toOSString()));
 			// we don't store the sync info for the workspace root so don't create
 			// an empty file
 			if (root.getType() != IResource.ROOT)
@@ -1713,7 +1730,11 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				try {
 					// save the markers
 					long start = System.currentTimeMillis();
-					markerManager.save(info, requestor, markersOutput, writtenTypes);
+					if (markersOutput != null) {
+						markerManager.save(info, requestor, markersOutput, writtenNames);
+						if (problems != null)
+							markerManager.summarize(info, problems);
+					}
 					long markerSaveTime = System.currentTimeMillis() - start;
 					saveTimes[0] += markerSaveTime;
 					persistMarkers += markerSaveTime;
@@ -1744,14 +1765,20 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				Policy.debug("Save Markers for " + root.getFullPath() + ": " + saveTimes[0] + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			if (Policy.DEBUG_SAVE_SYNCINFO)
 				Policy.debug("Save SyncInfo for " + root.getFullPath() + ": " + saveTimes[1] + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-			removeGarbage(markersOutput, markersLocation, markersTempLocation);
+			if (problems != null)
+				markerManager.deleteSummary((IProject) root);
+			if (markersOutput != null)
+				removeGarbage(markersOutput, markersLocation, markersTempLocation);
 			// if we have the workspace root the output stream will be null and we
 			// don't have to perform cleanup code
 			if (syncInfoOutput != null) {
 				removeGarbage(syncInfoOutput, syncInfoLocation, syncInfoTempLocation);
 				syncInfoOutput.close();
 			}
-			markersOutput.close();
+			if (markersOutput != null)
+				markersOutput.close();
+			if (problems != null)
+				markerManager.saveSummary((IProject) root, problems);
 		} catch (IOException e) {
 			message = NLS.bind(Messages.resources_writeMeta, root.getFullPath());
 			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, root.getFullPath(), message, e);
@@ -1764,27 +1791,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		if (root.getType() == IResource.PROJECT)
 			return;
 		IProject[] projects = ((IWorkspaceRoot) root).getProjects(IContainer.INCLUDE_HIDDEN);
-		// never use a shared ForkJoinPool.commonPool() as it may be busy with other tasks, which might deadlock:
-		ForkJoinPool forkJoinPool =  new ForkJoinPool(ForkJoinPool.getCommonPoolParallelism());
-		IStatus[] stats;
-		try {
-			stats = forkJoinPool.submit(() -> Arrays.stream(projects).parallel().map(project -> {
-				try {
-					visitAndSave(project);
-				} catch (CoreException e) {
-					return e.getStatus();
-				}
-				return null;
-			}).filter(Objects::nonNull).toArray(IStatus[]::new)).get();
-		} catch (InterruptedException | ExecutionException e) {
-			throw new CoreException(Status.error(Messages.resources_saveProblem, e));
-		} finally {
-			forkJoinPool.shutdown();
-		}
-		if (stats.length > 0) {
-			throw new CoreException(new MultiStatus(ResourcesPlugin.PI_RESOURCES, IStatus.ERROR, stats,
-					Messages.resources_saveProblem, null));
-		}
+		ParallelRunner.run(Arrays.asList(projects), this::visitAndSave, Messages.resources_saveProblem);
 	}
 
 	/**
@@ -1803,6 +1810,8 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		// Setup variables
 		final Synchronizer synchronizer = (Synchronizer) workspace.getSynchronizer();
 		final MarkerManager markerManager = workspace.getMarkerManager();
+		// the summary of a project whose markers were not read yet is still valid
+		final int[] problems = root.getType() == IResource.PROJECT && markerManager.isRestored(root) ? markerManager.newSummary() : null;
 		IPath markersLocation = workspace.getMetaArea().getMarkersSnapshotLocationFor(root);
 		IPath syncInfoLocation = workspace.getMetaArea().getSyncInfoSnapshotLocationFor(root);
 		SafeChunkyOutputStream safeMarkerStream = null;
@@ -1844,6 +1853,8 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 					// save the markers
 					long start = System.currentTimeMillis();
 					markerManager.snap(info, requestor, markersOutput);
+					if (problems != null)
+						markerManager.summarize(info, problems);
 					long markerSnapTime = System.currentTimeMillis() - start;
 					snapTimes[0] += markerSnapTime;
 					persistMarkers += markerSnapTime;
@@ -1874,13 +1885,19 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				Policy.debug("Snap Markers for " + root.getFullPath() + ": " + snapTimes[0] + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			if (Policy.DEBUG_SAVE_SYNCINFO)
 				Policy.debug("Snap SyncInfo for " + root.getFullPath() + ": " + snapTimes[1] + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-			if (markerFileSize != markersOutput.size())
+			boolean markersChanged = markerFileSize != markersOutput.size();
+			if (markersChanged) {
+				if (problems != null)
+					markerManager.deleteSummary((IProject) root);
 				safeMarkerStream.succeed();
+			}
 			if (safeSyncInfoStream != null && syncInfoFileSize != syncInfoOutput.size()) {
 				safeSyncInfoStream.succeed();
 				syncInfoOutput.close();
 			}
 			markersOutput.close();
+			if (problems != null && (markersChanged || !markerManager.hasSummary((IProject) root)))
+				markerManager.saveSummary((IProject) root, problems);
 		} catch (IOException e) {
 			message = NLS.bind(Messages.resources_writeMeta, root.getFullPath());
 			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, root.getFullPath(), message, e);
@@ -1924,6 +1941,23 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		}
 	}
 
+	/**
+	 * Writes out the estimated build durations of the given builders, followed by
+	 * those of the additional builders. File format is:
+	 * byte - version of the format, BUILD_DURATIONS_VERSION
+	 * int - number of builders
+	 * for each builder:
+	 *    long - estimated build duration in milliseconds, 0 if unknown
+	 */
+	private void writeBuildDurations(DataOutputStream output, List<BuilderPersistentInfo> builders, List<BuilderPersistentInfo> additionalBuilders) throws IOException {
+		output.writeByte(ICoreConstants.BUILD_DURATIONS_VERSION);
+		output.writeInt(builders.size() + additionalBuilders.size());
+		for (BuilderPersistentInfo info : builders)
+			output.writeLong(info.getBuildDuration());
+		for (BuilderPersistentInfo info : additionalBuilders)
+			output.writeLong(info.getBuildDuration());
+	}
+
 	@Override
 	public void writeElement(IPath path, Object element, DataOutput output) throws IOException {
 		Assert.isNotNull(path);
@@ -1993,6 +2027,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * <li> And since 3.7: </li>
 	 * <li> Builder info for all the builders of all the other project's buildConfigs </li>
 	 * <li> The names of the buildConfigs for each of the builders </li>
+	 * <li> Since 3.18: The estimated build durations of each of the builders </li>
 	 * </ul>
 	 * This format is designed to work with WorkspaceTreeReader versions 2.
 	 *
@@ -2060,6 +2095,9 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				output.writeUTF(string);
 			for (String string : additionalConfigNames)
 				output.writeUTF(string);
+
+			// Since 3.18: Save the build durations for the builders in the order they were saved
+			writeBuildDurations(output, builderInfos, additionalBuilderInfos);
 		} finally {
 			subMonitor.done();
 			if (!wasImmutable)
@@ -2078,6 +2116,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * <li> Since 3.7: </li>
 	 * <li> Builder info for all the builders of all the other project's buildConfigs </li>
 	 * <li> Name of the project's buildConfigs </li>
+	 * <li> Since 3.18: The estimated build durations of the builders </li>
 	 * </ul>
 	 * This format is designed to work with WorkspaceTreeReader versions 2.
 	 *
@@ -2133,6 +2172,9 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				output.writeUTF(string);
 			for (String string : additionalConfigNames)
 				output.writeUTF(string);
+
+			// Since 3.18: Save the build durations for the builders in the order they were saved
+			writeBuildDurations(output, builderInfos, additionalBuilderInfos);
 		} finally {
 			subMonitor.done();
 			if (!wasImmutable)
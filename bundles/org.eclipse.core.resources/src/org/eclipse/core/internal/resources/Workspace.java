@@ -335,6 +335,17 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		notificationManager.addListener(listener, eventMask);
 	}
 
+	@Override
+	public void addResourceChangeListener(IResourceChangeListener listener, int eventMask, IPath... paths) {
+		addResourceChangeListener(listener, eventMask, paths, IResource.FILE | IResource.FOLDER | IResource.PROJECT | IResource.ROOT, IResourceDelta.ALL_WITH_PHANTOMS);
+	}
+
+	@Override
+	public void addResourceChangeListener(IResourceChangeListener listener, int eventMask, IPath[] paths, int resourceTypeMask, int deltaKindMask) {
+		Assert.isLegal(paths != null && paths.length > 0);
+		notificationManager.addListener(listener, eventMask, paths, resourceTypeMask, deltaKindMask);
+	}
+
 	/**
 	 * @deprecated Use {@link #addSaveParticipant(String, ISaveParticipant)} instead
 	 */
@@ -1070,6 +1081,59 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		return status.isOK() ? Status.OK_STATUS : (IStatus) status;
 	}
 
+	@Override
+	public Map<IResource, IMarker[]> createMarkers(String type, Map<? extends IResource, ? extends List<? extends Map<String, ? extends Object>>> markers) throws CoreException {
+		return createMarkers(type, false, false, markers);
+	}
+
+	/**
+	 * Creates markers of the given type on the given resources, first removing
+	 * the existing markers of the type if <code>replace</code> is true. All
+	 * resources are changed in one operation.
+	 */
+	private Map<IResource, IMarker[]> createMarkers(String type, boolean replace, boolean includeSubtypes, Map<? extends IResource, ? extends List<? extends Map<String, ? extends Object>>> markers) throws CoreException {
+		Assert.isNotNull(type);
+		Assert.isNotNull(markers);
+		Map<IResource, IMarker[]> result = new LinkedHashMap<>();
+		if (markers.isEmpty())
+			return result;
+		List<ISchedulingRule> rules = new ArrayList<>();
+		for (IResource resource : markers.keySet()) {
+			ISchedulingRule markerRule = getRuleFactory().markerRule(resource);
+			if (markerRule != null)
+				rules.add(markerRule);
+		}
+		final ISchedulingRule rule = rules.isEmpty() ? null : MultiRule.combine(rules.toArray(new ISchedulingRule[rules.size()]));
+		try {
+			prepareOperation(rule, null);
+			for (IResource resource : markers.keySet()) {
+				Resource target = (Resource) resource;
+				target.checkAccessible(target.getFlags(target.getResourceInfo(false, false)));
+			}
+			beginOperation(true);
+			MarkerManager manager = getMarkerManager();
+			boolean validate = manager.isPersistentType(type);
+			for (Map.Entry<? extends IResource, ? extends List<? extends Map<String, ? extends Object>>> entry : markers.entrySet()) {
+				IResource resource = entry.getKey();
+				List<? extends Map<String, ? extends Object>> attributes = entry.getValue();
+				MarkerInfo[] infos = new MarkerInfo[attributes.size()];
+				IMarker[] handles = new IMarker[infos.length];
+				for (int i = 0; i < infos.length; i++) {
+					infos[i] = new MarkerInfo(attributes.get(i), validate, type, nextMarkerId());
+					handles[i] = new Marker(resource, infos[i].getId());
+				}
+				if (replace)
+					manager.replace(resource, type, includeSubtypes, infos);
+				else
+					manager.add(resource, infos);
+				result.put(resource, handles);
+			}
+			return result;
+		} finally {
+			endOperation(rule, false);
+		}
+	}
+
 	protected void copyTree(IResource source, IPath destination, int depth, int updateFlags, boolean keepSyncInfo) throws CoreException {
 		copyTree(source, destination, depth, updateFlags, keepSyncInfo, false, source.getType() == IResource.PROJECT);
 	}
@@ -1734,6 +1798,13 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		return pathVariableManager;
 	}
 
+	@Override
+	public Map<IResource, Map<QualifiedName, String>> getPersistentProperties(Collection<? extends IResource> resources) throws CoreException {
+		for (IResource resource : resources)
+			((Resource) resource).checkAccessibleAndLocal(IResource.DEPTH_ZERO);
+		return propertyManager.getProperties(resources);
+	}
+
 	public IPropertyManager getPropertyManager() {
 		return propertyManager;
 	}
@@ -1798,6 +1869,13 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		return synchronizer;
 	}
 
+	@Override
+	public void setPersistentProperties(Map<? extends IResource, ? extends Map<QualifiedName, String>> properties) throws CoreException {
+		for (IResource resource : properties.keySet())
+			((Resource) resource).checkAccessibleAndLocal(IResource.DEPTH_ZERO);
+		propertyManager.setProperties(properties);
+	}
+
 	/**
 	 * Returns the installed team hook.  Never returns null.
 	 */
@@ -1979,7 +2057,8 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 
 	@Override
 	public boolean isTreeLocked() {
-		return treeLocked == Thread.currentThread();
+		// concurrently notified listeners run while the broadcasting thread holds the tree lock
+		return treeLocked == Thread.currentThread() || NotificationManager.isConcurrentNotification();
 	}
 
 	/**
@@ -2106,6 +2185,9 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 
 	/* package */
 	void move(Resource source, IPath destination, int depth, int updateFlags, boolean keepSyncInfo) throws CoreException {
+		// the markers move with the tree, so they must have been installed
+		markerManager.installMarkers(source.getFullPath(), IResource.DEPTH_ZERO);
+		markerManager.installMarkers(destination, IResource.DEPTH_ZERO);
 		// overlay the tree at the destination path, preserving any important info
 		// in any already existing resource information
 		copyTree(source, destination, depth, updateFlags, keepSyncInfo, true, source.getType() == IResource.PROJECT);
@@ -2361,6 +2443,11 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		saveManager.removeParticipant(pluginId);
 	}
 
+	@Override
+	public Map<IResource, IMarker[]> replaceMarkers(String type, boolean includeSubtypes, Map<? extends IResource, ? extends List<? extends Map<String, ? extends Object>>> markers) throws CoreException {
+		return createMarkers(type, true, includeSubtypes, markers);
+	}
+
 	@Override
 	public void run(ICoreRunnable action, IProgressMonitor monitor) throws CoreException {
 		run(action, defaultRoot, IWorkspace.AVOID_UPDATE, monitor);
@@ -13,6 +13,7 @@
  *     Baltasar Belyavsky (Texas Instruments) - [361675] Order mismatch when saving/restoring workspace trees
  *     Broadcom Corporation - ongoing development
  *     Lars Vogel <Lars.Vogel@vogella.com> - Bug 473427
+ *     Contributors to the Eclipse Foundation - build durations
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
@@ -36,7 +37,8 @@ import org.eclipse.core.runtime.*;
  * each builder.
  * <p>
  * Since 3.7 support has been added for persisting multiple delta trees for
- * multi-configuration builders.
+ * multi-configuration builders. Since 3.18 the estimated build durations of the
+ * builders follow.
  * </p>
  * <p>
  * To achieve backwards compatibility, the new additional information is
@@ -122,6 +124,9 @@ public class WorkspaceTreeReader_2 extends WorkspaceTreeReader_1 {
 
 				for (BuilderPersistentInfo builderPersistentInfo : builderInfos)
 					builderPersistentInfo.setConfigName(input.readUTF());
+
+				// Since 3.18: Read the build durations if available
+				readBuildDurations(input);
 			}
 
 			// Set the builder infos on the projects
@@ -170,6 +175,9 @@ public class WorkspaceTreeReader_2 extends WorkspaceTreeReader_1 {
 
 				for (BuilderPersistentInfo builderPersistentInfo : builderInfos)
 					builderPersistentInfo.setConfigName(input.readUTF());
+
+				// Since 3.18: Read the build durations if available
+				readBuildDurations(input);
 			}
 
 			// Set the builder info on the projects
@@ -183,6 +191,24 @@ public class WorkspaceTreeReader_2 extends WorkspaceTreeReader_1 {
 		}
 	}
 
+	/**
+	 * Reads the estimated build durations that follow the configuration names,
+	 * in the order of the builder infos. Files written before 3.18 end before them.
+	 */
+	private void readBuildDurations(DataInputStream input) throws IOException {
+		int version = input.read();
+		if (version == -1)
+			return;
+		if (version != ICoreConstants.BUILD_DURATIONS_VERSION)
+			throw new IOException("Unknown version of build durations: " + version); //$NON-NLS-1$
+		int count = input.readInt();
+		for (int i = 0; i < count; i++) {
+			long duration = input.readLong();
+			if (i < builderInfos.size())
+				builderInfos.get(i).setBuildDuration(duration);
+		}
+	}
+
 	/**
 	 * This implementation allows pre-3.7 version 2 and post-3.7 version 2 information to be loaded in separate passes.
 	 * Links trees with the given builders, but does not add them to the projects.
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.utils;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.*;
+
+/**
+ * Runs an action for each element of a collection in parallel, and reports
+ * the problems of all elements together.
+ */
+public final class ParallelRunner {
+	/**
+	 * An action applied to each element handed to
+	 * {@link ParallelRunner#run(Collection, Action, String)}.
+	 */
+	@FunctionalInterface
+	public interface Action<T> {
+		void run(T element) throws CoreException;
+	}
+
+	private ParallelRunner() {
+		// not to be instantiated
+	}
+
+	/**
+	 * Runs the given action for all elements, using as many threads as there are
+	 * processors, and returns once all elements have been processed. Problems
+	 * reported by the action are collected and thrown together with the given
+	 * message.
+	 */
+	public static <T> void run(Collection<T> elements, Action<T> action, String message) throws CoreException {
+		if (elements.isEmpty())
+			return;
+		// never use a shared ForkJoinPool.commonPool() as it may be busy with other tasks, which might deadlock:
+		ForkJoinPool forkJoinPool = new ForkJoinPool(ForkJoinPool.getCommonPoolParallelism());
+		IStatus[] stats;
+		try {
+			stats = forkJoinPool.submit(() -> elements.parallelStream().map(element -> {
+				try {
+					action.run(element);
+				} catch (CoreException e) {
+					return e.getStatus();
+				}
+				return null;
+			}).filter(Objects::nonNull).toArray(IStatus[]::new)).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new CoreException(Status.error(message, e));
+		} finally {
+			forkJoinPool.shutdown();
+		}
+		if (stats.length > 0)
+			throw new CoreException(new MultiStatus(ResourcesPlugin.PI_RESOURCES, IStatus.ERROR, stats, message, null));
+	}
+}
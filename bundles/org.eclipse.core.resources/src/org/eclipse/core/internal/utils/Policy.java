@@ -10,6 +10,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     Contributors to the Eclipse Foundation - build rule conflicts option, adaptive build delay
  *******************************************************************************/
 package org.eclipse.core.internal.utils;
 
@@ -40,6 +41,7 @@ public class Policy {
 			DEBUG_BUILD_NEEDED = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/build/needbuild", false); //$NON-NLS-1$
 			DEBUG_BUILD_NEEDED_DELTA = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/build/needbuilddelta", false); //$NON-NLS-1$
 			DEBUG_BUILD_NEEDED_STACK = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/build/needbuildstack", false); //$NON-NLS-1$
+			DEBUG_BUILD_RULES = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/build/rules", false); //$NON-NLS-1$
 			DEBUG_BUILD_STACK = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/build/stacktrace", false); //$NON-NLS-1$
 
 			DEBUG_CONTENT_TYPE = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/contenttype", false); //$NON-NLS-1$
@@ -48,6 +50,7 @@ public class Policy {
 			DEBUG_NATURES = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/natures", false); //$NON-NLS-1$
 			DEBUG_NOTIFICATIONS = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/notifications", false); //$NON-NLS-1$
 			DEBUG_PREFERENCES = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/preferences", false); //$NON-NLS-1$
+			DEBUG_PROPERTIES = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/properties", false); //$NON-NLS-1$
 
 			DEBUG_RESTORE = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/restore", false); //$NON-NLS-1$
 			DEBUG_RESTORE_MARKERS = DEBUG && options.getBooleanOption(ResourcesPlugin.PI_RESOURCES + "/restore/markers", false); //$NON-NLS-1$
@@ -83,6 +86,7 @@ public class Policy {
 	public static boolean DEBUG_BUILD_NEEDED = false;
 	public static boolean DEBUG_BUILD_NEEDED_DELTA = false;
 	public static boolean DEBUG_BUILD_NEEDED_STACK = false;
+	public static boolean DEBUG_BUILD_RULES = false;
 	public static boolean DEBUG_BUILD_STACK = false;
 
 	public static boolean DEBUG_CONTENT_TYPE = false;
@@ -91,6 +95,7 @@ public class Policy {
 	public static boolean DEBUG_NATURES = false;
 	public static boolean DEBUG_NOTIFICATIONS = false;
 	public static boolean DEBUG_PREFERENCES = false;
+	public static boolean DEBUG_PROPERTIES = false;
 	// Get timing information for restoring data
 	public static boolean DEBUG_RESTORE = false;
 	public static boolean DEBUG_RESTORE_MARKERS = false;
@@ -110,6 +115,10 @@ public class Policy {
 	public static boolean DEBUG_SAVE_TREE = false;
 	public static boolean DEBUG_STRINGS = false;
 	public static final long MAX_BUILD_DELAY = 1000;
+	/**
+	 * The longest delay of an autobuild while the workspace is modified in a burst
+	 */
+	public static final long MAX_BURST_BUILD_DELAY = 5000;
 
 	public static final long MIN_BUILD_DELAY = 100;
 	public static int opWork = 100;
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.resources;
+
+/**
+ * Statistics about the builders run in the workspace, collected since the
+ * workspace was opened or the statistics were last reset. They are recorded
+ * for every build, so that slow builders can be found without a profiler.
+ * <p>
+ * The statistics are available as an OSGi service registered under this
+ * interface while the workspace is open. They are also published as a
+ * platform MXBean named <code>org.eclipse.core.resources:type=BuildStatistics</code>.
+ * </p>
+ *
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @noextend This interface is not intended to be extended by clients.
+ * @since 3.18
+ */
+public interface IBuildStatistics {
+
+	/**
+	 * The number of builds of which the duration and delta size are kept in a record.
+	 */
+	int RECENT_BUILDS = 32;
+
+	/**
+	 * The number of buckets of the build time histogram of a record. Bucket
+	 * <code>i</code> counts the builds that took less than <code>2^i</code>
+	 * milliseconds but at least <code>2^(i-1)</code>, the last bucket counts all
+	 * longer builds.
+	 */
+	int HISTOGRAM_BUCKETS = 24;
+
+	/**
+	 * The statistics of the builds of one builder for one build configuration, or
+	 * of all the builders of a build configuration together. A record is a
+	 * snapshot, it does not change when more builds are recorded.
+	 *
+	 * @noimplement This interface is not intended to be implemented by clients.
+	 * @noextend This interface is not intended to be extended by clients.
+	 */
+	interface Record {
+		/**
+		 * Returns the number of times a builder was run.
+		 *
+		 * @return the number of builds
+		 */
+		long getBuildCount();
+
+		/**
+		 * Returns the number of times a builder was not run because neither its
+		 * project nor any of its interesting projects had changed since its last
+		 * build.
+		 *
+		 * @return the number of skipped builds
+		 */
+		long getSkipCount();
+
+		/**
+		 * Returns the time the builders spent building, in milliseconds. The time
+		 * spent waiting for their scheduling rules is not included.
+		 *
+		 * @return the total build time
+		 */
+		long getTotalBuildTime();
+
+		/**
+		 * Returns the duration of the longest build, in milliseconds.
+		 *
+		 * @return the maximum build time
+		 */
+		long getMaxBuildTime();
+
+		/**
+		 * Returns the time the builders waited for their scheduling rules before
+		 * they could start, in milliseconds.
+		 *
+		 * @return the total rule wait time
+		 */
+		long getTotalRuleWaitTime();
+
+		/**
+		 * Returns the durations of the last builds in milliseconds, oldest first,
+		 * at most {@link IBuildStatistics#RECENT_BUILDS} of them.
+		 *
+		 * @return the recent build times
+		 */
+		long[] getRecentBuildTimes();
+
+		/**
+		 * Returns the number of changed resources in the projects that were built
+		 * in the last builds, since their previous builds, in the order of
+		 * {@link #getRecentBuildTimes()}. The size is -1 when it is not known, for
+		 * example for full builds.
+		 *
+		 * @return the recent delta sizes
+		 */
+		long[] getRecentDeltaSizes();
+
+		/**
+		 * Returns the histogram of the build times, an array of
+		 * {@link IBuildStatistics#HISTOGRAM_BUCKETS} counts.
+		 *
+		 * @return the build time histogram
+		 */
+		long[] getBuildTimeHistogram();
+	}
+
+	/**
+	 * Returns the build configurations that have recorded statistics.
+	 *
+	 * @return the build configurations, never <code>null</code>
+	 */
+	IBuildConfiguration[] getBuildConfigurations();
+
+	/**
+	 * Returns the names of the builders that have recorded statistics for the
+	 * given build configuration.
+	 *
+	 * @param config the build configuration
+	 * @return the builder names, never <code>null</code>
+	 */
+	String[] getBuilderNames(IBuildConfiguration config);
+
+	/**
+	 * Returns the statistics of all builders of the given build configuration
+	 * together, or <code>null</code> if none were recorded.
+	 *
+	 * @param config the build configuration
+	 * @return the statistics, or <code>null</code>
+	 */
+	Record getRecord(IBuildConfiguration config);
+
+	/**
+	 * Returns the statistics of the given builder for the given build
+	 * configuration, or <code>null</code> if none were recorded.
+	 *
+	 * @param config the build configuration
+	 * @param builderName the fully qualified name of the builder extension
+	 * @return the statistics, or <code>null</code>
+	 */
+	Record getRecord(IBuildConfiguration config, String builderName);
+
+	/**
+	 * Discards all recorded statistics.
+	 */
+	void reset();
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.resources;
+
+/**
+ * A resource change listener that may be notified concurrently with other
+ * listeners. By implementing this interface a listener declares that its
+ * {@link #resourceChanged(IResourceChangeEvent)} method is thread safe and only
+ * reads the event and the workspace.
+ * <p>
+ * Such listeners are notified on a bounded pool of threads while the remaining
+ * listeners are notified one after the other by the thread that broadcasts the
+ * event. The notification ends once all listeners are done, until then the
+ * workspace tree stays locked and the delta of the event does not change.
+ * </p>
+ * <p>
+ * Listeners implementing this interface must neither modify the workspace nor
+ * begin scheduling rules or wait for other threads that do, as the thread
+ * broadcasting the event holds the workspace lock while it waits for them.
+ * </p>
+ * <p>
+ * Clients may implement this interface.
+ * </p>
+ *
+ * @see IWorkspace#addResourceChangeListener(IResourceChangeListener, int)
+ * @since 3.18
+ */
+@FunctionalInterface
+public interface IConcurrentResourceChangeListener extends IResourceChangeListener {
+	// declares the listener as thread safe and read only
+}
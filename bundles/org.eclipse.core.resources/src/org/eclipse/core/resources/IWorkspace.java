@@ -17,7 +17,7 @@ package org.eclipse.core.resources;
 
 import java.io.InputStream;
 import java.net.URI;
-import java.util.Map;
+import java.util.*;
 import org.eclipse.core.resources.team.FileModificationValidationContext;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
@@ -186,6 +186,63 @@ public interface IWorkspace extends IAdaptable {
 	 */
 	void addResourceChangeListener(IResourceChangeListener listener, int eventMask);
 
+	/**
+	 * Adds the given listener for the specified resource change events that
+	 * concern the resources at or below the given paths. This method is
+	 * equivalent to:
+	 *
+	 * <pre>
+	 * addResourceChangeListener(listener, eventMask, paths, IResource.FILE | IResource.FOLDER | IResource.PROJECT | IResource.ROOT, IResourceDelta.ALL_WITH_PHANTOMS);
+	 * </pre>
+	 *
+	 * @param listener the listener
+	 * @param eventMask the bit-wise OR of all event types of interest to the
+	 * listener
+	 * @param paths the full paths of the resources of interest to the listener
+	 * @see #addResourceChangeListener(IResourceChangeListener, int, IPath[], int, int)
+	 * @see #removeResourceChangeListener(IResourceChangeListener)
+	 * @since 3.18
+	 */
+	void addResourceChangeListener(IResourceChangeListener listener, int eventMask, IPath... paths);
+
+	/**
+	 * Adds the given listener for the specified resource change events that
+	 * concern the resources at or below the given paths. Registering the
+	 * listener again replaces the previous registration, exactly like
+	 * {@link #addResourceChangeListener(IResourceChangeListener, int)} does.
+	 * <p>
+	 * Events carrying a resource delta are only sent to the listener if the delta
+	 * contains a change of one of the given kinds to a resource of one of the given
+	 * types at or below one of the paths, or if a resource containing one of the
+	 * paths was added or removed with one of the given kinds. Pre-close,
+	 * pre-delete and pre-refresh events are only sent if their resource contains
+	 * one of the paths or lies below one of them. The events are the same as the
+	 * ones sent to other listeners, their deltas are still rooted at the
+	 * workspace root. A listener can use {@link IResourceDelta#findMember(IPath)}
+	 * to get to the changes it is interested in.
+	 * </p>
+	 * <p>
+	 * The workspace compares each delta with the paths of all listeners once, so
+	 * that listeners only interested in some resources do not need to visit the
+	 * deltas of all other changes.
+	 * </p>
+	 *
+	 * @param listener the listener
+	 * @param eventMask the bit-wise OR of all event types of interest to the
+	 * listener
+	 * @param paths the full paths of the resources of interest to the listener,
+	 * not empty
+	 * @param resourceTypeMask the bit-wise OR of the types of resources of interest
+	 * to the listener, see {@link IResource#getType()}
+	 * @param deltaKindMask the bit-wise OR of the kinds of changes of interest to
+	 * the listener, see {@link IResourceDelta#getKind()}
+	 * @see IResourceChangeListener
+	 * @see IResourceChangeEvent
+	 * @see #removeResourceChangeListener(IResourceChangeListener)
+	 * @since 3.18
+	 */
+	void addResourceChangeListener(IResourceChangeListener listener, int eventMask, IPath[] paths, int resourceTypeMask, int deltaKindMask);
+
 	/**
 	 * Registers the given plug-in's workspace save participant, and returns an
 	 * object describing the workspace state at the time of the last save in
@@ -591,6 +648,44 @@ public interface IWorkspace extends IAdaptable {
 	 */
 	IStatus copy(IResource[] resources, IPath destination, int updateFlags, IProgressMonitor monitor) throws CoreException;
 
+	/**
+	 * Creates markers of the specified type on the given resources, one for
+	 * each of the attribute maps given for a resource.
+	 * <p>
+	 * This is equivalent to calling
+	 * {@link IResource#createMarker(String, Map)} for every attribute map, but
+	 * builds the marker set of each resource only once and reports all markers
+	 * in a single resource change event, which makes it considerably faster for
+	 * large numbers of markers.
+	 * </p>
+	 * <p>
+	 * This method changes resources; these changes will be reported in a
+	 * subsequent resource change event.
+	 * </p>
+	 *
+	 * @param type    the type of the markers to create, the id of an extension
+	 *                installed in the
+	 *                <code>org.eclipse.core.resources.markers</code> extension
+	 *                point
+	 * @param markers a map from resources to the attribute maps of the markers to
+	 *                create on them (attribute names to values of type
+	 *                <code>String</code>, <code>Integer</code>, or
+	 *                <code>Boolean</code>)
+	 * @return a map from each of the given resources to the handles of the
+	 *         created markers, in the order of the attribute maps
+	 * @exception CoreException if this method fails. Reasons include:
+	 *                <ul>
+	 *                <li>One of the resources does not exist.</li>
+	 *                <li>One of the resources is a project that is not
+	 *                open.</li>
+	 *                </ul>
+	 * @see IResource#createMarker(String, Map)
+	 * @see #replaceMarkers(String, boolean, Map)
+	 * @see IResourceRuleFactory#markerRule(IResource)
+	 * @since 3.18
+	 */
+	Map<IResource, IMarker[]> createMarkers(String type, Map<? extends IResource, ? extends List<? extends Map<String, ? extends Object>>> markers) throws CoreException;
+
 	/**
 	 * Deletes the given resources.
 	 * <p>
@@ -1094,6 +1189,45 @@ public interface IWorkspace extends IAdaptable {
 	 */
 	void removeSaveParticipant(String pluginId);
 
+	/**
+	 * Replaces the markers of the specified type on each of the given resources
+	 * with new markers of that type, one for each of the attribute maps given
+	 * for the resource. Markers of the type on other resources, including
+	 * members of the given resources, are not affected.
+	 * <p>
+	 * This is the typical update of a builder that reports the problems of a
+	 * file: it is equivalent to calling
+	 * {@link IResource#deleteMarkers(String, boolean, int)} with depth
+	 * {@link IResource#DEPTH_ZERO} followed by
+	 * {@link IResource#createMarker(String, Map)} for every attribute map, but
+	 * builds the marker set of each resource only once and reports all changes
+	 * in a single resource change event. An empty list removes the markers of
+	 * the type from the resource.
+	 * </p>
+	 * <p>
+	 * This method changes resources; these changes will be reported in a
+	 * subsequent resource change event.
+	 * </p>
+	 *
+	 * @param type            the type of the markers to replace and create
+	 * @param includeSubtypes whether markers of subtypes of the type are
+	 *                        replaced as well
+	 * @param markers         a map from resources to the attribute maps of the
+	 *                        markers to create on them
+	 * @return a map from each of the given resources to the handles of the
+	 *         created markers, in the order of the attribute maps
+	 * @exception CoreException if this method fails. Reasons include:
+	 *                <ul>
+	 *                <li>One of the resources does not exist.</li>
+	 *                <li>One of the resources is a project that is not
+	 *                open.</li>
+	 *                </ul>
+	 * @see #createMarkers(String, Map)
+	 * @see IResourceRuleFactory#markerRule(IResource)
+	 * @since 3.18
+	 */
+	Map<IResource, IMarker[]> replaceMarkers(String type, boolean includeSubtypes, Map<? extends IResource, ? extends List<? extends Map<String, ? extends Object>>> markers) throws CoreException;
+
 	/**
 	 * Runs the given action as an atomic workspace operation.
 	 * <p>
@@ -1810,4 +1944,60 @@ public interface IWorkspace extends IAdaptable {
 	 * @since 2.1
 	 */
 	IPathVariableManager getPathVariableManager();
+
+	/**
+	 * Returns the persistent properties of each of the given resources.
+	 * <p>
+	 * This is equivalent to calling {@link IResource#getPersistentProperties()}
+	 * on every resource, but reads the underlying property store only once for
+	 * resources whose properties are stored together, which makes it considerably
+	 * faster for large numbers of resources.
+	 * </p>
+	 *
+	 * @param resources the resources to get the persistent properties for
+	 * @return a map from each of the given resources to a copy of the map of its
+	 *         persistent properties, which is empty if the resource has no
+	 *         persistent properties
+	 * @exception CoreException if this method fails. Reasons include:
+	 *                <ul>
+	 *                <li>One of the resources does not exist.</li>
+	 *                <li>One of the resources is not local.</li>
+	 *                <li>One of the resources is a project that is not open.</li>
+	 *                </ul>
+	 * @see IResource#getPersistentProperties()
+	 * @see #setPersistentProperties(Map)
+	 * @since 3.18
+	 */
+	Map<IResource, Map<QualifiedName, String>> getPersistentProperties(Collection<? extends IResource> resources) throws CoreException;
+
+	/**
+	 * Sets the given persistent properties on each of the given resources.
+	 * <p>
+	 * This is equivalent to calling
+	 * {@link IResource#setPersistentProperty(QualifiedName, String)} for every
+	 * property of every resource, but writes the underlying property store only
+	 * once for resources whose properties are stored together, which makes it
+	 * considerably faster for large numbers of resources. A <code>null</code>
+	 * property value removes the property. Properties not mentioned in the map are
+	 * left unchanged.
+	 * </p>
+	 * <p>
+	 * All resources and properties are validated before any property is changed,
+	 * so a failure leaves all properties untouched.
+	 * </p>
+	 *
+	 * @param properties a map from resources to the properties to set on them
+	 * @exception CoreException if this method fails. Reasons include:
+	 *                <ul>
+	 *                <li>One of the resources does not exist.</li>
+	 *                <li>One of the resources is not local.</li>
+	 *                <li>One of the resources is a project that is not open.</li>
+	 *                <li>One of the property values is too long.</li>
+	 *                <li>A problem occurred writing the property store.</li>
+	 *                </ul>
+	 * @see IResource#setPersistentProperty(QualifiedName, String)
+	 * @see #getPersistentProperties(Collection)
+	 * @since 3.18
+	 */
+	void setPersistentProperties(Map<? extends IResource, ? extends Map<QualifiedName, String>> properties) throws CoreException;
 }
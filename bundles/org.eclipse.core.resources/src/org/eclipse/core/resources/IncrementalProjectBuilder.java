@@ -14,6 +14,7 @@
  * Anton Leherbauer (Wind River) - [305858] Allow Builder to return null rule
  * James Blackburn (Broadcom) - [306822] Provide Context for Builder getRule()
  * Broadcom Corporation - build configurations and references
+ *     Contributors to the Eclipse Foundation - interest filters
  *******************************************************************************/
 package org.eclipse.core.resources;
 
@@ -434,6 +435,42 @@ public abstract class IncrementalProjectBuilder extends InternalBuilder implemen
 		super.requestProjectsRebuild(projects);
 	}
 
+	/**
+	 * Declares that this builder only needs to be run for an incremental or
+	 * automatic build when a file or folder that matches one of its interest
+	 * filters has changed in its project or in the projects it returned as
+	 * interesting from its last build. Changes of the projects themselves, like
+	 * opening or closing them, are always interesting. A builder without interest
+	 * filters, the default, is run for any change.
+	 * <p>
+	 * A filter matches a file or folder when it matches all of the given
+	 * criteria. The build manager evaluates the filters without computing
+	 * resource deltas, so builders that are not interested in the changes of a
+	 * build are skipped cheaply. Filters can also be declared with the
+	 * <code>interest</code> element of the builder extension.
+	 * </p>
+	 * <p>
+	 * This method is intended to be called from {@link #startupOnInitialize()}.
+	 * </p>
+	 *
+	 * @param resourceTypes a mask of {@link IResource#FILE} and
+	 *            {@link IResource#FOLDER}, or {@link IResource#NONE} to match
+	 *            both
+	 * @param pattern a case insensitive pattern with <code>*</code> and
+	 *            <code>?</code> wild cards that is matched against the name of
+	 *            the resource, or against its project relative path if the
+	 *            pattern contains a slash, or <code>null</code> to match any
+	 *            resource
+	 * @param contentTypeId the id of a content type that files must be
+	 *            associated with by their name, or <code>null</code> to match
+	 *            any content
+	 * @since 3.18
+	 */
+	@Override
+	protected final void addInterestFilter(int resourceTypes, String pattern, String contentTypeId) {
+		super.addInterestFilter(resourceTypes, pattern, contentTypeId);
+	}
+
 	/**
 	 * Sets initialization data for this builder.
 	 * <p>
@@ -18,6 +18,7 @@
  *     Christoph Läubrich 	- Issue #52 - Make ResourcesPlugin more dynamic and better handling early start-up
  *     						- Issue #68 - Use DS for CheckMissingNaturesListener
  *     Ingo Mohr - Issue #166 - Add Preference to Turn Off Warning-Check for Project Specific Encoding
+ *     Contributors to the Eclipse Foundation - build statistics service
  *******************************************************************************/
 package org.eclipse.core.resources;
 
@@ -549,6 +550,7 @@ public final class ResourcesPlugin extends Plugin {
 		private final BundleContext context;
 		private volatile Workspace workspace;
 		private ServiceRegistration<IWorkspace> workspaceRegistration;
+		private ServiceRegistration<IBuildStatistics> buildStatisticsRegistration;
 
 		private WorkspaceInitCustomizer(BundleContext context) {
 			this.context = context;
@@ -572,6 +574,7 @@ public final class ResourcesPlugin extends Plugin {
 				if (!result.isOK())
 					getLog().log(result);
 				workspaceRegistration = context.registerService(IWorkspace.class, workspace, null);
+				buildStatisticsRegistration = context.registerService(IBuildStatistics.class, workspace.getBuildManager().getBuildStatistics(), null);
 				return workspace;
 			} catch (CoreException e) {
 				getLog().log(e.getStatus());
@@ -595,6 +598,11 @@ public final class ResourcesPlugin extends Plugin {
 				} catch (RuntimeException e) {
 					getLog().log(Status.warning("Unregistering workspaces throws an exception", e)); //$NON-NLS-1$
 				}
+				try {
+					buildStatisticsRegistration.unregister();
+				} catch (RuntimeException e) {
+					getLog().log(Status.warning("Unregistering build statistics throws an exception", e)); //$NON-NLS-1$
+				}
 				try {
 					service.close(null);
 				} catch (CoreException e) {
@@ -20,9 +20,10 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ BuilderCycleTest.class, BuilderEventTest.class, BuilderNatureTest.class, BuilderTest.class,
 		RebuildTest.class,
-		BuildDeltaVerificationTest.class, CustomBuildTriggerTest.class, EmptyDeltaTest.class,
+		BuildDeltaVerificationTest.class, CustomBuildTriggerTest.class, EmptyDeltaTest.class, InterestFilterTest.class,
 		MultiProjectBuildTest.class, RelaxedSchedRuleBuilderTest.class, BuildConfigurationsTest.class,
-		BuildContextTest.class, ParallelBuildChainTest.class, ComputeProjectOrderTest.class })
+		BuildContextTest.class, ParallelBuildChainTest.class, ComputeProjectOrderTest.class,
+		DeclaredSchedulingRuleTest.class })
 public class AllTests {
 
 }
@@ -471,4 +471,46 @@ public class BuildDeltaVerificationTest extends AbstractBuilderTest {
 			handleCoreException(e);
 		}
 	}
+
+	/**
+	 * Builders of a project that run in different build cycles against the same
+	 * trees receive the same cached delta.
+	 */
+	public void testReuseCachedDeltaAcrossBuilds() {
+		try {
+			IProject project = getWorkspace().getRoot().getProject("delta-cache");
+			create(project, false);
+
+			IProjectDescription description = project.getDescription();
+			description.setBuildSpec(new ICommand[] {createCommand(description, EmptyDeltaBuilder.BUILDER_NAME, null),
+					createCommand(description, EmptyDeltaBuilder2.BUILDER_NAME, null)});
+			project.setDescription(description, getMonitor());
+
+			project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+
+			List<IResourceDelta> deltas = new ArrayList<>();
+
+			TestBuilder.BuilderRuleCallback captureDelta = new TestBuilder.BuilderRuleCallback() {
+				@Override
+				public IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
+					deltas.add(getDelta(project));
+					return super.build(kind, args, monitor);
+				}
+			};
+
+			EmptyDeltaBuilder.getInstance().setRuleCallback(captureDelta);
+			EmptyDeltaBuilder2.getInstance().setRuleCallback(captureDelta);
+
+			ByteArrayInputStream in = new ByteArrayInputStream(new byte[] {4, 5, 6});
+			project.getFile("test").create(in, true, getMonitor());
+
+			project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, EmptyDeltaBuilder.BUILDER_NAME, null, getMonitor());
+			project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, EmptyDeltaBuilder2.BUILDER_NAME, null, getMonitor());
+
+			assertEquals("1.0", 2, deltas.size());
+			assertSame("1.1", deltas.get(0), deltas.get(1));
+		} catch (CoreException e) {
+			handleCoreException(e);
+		}
+	}
 }
@@ -11,18 +11,22 @@
  *  Contributors:
  *     IBM Corporation - initial API and implementation
  *     Alexander Kurtakov <akurtako@redhat.com> - Bug 459343
+ *     Contributors to the Eclipse Foundation - build statistics
  *******************************************************************************/
 package org.eclipse.core.tests.internal.builders;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import javax.management.*;
+import org.eclipse.core.internal.events.*;
+import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.resources.*;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.tests.harness.*;
+import org.osgi.framework.*;
 
 /**
  * This class tests public API related to building and to build specifications.
@@ -388,6 +392,176 @@ public class BuilderTest extends AbstractBuilderTest {
 		}
 	}
 
+	/**
+	 * Tests that the builds and skipped builds of a builder are recorded in the
+	 * build statistics service.
+	 */
+	public void testBuildStatistics() throws CoreException {
+		BundleContext context = FrameworkUtil.getBundle(BuilderTest.class).getBundleContext();
+		ServiceReference<IBuildStatistics> reference = context.getServiceReference(IBuildStatistics.class);
+		assertNotNull("1.0", reference);
+		IBuildStatistics statistics = context.getService(reference);
+		try {
+			IProject project = getWorkspace().getRoot().getProject("PROJECT");
+			IFile file = project.getFile("File.txt");
+			setAutoBuilding(false);
+			project.create(getMonitor());
+			project.open(getMonitor());
+			file.create(getRandomContents(), IResource.NONE, getMonitor());
+			IProjectDescription desc = project.getDescription();
+			desc.setBuildSpec(new ICommand[] {createCommand(desc, SortBuilder.BUILDER_NAME, "Build0")});
+			project.setDescription(desc, getMonitor());
+			statistics.reset();
+			IBuildConfiguration config = project.getActiveBuildConfig();
+
+			// the delta size of a full build is unknown
+			project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+			IBuildStatistics.Record record = statistics.getRecord(config, SortBuilder.BUILDER_NAME);
+			assertNotNull("2.0", record);
+			assertEquals("2.1", 1, record.getBuildCount());
+			assertEquals("2.2", 0, record.getSkipCount());
+			assertEquals("2.3", -1, record.getRecentDeltaSizes()[0]);
+
+			// nothing changed, the builder is skipped
+			project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+			record = statistics.getRecord(config, SortBuilder.BUILDER_NAME);
+			assertEquals("3.0", 1, record.getBuildCount());
+			assertEquals("3.1", 1, record.getSkipCount());
+
+			dirty(file);
+			project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+			record = statistics.getRecord(config, SortBuilder.BUILDER_NAME);
+			assertEquals("4.0", 2, record.getBuildCount());
+			assertEquals("4.1", 2, record.getRecentBuildTimes().length);
+			assertTrue("4.2", record.getRecentDeltaSizes()[1] > 0);
+			assertEquals("4.3", 2, Arrays.stream(record.getBuildTimeHistogram()).sum());
+			assertTrue("4.4", record.getMaxBuildTime() <= record.getTotalBuildTime());
+
+			// the configuration sums up its builders
+			IBuildStatistics.Record total = statistics.getRecord(config);
+			assertEquals("5.0", 2, total.getBuildCount());
+			assertEquals("5.1", 1, total.getSkipCount());
+			assertEquals("5.2", Arrays.asList(SortBuilder.BUILDER_NAME), Arrays.asList(statistics.getBuilderNames(config)));
+
+			statistics.reset();
+			assertNull("6.0", statistics.getRecord(config));
+		} finally {
+			context.ungetService(reference);
+		}
+	}
+
+	/**
+	 * Tests that builders which finish without changes in between share their
+	 * last built tree.
+	 */
+	public void testLastBuiltTreesAreShared() throws CoreException {
+		BuildStatistics statistics = ((Workspace) getWorkspace()).getBuildManager().getBuildStatistics();
+		setAutoBuilding(false);
+		IProject[] projects = new IProject[3];
+		for (int i = 0; i < projects.length; i++) {
+			projects[i] = getWorkspace().getRoot().getProject("PROJECT" + i);
+			projects[i].create(getMonitor());
+			projects[i].open(getMonitor());
+			IProjectDescription desc = projects[i].getDescription();
+			desc.setBuildSpec(new ICommand[] {createCommand(desc, EmptyDeltaBuilder.BUILDER_NAME, "Build0")});
+			projects[i].setDescription(desc, getMonitor());
+		}
+		getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		assertEquals("1.0", 1, statistics.getLastBuiltTrees());
+
+		// the builders are called on empty deltas, so they all build again
+		projects[0].getFile("File.txt").create(getRandomContents(), IResource.NONE, getMonitor());
+		getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+		assertEquals("2.0", 1, statistics.getLastBuiltTrees());
+	}
+
+	/**
+	 * Tests that the build statistics are published through the platform MBean
+	 * server.
+	 */
+	public void testBuildStatisticsMBean() throws CoreException, MalformedObjectNameException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("org.eclipse.core.resources:type=BuildStatistics");
+		assertTrue("1.0", server.isRegistered(name));
+		BuildStatisticsMXBean statistics = JMX.newMXBeanProxy(server, name, BuildStatisticsMXBean.class);
+
+		IProject project = getWorkspace().getRoot().getProject("PROJECT");
+		setAutoBuilding(false);
+		project.create(getMonitor());
+		project.open(getMonitor());
+		IProjectDescription desc = project.getDescription();
+		desc.setBuildSpec(new ICommand[] {createCommand(desc, SortBuilder.BUILDER_NAME, "Build0")});
+		project.setDescription(desc, getMonitor());
+		statistics.reset();
+		project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+
+		String configuration = project.getName() + '/' + project.getActiveBuildConfig().getName();
+		assertEquals("2.0", Arrays.asList(configuration), Arrays.asList(statistics.getBuildConfigurations()));
+		assertEquals("2.1", Arrays.asList(SortBuilder.BUILDER_NAME), Arrays.asList(statistics.getBuilderNames(configuration)));
+		assertEquals("2.2", 1, statistics.getBuildCount(configuration, SortBuilder.BUILDER_NAME));
+		assertEquals("2.3", 1, statistics.getBuildCount(configuration, null));
+	}
+
+	/**
+	 * Tests that the last built trees are collapsed when too many layers are
+	 * between them, and that the deltas computed from them stay complete.
+	 */
+	public void testLastBuiltTreesAreCollapsed() throws CoreException, InterruptedException {
+		BuildStatistics statistics = ((Workspace) getWorkspace()).getBuildManager().getBuildStatistics();
+		setAutoBuilding(false);
+		IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject unchanged = root.getProject("PROJECT0");
+		IProject changing = root.getProject("PROJECT1");
+		for (IProject project : new IProject[] {unchanged, changing}) {
+			project.create(getMonitor());
+			project.open(getMonitor());
+		}
+		IProjectDescription desc = unchanged.getDescription();
+		desc.setBuildSpec(new ICommand[] {createCommand(desc, EmptyDeltaBuilder.BUILDER_NAME, "Build0")});
+		unchanged.setDescription(desc, getMonitor());
+		desc = changing.getDescription();
+		desc.setBuildSpec(new ICommand[] {createCommand(desc, EmptyDeltaBuilder2.BUILDER_NAME, "Build1")});
+		changing.setDescription(desc, getMonitor());
+		getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+
+		// keep the collapse from running until all layers were created
+		IFile[] files = new IFile[LastBuiltTrees.MAX_EXTRA_LAYERS + 2];
+		Job.getJobManager().beginRule(root, getMonitor());
+		try {
+			for (int i = 0; i < files.length; i++) {
+				files[i] = unchanged.getFile("File" + i);
+				files[i].create(getRandomContents(), IResource.NONE, getMonitor());
+				changing.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, EmptyDeltaBuilder2.BUILDER_NAME, null, getMonitor());
+			}
+			assertEquals("1.0", 2, statistics.getLastBuiltTrees());
+			assertTrue("1.1", statistics.getLastBuiltTreeLayers() > 2 + LastBuiltTrees.MAX_EXTRA_LAYERS);
+		} finally {
+			Job.getJobManager().endRule(root);
+		}
+		Job.getJobManager().join(LastBuiltTrees.class, getMonitor());
+		assertEquals("2.0", 2, statistics.getLastBuiltTrees());
+		assertTrue("2.1", statistics.getLastBuiltTreeLayers() <= 2);
+		assertTrue("2.2", statistics.getLastBuiltTreeNodes() > 0);
+
+		// the builder of the unchanged project still sees all changes since its last build
+		List<IResourceDelta> deltas = new ArrayList<>();
+		EmptyDeltaBuilder.getInstance().setRuleCallback(new TestBuilder.BuilderRuleCallback() {
+			@Override
+			public IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
+				deltas.add(getDelta(unchanged));
+				return super.build(kind, args, monitor);
+			}
+		});
+		unchanged.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, EmptyDeltaBuilder.BUILDER_NAME, null, getMonitor());
+		assertEquals("3.0", 1, deltas.size());
+		assertEquals("3.1", files.length, deltas.get(0).getAffectedChildren().length);
+		for (IFile file : files) {
+			IResourceDelta delta = deltas.get(0).findMember(file.getProjectRelativePath());
+			assertNotNull("3.2 " + file, delta);
+			assertEquals("3.3 " + file, IResourceDelta.ADDED, delta.getKind());
+		}
+	}
+
 	/**
 	 * Tests that a pre_build listener is not called if there have been no changes
 	 * since the last build of any kind occurred.  See https://bugs.eclipse.org/bugs/show_bug.cgi?id=154880.
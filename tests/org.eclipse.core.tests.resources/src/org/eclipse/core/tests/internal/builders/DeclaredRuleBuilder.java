@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.builders;
+
+import java.util.Map;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * A builder that does not override {@link #getRule(int, Map)}, but declares its
+ * scheduling rule in its extension. It takes the time given by its duration
+ * argument to build.
+ */
+public class DeclaredRuleBuilder extends IncrementalProjectBuilder {
+	public static final String PROJECT_RULE_BUILDER_NAME = "org.eclipse.core.tests.resources.projectrulebuilder";
+	public static final String FOLDER_RULE_BUILDER_NAME = "org.eclipse.core.tests.resources.folderrulebuilder";
+	public static final String OUTPUT_FOLDER = "bin";
+	public static final String DURATION_ARG = "duration";
+
+	private static int totalBuilds = 0;
+	private static int currentBuilds = 0;
+	private static int maxSimultaneousBuilds = 0;
+
+	@Override
+	protected IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
+		synchronized (DeclaredRuleBuilder.class) {
+			totalBuilds++;
+			currentBuilds++;
+			maxSimultaneousBuilds = Math.max(currentBuilds, maxSimultaneousBuilds);
+		}
+		try {
+			Thread.sleep(Integer.parseInt(args.get(DURATION_ARG)));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			synchronized (DeclaredRuleBuilder.class) {
+				currentBuilds--;
+			}
+		}
+		return null;
+	}
+
+	public static int getTotalBuilds() {
+		synchronized (DeclaredRuleBuilder.class) {
+			return totalBuilds;
+		}
+	}
+
+	public static int getMaxSimultaneousBuilds() {
+		synchronized (DeclaredRuleBuilder.class) {
+			return maxSimultaneousBuilds;
+		}
+	}
+
+	public static void reset() {
+		synchronized (DeclaredRuleBuilder.class) {
+			totalBuilds = 0;
+			currentBuilds = 0;
+			maxSimultaneousBuilds = 0;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.builders;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.core.internal.events.BuildManager;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+
+/**
+ * Tests builders that declare their scheduling rule in their extension.
+ */
+public class DeclaredSchedulingRuleTest extends AbstractBuilderTest {
+	private static final int PROJECT_COUNT = 4;
+	private static final int BUILD_DURATION = 500;
+
+	public DeclaredSchedulingRuleTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		setAutoBuilding(false);
+		DeclaredRuleBuilder.reset();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		getWorkspace().getRoot().delete(true, null);
+		DeclaredRuleBuilder.reset();
+	}
+
+	private IProject createProject(String name, String builderName) throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(name);
+		ensureExistsInWorkspace(project, true);
+		IProjectDescription description = project.getDescription();
+		ICommand command = description.newCommand();
+		command.setBuilderName(builderName);
+		Map<String, String> args = new HashMap<>();
+		args.put(DeclaredRuleBuilder.DURATION_ARG, Integer.toString(BUILD_DURATION));
+		command.setArguments(args);
+		description.setBuildSpec(new ICommand[] {command});
+		project.setDescription(description, getMonitor());
+		return project;
+	}
+
+	public void testProjectRule() throws CoreException {
+		IProject project = createProject("Project", DeclaredRuleBuilder.PROJECT_RULE_BUILDER_NAME);
+		IProject other = createProject("Other", DeclaredRuleBuilder.PROJECT_RULE_BUILDER_NAME);
+		BuildManager buildManager = ((Workspace) getWorkspace()).getBuildManager();
+		ISchedulingRule rule = buildManager.getRule(project.getActiveBuildConfig(), IncrementalProjectBuilder.FULL_BUILD, DeclaredRuleBuilder.PROJECT_RULE_BUILDER_NAME, null);
+		assertEquals("1.0", project, rule);
+		rule = buildManager.getRule(project.getActiveBuildConfig(), IncrementalProjectBuilder.FULL_BUILD, null, null);
+		assertTrue("2.0", rule.contains(project));
+		assertFalse("2.1", rule.isConflicting(other));
+	}
+
+	public void testFolderRule() throws CoreException {
+		IProject project = createProject("Project", DeclaredRuleBuilder.FOLDER_RULE_BUILDER_NAME);
+		BuildManager buildManager = ((Workspace) getWorkspace()).getBuildManager();
+		ISchedulingRule rule = buildManager.getRule(project.getActiveBuildConfig(), IncrementalProjectBuilder.FULL_BUILD, DeclaredRuleBuilder.FOLDER_RULE_BUILDER_NAME, null);
+		assertEquals("1.0", project.getFolder(DeclaredRuleBuilder.OUTPUT_FOLDER), rule);
+		assertFalse("1.1", rule.isConflicting(project.getFile("source.txt")));
+	}
+
+	/**
+	 * The builders of independent projects with project rules run in parallel.
+	 */
+	public void testParallelBuild() throws CoreException {
+		for (int i = 0; i < PROJECT_COUNT; i++)
+			createProject("Project" + i, DeclaredRuleBuilder.PROJECT_RULE_BUILDER_NAME);
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		description.setMaxConcurrentBuilds(PROJECT_COUNT);
+		getWorkspace().setDescription(description);
+		getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		assertEquals("1.0", PROJECT_COUNT, DeclaredRuleBuilder.getTotalBuilds());
+		// the builds of the projects overlapped
+		assertTrue("1.1", DeclaredRuleBuilder.getMaxSimultaneousBuilds() >= 2);
+	}
+}
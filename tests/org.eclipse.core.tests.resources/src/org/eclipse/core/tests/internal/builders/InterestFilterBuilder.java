@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.builders;
+
+import java.util.Map;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * A builder that declares interest in text files and XML files in its
+ * extension, and in the folders below the gen folder when it is started.
+ */
+public class InterestFilterBuilder extends TestBuilder {
+	public static final String BUILDER_NAME = "org.eclipse.core.tests.resources.interestfilterbuilder";
+	public static final String GEN_FOLDER = "gen";
+
+	/**
+	 * The most recently created instance
+	 */
+	protected static InterestFilterBuilder singleton;
+
+	private int buildCount;
+
+	/**
+	 * Returns the most recently created instance.
+	 */
+	public static InterestFilterBuilder getInstance() {
+		return singleton;
+	}
+
+	public InterestFilterBuilder() {
+		singleton = this;
+	}
+
+	@Override
+	protected IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
+		buildCount++;
+		return super.build(kind, args, monitor);
+	}
+
+	public int getBuildCount() {
+		return buildCount;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		buildCount = 0;
+	}
+
+	@Override
+	protected void startupOnInitialize() {
+		super.startupOnInitialize();
+		addInterestFilter(IResource.FOLDER, GEN_FOLDER + "/*", null);
+	}
+}
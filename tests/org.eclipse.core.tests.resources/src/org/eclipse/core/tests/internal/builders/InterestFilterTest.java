@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.builders;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Tests the interest element of the builder extension and
+ * IncrementalProjectBuilder#addInterestFilter.
+ */
+public class InterestFilterTest extends AbstractBuilderTest {
+	private IProject project;
+	private InterestFilterBuilder builder;
+
+	public InterestFilterTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		setAutoBuilding(false);
+		project = getWorkspace().getRoot().getProject("Project");
+		ensureExistsInWorkspace(project, true);
+		ensureExistsInWorkspace(project.getFolder(InterestFilterBuilder.GEN_FOLDER), true);
+		IProjectDescription description = project.getDescription();
+		ICommand command = description.newCommand();
+		command.setBuilderName(InterestFilterBuilder.BUILDER_NAME);
+		description.setBuildSpec(new ICommand[] {command});
+		project.setDescription(description, getMonitor());
+		project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		builder = InterestFilterBuilder.getInstance();
+		builder.reset();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		getWorkspace().getRoot().delete(true, null);
+	}
+
+	private void incrementalBuild() throws CoreException {
+		project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+	}
+
+	public void testChangeNotMatching() throws CoreException {
+		ensureExistsInWorkspace(project.getFile("file.bin"), true);
+		ensureExistsInWorkspace(project.getFile(InterestFilterBuilder.GEN_FOLDER + "/file.bin"), true);
+		incrementalBuild();
+		assertEquals("1.0", 0, builder.getBuildCount());
+	}
+
+	public void testPattern() throws CoreException {
+		IFile file = project.getFile("file.txt");
+		ensureExistsInWorkspace(file, true);
+		incrementalBuild();
+		assertEquals("1.0", 1, builder.getBuildCount());
+
+		file.setContents(getRandomContents(), true, true, getMonitor());
+		incrementalBuild();
+		assertEquals("2.0", 2, builder.getBuildCount());
+
+		file.delete(true, getMonitor());
+		incrementalBuild();
+		assertEquals("3.0", 3, builder.getBuildCount());
+	}
+
+	public void testContentType() throws CoreException {
+		ensureExistsInWorkspace(project.getFile("file.xml"), true);
+		incrementalBuild();
+		assertEquals("1.0", 1, builder.getBuildCount());
+	}
+
+	public void testAddedFilter() throws CoreException {
+		ensureExistsInWorkspace(project.getFolder(InterestFilterBuilder.GEN_FOLDER + "/folder"), true);
+		incrementalBuild();
+		assertEquals("1.0", 1, builder.getBuildCount());
+	}
+
+	/**
+	 * Removing a folder removes the matching files below it.
+	 */
+	public void testRemovedFolder() throws CoreException {
+		IFolder folder = project.getFolder("folder");
+		ensureExistsInWorkspace(folder.getFile("file.bin"), true);
+		incrementalBuild();
+		assertEquals("1.0", 0, builder.getBuildCount());
+		ensureExistsInWorkspace(folder.getFile("file.txt"), true);
+		incrementalBuild();
+		assertEquals("1.1", 1, builder.getBuildCount());
+
+		folder.delete(true, getMonitor());
+		incrementalBuild();
+		assertEquals("2.0", 2, builder.getBuildCount());
+	}
+}
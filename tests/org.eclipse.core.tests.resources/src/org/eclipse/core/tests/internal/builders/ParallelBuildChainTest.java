@@ -286,6 +286,74 @@ public class ParallelBuildChainTest extends AbstractBuilderTest {
 		assertEquals(sequentialBuildEvents(allProjects), TimerBuilder.events);
 	}
 
+	public void testDiamondDependencies() throws Exception {
+		// the build job group of the workspace runs at most as many builds as the workspace description allows
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		description.setMaxConcurrentBuilds(2);
+		getWorkspace().setDescription(description);
+		setTimerBuilderSchedulingRuleForAllProjects(RuleType.NO_CONFLICT, getMonitor());
+		IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject top = root.getProject("projectInstantaneousBuild1");
+		IProject left = root.getProject("projectLongBuild1");
+		IProject right = root.getProject("projectLongBuild2");
+		IProject bottom = root.getProject("projectInstantaneousBuild2");
+		for (IProject project : new IProject[] {left, right}) {
+			IProjectDescription desc = project.getDescription();
+			desc.setReferencedProjects(new IProject[] {top});
+			project.setDescription(desc, getMonitor());
+		}
+		IProjectDescription desc = bottom.getDescription();
+		desc.setReferencedProjects(new IProject[] {left, right});
+		bottom.setDescription(desc, getMonitor());
+		Job job = new Job("Workspace Build") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+					return Status.OK_STATUS;
+				} catch (CoreException e) {
+					return new Status(IStatus.ERROR, "org.eclipse.core.tests.resources", e.getMessage(), e);
+				}
+			}
+		};
+		job.schedule();
+		Assert.assertTrue("Timeout, most likely a deadlock", job.join(0, getMonitor()));
+		assertEquals(root.getProjects().length, TimerBuilder.getTotalBuilds());
+		List<Object> events = new ArrayList<>(TimerBuilder.events);
+		int topComplete = events.indexOf(TimerBuilder.buildCompleteEvent(top));
+		assertTrue(topComplete >= 0);
+		assertTrue(topComplete < events.indexOf(TimerBuilder.buildStartEvent(left)));
+		assertTrue(topComplete < events.indexOf(TimerBuilder.buildStartEvent(right)));
+		int bottomStart = events.indexOf(TimerBuilder.buildStartEvent(bottom));
+		assertTrue(events.indexOf(TimerBuilder.buildCompleteEvent(left)) < bottomStart);
+		assertTrue(events.indexOf(TimerBuilder.buildCompleteEvent(right)) < bottomStart);
+		assertTrue(TimerBuilder.getMaxSimultaneousBuilds() > 1);
+		assertTrue(TimerBuilder.getMaxSimultaneousBuilds() <= getWorkspace().getDescription().getMaxConcurrentBuilds());
+	}
+
+	public void testLongestChainBuildsFirst() throws Exception {
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		description.setMaxConcurrentBuilds(2);
+		getWorkspace().setDescription(description);
+		setTimerBuilderSchedulingRuleForAllProjects(RuleType.NO_CONFLICT, getMonitor());
+		IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject chainStart = root.getProject("projectLongBuild1");
+		IProject chainEnd = root.getProject("projectLongBuild2");
+		IProject single = root.getProject("projectLongBuild3");
+		IProjectDescription desc = chainEnd.getDescription();
+		desc.setReferencedProjects(new IProject[] {chainStart});
+		chainEnd.setDescription(desc, getMonitor());
+		// the first build records the durations the second one is scheduled with
+		getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		TimerBuilder.reset();
+		getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		assertEquals(root.getProjects().length, TimerBuilder.getTotalBuilds());
+		// the head of the longest chain and the next longest build start before the instantaneous builds
+		List<Object> events = new ArrayList<>(TimerBuilder.events);
+		assertEquals(new HashSet<>(Arrays.asList(TimerBuilder.buildStartEvent(chainStart), TimerBuilder.buildStartEvent(single))), new HashSet<>(events.subList(0, 2)));
+		assertTrue(events.indexOf(TimerBuilder.buildCompleteEvent(chainStart)) < events.indexOf(TimerBuilder.buildStartEvent(chainEnd)));
+	}
+
 	private List<Object> sequentialBuildEvents(IProject[] allProjects) {
 		List<Object> res = new ArrayList<>(allProjects.length * 2);
 		for (IProject project : allProjects) {
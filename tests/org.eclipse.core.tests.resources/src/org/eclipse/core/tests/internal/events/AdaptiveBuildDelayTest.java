@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.core.internal.events.AdaptiveBuildDelay;
+import org.eclipse.core.internal.utils.Policy;
+import org.junit.Test;
+
+/**
+ * Tests the delay the autobuild is scheduled with.
+ */
+public class AdaptiveBuildDelayTest {
+	private static final long START = 1_000_000;
+
+	@Test
+	public void testSingleModification() {
+		AdaptiveBuildDelay delay = new AdaptiveBuildDelay();
+		delay.modified(START);
+		assertFalse(delay.isBurst());
+		assertEquals(Policy.MIN_BUILD_DELAY, delay.computeDelay(START));
+	}
+
+	@Test
+	public void testAfterBuild() {
+		AdaptiveBuildDelay delay = new AdaptiveBuildDelay();
+		delay.buildCompleted(50, START);
+		delay.modified(START + 200);
+		assertEquals(Policy.MAX_BUILD_DELAY - 200, delay.computeDelay(START + 200));
+		assertEquals(Policy.MIN_BUILD_DELAY, delay.computeDelay(START + Policy.MAX_BUILD_DELAY));
+	}
+
+	@Test
+	public void testBurst() {
+		AdaptiveBuildDelay delay = new AdaptiveBuildDelay();
+		// builds take longer than the delays of the burst
+		delay.buildCompleted(4000, START - 10_000);
+		long time = START;
+		for (int i = 0; i < 10; i++) {
+			delay.modified(time);
+			time += 300;
+		}
+		assertTrue(delay.isBurst());
+		assertEquals(300, delay.getMeanInterval());
+		assertEquals(600, delay.computeDelay(time));
+
+		delay.buildInterrupted();
+		assertEquals(1200, delay.computeDelay(time));
+		delay.buildInterrupted();
+		assertEquals(1800, delay.computeDelay(time));
+
+		// the burst is over
+		delay.modified(time + 5000);
+		assertFalse(delay.isBurst());
+		assertEquals(Policy.MIN_BUILD_DELAY, delay.computeDelay(time + 5000));
+	}
+
+	@Test
+	public void testDelayBoundedByBuildDuration() {
+		AdaptiveBuildDelay delay = new AdaptiveBuildDelay();
+		delay.buildCompleted(10, START - 10_000);
+		long time = START;
+		for (int i = 0; i < 10; i++) {
+			delay.modified(time);
+			time += 900;
+		}
+		for (int i = 0; i < 5; i++)
+			delay.buildInterrupted();
+		assertEquals(Policy.MAX_BUILD_DELAY, delay.computeDelay(time));
+
+		delay.buildCompleted(20_000, time);
+		for (int i = 0; i < 5; i++)
+			delay.buildInterrupted();
+		assertEquals(Policy.MAX_BURST_BUILD_DELAY, delay.computeDelay(time + Policy.MAX_BUILD_DELAY));
+	}
+}
@@ -17,6 +17,6 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ BuildProjectFromMultipleJobsTest.class })
+@Suite.SuiteClasses({ BuildProjectFromMultipleJobsTest.class, NodeIDMapTest.class, AdaptiveBuildDelayTest.class })
 public class AllTests {
 }
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.core.internal.events.NodeIDMap;
+import org.eclipse.core.runtime.IPath;
+import org.junit.Test;
+
+/**
+ * Tests the map used to recognize moves in resource deltas.
+ */
+public class NodeIDMapTest {
+
+	@Test
+	public void testGrowth() {
+		NodeIDMap map = new NodeIDMap();
+		assertTrue(map.isEmpty());
+		int count = 200_000;
+		for (long id = 1; id <= count; id++) {
+			map.putOldPath(id * 7, IPath.fromPortableString("/old/" + id));
+			map.putNewPath(id * 7, IPath.fromPortableString("/new/" + id));
+		}
+		assertFalse(map.isEmpty());
+		for (long id = 1; id <= count; id++) {
+			assertEquals(IPath.fromPortableString("/old/" + id), map.getOldPath(id * 7));
+			assertEquals(IPath.fromPortableString("/new/" + id), map.getNewPath(id * 7));
+		}
+		assertNull(map.getOldPath(3));
+		assertNull(map.getNewPath(count * 7 + 1));
+	}
+
+	@Test
+	public void testMovedSubtree() {
+		NodeIDMap map = new NodeIDMap();
+		IPath oldRoot = IPath.fromPortableString("/P/a");
+		IPath newRoot = IPath.fromPortableString("/Q/b");
+		map.putOldPath(1, oldRoot);
+		map.putNewPath(1, newRoot);
+		map.putMovedSubtree(oldRoot, newRoot);
+		// a resource that was moved elsewhere before its folder was moved
+		map.putOldPath(2, oldRoot.append("x"));
+		map.putNewPath(2, IPath.fromPortableString("/P/x"));
+		// a resource added to the folder after it was moved
+		map.putNewPath(3, newRoot.append("y"));
+
+		assertEquals(oldRoot, map.getOldPath(1, newRoot));
+		assertEquals(oldRoot.append("c/d"), map.getOldPath(4, newRoot.append("c/d")));
+		assertEquals(newRoot.append("c/d"), map.getNewPath(4, oldRoot.append("c/d")));
+		assertEquals(IPath.fromPortableString("/P/x"), map.getNewPath(2, oldRoot.append("x")));
+		assertNull(map.getOldPath(3, newRoot.append("y")));
+		assertNull(map.getOldPath(5, IPath.fromPortableString("/Q/c")));
+		assertNull(map.getOldPath(4));
+	}
+}
@@ -23,6 +23,28 @@ import org.eclipse.core.runtime.Path;
 //
 public class BlobStoreTest extends LocalStoreTest {
 
+	public void testAddBlobCopy() throws CoreException {
+		IFileStore root = createStore();
+		BlobStore store = new BlobStore(root, 64);
+
+		// whether the blob is cloned or copied, it must not share later changes to the target
+		IFileStore target = root.getChild("target");
+		String content = "original contents";
+		createFile(target, content);
+		UniversalUniqueIdentifier uuid = store.addBlob(target, false);
+		assertTrue("1.0", target.fetchInfo().exists());
+		assertTrue("1.1", compareContent(getContents(content), store.getBlob(uuid)));
+
+		// overwrite in place, as local file writes do
+		transferData(getContents("modified contents"), target.openOutputStream(EFS.NONE, null));
+		assertTrue("2.0", compareContent(getContents(content), store.getBlob(uuid)));
+
+		// deleting the blob leaves the target alone
+		store.deleteBlob(uuid);
+		assertTrue("3.0", !store.fileFor(uuid).fetchInfo().exists());
+		assertTrue("3.1", compareContent(getContents("modified contents"), target.openInputStream(EFS.NONE, null)));
+	}
+
 	public void testConstructor() {
 		/* build scenario */
 		IFileStore root = createStore();
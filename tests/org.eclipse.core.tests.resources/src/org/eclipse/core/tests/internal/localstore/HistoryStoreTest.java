@@ -18,6 +18,7 @@ import java.io.*;
 import java.util.*;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.filesystem.provider.FileInfo;
+import org.eclipse.core.internal.localstore.HistoryStore2;
 import org.eclipse.core.internal.localstore.IHistoryStore;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.utils.UniversalUniqueIdentifier;
@@ -593,6 +594,34 @@ public class HistoryStoreTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests that cleaning the history store one partition at a time eventually
+	 * applies the policies to all files.
+	 */
+	public void testCleanIncrementally() throws CoreException {
+		IProject project1 = getWorkspace().getRoot().getProject("ProjectCleanIncrementally1");
+		IProject project2 = getWorkspace().getRoot().getProject("ProjectCleanIncrementally2");
+		IFile[] files = new IFile[] {project1.getFile("file.txt"), project1.getFolder("folder").getFile("file.txt"), project2.getFile("file.txt"), project2.getFolder("folder").getFolder("subfolder").getFile("file.txt")};
+		ensureExistsInWorkspace(files, true);
+		for (IFile file : files) {
+			for (int i = 0; i < 5; i++) {
+				file.setContents(getRandomContents(), IResource.KEEP_HISTORY, getMonitor());
+			}
+			assertEquals("1.0 " + file, 5, file.getHistory(getMonitor()).length);
+		}
+
+		setMaxFileStates(2);
+		HistoryStore2 store = (HistoryStore2) ((Workspace) getWorkspace()).getFileSystemManager().getHistoryStore();
+		int partitions = store.getPartitions().size();
+		assertTrue("2.0", partitions >= 4);
+		for (int i = 0; i < partitions; i++) {
+			store.clean(1, getMonitor());
+		}
+		for (IFile file : files) {
+			assertEquals("3.0 " + file, 2, file.getHistory(getMonitor()).length);
+		}
+	}
+
 	/**
 	 * Copy case for History Store of folder when the local history is being
 	 * copied.
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertNotEquals;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import org.eclipse.core.internal.properties.IPropertyManager;
+import org.eclipse.core.internal.properties.PropertyCache;
 import org.eclipse.core.internal.properties.PropertyManager2;
 import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.resources.*;
@@ -192,6 +193,73 @@ public class PropertyManagerTest extends LocalStoreTest {
 		}
 	}
 
+	public void testBatchProperties() throws Throwable {
+		IWorkspace workspace = getWorkspace();
+		IFolder folder1 = projects[0].getFolder("folder1");
+		IFolder folder2 = projects[0].getFolder("folder2");
+		ensureExistsInWorkspace(new IResource[] {folder1, folder2}, true);
+		List<IResource> resources = new ArrayList<>();
+		resources.add(projects[0]);
+		resources.add(folder1);
+		resources.add(folder2);
+		for (int i = 0; i < 10; i++) {
+			resources.add(folder1.getFile("file" + i));
+			resources.add(folder2.getFile("file" + i));
+		}
+		ensureExistsInWorkspace(resources.toArray(new IResource[resources.size()]), true);
+
+		QualifiedName propName1 = new QualifiedName("org.eclipse.core.tests", "prop1");
+		QualifiedName propName2 = new QualifiedName("org.eclipse.core.tests", "prop2");
+		Map<IResource, Map<QualifiedName, String>> properties = new HashMap<>();
+		for (IResource resource : resources) {
+			Map<QualifiedName, String> values = new HashMap<>();
+			values.put(propName1, "value1 of " + resource.getFullPath());
+			values.put(propName2, "value2 of " + resource.getFullPath());
+			properties.put(resource, values);
+		}
+		workspace.setPersistentProperties(properties);
+
+		// properties written in batch are visible one by one and in batch
+		for (IResource resource : resources) {
+			assertEquals("1.0." + resource.getFullPath(), "value1 of " + resource.getFullPath(), resource.getPersistentProperty(propName1));
+			assertEquals("1.1." + resource.getFullPath(), "value2 of " + resource.getFullPath(), resource.getPersistentProperty(propName2));
+		}
+		assertEquals("1.2", properties, workspace.getPersistentProperties(resources));
+
+		// null values remove properties, other properties are left alone
+		for (IResource resource : resources)
+			properties.put(resource, Collections.singletonMap(propName1, null));
+		workspace.setPersistentProperties(properties);
+		Map<IResource, Map<QualifiedName, String>> result = workspace.getPersistentProperties(resources);
+		assertEquals("2.0", resources.size(), result.size());
+		for (IResource resource : resources)
+			assertEquals("2.1." + resource.getFullPath(), Collections.singletonMap(propName2, "value2 of " + resource.getFullPath()), result.get(resource));
+
+		// an invalid value fails the whole batch before anything is written
+		char[] longValue = new char[2 * 1024 + 1];
+		Arrays.fill(longValue, 'a');
+		properties.clear();
+		properties.put(folder1, Collections.singletonMap(propName2, "changed"));
+		properties.put(folder2, Collections.singletonMap(propName2, new String(longValue)));
+		try {
+			workspace.setPersistentProperties(properties);
+			fail("3.0");
+		} catch (CoreException e) {
+			// expected
+		}
+		assertEquals("3.1", "value2 of " + folder1.getFullPath(), folder1.getPersistentProperty(propName2));
+
+		// a missing resource fails the batch
+		properties.clear();
+		properties.put(projects[0].getFile("missing"), Collections.singletonMap(propName2, "value"));
+		try {
+			workspace.setPersistentProperties(properties);
+			fail("4.0");
+		} catch (CoreException e) {
+			// expected
+		}
+	}
+
 	public void testCache() throws Throwable {
 		IPropertyManager manager = new PropertyManager2((Workspace) ResourcesPlugin.getWorkspace());
 		IProject source = projects[0];
@@ -218,6 +286,50 @@ public class PropertyManagerTest extends LocalStoreTest {
 		assertSame(hint + "1.6", propValue, manager.getProperty(sourceFile, propName));
 	}
 
+	public void testWriteBehind() throws Throwable {
+		PropertyManager2 manager = new PropertyManager2((Workspace) ResourcesPlugin.getWorkspace());
+		IFolder folder = projects[0].getFolder("folder");
+		IFile file = folder.getFile("file.txt");
+		ensureExistsInWorkspace(new IResource[] {folder, file}, true);
+		QualifiedName propName = new QualifiedName("test", "prop");
+		String propValue = "this is the property value";
+
+		// changes are held in memory until flushed
+		manager.setProperty(folder, propName, propValue);
+		manager.setProperty(file, propName, propValue);
+		PropertyCache cache = manager.getCache();
+		assertEquals("1.0", 2, cache.getPendingCount());
+		assertNull("1.1", new PropertyManager2((Workspace) getWorkspace()).getProperty(file, propName));
+		manager.flush();
+		assertEquals("1.2", 0, cache.getPendingCount());
+		assertEquals("1.3", 2, cache.getWriteCount());
+		assertEquals("1.4", propValue, new PropertyManager2((Workspace) getWorkspace()).getProperty(file, propName));
+
+		// repeated reads are served from the cache
+		long hits = cache.getHitCount();
+		long misses = cache.getMissCount();
+		for (int i = 0; i < 10; i++) {
+			assertEquals("2.0", propValue, manager.getProperty(folder, propName));
+			assertEquals("2.1", propValue, manager.getProperty(file, propName));
+		}
+		assertEquals("2.2", hits + 20, cache.getHitCount());
+		assertEquals("2.3", misses, cache.getMissCount());
+		assertTrue("2.4", cache.getSize() > 0);
+
+		// pending changes are seen by structural operations
+		manager.setProperty(file, propName, "changed");
+		IFolder destination = projects[1].getFolder("folder");
+		ensureExistsInWorkspace(destination, true);
+		manager.copy(folder, destination, IResource.DEPTH_INFINITE);
+		assertEquals("3.0", 0, cache.getPendingCount());
+		assertEquals("3.1", "changed", manager.getProperty(destination.getFile(file.getName()), propName));
+		manager.deleteProperties(folder, IResource.DEPTH_INFINITE);
+		assertNull("3.2", manager.getProperty(folder, propName));
+		assertNull("3.3", manager.getProperty(file, propName));
+		assertEquals("3.4", propValue, manager.getProperty(destination, propName));
+		manager.deleteProperties(destination, IResource.DEPTH_INFINITE);
+	}
+
 	public void testOOME() throws Throwable {
 		IPropertyManager manager = new PropertyManager2((Workspace) ResourcesPlugin.getWorkspace());
 		IProject source = projects[0];
@@ -232,6 +344,8 @@ public class PropertyManagerTest extends LocalStoreTest {
 		manager.setProperty(source, propName, propValue);
 		manager.setProperty(sourceFolder, propName, propValue);
 		manager.setProperty(sourceFile, propName, propValue);
+		// changes pending in memory are not subject to garbage collection
+		manager.flush();
 
 		String hint = "Property cache returned another instance. Same instance is not required but expected. Eiter the Garbage Collector deleted the cache or the cache is not working.";
 		assertSame(hint + "1.2", propValue, manager.getProperty(source, propName));
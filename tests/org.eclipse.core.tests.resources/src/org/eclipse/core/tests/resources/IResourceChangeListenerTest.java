@@ -16,9 +16,10 @@ package org.eclipse.core.tests.resources;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.Dictionary;
-import java.util.Hashtable;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.BooleanSupplier;
+import org.eclipse.core.internal.resources.MarkerManager;
 import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -1736,6 +1737,208 @@ public class IResourceChangeListenerTest extends ResourceTest {
 		}
 	}
 
+	public void testConcurrentListeners() throws Exception {
+		// both listeners have to wait for each other, which only works if they are notified concurrently
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		List<IResourceDelta> deltas = new CopyOnWriteArrayList<>();
+		List<Throwable> failures = new CopyOnWriteArrayList<>();
+		IConcurrentResourceChangeListener listener = event -> {
+			threads.add(Thread.currentThread());
+			deltas.add(event.getDelta().findMember(file1.getFullPath()));
+			try {
+				barrier.await(30, TimeUnit.SECONDS);
+				// the tree stays locked until all listeners are done
+				file2.create(getRandomContents(), true, null);
+			} catch (Throwable e) {
+				failures.add(e);
+			}
+		};
+		IConcurrentResourceChangeListener other = listener::resourceChanged;
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		getWorkspace().addResourceChangeListener(other, IResourceChangeEvent.POST_CHANGE);
+		try {
+			file1.setContents(getRandomContents(), true, false, getMonitor());
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+			getWorkspace().removeResourceChangeListener(other);
+		}
+		assertEquals("1.0", 2, deltas.size());
+		assertEquals("1.1", IResourceDelta.CONTENT, deltas.get(0).getFlags() & IResourceDelta.CONTENT);
+		assertEquals("1.2", 2, threads.size());
+		assertFalse("1.3", threads.contains(Thread.currentThread()));
+		assertEquals("1.4", 2, failures.size());
+		for (Throwable failure : failures)
+			assertTrue("1.5 " + failure, failure instanceof CoreException);
+		assertFalse("1.6", file2.exists());
+	}
+
+	public void testConcurrentDeltaAccess() throws CoreException {
+		// the children of the delta are created when first asked for, concurrent listeners must see the same ones
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		List<IResourceDelta> deltas = new CopyOnWriteArrayList<>();
+		IConcurrentResourceChangeListener listener = event -> {
+			try {
+				barrier.await(30, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				// still look at the delta
+			}
+			deltas.add(event.getDelta().findMember(file1.getFullPath()));
+		};
+		IConcurrentResourceChangeListener other = listener::resourceChanged;
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		getWorkspace().addResourceChangeListener(other, IResourceChangeEvent.POST_CHANGE);
+		try {
+			file1.setContents(getRandomContents(), true, false, getMonitor());
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+			getWorkspace().removeResourceChangeListener(other);
+		}
+		assertEquals("1.0", 2, deltas.size());
+		assertNotNull("1.1", deltas.get(0));
+		assertSame("1.2", deltas.get(0), deltas.get(1));
+	}
+
+	public void testDeltaAfterExpansion() throws CoreException {
+		// the trees are released once all children of the delta were created, the delta must stay complete
+		IFolder destination = project1.getFolder("Moved");
+		List<IResourceDelta> deltas = new ArrayList<>();
+		IResourceChangeListener listener = event -> {
+			try {
+				event.getDelta().accept(delta -> true);
+			} catch (CoreException e) {
+				fail("0.0", e);
+			}
+			deltas.add(event.getDelta());
+		};
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			folder1.move(destination.getFullPath(), true, getMonitor());
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+		}
+		assertEquals("1.0", 1, deltas.size());
+		IResourceDelta moved = deltas.get(0).findMember(destination.getFile(file1.getName()).getFullPath());
+		assertNotNull("1.1", moved);
+		assertEquals("1.2", IResourceDelta.ADDED, moved.getKind());
+		assertTrue("1.3", (moved.getFlags() & IResourceDelta.MOVED_FROM) != 0);
+		assertEquals("1.4", file1.getFullPath(), moved.getMovedFromPath());
+		IResourceDelta removed = deltas.get(0).findMember(file1.getFullPath());
+		assertNotNull("1.5", removed);
+		assertEquals("1.6", destination.getFile(file1.getName()).getFullPath(), removed.getMovedToPath());
+	}
+
+	public void testPathFilteredListeners() throws CoreException {
+		List<IResourceDelta> folderDeltas = new ArrayList<>();
+		List<IResourceChangeEvent> otherProjectEvents = new ArrayList<>();
+		List<IResourceChangeEvent> removals = new ArrayList<>();
+		IResourceChangeListener folderListener = event -> folderDeltas.add(event.getDelta().findMember(folder1.getFullPath()));
+		IResourceChangeListener otherProjectListener = otherProjectEvents::add;
+		IResourceChangeListener removalListener = removals::add;
+		getWorkspace().addResourceChangeListener(folderListener, IResourceChangeEvent.POST_CHANGE, folder1.getFullPath());
+		getWorkspace().addResourceChangeListener(otherProjectListener, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE, project2.getFullPath());
+		getWorkspace().addResourceChangeListener(removalListener, IResourceChangeEvent.POST_CHANGE, new IPath[] {folder2.getFullPath(), file1.getFullPath()}, IResource.FILE, IResourceDelta.REMOVED);
+		try {
+			file1.setContents(getRandomContents(), true, false, getMonitor());
+			assertEquals("1.0", 1, folderDeltas.size());
+			assertEquals("1.1", IResourceDelta.CONTENT, folderDeltas.get(0).findMember(IPath.fromOSString(file1.getName())).getFlags() & IResourceDelta.CONTENT);
+			assertEquals("1.2", 0, otherProjectEvents.size());
+			assertEquals("1.3", 0, removals.size());
+
+			// changes next to the folder do not concern it
+			project1.getFile("other").create(getRandomContents(), true, getMonitor());
+			assertEquals("2.0", 1, folderDeltas.size());
+
+			file1.delete(true, getMonitor());
+			assertEquals("3.0", 2, folderDeltas.size());
+			assertEquals("3.1", 1, removals.size());
+
+			// the folder is removed, but the listener is only interested in removed files
+			folder2.create(true, true, getMonitor());
+			folder2.delete(true, getMonitor());
+			assertEquals("4.0", 4, folderDeltas.size());
+			assertEquals("4.1", 1, removals.size());
+
+			project2.create(getMonitor());
+			project2.open(getMonitor());
+			project2.close(getMonitor());
+			int projectEvents = otherProjectEvents.size();
+			assertTrue("5.0", projectEvents >= 3);
+			assertTrue("5.1", otherProjectEvents.stream().anyMatch(event -> event.getType() == IResourceChangeEvent.PRE_CLOSE && project2.equals(event.getResource())));
+
+			// the removal of the project removes the folder
+			project1.delete(true, getMonitor());
+			assertEquals("6.0", 5, folderDeltas.size());
+			assertEquals("6.1", IResourceDelta.REMOVED, folderDeltas.get(4).getKind());
+			assertEquals("6.2", 2, removals.size());
+			assertEquals("6.3", projectEvents, otherProjectEvents.size());
+		} finally {
+			getWorkspace().removeResourceChangeListener(folderListener);
+			getWorkspace().removeResourceChangeListener(otherProjectListener);
+			getWorkspace().removeResourceChangeListener(removalListener);
+		}
+	}
+
+	public void testConcurrentListenerReadsUnrestoredMarkers() throws Exception {
+		MarkerManager manager = ((Workspace) getWorkspace()).getMarkerManager();
+		IMarker marker = file1.createMarker(IMarker.PROBLEM, Map.of(IMarker.SEVERITY, IMarker.SEVERITY_WARNING));
+		getWorkspace().save(true, getMonitor());
+		// like a restart with lazy marker restore
+		getWorkspace().run(monitor -> manager.deferRestore(List.of(project1)), getWorkspace().getRoot(), IWorkspace.AVOID_UPDATE, getMonitor());
+		assertFalse("1.0", manager.isRestored(project1));
+		List<IMarker[]> found = new CopyOnWriteArrayList<>();
+		List<Boolean> restored = new CopyOnWriteArrayList<>();
+		IConcurrentResourceChangeListener listener = event -> {
+			found.add(file1.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+			restored.add(manager.isRestored(project1));
+		};
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			file1.setContents(getRandomContents(), true, false, getMonitor());
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+		}
+		// the listener reads the markers without installing them in the locked tree
+		assertEquals("2.0", 1, found.size());
+		assertEquals("2.1", Arrays.asList(marker), Arrays.asList(found.get(0)));
+		assertEquals("2.2", Arrays.asList(Boolean.FALSE), restored);
+		assertFalse("2.3", manager.isRestored(project1));
+	}
+
+	public void testConcurrentListenerCannotModify() throws CoreException {
+		// the broadcasting thread holds the workspace lock while it waits for the listener, so writes must fail instead of waiting for it
+		IMarker marker = file1.createMarker(IMarker.PROBLEM, Map.of(IMarker.SEVERITY, IMarker.SEVERITY_WARNING));
+		List<Boolean> locked = new CopyOnWriteArrayList<>();
+		List<Throwable> failures = new CopyOnWriteArrayList<>();
+		IConcurrentResourceChangeListener listener = event -> {
+			locked.add(getWorkspace().isTreeLocked());
+			try {
+				marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+			} catch (Throwable e) {
+				failures.add(e);
+			}
+			try {
+				getWorkspace().run(monitor -> file1.setContents(getRandomContents(), true, false, monitor), getMonitor());
+			} catch (Throwable e) {
+				failures.add(e);
+			}
+		};
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			file1.setContents(getRandomContents(), true, false, getMonitor());
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+		}
+		assertEquals("1.0", Arrays.asList(Boolean.TRUE), locked);
+		assertEquals("1.1", 2, failures.size());
+		for (Throwable failure : failures) {
+			assertTrue("1.2 " + failure, failure instanceof CoreException);
+			assertEquals("1.3", IResourceStatus.WORKSPACE_LOCKED, ((CoreException) failure).getStatus().getCode());
+		}
+		assertEquals("1.4", IMarker.SEVERITY_WARNING, marker.getAttribute(IMarker.SEVERITY, -1));
+		assertFalse("1.5", getWorkspace().isTreeLocked());
+	}
+
 	public void testRemoveAndCreateUnderlyingFileForLinkedResource() {
 		IPath path = getTempDir().addTrailingSeparator().append(getUniqueString());
 		try {
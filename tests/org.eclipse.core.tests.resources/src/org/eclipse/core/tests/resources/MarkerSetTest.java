@@ -17,6 +17,7 @@ package org.eclipse.core.tests.resources;
 import java.util.Arrays;
 import java.util.Map;
 import org.eclipse.core.internal.resources.*;
+import org.eclipse.core.internal.utils.StringPool;
 import org.eclipse.core.resources.IMarker;
 
 public class MarkerSetTest extends ResourceTest {
@@ -124,6 +125,48 @@ public class MarkerSetTest extends ResourceTest {
 		assertEquals("3.0", 0, set.size());
 	}
 
+	public void testClone() {
+		// ids that share low bits and ids at the ends of the range
+		long[] ids = {0, 1, 64, 4096, 4097, Long.MAX_VALUE, Long.MIN_VALUE, -1, 1L << 40};
+		MarkerSet set = new MarkerSet();
+		for (long id : ids) {
+			set.add(new MarkerInfo(IMarker.PROBLEM, id));
+		}
+		assertEquals("1.0", ids.length, set.size());
+
+		// changing the clone leaves the original alone and vice versa
+		MarkerSet copy = (MarkerSet) set.clone();
+		copy.remove(4096);
+		copy.remove(Long.MIN_VALUE);
+		copy.add(new MarkerInfo(IMarker.PROBLEM, 2));
+		set.remove(0);
+		assertEquals("2.0", ids.length - 1, set.size());
+		assertEquals("2.1", ids.length - 1, copy.size());
+		assertTrue("2.2", set.contains(4096));
+		assertTrue("2.3", set.contains(Long.MIN_VALUE));
+		assertTrue("2.4", !set.contains(2));
+		assertTrue("2.5", !set.contains(0));
+		assertTrue("2.6", copy.contains(0));
+		assertTrue("2.7", !copy.contains(4096));
+		assertTrue("2.8", copy.contains(4097));
+		assertEquals("2.9", ids.length - 1, set.elements().length);
+
+		// adding an element with a known id replaces it
+		MarkerInfo replacement = new MarkerInfo(IMarker.TASK, 64);
+		copy.add(replacement);
+		assertEquals("3.0", ids.length - 1, copy.size());
+		assertSame("3.1", replacement, copy.get(64));
+		assertNotSame("3.2", replacement, set.get(64));
+
+		for (long id : ids) {
+			copy.remove(id);
+		}
+		copy.remove(2);
+		assertTrue("4.0", copy.isEmpty());
+		assertEquals("4.1", 0, copy.elements().length);
+		assertEquals("4.2", ids.length - 1, set.size());
+	}
+
 	public void testMarkerAttributeMap() {
 		MarkerAttributeMap map = new MarkerAttributeMap();
 		String notInternalString = String.valueOf("notIntern".toCharArray());
@@ -151,4 +194,38 @@ public class MarkerSetTest extends ResourceTest {
 		map2.put(null, 1); // allowed for clients using IMarker.getAttributes()
 		map2.put("0", null);// allowed for clients
 	}
+
+	public void testMarkerAttributeMapWellKnownAttributes() {
+		MarkerAttributeMap map = new MarkerAttributeMap(Map.of(IMarker.SEVERITY, IMarker.SEVERITY_ERROR, IMarker.LINE_NUMBER, 100000, IMarker.MESSAGE, "message"), true);
+		assertEquals(3, map.size());
+		assertEquals(IMarker.SEVERITY_ERROR, map.get(IMarker.SEVERITY));
+		assertEquals(100000, map.get(IMarker.LINE_NUMBER));
+		assertEquals("message", map.get(IMarker.MESSAGE));
+
+		// well known attributes may hold values of other types
+		MarkerAttributeMap copy = new MarkerAttributeMap(map);
+		copy.put(IMarker.LINE_NUMBER, "unknown");
+		assertEquals("unknown", copy.get(IMarker.LINE_NUMBER));
+		assertEquals(100000, map.get(IMarker.LINE_NUMBER));
+		copy.put(IMarker.LINE_NUMBER, 5);
+		assertEquals(5, copy.get(IMarker.LINE_NUMBER));
+		assertEquals(3, copy.size());
+
+		assertEquals(IMarker.SEVERITY_ERROR, copy.remove(IMarker.SEVERITY));
+		assertNull(copy.remove(IMarker.SEVERITY));
+		assertNull(copy.get(IMarker.SEVERITY));
+		assertEquals(Map.of(IMarker.LINE_NUMBER, 5, IMarker.MESSAGE, "message"), copy.toMap());
+		copy.remove(IMarker.LINE_NUMBER);
+		copy.remove(IMarker.MESSAGE);
+		assertTrue(copy.isEmpty());
+		assertEquals(3, map.size());
+
+		// equal strings of different markers are shared
+		String message = String.valueOf("message".toCharArray());
+		MarkerAttributeMap other = new MarkerAttributeMap(Map.of(IMarker.MESSAGE, message), false);
+		StringPool pool = new StringPool();
+		map.shareStrings(pool);
+		other.shareStrings(pool);
+		assertSame(map.get(IMarker.MESSAGE), other.get(IMarker.MESSAGE));
+	}
 }
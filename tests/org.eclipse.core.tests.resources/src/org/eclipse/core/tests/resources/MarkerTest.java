@@ -16,6 +16,8 @@ package org.eclipse.core.tests.resources;
 
 import java.io.*;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.watson.IPathRequestor;
@@ -557,6 +559,67 @@ public class MarkerTest extends ResourceTest {
 
 	}
 
+	public void testCreateAndReplaceMarkers() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject("testCreateAndReplaceMarkers");
+		IFolder folder = project.getFolder("folder");
+		IFile file = folder.getFile("file.txt");
+		ensureExistsInWorkspace(new IResource[] {project, folder, file}, true);
+		IMarker bookmark = file.createMarker(IMarker.BOOKMARK);
+
+		MarkersChangeListener listener = new MarkersChangeListener();
+		addResourceChangeListener(listener);
+		try {
+			Map<IResource, List<Map<String, Object>>> problems = new LinkedHashMap<>();
+			problems.put(file, List.of(Map.of(IMarker.LINE_NUMBER, 1), Map.of(IMarker.LINE_NUMBER, 2)));
+			problems.put(folder, List.of(Map.of(IMarker.MESSAGE, "folder problem")));
+			Map<IResource, IMarker[]> created = getWorkspace().createMarkers(IMarker.PROBLEM, problems);
+			assertEquals("1.0", 2, created.get(file).length);
+			assertEquals("1.1", 1, created.get(folder).length);
+			assertExists("1.2", created.get(file));
+			assertEquals("1.3", 2, created.get(file)[1].getAttribute(IMarker.LINE_NUMBER, -1));
+			assertEquals("1.4", "folder problem", created.get(folder)[0].getAttribute(IMarker.MESSAGE));
+			assertEquals("1.5", 2, listener.numAffectedResources());
+			assertTrue("1.6", listener.checkChanges(file, created.get(file), null, null));
+			assertTrue("1.7", listener.checkChanges(folder, created.get(folder), null, null));
+
+			// replacing removes the problems but keeps other markers
+			listener.reset();
+			Map<IResource, IMarker[]> replaced = getWorkspace().replaceMarkers(IMarker.PROBLEM, true, Map.of(file, List.of(Map.of(IMarker.LINE_NUMBER, 3))));
+			assertEquals("2.0", 1, replaced.get(file).length);
+			assertDoesNotExist("2.1", created.get(file));
+			assertExists("2.2", replaced.get(file));
+			assertExists("2.3", bookmark);
+			assertExists("2.4", created.get(folder));
+			assertEquals("2.5", 1, listener.numAffectedResources());
+			assertTrue("2.6", listener.checkChanges(file, replaced.get(file), created.get(file), null));
+
+			// an empty list removes the markers of the type
+			listener.reset();
+			getWorkspace().replaceMarkers(IMarker.PROBLEM, false, Map.of(file, List.of()));
+			assertDoesNotExist("3.0", replaced.get(file));
+			assertEquals("3.1", 1, file.findMarkers(null, true, IResource.DEPTH_ZERO).length);
+			assertTrue("3.2", listener.checkChanges(file, null, replaced.get(file), null));
+
+			// resources that do not exist are rejected before anything changes
+			listener.reset();
+			IFile missing = folder.getFile("missing.txt");
+			Map<IResource, List<Map<String, Object>>> invalid = new LinkedHashMap<>();
+			invalid.put(file, List.of(Map.of()));
+			invalid.put(missing, List.of(Map.of()));
+			try {
+				getWorkspace().createMarkers(IMarker.PROBLEM, invalid);
+				fail("4.0");
+			} catch (CoreException e) {
+				// expected
+			}
+			assertEquals("4.1", 0, file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO).length);
+			assertEquals("4.2", 0, listener.numAffectedResources());
+		} finally {
+			removeResourceChangeListener(listener);
+		}
+		project.delete(true, getMonitor());
+	}
+
 	public void testCreateMarkerWithAttributesOnAResourceWhichDoesNotExistShouldFail() {
 
 		// try creating a marker on a resource which does't exist
@@ -786,6 +849,54 @@ public class MarkerTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Deep searches from the root and from projects use the marker type index,
+	 * which must follow markers through removal, moves, deletion and closing.
+	 */
+	public void testFindMarkersTypeIndex() throws CoreException {
+		IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject project = root.getProject("testFindMarkersTypeIndex");
+		IFolder folder = project.getFolder("folder");
+		IFile file1 = folder.getFile("file1.txt");
+		IFile file2 = folder.getFile("file2.txt");
+		ensureExistsInWorkspace(new IResource[] {project, folder, file1, file2}, true);
+
+		IMarker problem = file1.createMarker(TEST_PROBLEM_MARKER);
+		IMarker task = file1.createMarker(IMarker.TASK);
+		IMarker bookmark = file2.createMarker(IMarker.BOOKMARK);
+		assertEquals("1.0", new IMarker[] {problem}, root.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("1.1", new IMarker[0], root.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_INFINITE));
+		assertEquals("1.2", new IMarker[] {problem, task, bookmark}, project.findMarkers(null, false, IResource.DEPTH_INFINITE));
+		assertEquals("1.3", new IMarker[] {problem, task}, project.findMarkers(IMarker.MARKER, true, IResource.DEPTH_INFINITE));
+
+		// removing one marker keeps the others of the resource
+		task.delete();
+		assertEquals("2.0", new IMarker[] {problem, bookmark}, project.findMarkers(null, false, IResource.DEPTH_INFINITE));
+		assertEquals("2.1", new IMarker[0], root.findMarkers(IMarker.TASK, false, IResource.DEPTH_INFINITE));
+
+		// markers follow moved resources
+		IFile moved = project.getFile("moved.txt");
+		file1.move(moved.getFullPath(), true, getMonitor());
+		IMarker[] found = root.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+		assertEquals("3.0", 1, found.length);
+		assertEquals("3.1", moved, found[0].getResource());
+		assertEquals("3.2", problem.getId(), found[0].getId());
+
+		// deleted resources take their markers along
+		file2.delete(true, getMonitor());
+		assertEquals("4.0", new IMarker[0], root.findMarkers(IMarker.BOOKMARK, false, IResource.DEPTH_INFINITE));
+
+		// persistent markers are found again after reopening the project
+		IMarker persistent = moved.createMarker(IMarker.PROBLEM);
+		project.close(getMonitor());
+		assertEquals("5.0", 0, root.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE).length);
+		project.open(getMonitor());
+		found = project.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+		assertEquals("5.1", 1, found.length);
+		assertEquals("5.2", persistent.getId(), found[0].getId());
+		project.delete(true, getMonitor());
+	}
+
 	/*
 	 * Bug 35300 - ClassCastException if marker transient attribute is set to a non-boolean
 	 */
@@ -914,6 +1025,57 @@ public class MarkerTest extends ResourceTest {
 
 	}
 
+	/**
+	 * The subtree severity counters answering IResource#findMaxProblemSeverity
+	 * must follow severity changes, marker removal, moves, deletion and closing.
+	 */
+	public void testFindMaxProblemSeverityCounters() throws CoreException {
+		final IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject project = root.getProject("testFindMaxProblemSeverityCounters");
+		IFolder folder = project.getFolder("top");
+		IFolder other = project.getFolder("other");
+		IFile file = folder.getFile("a.txt");
+		ensureExistsInWorkspace(new IResource[] {project, folder, other, file}, true);
+
+		IMarker problem = file.createMarker(IMarker.PROBLEM);
+		assertEquals("1.0", -1, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		problem.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		assertEquals("1.1", IMarker.SEVERITY_WARNING, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		problem.setAttributes(new String[] {IMarker.SEVERITY, IMarker.MESSAGE}, new Object[] {IMarker.SEVERITY_ERROR, "error"});
+		assertEquals("1.2", IMarker.SEVERITY_ERROR, root.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("1.3", IMarker.SEVERITY_ERROR, folder.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("1.4", -1, other.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		IMarker info = file.createMarker(IMarker.PROBLEM, Collections.singletonMap(IMarker.SEVERITY, IMarker.SEVERITY_INFO));
+		problem.delete();
+		assertEquals("2.0", IMarker.SEVERITY_INFO, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		// severities outside the defined range are still found
+		info.setAttribute(IMarker.SEVERITY, 7);
+		assertEquals("3.0", 7, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		info.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		assertEquals("3.1", IMarker.SEVERITY_WARNING, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		// moving the file moves its severity to the new parent
+		file.move(other.getFile(file.getName()).getFullPath(), true, getMonitor());
+		assertEquals("4.0", -1, folder.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("4.1", IMarker.SEVERITY_WARNING, other.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("4.2", IMarker.SEVERITY_WARNING, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		// closing and reopening the project restores the counts
+		project.close(getMonitor());
+		assertEquals("5.0", -1, root.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		project.open(getMonitor());
+		assertEquals("5.1", IMarker.SEVERITY_WARNING, other.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("5.2", IMarker.SEVERITY_WARNING, root.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		// deleting the folder takes its markers along
+		other.delete(true, getMonitor());
+		assertEquals("6.0", -1, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("6.1", -1, root.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		project.delete(true, getMonitor());
+	}
+
 	/**
 	 * Tests public API method IMarker#isSubTypeOf
 	 */
@@ -1168,6 +1330,68 @@ public class MarkerTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests that the old attributes of changed markers are those before the first
+	 * change reported to a listener, also when the changes are recorded in
+	 * several batches.
+	 */
+	public void testMarkerDeltaBatches() throws CoreException {
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		boolean autoBuilding = description.isAutoBuilding();
+		description.setAutoBuilding(false);
+		getWorkspace().setDescription(description);
+		IMarker marker = resources[1].createMarker(IMarker.PROBLEM, Map.of(IMarker.PRIORITY, IMarker.PRIORITY_LOW));
+		Map<Integer, List<IMarkerDelta>> deltas = new HashMap<>();
+		IResourceChangeListener listener = event -> deltas.computeIfAbsent(event.getType(), type -> new ArrayList<>()).addAll(Arrays.asList(event.findMarkerDeltas(null, true)));
+		IResourceChangeListener changer = event -> {
+			try {
+				marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+			} catch (CoreException e) {
+				fail("0.0", e);
+			}
+		};
+		try {
+			// start the interval of the next POST_BUILD event
+			getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+			getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.POST_BUILD);
+
+			// several changes in one operation are one change of the original attributes
+			getWorkspace().run((IWorkspaceRunnable) monitor -> {
+				marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_NORMAL);
+				marker.setAttribute(IMarker.MESSAGE, "message");
+				marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+			}, getMonitor());
+			List<IMarkerDelta> changes = deltas.remove(IResourceChangeEvent.POST_CHANGE);
+			assertEquals("1.0", 1, changes.size());
+			assertEquals("1.1", IResourceDelta.CHANGED, changes.get(0).getKind());
+			assertEquals("1.2", IMarker.PRIORITY_LOW, changes.get(0).getAttribute(IMarker.PRIORITY, -1));
+			assertNull("1.3", changes.get(0).getAttribute(IMarker.MESSAGE));
+
+			// a change after the POST_CHANGE event is a fresh change
+			marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_NORMAL);
+			changes = deltas.remove(IResourceChangeEvent.POST_CHANGE);
+			assertEquals("2.0", 1, changes.size());
+			assertEquals("2.1", IMarker.PRIORITY_HIGH, changes.get(0).getAttribute(IMarker.PRIORITY, -1));
+			assertEquals("2.2", "message", changes.get(0).getAttribute(IMarker.MESSAGE));
+
+			// a change after the deltas of the PRE_BUILD event were assembled starts
+			// another batch, the POST_BUILD event merges all of them
+			getWorkspace().addResourceChangeListener(changer, IResourceChangeEvent.PRE_BUILD);
+			getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+			changes = deltas.remove(IResourceChangeEvent.POST_BUILD);
+			assertEquals("3.0", 1, changes.size());
+			assertEquals("3.1", IResourceDelta.CHANGED, changes.get(0).getKind());
+			assertEquals("3.2", IMarker.PRIORITY_LOW, changes.get(0).getAttribute(IMarker.PRIORITY, -1));
+			assertNull("3.3", changes.get(0).getAttribute(IMarker.MESSAGE));
+			assertEquals("3.4", IMarker.PRIORITY_HIGH, marker.getAttribute(IMarker.PRIORITY, -1));
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+			getWorkspace().removeResourceChangeListener(changer);
+			description.setAutoBuilding(autoBuilding);
+			getWorkspace().setDescription(description);
+		}
+	}
+
 	/**
 	 * Tests the appearance of marker changes in the resource delta.
 	 */
@@ -1702,6 +1926,117 @@ public class MarkerTest extends ResourceTest {
 		assertTrue("6.0", file.delete());
 	}
 
+	public void testReadMarkerFileFormats() throws Exception {
+		IProject project = getWorkspace().getRoot().getProject("testReadMarkerFileFormats");
+		IFile file = project.getFile("file.txt");
+		ensureExistsInWorkspace(new IResource[] {project, file}, true);
+		IMarker first = file.createMarker(IMarker.PROBLEM, Map.of(IMarker.MESSAGE, "first", IMarker.SEVERITY, IMarker.SEVERITY_ERROR));
+		IMarker second = file.createMarker(IMarker.PROBLEM, Map.of(IMarker.MESSAGE, "second", IMarker.LINE_NUMBER, 12));
+
+		// the current format writes every marker type and attribute key once
+		MarkerManager manager = ((Workspace) getWorkspace()).getMarkerManager();
+		File saved = getTempDir().append("markers4").toFile();
+		try (DataOutputStream output = new DataOutputStream(new FileOutputStream(saved))) {
+			IPathRequestor requestor = new IPathRequestor() {
+				@Override
+				public IPath requestPath() {
+					return file.getFullPath();
+				}
+
+				@Override
+				public String requestName() {
+					return file.getName();
+				}
+			};
+			manager.save(((Resource) file).getResourceInfo(false, false), requestor, output, new ArrayList<>());
+		}
+		String contents = new String(Files.readAllBytes(saved.toPath()), StandardCharsets.ISO_8859_1);
+		assertEquals("1.0", contents.indexOf(IMarker.MESSAGE), contents.lastIndexOf(IMarker.MESSAGE));
+		assertEquals("1.1", contents.indexOf(IMarker.PROBLEM), contents.lastIndexOf(IMarker.PROBLEM));
+		Map<IPath, MarkerSet> read = new HashMap<>();
+		new MarkerReader((Workspace) getWorkspace()).read(saved, read::put);
+		assertEquals("1.2", 2, read.get(file.getFullPath()).size());
+		MarkerInfo info = (MarkerInfo) read.get(file.getFullPath()).get(first.getId());
+		assertEquals("1.3", IMarker.PROBLEM, info.getType());
+		assertEquals("1.4", first.getAttributes(), info.getAttributes());
+		info = (MarkerInfo) read.get(file.getFullPath()).get(second.getId());
+		assertEquals("1.5", second.getAttributes(), info.getAttributes());
+		assertEquals("1.6", second.getCreationTime(), info.getCreationTime());
+
+		// files of the previous format can still be read
+		File previous = getTempDir().append("markers3").toFile();
+		try (DataOutputStream output = new DataOutputStream(new FileOutputStream(previous))) {
+			output.writeInt(3);
+			output.writeUTF(file.getFullPath().toString());
+			output.writeInt(1);
+			output.writeLong(42);
+			output.writeByte(2); // QNAME
+			output.writeUTF(IMarker.TASK);
+			output.writeShort(1);
+			output.writeUTF(IMarker.MESSAGE);
+			output.writeByte(3); // ATTRIBUTE_STRING
+			output.writeUTF("task");
+			output.writeLong(1000);
+		}
+		read.clear();
+		new MarkerReader((Workspace) getWorkspace()).read(previous, read::put);
+		info = (MarkerInfo) read.get(file.getFullPath()).get(42);
+		assertEquals("2.0", IMarker.TASK, info.getType());
+		assertEquals("2.1", "task", info.getAttribute(IMarker.MESSAGE));
+		assertEquals("2.2", 1000, info.getCreationTime());
+
+		assertTrue("3.0", saved.delete());
+		assertTrue("3.1", previous.delete());
+		project.delete(true, getMonitor());
+	}
+
+	public void testLazyMarkerRestore() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject("testLazyMarkerRestore");
+		IFile file = project.getFile("file.txt");
+		ensureExistsInWorkspace(new IResource[] {project, file}, true);
+		MarkerManager manager = ((Workspace) getWorkspace()).getMarkerManager();
+		IMarker warning = file.createMarker(IMarker.PROBLEM, Map.of(IMarker.SEVERITY, IMarker.SEVERITY_WARNING));
+		// transient markers are not saved and not counted by the summary
+		IMarker transientError = file.createMarker(IMarker.PROBLEM, Map.of(IMarker.SEVERITY, IMarker.SEVERITY_ERROR, IMarker.TRANSIENT, true));
+		getWorkspace().save(true, getMonitor());
+		assertTrue("1.0", manager.hasSummary(project));
+		// like a restart, which drops the transient markers
+		transientError.delete();
+		File markersFile = ((Workspace) getWorkspace()).getMetaArea().getMarkersLocationFor(project).toFile();
+		long markersModified = markersFile.lastModified();
+
+		// the maximum severity of the project is answered by the summary
+		getWorkspace().run(monitor -> assertTrue("2.0", manager.deferRestore(List.of(project)).isEmpty()), getWorkspace().getRoot(), IWorkspace.AVOID_UPDATE, getMonitor());
+		assertFalse("2.1", manager.isRestored(file));
+		assertEquals("2.2", IMarker.SEVERITY_WARNING, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("2.3", IMarker.SEVERITY_WARNING, getWorkspace().getRoot().findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertFalse("2.4", manager.isRestored(file));
+
+		// queries outside of operations read the markers without installing them
+		IMarker[] markers = file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		assertEquals("3.0", 1, markers.length);
+		assertEquals("3.1", warning, markers[0]);
+		assertEquals("3.2", IMarker.SEVERITY_WARNING, warning.getAttribute(IMarker.SEVERITY, -1));
+		assertEquals("3.3", 1, getWorkspace().getRoot().findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_INFINITE).length);
+		assertEquals("3.4", IMarker.SEVERITY_WARNING, file.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+		assertFalse("3.5", manager.isRestored(file));
+
+		// saving keeps the files of markers that were not installed
+		getWorkspace().save(true, getMonitor());
+		assertFalse("4.0", manager.isRestored(project));
+		assertTrue("4.1", manager.hasSummary(project));
+		assertEquals("4.2", markersModified, markersFile.lastModified());
+
+		// changing markers installs them first
+		IMarker error = file.createMarker(IMarker.PROBLEM, Map.of(IMarker.SEVERITY, IMarker.SEVERITY_ERROR));
+		assertTrue("5.0", manager.isRestored(project));
+		assertEquals("5.1", 2, file.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_ZERO).length);
+		assertTrue("5.2", warning.exists());
+		assertTrue("5.3", error.exists());
+		assertEquals("5.4", IMarker.SEVERITY_ERROR, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		project.delete(true, getMonitor());
+	}
+
 	public void testMarkerSaveTransient() {
 		debug("TestMarkerSaveTransient");
 
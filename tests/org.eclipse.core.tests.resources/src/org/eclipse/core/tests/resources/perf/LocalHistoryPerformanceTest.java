@@ -13,7 +13,9 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources.perf;
 
+import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.internal.localstore.IHistoryStore;
+import org.eclipse.core.internal.resources.Resource;
 import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.CoreException;
@@ -124,6 +126,57 @@ public class LocalHistoryPerformanceTest extends ResourceTest {
 		}.run(LocalHistoryPerformanceTest.this, 10, 30);
 	}
 
+	/**
+	 * Records and reads history from several threads at once, each thread
+	 * working on the files of its own folder.
+	 */
+	public void testConcurrentAddState() {
+		setMaxFileStates("0.01", 1000);
+		final int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+		final IProject project = getWorkspace().getRoot().getProject("proj1");
+		final IFile[][] files = new IFile[threadCount][10];
+		for (int i = 0; i < threadCount; i++) {
+			IFolder folder = project.getFolder("folder" + i);
+			for (int j = 0; j < files[i].length; j++) {
+				files[i][j] = folder.getFile("file" + j);
+			}
+			ensureExistsInWorkspace(files[i], true);
+		}
+		final IHistoryStore store = ((Workspace) getWorkspace()).getFileSystemManager().getHistoryStore();
+		new PerformanceTestRunner() {
+
+			@Override
+			protected void tearDown() {
+				store.remove(project.getFullPath(), getMonitor());
+			}
+
+			@Override
+			protected void test() {
+				Thread[] threads = new Thread[threadCount];
+				for (int i = 0; i < threadCount; i++) {
+					final IFile[] threadFiles = files[i];
+					threads[i] = new Thread(() -> {
+						for (int k = 0; k < 20; k++) {
+							for (IFile file : threadFiles) {
+								IFileStore fileStore = ((Resource) file).getStore();
+								store.addState(file.getFullPath(), fileStore, fileStore.fetchInfo(), false);
+								store.getStates(file.getFullPath(), getMonitor());
+							}
+						}
+					}, "LocalHistoryPerformanceTest" + i);
+					threads[i].start();
+				}
+				for (Thread thread : threads) {
+					try {
+						thread.join();
+					} catch (InterruptedException e) {
+						fail("1.0", e);
+					}
+				}
+			}
+		}.run(this, 5, 1);
+	}
+
 	public void testBug28603() {
 		final IProject project = getWorkspace().getRoot().getProject("myproject");
 		final IFolder folder1 = project.getFolder("myfolder1");
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources.perf;
 
+import java.util.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
@@ -72,6 +73,75 @@ public class MarkerPerformanceTest extends ResourceTest {
 		}.run(this, 1, 1);
 	}
 
+	public void testReplaceMarkers1() {
+		//benchmark replacing the problems of a file one marker at a time
+		final IWorkspaceRunnable runnable = monitor -> {
+			file.deleteMarkers(IMarker.PROBLEM, false, IResource.DEPTH_ZERO);
+			for (int i = 0; i < NUM_MARKERS; i++) {
+				file.createMarker(IMarker.PROBLEM, problemAttributes(i));
+			}
+		};
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					getWorkspace().run(runnable, null);
+				} catch (CoreException e) {
+					fail("2.0", e);
+				}
+			}
+		}.run(this, 1, 1);
+	}
+
+	public void testReplaceMarkers2() {
+		//benchmark replacing the problems of a file in a single bulk call
+		List<Map<String, Object>> attributes = new ArrayList<>(NUM_MARKERS);
+		for (int i = 0; i < NUM_MARKERS; i++) {
+			attributes.add(problemAttributes(i));
+		}
+		final Map<IResource, List<Map<String, Object>>> problems = Collections.singletonMap(file, attributes);
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					getWorkspace().replaceMarkers(IMarker.PROBLEM, false, problems);
+				} catch (CoreException e) {
+					fail("2.0", e);
+				}
+			}
+		}.run(this, 1, 1);
+	}
+
+	public void testRebuildMarkers() {
+		//benchmark recreating all markers of a file one at a time, each change copies the marker set
+		final IWorkspaceRunnable runnable = monitor -> {
+			for (int i = 0; i < NUM_MARKERS; i++) {
+				markers[i].delete();
+				markers[i] = file.createMarker(IMarker.BOOKMARK);
+			}
+		};
+		PerformanceTestRunner runner = new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					getWorkspace().run(runnable, null);
+				} catch (CoreException e) {
+					fail("2.0", e);
+				}
+			}
+		};
+		runner.setFingerprintName("Rebuild markers");
+		runner.run(this, 1, 1);
+	}
+
+	private Map<String, Object> problemAttributes(int line) {
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		attributes.put(IMarker.LINE_NUMBER, line);
+		attributes.put(IMarker.MESSAGE, "problem");
+		return attributes;
+	}
+
 	/**
 	 * @see ResourceTest#setUp()
 	 */
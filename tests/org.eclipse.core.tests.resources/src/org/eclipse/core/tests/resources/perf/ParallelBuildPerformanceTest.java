@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.perf;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.core.tests.internal.builders.DeclaredRuleBuilder;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Builds independent projects whose builders declare project scheduling rules,
+ * with as many concurrent builds as there are processors.
+ */
+public class ParallelBuildPerformanceTest extends ResourceTest {
+	private static final int BUILD_DURATION = 200;
+	private static final int CORES = Runtime.getRuntime().availableProcessors();
+	private static final int PROJECT_COUNT = 2 * Math.max(2, CORES);
+
+	private IWorkspaceDescription originalDescription;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		originalDescription = getWorkspace().getDescription();
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		description.setAutoBuilding(false);
+		getWorkspace().setDescription(description);
+		for (int i = 0; i < PROJECT_COUNT; i++) {
+			IProject project = getWorkspace().getRoot().getProject("Project" + i);
+			ensureExistsInWorkspace(project, true);
+			IProjectDescription projectDescription = project.getDescription();
+			ICommand command = projectDescription.newCommand();
+			command.setBuilderName(DeclaredRuleBuilder.PROJECT_RULE_BUILDER_NAME);
+			Map<String, String> args = new HashMap<>();
+			args.put(DeclaredRuleBuilder.DURATION_ARG, Integer.toString(BUILD_DURATION));
+			command.setArguments(args);
+			projectDescription.setBuildSpec(new ICommand[] {command});
+			project.setDescription(projectDescription, getMonitor());
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getWorkspace().setDescription(originalDescription);
+		getWorkspace().getRoot().delete(true, null);
+		DeclaredRuleBuilder.reset();
+		super.tearDown();
+	}
+
+	private void setMaxConcurrentBuilds(int count) throws CoreException {
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		description.setMaxConcurrentBuilds(count);
+		getWorkspace().setDescription(description);
+	}
+
+	public void testParallelFullBuild() throws CoreException {
+		setMaxConcurrentBuilds(CORES);
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+				} catch (CoreException e) {
+					fail("1.0", e);
+				}
+			}
+		}.run(this, 5, 1);
+	}
+
+	/**
+	 * Builds with as many concurrent builds as there are processors, at least two,
+	 * overlap the builds of the projects.
+	 */
+	public void testConcurrentBuilds() throws CoreException {
+		setMaxConcurrentBuilds(1);
+		getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		assertEquals("1.0", PROJECT_COUNT, DeclaredRuleBuilder.getTotalBuilds());
+		assertEquals("1.1", 1, DeclaredRuleBuilder.getMaxSimultaneousBuilds());
+		DeclaredRuleBuilder.reset();
+		setMaxConcurrentBuilds(Math.max(2, CORES));
+		getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		assertEquals("2.0", PROJECT_COUNT, DeclaredRuleBuilder.getTotalBuilds());
+		assertTrue("2.1", DeclaredRuleBuilder.getMaxSimultaneousBuilds() >= 2);
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.session;
+
+import java.util.List;
+import java.util.Map;
+import junit.framework.Test;
+import org.eclipse.core.internal.events.BuilderPersistentInfo;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.tests.internal.builders.TimerBuilder;
+import org.eclipse.core.tests.resources.AutomatedTests;
+import org.eclipse.core.tests.session.WorkspaceSessionTestSuite;
+
+/**
+ * Tests that the estimated build durations of builders are saved with the
+ * workspace tree and read back after a restart.
+ */
+public class TestBuildDurationSerialization extends WorkspaceSerializationTest {
+	private static final int BUILD_DURATION = 200;
+
+	private long getBuildDuration(IProject project) throws CoreException {
+		List<BuilderPersistentInfo> infos = ((Workspace) getWorkspace()).getBuildManager().getBuildersPersistentInfo(project);
+		assertNotNull("0.0", infos);
+		assertEquals("0.1", 1, infos.size());
+		return infos.get(0).getBuildDuration();
+	}
+
+	/**
+	 * Create a project with a builder, build it and save.
+	 */
+	public void test1() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(PROJECT);
+		ensureExistsInWorkspace(project, true);
+		IWorkspaceDescription description = workspace.getDescription();
+		description.setAutoBuilding(false);
+		workspace.setDescription(description);
+
+		IProjectDescription projectDescription = project.getDescription();
+		ICommand command = projectDescription.newCommand();
+		command.setBuilderName(TimerBuilder.BUILDER_NAME);
+		command.setArguments(Map.of(TimerBuilder.DURATION_ARG, Integer.toString(BUILD_DURATION), TimerBuilder.RULE_TYPE_ARG, TimerBuilder.RuleType.NO_CONFLICT.toString()));
+		projectDescription.setBuildSpec(new ICommand[] {command});
+		project.setDescription(projectDescription, getMonitor());
+
+		workspace.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		workspace.save(true, getMonitor());
+	}
+
+	/**
+	 * The duration is read back, and saved again although the builder was not
+	 * instantiated in this session.
+	 */
+	public void test2() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(PROJECT);
+		assertTrue("1.0", getBuildDuration(project) >= BUILD_DURATION);
+		workspace.save(true, getMonitor());
+	}
+
+	public void test3() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(PROJECT);
+		assertTrue("1.0", getBuildDuration(project) >= BUILD_DURATION);
+	}
+
+	public static Test suite() {
+		return new WorkspaceSessionTestSuite(AutomatedTests.PI_RESOURCES_TESTS, TestBuildDurationSerialization.class);
+	}
+}
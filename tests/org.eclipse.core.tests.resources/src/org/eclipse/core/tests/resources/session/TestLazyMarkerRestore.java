@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import junit.framework.Test;
+import org.eclipse.core.internal.resources.MarkerManager;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.tests.resources.AutomatedTests;
+import org.eclipse.core.tests.session.SetupManager.SetupException;
+import org.eclipse.core.tests.session.WorkspaceSessionTestSuite;
+
+/**
+ * Tests that the markers of projects are read on first access after a restart
+ * with lazy marker restore, and that saving keeps the markers that were not
+ * read.
+ */
+public class TestLazyMarkerRestore extends WorkspaceSerializationTest {
+
+	private MarkerManager getMarkerManager() {
+		return ((Workspace) getWorkspace()).getMarkerManager();
+	}
+
+	public void test1() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(PROJECT);
+		IFile file = project.getFile(FILE);
+		ensureExistsInWorkspace(new IResource[] {project, file}, true);
+		file.createMarker(IMarker.PROBLEM, Map.of(IMarker.SEVERITY, IMarker.SEVERITY_WARNING));
+		file.createMarker(IMarker.PROBLEM, Map.of(IMarker.SEVERITY, IMarker.SEVERITY_ERROR));
+		workspace.save(true, getMonitor());
+	}
+
+	public void test2() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(PROJECT);
+		IFile file = project.getFile(FILE);
+		MarkerManager manager = getMarkerManager();
+		assertFalse("1.0", manager.isRestored(project));
+
+		// queries are answered without installing the markers
+		assertEquals("2.0", IMarker.SEVERITY_ERROR, getWorkspace().getRoot().findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("2.1", 2, getWorkspace().getRoot().findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE).length);
+		IMarker[] markers = file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		assertEquals("2.2", 2, markers.length);
+		assertTrue("2.3", markers[0].exists());
+		assertEquals("2.4", IMarker.SEVERITY_ERROR, file.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+		assertFalse("2.5", manager.isRestored(project));
+
+		// the first save after the restart keeps the markers as they were read
+		workspace.save(true, getMonitor());
+		assertFalse("3.0", manager.isRestored(project));
+		assertTrue("3.1", manager.hasSummary(project));
+	}
+
+	public void test3() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(PROJECT);
+		IFile file = project.getFile(FILE);
+		MarkerManager manager = getMarkerManager();
+		assertFalse("1.0", manager.isRestored(project));
+		assertEquals("1.1", 2, getWorkspace().getRoot().findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE).length);
+
+		// installing the markers is not reported as a change, only the new marker is
+		List<IMarkerDelta> deltas = new ArrayList<>();
+		IResourceChangeListener listener = event -> deltas.addAll(List.of(event.findMarkerDeltas(null, true)));
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			IMarker info = file.createMarker(IMarker.PROBLEM, Map.of(IMarker.SEVERITY, IMarker.SEVERITY_INFO));
+			assertTrue("2.0", manager.isRestored(project));
+			assertEquals("2.1", 1, deltas.size());
+			assertEquals("2.2", IResourceDelta.ADDED, deltas.get(0).getKind());
+			assertEquals("2.3", info.getId(), deltas.get(0).getId());
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+		}
+		assertEquals("3.0", 3, file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO).length);
+		workspace.save(true, getMonitor());
+	}
+
+	public void test4() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(PROJECT);
+		assertFalse("1.0", getMarkerManager().isRestored(project));
+
+		// moving a project moves its markers even if they were not read yet
+		IProject destination = getWorkspace().getRoot().getProject(PROJECT + "2");
+		project.move(destination.getFullPath(), true, getMonitor());
+		assertEquals("2.0", 3, destination.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE).length);
+		assertEquals("2.1", IMarker.SEVERITY_ERROR, destination.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		workspace.save(true, getMonitor());
+	}
+
+	public static Test suite() {
+		WorkspaceSessionTestSuite suite = new WorkspaceSessionTestSuite(AutomatedTests.PI_RESOURCES_TESTS, TestLazyMarkerRestore.class);
+		try {
+			suite.getSetup().setSystemProperty("org.eclipse.core.resources.lazyMarkerRestore", "true");
+		} catch (SetupException e) {
+			// ignore, the test will fail for us
+		}
+		return suite;
+	}
+}